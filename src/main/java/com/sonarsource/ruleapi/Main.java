@@ -15,6 +15,7 @@ import com.sonarsource.ruleapi.externalspecifications.AbstractReportableStandard
 import com.sonarsource.ruleapi.externalspecifications.ReportType;
 import com.sonarsource.ruleapi.externalspecifications.Standard;
 import com.sonarsource.ruleapi.externalspecifications.SupportedStandard;
+import com.sonarsource.ruleapi.get.RspecMirror;
 import com.sonarsource.ruleapi.services.IntegrityEnforcementService;
 import com.sonarsource.ruleapi.services.ReportService;
 import com.sonarsource.ruleapi.services.RuleManager;
@@ -23,7 +24,9 @@ import com.sonarsource.ruleapi.utilities.Language;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -67,8 +70,40 @@ public class Main {
       return;
     }
 
-    for (Option option : options) {
-      doRequestedOption(option, settings);
+    Map<String, String> previousValues = new HashMap<>();
+    for (Map.Entry<String, String> property : getMirrorProperties(settings).entrySet()) {
+      previousValues.put(property.getKey(), System.setProperty(property.getKey(), property.getValue()));
+    }
+    try {
+      for (Option option : options) {
+        doRequestedOption(option, settings);
+      }
+    } finally {
+      for (Map.Entry<String, String> previousValue : previousValues.entrySet()) {
+        restoreProperty(previousValue.getKey(), previousValue.getValue());
+      }
+    }
+  }
+
+  /**
+   * The local copy of RSPEC is only used when asked for, with <code>-mirror</code> or <code>-offline</code>.
+   */
+  static Map<String, String> getMirrorProperties(Settings settings) {
+    Map<String, String> properties = new HashMap<>();
+    if (settings.mirrorDir != null) {
+      properties.put(RspecMirror.DIR_PROPERTY, settings.mirrorDir);
+    }
+    if (settings.offline) {
+      properties.put(RspecMirror.OFFLINE_PROPERTY, Boolean.TRUE.toString());
+    }
+    return properties;
+  }
+
+  private static void restoreProperty(String name, String previousValue) {
+    if (previousValue == null) {
+      System.clearProperty(name);
+    } else {
+      System.setProperty(name, previousValue);
     }
   }
 
@@ -84,6 +119,11 @@ public class Main {
     sb.append("Additional parameters can be used with 'init':\n");
     sb.append("  -preserve-filenames : Use the rule keys provided by \"-rule\" to construct the name of output files, this allow to use legacy keys.\n");
     sb.append("  -no-language-in-filenames : do not include language in file name (ex: \"S123.json\" instead of \"S123_java.json\"\n");
+    sb.append("\n");
+    sb.append("Parameters available with every option:\n");
+    sb.append("  -mirror : keep a local copy of RSPEC in this directory, refreshed incrementally on each run\n");
+    sb.append("  -offline : use the local copy of RSPEC as is, without contacting Jira (default directory: ")
+      .append(RspecMirror.getDefaultDirectory()).append(")\n");
     System.out.println(sb.toString());
   }
 
@@ -225,6 +265,12 @@ public class Main {
     @Parameter(names = "-no-language-in-filenames")
     private boolean noLanguageInFilenames = false;
 
+    @Parameter(names = "-mirror")
+    private String mirrorDir;
+
+    @Parameter(names = "-offline")
+    private boolean offline = false;
+
     // for the purpose of testing
     @Parameter(names = "-baseDir", hidden = true)
     private String baseDir = ".";
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2014-2018 SonarSource SA
+ * All rights reserved
+ * mailto:info AT sonarsource DOT com
+ */
+package com.sonarsource.ruleapi.domain;
+
+import com.sonarsource.ruleapi.utilities.Language;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable coverage of a standard, as computed for one SonarQube instance and one language.
+ * Maps each id of the standard to its {@link CodingStandardRuleCoverage} record, in the
+ * iteration order of the map it was built from.
+ */
+public class CodingStandardCoverage {
+
+  private final String instance;
+  private final Language language;
+  private final Map<String, CodingStandardRuleCoverage> rulesCoverage;
+
+  /**
+   * @param instance the SonarQube instance the implementations were read from, <code>null</code> for specifications only
+   * @param language the language covered, <code>null</code> for all of them
+   * @param rulesCoverage the records to copy, by id of the standard
+   */
+  public CodingStandardCoverage(@Nullable String instance, @Nullable Language language, Map<String, CodingStandardRuleCoverage> rulesCoverage) {
+
+    this.instance = instance;
+    this.language = language;
+
+    Map<String, CodingStandardRuleCoverage> copy = new LinkedHashMap<>();
+    for (Map.Entry<String, CodingStandardRuleCoverage> entry : rulesCoverage.entrySet()) {
+      copy.put(entry.getKey(), entry.getValue().unmodifiableCopy());
+    }
+    this.rulesCoverage = Collections.unmodifiableMap(copy);
+  }
+
+  @CheckForNull
+  public String getInstance() {
+    return instance;
+  }
+
+  @CheckForNull
+  public Language getLanguage() {
+    return language;
+  }
+
+  public Map<String, CodingStandardRuleCoverage> getRulesCoverage() {
+    return rulesCoverage;
+  }
+
+  /**
+   * @return the number of ids specified by at least one RSpec
+   */
+  public int getSpecifiedCount() {
+
+    int count = 0;
+    for (CodingStandardRuleCoverage csrc : rulesCoverage.values()) {
+      if (!csrc.getSpecifiedBy().isEmpty()) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * @return the number of ids implemented by at least one rule
+   */
+  public int getImplementedCount() {
+
+    int count = 0;
+    for (CodingStandardRuleCoverage csrc : rulesCoverage.values()) {
+      if (!csrc.getImplementedBy().isEmpty()) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
@@ -8,6 +8,7 @@ package com.sonarsource.ruleapi.domain;
 import com.sonarsource.ruleapi.utilities.Utilities;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -60,6 +61,18 @@ public class CodingStandardRuleCoverage {
     implementedBy.add(rule);
   }
 
+  /**
+   * @return a copy of this record whose rule lists can't be modified
+   */
+  public CodingStandardRuleCoverage unmodifiableCopy() {
+
+    CodingStandardRuleCoverage copy = new CodingStandardRuleCoverage();
+    copy.codingStandardRuleId = codingStandardRuleId;
+    copy.specifiedBy = Collections.unmodifiableList(new ArrayList<>(specifiedBy));
+    copy.implementedBy = Collections.unmodifiableList(new ArrayList<>(implementedBy));
+    return copy;
+  }
+
   protected String getRuleKeysAsString(List<Rule> rules) {
 
     List<String> ids = new ArrayList<>(rules.size());
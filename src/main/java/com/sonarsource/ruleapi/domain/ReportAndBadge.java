@@ -5,19 +5,46 @@
  */
 package com.sonarsource.ruleapi.domain;
 
+import com.google.common.base.Strings;
+import com.sonarsource.ruleapi.externalspecifications.ReportRenderer;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+/**
+ * The report is held as a {@link ReportRenderer}, and only rendered when written.
+ */
 public class ReportAndBadge {
 
-  private String report;
+  private ReportRenderer reportRenderer;
   private String badge;
 
+  /**
+   * @return the report rendered in memory, empty if there is none. The report is not kept, so it is
+   * rendered again on each call
+   */
   public String getReport() {
 
-    return report;
+    return reportRenderer == null ? "" : reportRenderer.render();
+  }
+
+  public void setReport(@Nullable String report) {
+
+    this.reportRenderer = Strings.isNullOrEmpty(report) ? null : out -> out.append(report);
+  }
+
+  /**
+   * @return the report, <code>null</code> if there is none
+   */
+  @CheckForNull
+  public ReportRenderer getReportRenderer() {
+
+    return reportRenderer;
   }
 
-  public void setReport(String report) {
+  public void setReportRenderer(@Nullable ReportRenderer reportRenderer) {
 
-    this.report = report;
+    this.reportRenderer = reportRenderer;
   }
 
   public String getBadge() {
@@ -6,6 +6,8 @@
 package com.sonarsource.ruleapi.domain;
 
 import com.google.common.base.Strings;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -98,6 +100,8 @@ public class Rule {
     }
   }
 
+  private static final Supplier<String> EMPTY = Suppliers.ofInstance("");
+
   private final String language;
   private String key = null;
   private String lookupKey = null;
@@ -118,14 +122,15 @@ public class Rule {
   private String title = null;
   private String message = null;
   private String fullDescription = null;
-  private String description = "";
-  private String nonCompliant = "";
-  private String compliant = "";
-  private String exceptions = "";
-  private String askYourself = "";
-  private String recommended = "";
-  private String references = "";
-  private String deprecation = "";
+  // HTML of the description sections, possibly converted on first read
+  private Supplier<String> description = EMPTY;
+  private Supplier<String> nonCompliant = EMPTY;
+  private Supplier<String> compliant = EMPTY;
+  private Supplier<String> exceptions = EMPTY;
+  private Supplier<String> askYourself = EMPTY;
+  private Supplier<String> recommended = EMPTY;
+  private Supplier<String> references = EMPTY;
+  private Supplier<String> deprecation = EMPTY;
 
   private RemediationFunction remediationFunction = null;
   private String constantCostOrLinearThreshold = null;
@@ -167,6 +172,68 @@ public class Rule {
     this.language = language;
   }
 
+  /**
+   * Copy of a rule for another language. Collections are copied, so that each rule can be changed on its own.
+   */
+  public Rule(String language, Rule rule) {
+    this.language = language;
+    this.key = rule.key;
+    this.lookupKey = rule.lookupKey;
+    this.repo = rule.repo;
+    this.status = rule.status;
+    this.type = rule.type;
+    this.replacementLinks = new ArrayList<>(rule.replacementLinks);
+    this.severity = rule.severity;
+    this.template = rule.template;
+    this.keyOfTemplate = rule.keyOfTemplate;
+    this.legacyKeys = new ArrayList<>(rule.legacyKeys);
+    this.sqKey = rule.sqKey;
+    this.defaultProfiles = new HashSet<>(rule.defaultProfiles);
+    this.title = rule.title;
+    this.message = rule.message;
+    this.fullDescription = rule.fullDescription;
+    this.description = rule.description;
+    this.nonCompliant = rule.nonCompliant;
+    this.compliant = rule.compliant;
+    this.exceptions = rule.exceptions;
+    this.askYourself = rule.askYourself;
+    this.recommended = rule.recommended;
+    this.references = rule.references;
+    this.deprecation = rule.deprecation;
+    this.remediationFunction = rule.remediationFunction;
+    this.constantCostOrLinearThreshold = rule.constantCostOrLinearThreshold;
+    this.linearArgDesc = rule.linearArgDesc;
+    this.linearFactor = rule.linearFactor;
+    this.linearOffset = rule.linearOffset;
+    this.parameterList = new ArrayList<>(rule.parameterList);
+    this.tags = new HashSet<>(rule.tags);
+    this.targetedLanguages = new HashSet<>(rule.targetedLanguages);
+    this.coveredLanguages = new HashSet<>(rule.coveredLanguages);
+    this.irrelevantLanguages = new HashSet<>(rule.irrelevantLanguages);
+    this.scope = rule.scope;
+    this.cwe = new ArrayList<>(rule.cwe);
+    this.cert = new ArrayList<>(rule.cert);
+    this.esLint = new ArrayList<>(rule.esLint);
+    this.cppCheck = new ArrayList<>(rule.cppCheck);
+    this.misraC12 = new ArrayList<>(rule.misraC12);
+    this.misraC04 = new ArrayList<>(rule.misraC04);
+    this.misraCpp = new ArrayList<>(rule.misraCpp);
+    this.findbugs = new ArrayList<>(rule.findbugs);
+    this.fbContrib = new ArrayList<>(rule.fbContrib);
+    this.findSecBugs = new ArrayList<>(rule.findSecBugs);
+    this.owasp = new ArrayList<>(rule.owasp);
+    this.sansTop25 = new ArrayList<>(rule.sansTop25);
+    this.pmd = new ArrayList<>(rule.pmd);
+    this.checkstyle = new ArrayList<>(rule.checkstyle);
+    this.phpFig = new ArrayList<>(rule.phpFig);
+    this.resharper = new ArrayList<>(rule.resharper);
+    this.pylint = new ArrayList<>(rule.pylint);
+    this.fxCop = new ArrayList<>(rule.fxCop);
+    this.pcLint = new ArrayList<>(rule.pcLint);
+    this.msftRoslyn = new ArrayList<>(rule.msftRoslyn);
+    this.swiftLint = new ArrayList<>(rule.swiftLint);
+  }
+
   public void merge(Rule subRule) {
     if (subRule.title == null) {
       return;
@@ -253,31 +320,32 @@ public class Rule {
   }
 
   private void mergeDescriptionPieces(Rule subRule) {
-    if (!Strings.isNullOrEmpty(subRule.description)) {
+    if (!Strings.isNullOrEmpty(subRule.getDescription())) {
       this.description = subRule.description;
     }
-    if (!Strings.isNullOrEmpty(subRule.nonCompliant)) {
+    if (!Strings.isNullOrEmpty(subRule.getNonCompliant())) {
       this.nonCompliant = subRule.nonCompliant;
     }
-    if (!Strings.isNullOrEmpty(subRule.compliant)) {
+    if (!Strings.isNullOrEmpty(subRule.getCompliant())) {
       this.compliant = subRule.compliant;
     }
-    if (!Strings.isNullOrEmpty(subRule.exceptions)) {
+    if (!Strings.isNullOrEmpty(subRule.getExceptions())) {
       this.exceptions = subRule.exceptions;
     }
-    if (!Strings.isNullOrEmpty(subRule.askYourself)) {
+    if (!Strings.isNullOrEmpty(subRule.getAskYourself())) {
       this.askYourself = subRule.askYourself;
     }
-    if (!Strings.isNullOrEmpty(subRule.recommended)) {
+    if (!Strings.isNullOrEmpty(subRule.getRecommended())) {
       this.recommended = subRule.recommended;
     }
-    if (!Strings.isNullOrEmpty(subRule.references)) {
+    if (!Strings.isNullOrEmpty(subRule.getReferences())) {
       this.references = subRule.references;
     }
   }
 
   public String getHtmlDescription() {
-    return description + askYourself + recommended + nonCompliant + compliant + exceptions + references + deprecation;
+    return getDescription() + getAskYourself() + getRecommended() + getNonCompliant() + getCompliant() + getExceptions()
+      + getReferences() + getDeprecation();
   }
 
   public String getKey() {
@@ -403,59 +471,108 @@ public class Rule {
   }
 
   public String getDescription() {
-    return description;
+    return description.get();
   }
 
   public void setDescription(String description) {
-    this.description = description;
+    this.description = Suppliers.ofInstance(description);
+  }
+
+  /**
+   * Sets the HTML of the section as computed by the supplier, on first read.
+   */
+  public void setDescription(Supplier<String> description) {
+    this.description = Suppliers.memoize(description);
   }
 
   public String getNonCompliant() {
-    return nonCompliant;
+    return nonCompliant.get();
   }
 
   public void setNonCompliant(String nonCompliant) {
-    this.nonCompliant = nonCompliant;
+    this.nonCompliant = Suppliers.ofInstance(nonCompliant);
+  }
+
+  /**
+   * Sets the HTML of the section as computed by the supplier, on first read.
+   */
+  public void setNonCompliant(Supplier<String> nonCompliant) {
+    this.nonCompliant = Suppliers.memoize(nonCompliant);
   }
 
   public String getCompliant() {
-    return compliant;
+    return compliant.get();
   }
 
   public void setCompliant(String compliant) {
-    this.compliant = compliant;
+    this.compliant = Suppliers.ofInstance(compliant);
+  }
+
+  /**
+   * Sets the HTML of the section as computed by the supplier, on first read.
+   */
+  public void setCompliant(Supplier<String> compliant) {
+    this.compliant = Suppliers.memoize(compliant);
   }
 
   public String getExceptions() {
-    return exceptions;
+    return exceptions.get();
   }
 
   public void setExceptions(String exceptions) {
-    this.exceptions = exceptions;
+    this.exceptions = Suppliers.ofInstance(exceptions);
+  }
+
+  /**
+   * Sets the HTML of the section as computed by the supplier, on first read.
+   */
+  public void setExceptions(Supplier<String> exceptions) {
+    this.exceptions = Suppliers.memoize(exceptions);
   }
 
   public String getAskYourself() {
-    return askYourself;
+    return askYourself.get();
   }
 
   public void setAskYourself(String askYourself) {
-    this.askYourself = askYourself;
+    this.askYourself = Suppliers.ofInstance(askYourself);
+  }
+
+  /**
+   * Sets the HTML of the section as computed by the supplier, on first read.
+   */
+  public void setAskYourself(Supplier<String> askYourself) {
+    this.askYourself = Suppliers.memoize(askYourself);
   }
 
   public String getRecommended() {
-    return recommended;
+    return recommended.get();
   }
 
   public void setRecommended(String recommended) {
-    this.recommended = recommended;
+    this.recommended = Suppliers.ofInstance(recommended);
+  }
+
+  /**
+   * Sets the HTML of the section as computed by the supplier, on first read.
+   */
+  public void setRecommended(Supplier<String> recommended) {
+    this.recommended = Suppliers.memoize(recommended);
   }
 
   public String getReferences() {
-    return references;
+    return references.get();
   }
 
   public void setReferences(String references) {
-    this.references = references;
+    this.references = Suppliers.ofInstance(references);
+  }
+
+  /**
+   * Sets the HTML of the section as computed by the supplier, on first read.
+   */
+  public void setReferences(Supplier<String> references) {
+    this.references = Suppliers.memoize(references);
   }
 
   public String getLanguage() {
@@ -693,13 +810,18 @@ public class Rule {
   }
 
   public String getDeprecation() {
-
-    return deprecation;
+    return deprecation.get();
   }
 
   public void setDeprecation(String deprecation) {
+    this.deprecation = Suppliers.ofInstance(deprecation);
+  }
 
-    this.deprecation = deprecation;
+  /**
+   * Sets the HTML of the section as computed by the supplier, on first read.
+   */
+  public void setDeprecation(Supplier<String> deprecation) {
+    this.deprecation = Suppliers.memoize(deprecation);
   }
 
   public List<String> getFbContrib() {
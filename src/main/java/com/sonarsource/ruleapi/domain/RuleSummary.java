@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2014-2018 SonarSource SA
+ * All rights reserved
+ * mailto:info AT sonarsource DOT com
+ */
+package com.sonarsource.ruleapi.domain;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The few language-neutral fields of an RSPEC read by the reports and integrity passes which only
+ * reference rules: key, title, status, type, languages, tags and the requested reference fields.
+ * Unlike a {@link Rule}, it is made without parsing the description nor fetching any subtask.
+ */
+public class RuleSummary {
+
+  private String key = null;
+  private String title = null;
+  private Rule.Status status = null;
+  private Rule.Type type = Rule.Type.CODE_SMELL;
+
+  private Set<String> targetedLanguages = new HashSet<>();
+  private Set<String> coveredLanguages = new HashSet<>();
+  private Set<String> irrelevantLanguages = new HashSet<>();
+  private Set<String> tags = new HashSet<>();
+
+  private Map<String, List<String>> referenceFieldValues = new HashMap<>();
+
+  public String getKey() {
+    return key;
+  }
+
+  public void setKey(String key) {
+    this.key = key;
+  }
+
+  public String getTitle() {
+    return title;
+  }
+
+  public void setTitle(String title) {
+    this.title = title;
+  }
+
+  public Rule.Status getStatus() {
+    return status;
+  }
+
+  public void setStatus(Rule.Status status) {
+    this.status = status;
+  }
+
+  public Rule.Type getType() {
+    return type;
+  }
+
+  public void setType(Rule.Type type) {
+    this.type = type;
+  }
+
+  public Set<String> getTargetedLanguages() {
+    return targetedLanguages;
+  }
+
+  public void setTargetedLanguages(Set<String> targetedLanguages) {
+    this.targetedLanguages = targetedLanguages;
+  }
+
+  public Set<String> getCoveredLanguages() {
+    return coveredLanguages;
+  }
+
+  public void setCoveredLanguages(Set<String> coveredLanguages) {
+    this.coveredLanguages = coveredLanguages;
+  }
+
+  public Set<String> getIrrelevantLanguages() {
+    return irrelevantLanguages;
+  }
+
+  public void setIrrelevantLanguages(Set<String> irrelevantLanguages) {
+    this.irrelevantLanguages = irrelevantLanguages;
+  }
+
+  public Set<String> getTags() {
+    return tags;
+  }
+
+  public void setTags(Set<String> tags) {
+    this.tags = tags;
+  }
+
+  /**
+   * The values of a reference field ("CWE", "MISRA C 2012"...), empty if the field wasn't requested.
+   */
+  public List<String> getReferenceFieldValues(String fieldName) {
+    List<String> values = referenceFieldValues.get(fieldName);
+    return values == null ? Collections.<String>emptyList() : values;
+  }
+
+  public void setReferenceFieldValues(String fieldName, List<String> values) {
+    referenceFieldValues.put(fieldName, values);
+  }
+}
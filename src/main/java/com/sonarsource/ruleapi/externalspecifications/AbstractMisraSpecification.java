@@ -5,6 +5,7 @@
  */
 package com.sonarsource.ruleapi.externalspecifications;
 
+import com.sonarsource.ruleapi.domain.CodingStandardCoverage;
 import com.sonarsource.ruleapi.domain.CodingStandardRuleCoverage;
 import com.sonarsource.ruleapi.domain.Rule;
 import com.sonarsource.ruleapi.services.ReportService;
@@ -33,12 +34,7 @@ public abstract class AbstractMisraSpecification extends AbstractReportableStand
           "<p>The following table lists the %2$s standard items %1$s is able to detect, " +
           "and for each of them, the rules providing this coverage.</p>";
 
-  protected int mandatoryRulesImplemented = 0;
-  protected int mandatoryRulesNotImplementable = 0;
   private int mandatoryRulesToCover = 0;
-
-  protected int optionalRulesImplemented = 0;
-  protected int optionalRulesNotImplementable = 0;
   private int optionalRulesToCover = 0;
 
   private CodingStandardRequirableRule [] codingStandardRequirableRules = {};
@@ -79,10 +75,11 @@ public abstract class AbstractMisraSpecification extends AbstractReportableStand
 
   @Override
   public String getBadgeValue(String instance) {
-    initCoverageResults(instance);
-    computeCoverage();
+    return getBadgeValue(getCoverage(instance));
+  }
 
-    return Integer.toString(mandatoryRulesImplemented + optionalRulesImplemented);
+  public String getBadgeValue(CodingStandardCoverage coverage) {
+    return Integer.toString(countImplemented(coverage, true) + countImplemented(coverage, false));
   }
 
   public CodingStandardRule getCodingStandardRuleFromId(String id) {
@@ -115,29 +112,26 @@ public abstract class AbstractMisraSpecification extends AbstractReportableStand
 
   @Override
   public String getHtmlReport(String instance) {
+    return getHtmlReport(getCoverage(instance));
+  }
 
-    initCoverageResults(instance);
-    computeCoverage();
-    return generateHtmlReport(instance);
+  public String getHtmlReport(CodingStandardCoverage coverage) {
+    return generateHtmlReport(coverage);
   }
 
   @Override
-  public String getReport(String instance) {
-
-    initCoverageResults(instance);
-    computeCoverage();
-    return generateReport();
+  public String getReport(CodingStandardCoverage coverage) {
+    return generateReport(coverage);
   }
 
   @Override
-  public String getSummaryReport(String instance) {
-
-    initCoverageResults(instance);
-    computeCoverage();
-    return generateSummary();
+  public String getSummaryReport(CodingStandardCoverage coverage) {
+    return generateSummary(coverage);
   }
 
-  private final String generateSummary() {
+  private final String generateSummary(CodingStandardCoverage coverage) {
+    int mandatoryRulesImplemented = countImplemented(coverage, true);
+    int optionalRulesImplemented = countImplemented(coverage, false);
     int totalRulesImplemented = mandatoryRulesImplemented + optionalRulesImplemented;
 
     StringBuilder buff = new StringBuilder();
@@ -162,7 +156,7 @@ public abstract class AbstractMisraSpecification extends AbstractReportableStand
     return buff.toString();
   }
 
-  private final String generateReport() {
+  private final String generateReport(CodingStandardCoverage coverage) {
     StringBuilder buff = new StringBuilder();
     String na = "NA\t";
     String indent = "\t";
@@ -170,7 +164,7 @@ public abstract class AbstractMisraSpecification extends AbstractReportableStand
 
     for (CodingStandardRule rule : getCodingStandardRules()) {
       String ruleId = rule.getCodingStandardRuleId();
-      CodingStandardRuleCoverage coverage = getRulesCoverage().get(ruleId);
+      CodingStandardRuleCoverage ruleCoverage = coverage.getRulesCoverage().get(ruleId);
 
       buff.append(ruleId);
 
@@ -181,19 +175,19 @@ public abstract class AbstractMisraSpecification extends AbstractReportableStand
       } else {
 
         String tmp = na;
-        if (!coverage.getSpecifiedBy().isEmpty()) {
-          tmp = coverage.getSpecifiedByKeysAsCommaList();
+        if (!ruleCoverage.getSpecifiedBy().isEmpty()) {
+          tmp = ruleCoverage.getSpecifiedByKeysAsCommaList();
         }
         buff.append(indent).append("S: ").append(tmp);
 
         tmp = na;
-        if (!coverage.getImplementedBy().isEmpty()) {
-          tmp = coverage.getImplementedByKeysAsCommaList();
+        if (!ruleCoverage.getImplementedBy().isEmpty()) {
+          tmp = ruleCoverage.getImplementedByKeysAsCommaList();
         }
         buff.append(indent).append("C: ").append(tmp);
 
         tmp = "N";
-        if (!coverage.getImplementedBy().isEmpty()) {
+        if (!ruleCoverage.getImplementedBy().isEmpty()) {
           tmp = "Y";
         }
         buff.append(indent).append("I: ").append(tmp);
@@ -204,7 +198,7 @@ public abstract class AbstractMisraSpecification extends AbstractReportableStand
     buff.append("S = Specified | C = Covered in RSpec | I = Implemented in Plugin").append(linebreak).append(linebreak);
 
     buff.append(linebreak);
-    buff.append(generateSummary());
+    buff.append(generateSummary(coverage));
 
     return buff.toString();
   }
@@ -213,7 +207,7 @@ public abstract class AbstractMisraSpecification extends AbstractReportableStand
     buff.append(String.format("%sSpecified: %d%sImplemented: %d%s=> %s%n", indent, toCover, indent, covered, indent, percent ));
   }
 
-  private final String generateHtmlReport(String instance) {
+  private final String generateHtmlReport(CodingStandardCoverage coverage) {
 
     StringBuilder sb = new StringBuilder();
 
@@ -225,16 +219,16 @@ public abstract class AbstractMisraSpecification extends AbstractReportableStand
 
     for (CodingStandardRule csr : getCodingStandardRules()) {
       String ruleId = csr.getCodingStandardRuleId();
-      CodingStandardRuleCoverage coverage = getRulesCoverage().get(ruleId);
+      CodingStandardRuleCoverage ruleCoverage = coverage.getRulesCoverage().get(ruleId);
 
-      if (! coverage.getImplementedBy().isEmpty()) {
+      if (! ruleCoverage.getImplementedBy().isEmpty()) {
         sb.append("<tr><td>").append(ruleId)
                 .append("</td><td>")
                 .append(((CodingStandardRequirableRule) csr).getTitle())
                 .append("</td><td>");
 
-        for (Rule rule : coverage.getImplementedBy()) {
-          sb.append(Utilities.getNemoLinkedRuleReference(instance, rule));
+        for (Rule rule : ruleCoverage.getImplementedBy()) {
+          sb.append(Utilities.getNemoLinkedRuleReference(coverage.getInstance(), rule));
         }
         sb.append("</td></tr>\n");
       }
@@ -246,25 +240,21 @@ public abstract class AbstractMisraSpecification extends AbstractReportableStand
     return sb.toString();
   }
 
-  protected void computeCoverage() {
+  /**
+   * @param mandatory whether to count the mandatory or the optional rules
+   * @return the number of implementable rules of the kind which are implemented
+   */
+  protected int countImplemented(CodingStandardCoverage coverage, boolean mandatory) {
 
-    if (mandatoryRulesImplemented > 0 || mandatoryRulesNotImplementable > 0) {
-      return;
-    }
-
-    for (CodingStandardRule csr : getCodingStandardRules()){
-      if (((CodingStandardRequirableRule)csr).isRuleRequired()) {
-        if (Implementability.NOT_IMPLEMENTABLE.equals(csr.getImplementability())) {
-          mandatoryRulesNotImplementable++;
-        } else if (! getRulesCoverage().get(csr.getCodingStandardRuleId()).getImplementedBy().isEmpty()){
-          mandatoryRulesImplemented++;
-        }
-      } else  if (Implementability.NOT_IMPLEMENTABLE.equals(csr.getImplementability())) {
-        optionalRulesNotImplementable++;
-      } else if (! getRulesCoverage().get(csr.getCodingStandardRuleId()).getImplementedBy().isEmpty()) {
-        optionalRulesImplemented++;
+    int count = 0;
+    for (CodingStandardRule csr : getCodingStandardRules()) {
+      if (((CodingStandardRequirableRule) csr).isRuleRequired() == mandatory
+              && !Implementability.NOT_IMPLEMENTABLE.equals(csr.getImplementability())
+              && !coverage.getRulesCoverage().get(csr.getCodingStandardRuleId()).getImplementedBy().isEmpty()) {
+        count++;
       }
     }
+    return count;
   }
 
   public String getPercent(int num, int denom) {
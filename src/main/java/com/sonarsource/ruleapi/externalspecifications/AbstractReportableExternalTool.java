@@ -5,6 +5,7 @@
  */
 package com.sonarsource.ruleapi.externalspecifications;
 
+import com.sonarsource.ruleapi.domain.CodingStandardCoverage;
 import com.sonarsource.ruleapi.domain.CodingStandardRuleCoverage;
 import com.sonarsource.ruleapi.domain.Rule;
 import com.sonarsource.ruleapi.utilities.Utilities;
@@ -12,7 +13,6 @@ import com.sonarsource.ruleapi.utilities.Utilities;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -24,13 +24,6 @@ import java.util.Map;
  */
 public abstract class AbstractReportableExternalTool extends AbstractReportableStandard implements CustomerReport {
 
-  protected int implementable = 0;
-  protected int skipped = 0;
-  protected int specified = 0;
-  protected int implemented = 0;
-
-  private boolean isHtml = false;
-
   private static final String TABLE_OPEN = "<table>";
   private static final String TABLE_CLOSE = "</table><br/><br/>\n";
   private static final String TD = "</td><td>";
@@ -55,18 +48,15 @@ public abstract class AbstractReportableExternalTool extends AbstractReportableS
   }
 
   @Override
-  public String getReport(String instance) {
+  public String getReport(CodingStandardCoverage coverage) {
 
-    return getSummaryReport(instance);
+    return getSummaryReport(coverage);
   }
 
   @Override
-  public String getSummaryReport(String instance) {
-
-    initCoverageResults(instance);
-    computeCoverage();
+  public String getSummaryReport(CodingStandardCoverage coverage) {
 
-    return generateSummaryReport();
+    return generateSummaryReport(coverage);
   }
 
   @Override
@@ -74,11 +64,15 @@ public abstract class AbstractReportableExternalTool extends AbstractReportableS
     return null;
   }
 
-  protected String generateSummaryReport(){
+  protected String generateSummaryReport(CodingStandardCoverage coverage){
 
     String linebreak = System.lineSeparator();
 
     int count = getCodingStandardRules().length;
+    int skipped = getRuleCount(Implementability.REJECTED);
+    int implementable = getRuleCount(Implementability.IMPLEMENTABLE);
+    int specified = coverage.getSpecifiedCount();
+    int implemented = coverage.getImplementedCount();
     int unspecified = count - specified - skipped;
 
     StringBuilder sb = new StringBuilder();
@@ -95,13 +89,16 @@ public abstract class AbstractReportableExternalTool extends AbstractReportableS
   }
 
   public String getUnspecifiedReport() {
-    initCoverageResults(null);
+    return getUnspecifiedReport(getCoverage(null));
+  }
+
+  public String getUnspecifiedReport(CodingStandardCoverage coverage) {
 
     StringBuilder sb = new StringBuilder();
     sb.append(getStandardName()).append(" unspecified rules\n\n");
 
     for (CodingStandardRule csr : getCodingStandardRules()) {
-      CodingStandardRuleCoverage cov = getRulesCoverage().get(csr.getCodingStandardRuleId());
+      CodingStandardRuleCoverage cov = coverage.getRulesCoverage().get(csr.getCodingStandardRuleId());
 
       if (cov.getSpecifiedBy().isEmpty() && ! Implementability.REJECTED.equals(csr.getImplementability())) {
         sb.append(csr.getCodingStandardRuleId());
@@ -116,46 +113,47 @@ public abstract class AbstractReportableExternalTool extends AbstractReportableS
 
   @Override
   public String getHtmlReport(String instance) {
-    initCoverageResults(instance);
+    return getHtmlReport(getCoverage(instance));
+  }
+
+  public String getHtmlReport(CodingStandardCoverage coverage) {
 
     return "<h2>SonarQube " + getLanguage().getRspec() + " Plugin coverage/deprecation of " + getStandardName() + "</h2>" +
-            getHtmlSummaryReport() +
-            getHtmlDeprecationByToolKey(instance);
+            getHtmlSummaryReport(coverage) +
+            getHtmlDeprecationByToolKey(coverage);
   }
 
-  protected String getHtmlSummaryReport() {
-    computeCoverage();
+  protected String getHtmlSummaryReport(CodingStandardCoverage coverage) {
 
     int count = getCodingStandardRules().length;
+    int skipped = getRuleCount(Implementability.REJECTED);
+    int implementable = getRuleCount(Implementability.IMPLEMENTABLE);
+    int implemented = coverage.getImplementedCount();
     int pending = count - skipped - implemented;
 
-    isHtml = true;
-
     StringBuilder sb = new StringBuilder();
     sb.append("<h3>Summary</h3>");
     sb.append(TABLE_OPEN)
-            .append(formatLine("Total rule count:", count, 100))
-            .append(formatLine("&nbsp;&nbsp;<a href='#standard_rejected'>rejected</a>:", skipped, ((double)skipped/count)*100))
-            .append(formatLine("&nbsp;&nbsp;remaining:", implementable, ((double) implementable / count) * 100));
+            .append(formatHtmlLine("Total rule count:", count, 100))
+            .append(formatHtmlLine("&nbsp;&nbsp;<a href='#standard_rejected'>rejected</a>:", skipped, ((double)skipped/count)*100))
+            .append(formatHtmlLine("&nbsp;&nbsp;remaining:", implementable, ((double) implementable / count) * 100));
 
 
     sb.append("<tr><td colspan='3'>").append("Of remaining rules:").append(TR_CLOSE)
-            .append(formatLine("&nbsp;&nbsp;<a href='#standard_pending'>pending</a>:", pending, ((double)(pending)/implementable)*100))
-            .append(formatLine("&nbsp;&nbsp;<a href='#standard_implemented'>implemented</a>:", implemented, ((double) implemented / implementable) * 100));
+            .append(formatHtmlLine("&nbsp;&nbsp;<a href='#standard_pending'>pending</a>:", pending, ((double)(pending)/implementable)*100))
+            .append(formatHtmlLine("&nbsp;&nbsp;<a href='#standard_implemented'>implemented</a>:", implemented, ((double) implemented / implementable) * 100));
 
     sb.append(TABLE_CLOSE);
     sb.append(Utilities.getFormattedDateString());
 
-    isHtml = false;
-
     return sb.toString();
   }
 
-  protected Map<Rule,List<String>> getCoveringRules() {
+  protected Map<Rule,List<String>> getCoveringRules(CodingStandardCoverage coverage) {
 
     Map<Rule, List<String>> map = new HashMap<>();
 
-    for (CodingStandardRuleCoverage cov : getRulesCoverage().values()) {
+    for (CodingStandardRuleCoverage cov : coverage.getRulesCoverage().values()) {
       String csrId = cov.getCodingStandardRuleId();
 
       for (Rule rule : cov.getImplementedBy()) {
@@ -166,7 +164,7 @@ public abstract class AbstractReportableExternalTool extends AbstractReportableS
     return map;
   }
 
-  protected String getHtmlDeprecationByToolKey(String instance) {
+  protected String getHtmlDeprecationByToolKey(CodingStandardCoverage coverage) {
 
     StringBuilder sb = new StringBuilder();
     sb.append("<a name='standard_implemented'></a>");
@@ -188,7 +186,7 @@ public abstract class AbstractReportableExternalTool extends AbstractReportableS
 
       String id = csr.getCodingStandardRuleId();
 
-      CodingStandardRuleCoverage cov = getRulesCoverage().get(id);
+      CodingStandardRuleCoverage cov = coverage.getRulesCoverage().get(id);
       if (!cov.getImplementedBy().isEmpty()) {
         sb.append(TR_OPEN).append(id).append(TD);
 
@@ -197,7 +195,7 @@ public abstract class AbstractReportableExternalTool extends AbstractReportableS
         }
 
         for (Rule rule : cov.getImplementedBy()) {
-          sb.append(Utilities.getNemoLinkedRuleReference(instance, rule));
+          sb.append(Utilities.getNemoLinkedRuleReference(coverage.getInstance(), rule));
         }
         sb.append(TR_CLOSE);
 
@@ -234,37 +232,24 @@ public abstract class AbstractReportableExternalTool extends AbstractReportableS
     return sb.toString();
   }
 
-  public void computeCoverage() {
-
-    if (implementable == 0) {
-      for (CodingStandardRule csr : getCodingStandardRules()) {
-        Implementability impl = csr.getImplementability();
-        if (impl.equals(Implementability.IMPLEMENTABLE)) {
-          implementable++;
-        } else if (impl.equals(Implementability.REJECTED)) {
-          skipped++;
-        }
-      }
-
-      Iterator<CodingStandardRuleCoverage> itr = getRulesCoverage().values().iterator();
-      while (itr.hasNext()) {
-        CodingStandardRuleCoverage cov = itr.next();
+  protected int getRuleCount(Implementability implementability) {
 
-        if (!cov.getImplementedBy().isEmpty()) {
-          implemented++;
-        }
-        if (!cov.getSpecifiedBy().isEmpty()) {
-          specified++;
-        }
+    int count = 0;
+    for (CodingStandardRule csr : getCodingStandardRules()) {
+      if (implementability.equals(csr.getImplementability())) {
+        count++;
       }
     }
+    return count;
   }
 
   protected String formatLine(String label, int count, double percentage) {
 
-    if (isHtml) {
-      return String.format(Locale.US, "<tr><td>%s</td><td>%3d</td><td>%.2f%%</td></tr>", label, count, percentage);
-    }
     return String.format(Locale.US, "  %-15s %3d  %6.2f%%%n", label, count, percentage);
   }
+
+  protected String formatHtmlLine(String label, int count, double percentage) {
+
+    return String.format(Locale.US, "<tr><td>%s</td><td>%3d</td><td>%.2f%%</td></tr>", label, count, percentage);
+  }
 }
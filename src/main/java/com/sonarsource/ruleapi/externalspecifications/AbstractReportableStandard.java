@@ -5,13 +5,15 @@
  */
 package com.sonarsource.ruleapi.externalspecifications;
 
-import com.google.common.base.Strings;
+import com.sonarsource.ruleapi.domain.CodingStandardCoverage;
 import com.sonarsource.ruleapi.domain.CodingStandardRuleCoverage;
 import com.sonarsource.ruleapi.domain.Rule;
 import com.sonarsource.ruleapi.get.RuleMaker;
 import com.sonarsource.ruleapi.utilities.Language;
 import com.sonarsource.ruleapi.utilities.Utilities;
 
+import javax.annotation.Nullable;
+
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -19,17 +21,25 @@ import java.util.Map;
 
 
 /**
- * Basic reporting implementation
+ * Basic reporting implementation.
+ *
+ * Coverage is computed into immutable {@link CodingStandardCoverage} results, one per SonarQube instance
+ * and language, so that a standard can be shared, and reported on concurrently. Nothing is kept between
+ * calls: a run writing several reports computes the coverage once and passes it to each of them.
  */
 public abstract class AbstractReportableStandard implements CodingStandard {
 
-  private Map<String, CodingStandardRuleCoverage> rulesCoverage = null;
-  private String lastInstance = null;
+  public String getReport(String instance) {
+    return getReport(getCoverage(instance));
+  }
 
+  public abstract String getReport(CodingStandardCoverage coverage);
 
-  public abstract String getReport(String instance);
+  public String getSummaryReport(String instance) {
+    return getSummaryReport(getCoverage(instance));
+  }
 
-  public abstract String getSummaryReport(String instance);
+  public abstract String getSummaryReport(CodingStandardCoverage coverage);
 
   public abstract Language getLanguage();
 
@@ -37,17 +47,36 @@ public abstract class AbstractReportableStandard implements CodingStandard {
 
   public abstract ReportType[] getReportTypes();
 
+  /**
+   * @return whether {@link #getReport(CodingStandardCoverage)} and {@link #getSummaryReport(CodingStandardCoverage)}
+   * report on the coverage of {@link #getLanguage()}. When they don't, that coverage isn't computed for them
+   */
+  public boolean hasInternalReports() {
+    return true;
+  }
+
   public abstract String getNameIfStandardApplies(Rule rule);
 
+  /**
+   * @param language the language covered, <code>null</code> for all of them
+   * @return the ids of the standard relevant to the language
+   */
+  protected CodingStandardRule[] getCodingStandardRules(@Nullable Language language) {
+    return getCodingStandardRules();
+  }
+
   /**
    * Retrieve RSpec rules for which the the relevant field on the References
    * tab is non-blank.
    * @return list of rules relevant to the standard
    */
   public List<Rule> getRSpecRulesReferencingStandard() {
+    return getRSpecRulesReferencingStandard(getLanguage());
+  }
+
+  protected List<Rule> getRSpecRulesReferencingStandard(@Nullable Language language) {
     String query = "'" + getRSpecReferenceFieldName() + "' is not EMPTY";
 
-    Language language = getLanguage();
     String rspecLanguage = "";
     if (language != null) {
       rspecLanguage = language.getRspec();
@@ -55,7 +84,7 @@ public abstract class AbstractReportableStandard implements CodingStandard {
     List<Rule> rules = RuleMaker.getRulesByJql(query, rspecLanguage);
 
     for (Rule rule: rules) {
-      List <String> expandedIdList = getExpandedStandardKeyList(getRspecReferenceFieldValues(rule));
+      List <String> expandedIdList = getExpandedStandardKeyList(getRspecReferenceFieldValues(rule), language);
       setRspecReferenceFieldValues(rule, expandedIdList);
     }
 
@@ -63,61 +92,50 @@ public abstract class AbstractReportableStandard implements CodingStandard {
   }
 
   /**
-   * Quick map from an id to the list of relevant rules/RSpecs
-   *
-   * @return map of id's for this standard to {@link CodingStandardRuleCoverage} records
+   * @param instance the SonarQube instance to get rule coverage data from, <code>null</code> for specifications only
+   * @return the coverage of the standard in its language, see {@link #getCoverage(String, Language)}
    */
-  public Map<String, CodingStandardRuleCoverage> getRulesCoverage(){
-    return rulesCoverage;
+  public CodingStandardCoverage getCoverage(@Nullable String instance) {
+    return getCoverage(instance, getLanguage());
   }
 
   /**
-   * Make sure the {@link #rulesCoverage} map is fully populated.
-   * @param instance the SonarQube instance to get rule coverage data from
+   * The coverage is computed afresh on each call, from the current rules.
+   *
+   * @param instance the SonarQube instance to get rule coverage data from, <code>null</code> for specifications only
+   * @param language the language to get coverage data for, <code>null</code> for all of them
+   * @return the coverage of the standard
    */
-  protected void initCoverageResults(String instance) {
-
-    if (rulesCoverage == null) {
-
-      this.lastInstance = instance;
-
-      populateRulesCoverageMap();
-      findSpecifiedInRspec(getRSpecRulesReferencingStandard());
-      findImplementedByPlugin(instance);
-
-    } else if (!(Strings.isNullOrEmpty(instance) || instance.equals(this.lastInstance))) {
+  public CodingStandardCoverage getCoverage(@Nullable String instance, @Nullable Language language) {
+    return computeCoverage(instance, language);
+  }
 
-      this.lastInstance = instance;
+  protected CodingStandardCoverage computeCoverage(@Nullable String instance, @Nullable Language language) {
 
-      cleanRulesCoverageMap();
-      findImplementedByPlugin(instance);
+    Map<String, CodingStandardRuleCoverage> rulesCoverage = newRulesCoverageMap(language);
+    findSpecifiedInRspec(rulesCoverage, getRSpecRulesReferencingStandard(language));
+    findImplementedByPlugin(rulesCoverage, instance, language);
 
-    }
+    return new CodingStandardCoverage(instance, language, rulesCoverage);
   }
 
   /**
-   * Create the rulesCoverage map and and an entry per id in the standard
+   * Create a rulesCoverage map with an entry per id in the standard
    */
-  public void populateRulesCoverageMap() {
+  public Map<String, CodingStandardRuleCoverage> newRulesCoverageMap() {
+    return newRulesCoverageMap(getLanguage());
+  }
+
+  protected Map<String, CodingStandardRuleCoverage> newRulesCoverageMap(@Nullable Language language) {
 
-    rulesCoverage = new HashMap<>();
+    Map<String, CodingStandardRuleCoverage> rulesCoverage = new HashMap<>();
 
-    for (CodingStandardRule csr : getCodingStandardRules()) {
+    for (CodingStandardRule csr : getCodingStandardRules(language)) {
       CodingStandardRuleCoverage cov = new CodingStandardRuleCoverage();
       cov.setCodingStandardRuleId(csr.getCodingStandardRuleId());
       rulesCoverage.put(csr.getCodingStandardRuleId(), cov);
     }
-  }
-
-  protected void cleanRulesCoverageMap() {
-
-    for (CodingStandardRuleCoverage csrc : rulesCoverage.values()) {
-      csrc.getImplementedBy().clear();
-    }
-  }
-
-  protected void resetRulesCoverageMap() {
-    rulesCoverage = null;
+    return rulesCoverage;
   }
 
   /**
@@ -128,6 +146,10 @@ public abstract class AbstractReportableStandard implements CodingStandard {
    * @return
    */
   public List<String> getExpandedStandardKeyList(List<String> listFromRspec) {
+    return getExpandedStandardKeyList(listFromRspec, getLanguage());
+  }
+
+  protected List<String> getExpandedStandardKeyList(List<String> listFromRspec, @Nullable Language language) {
 
     if (listFromRspec == null){
       return listFromRspec;
@@ -141,7 +163,7 @@ public abstract class AbstractReportableStandard implements CodingStandard {
         continue;
       }
 
-      for (CodingStandardRule standard : getCodingStandardRules()) {
+      for (CodingStandardRule standard : getCodingStandardRules(language)) {
         if (standard.getCodingStandardRuleId().matches(key)) {
           expandedKeyList.add(standard.getCodingStandardRuleId());
         }
@@ -151,25 +173,21 @@ public abstract class AbstractReportableStandard implements CodingStandard {
     return expandedKeyList;
   }
 
-  protected void findSpecifiedInRspec(List<Rule> rspecRules) {
+  protected void findSpecifiedInRspec(Map<String, CodingStandardRuleCoverage> rulesCoverage, List<Rule> rspecRules) {
 
     for (Rule rspecRule : rspecRules) {
       if (! Rule.Status.DEPRECATED.equals(rspecRule.getStatus())) {
         List<String> ids = getRspecReferenceFieldValues(rspecRule);
-        setCodingStandardRuleCoverageSpecifiedBy(rspecRule, ids);
+        setCodingStandardRuleCoverageSpecifiedBy(rulesCoverage, rspecRule, ids);
       }
     }
   }
 
-  public void setCodingStandardRuleCoverageSpecifiedBy(Rule rspecRule, List<String> ids) {
-
-    if (getRulesCoverage() == null) {
-      populateRulesCoverageMap();
-    }
+  public void setCodingStandardRuleCoverageSpecifiedBy(Map<String, CodingStandardRuleCoverage> rulesCoverage, Rule rspecRule, List<String> ids) {
 
     if (ids != null && ! ids.isEmpty()) {
       for (String id : ids) {
-        CodingStandardRuleCoverage cov = getRulesCoverage().get(id);
+        CodingStandardRuleCoverage cov = rulesCoverage.get(id);
         if (cov != null) {
           cov.addSpecifiedBy(rspecRule);
         }
@@ -177,32 +195,34 @@ public abstract class AbstractReportableStandard implements CodingStandard {
     }
   }
 
-  protected void findImplementedByPlugin(String instance) {
+  protected void findImplementedByPlugin(Map<String, CodingStandardRuleCoverage> rulesCoverage, @Nullable String instance, @Nullable Language language) {
 
     if (instance != null) {
 
-      Language language = getLanguage();
-      String sq = "";
-
       List<Rule> sqImplemented;
       if (language != null) {
-        sq = language.getSq();
-
-        sqImplemented = RuleMaker.getRulesFromSonarQubeForLanguage(getLanguage(), instance);
+        sqImplemented = RuleMaker.getRulesFromSonarQubeForLanguage(language, instance);
 
       } else {
         sqImplemented = RuleMaker.getRulesFromSonarQubeByQuery(instance, "repositories=" + getSqRepoList());
       }
 
+      List<Rule> activeRules = new ArrayList<>();
+      List<String> keys = new ArrayList<>();
       for (Rule sqRule : sqImplemented) {
         if (! Rule.Status.DEPRECATED.equals(sqRule.getStatus())) {
-          String key = sqRule.getKey();
+          activeRules.add(sqRule);
+          keys.add(sqRule.getKey());
+        }
+      }
 
-          Rule rspecRule = RuleMaker.getRuleByKey(key, sq);
-          List<String> ids = getExpandedStandardKeyList(getRspecReferenceFieldValues(rspecRule));
+      // only the reference fields are read, which don't depend on the language
+      Map<String, Rule> rspecRules = RuleMaker.getLanguageNeutralRulesByKey(keys);
+      for (Rule sqRule : activeRules) {
+        Rule rspecRule = rspecRules.get(sqRule.getKey());
+        List<String> ids = getExpandedStandardKeyList(getRspecReferenceFieldValues(rspecRule), language);
 
-          setCodingStandardRuleCoverageImplemented(ids, sqRule);
-        }
+        setCodingStandardRuleCoverageImplemented(rulesCoverage, ids, sqRule);
       }
     }
   }
@@ -217,15 +237,11 @@ public abstract class AbstractReportableStandard implements CodingStandard {
     return tmp.replaceAll(" ", "");
   }
 
-  public void setCodingStandardRuleCoverageImplemented(List<String> ids, Rule rule) {
-
-    if (getRulesCoverage() == null) {
-      populateRulesCoverageMap();
-    }
+  public void setCodingStandardRuleCoverageImplemented(Map<String, CodingStandardRuleCoverage> rulesCoverage, List<String> ids, Rule rule) {
 
     if (ids != null && ! ids.isEmpty()) {
       for (String id : ids) {
-        CodingStandardRuleCoverage cov = getRulesCoverage().get(id);
+        CodingStandardRuleCoverage cov = rulesCoverage.get(id);
         if (cov != null) {
           cov.addImplementedBy(rule);
         }
@@ -13,7 +13,19 @@ import java.util.Map;
 
 public interface BadgableMultiLanguage extends Badgable {
 
-  void setLanguage(Language language);
+  /**
+   * @return the badge value of the standard in the language, empty without an instance or a language
+   */
+  String getBadgeValue(String instance, Language language);
+
+  /**
+   * Multi-language standards are badged per language, see {@link #getBadgeValue(String, Language)}
+   */
+  @Override
+  default String getBadgeValue(String instance) {
+
+    return getBadgeValue(instance, null);
+  }
 
   ReportAndBadge getHtmlLanguageReport(String instance, Language language);
 
@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2014-2018 SonarSource SA
+ * All rights reserved
+ * mailto:info AT sonarsource DOT com
+ */
+package com.sonarsource.ruleapi.externalspecifications;
+
+import com.sonarsource.ruleapi.domain.RuleException;
+
+import java.io.IOException;
+
+
+/**
+ * A report rendered on demand into the caller's output, so that it is streamed
+ * to its file rather than held whole in memory.
+ *
+ * A renderer only writes: everything it reports on is fetched before it is made,
+ * so that a failing server never leaves a report half written.
+ */
+@FunctionalInterface
+public interface ReportRenderer {
+
+  void renderTo(Appendable out) throws IOException;
+
+  /**
+   * Renders the whole report in memory, for the callers that need it as a String.
+   */
+  default String render() {
+
+    StringBuilder sb = new StringBuilder();
+    try {
+      renderTo(sb);
+    } catch (IOException e) {
+      throw new RuleException(e);
+    }
+    return sb.toString();
+  }
+}
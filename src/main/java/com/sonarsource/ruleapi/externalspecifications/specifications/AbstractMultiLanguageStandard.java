@@ -6,30 +6,62 @@
 package com.sonarsource.ruleapi.externalspecifications.specifications;
 
 import com.google.common.base.Strings;
-import com.sonarsource.ruleapi.domain.CodingStandardRuleCoverage;
+import com.sonarsource.ruleapi.domain.CodingStandardCoverage;
 import com.sonarsource.ruleapi.domain.ReportAndBadge;
 import com.sonarsource.ruleapi.domain.Rule;
 import com.sonarsource.ruleapi.externalspecifications.AbstractReportableStandard;
 import com.sonarsource.ruleapi.externalspecifications.BadgableMultiLanguage;
+import com.sonarsource.ruleapi.externalspecifications.ReportRenderer;
 import com.sonarsource.ruleapi.externalspecifications.ReportType;
 import com.sonarsource.ruleapi.services.badge.BadgeGenerator;
 import com.sonarsource.ruleapi.utilities.Language;
 
+import javax.annotation.CheckForNull;
+
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 
 /**
  * Some standards, such as CWE apply to multiple langauges,
  * and we want to report on them per-langauge.
  * This is the basic reporting implementation for that.
+ *
+ * The standard itself is language-neutral: the language is passed with each request,
+ * and carried by the {@link CodingStandardCoverage} reported on.
  */
 public abstract class AbstractMultiLanguageStandard extends AbstractReportableStandard implements BadgableMultiLanguage {
 
   private static final ReportType[] reportTypes = {ReportType.INTERNAL_COVERAGE, ReportType.INTERNAL_COVERAGE_SUMMARY, ReportType.HTML};
 
-  protected abstract String generateReport(String instance);
+  /**
+   * Renders the HTML report of a coverage computed for one of the languages of the standard.
+   */
+  protected abstract void writeReport(CodingStandardCoverage coverage, Appendable out) throws IOException;
+
+  /**
+   * @return the HTML report of the coverage, rendered when written. <code>null</code> if it isn't for a language of the standard
+   */
+  @CheckForNull
+  protected ReportRenderer getReportRenderer(CodingStandardCoverage coverage) {
+
+    Language language = coverage.getLanguage();
+    if (language == null || !getAllLanguages().contains(language)) {
+      return null;
+    }
+    return out -> writeReport(coverage, out);
+  }
+
+  /**
+   * @return the HTML report of the coverage, <code>null</code> if it isn't for a language of the standard
+   */
+  @CheckForNull
+  protected String generateReport(CodingStandardCoverage coverage) {
+
+    ReportRenderer renderer = getReportRenderer(coverage);
+    return renderer == null ? null : renderer.render();
+  }
 
 
   @Override
@@ -45,6 +77,11 @@ public abstract class AbstractMultiLanguageStandard extends AbstractReportableSt
     return Arrays.asList(Language.values());
   }
 
+  @Override
+  public Language getLanguage() {
+
+    return null;
+  }
 
   @Override
   public ReportType[] getReportTypes() {
@@ -54,19 +91,17 @@ public abstract class AbstractMultiLanguageStandard extends AbstractReportableSt
   @Override
   public ReportAndBadge getHtmlLanguageReport(String instance, Language language) {
 
-    if (language == null || Strings.isNullOrEmpty(instance)) {
+    if (language == null || Strings.isNullOrEmpty(instance) || !getAllLanguages().contains(language)) {
       return null;
     }
 
-    setLanguage(language);
-
-    initCoverageResults(instance);
+    CodingStandardCoverage coverage = getCoverage(instance, language);
     ReportAndBadge reportAndBadge = new ReportAndBadge();
 
-    reportAndBadge.setReport(generateReport(instance));
+    reportAndBadge.setReportRenderer(getReportRenderer(coverage));
 
     BadgeGenerator badger = new BadgeGenerator();
-    int count = getImplementedCount();
+    int count = coverage.getImplementedCount();
     if (count > 0) {
       reportAndBadge.setBadge(badger.getBadge(getStandardName(), Integer.toString(count)));
     }
@@ -75,38 +110,12 @@ public abstract class AbstractMultiLanguageStandard extends AbstractReportableSt
   }
 
   @Override
-  protected void initCoverageResults(String instance) {
-
-    if (getLanguage() == null) {
-      return;
-    }
-    resetRulesCoverageMap();
-    super.initCoverageResults(instance);
-  }
-
-  @Override
-  public String getBadgeValue(String instance) {
+  public String getBadgeValue(String instance, Language language) {
 
-    if (Strings.isNullOrEmpty(instance)) {
+    if (language == null || Strings.isNullOrEmpty(instance) || !getAllLanguages().contains(language)) {
       return "";
     }
-    initCoverageResults(instance);
-
-    return Integer.toString(getImplementedCount());
-  }
-
-  private int getImplementedCount(){
-    int count = 0;
-
-    Map<String, CodingStandardRuleCoverage> rulesCoverage = getRulesCoverage();
-    if (rulesCoverage != null) {
-      for (CodingStandardRuleCoverage csrc : getRulesCoverage().values()) {
-        if (!csrc.getImplementedBy().isEmpty()) {
-          count++;
-        }
-      }
-    }
-    return count;
+    return Integer.toString(getCoverage(instance, language).getImplementedCount());
   }
 
 }
@@ -5,11 +5,13 @@
  */
 package com.sonarsource.ruleapi.externalspecifications.specifications;
 
+import com.sonarsource.ruleapi.domain.CodingStandardCoverage;
 import com.sonarsource.ruleapi.domain.CodingStandardRuleCoverage;
 import com.sonarsource.ruleapi.domain.Rule;
 import com.sonarsource.ruleapi.externalspecifications.CleanupReport;
 import com.sonarsource.ruleapi.externalspecifications.CodingStandardRule;
 import com.sonarsource.ruleapi.externalspecifications.Implementability;
+import com.sonarsource.ruleapi.externalspecifications.ReportRenderer;
 import com.sonarsource.ruleapi.externalspecifications.TaggableStandard;
 import com.sonarsource.ruleapi.get.Fetcher;
 import com.sonarsource.ruleapi.get.RuleMaker;
@@ -20,6 +22,10 @@ import com.sonarsource.ruleapi.utilities.Utilities;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.util.ArrayList;
@@ -61,9 +67,6 @@ public class Cert extends AbstractMultiLanguageStandard implements TaggableStand
   private static final CertType JAVA = new CertType(Language.JAVA, new String [] {"88487354", "88487355"});
 
 
-  private CertType currentCertLanguage = null;
-
-
   @Override
   protected List<Language> getAllLanguages(){
     return Arrays.asList(Language.C, Language.CPP, Language.JAVA);
@@ -214,34 +217,56 @@ public class Cert extends AbstractMultiLanguageStandard implements TaggableStand
   }
 
 
+  /**
+   * The CERT rules are read from the wiki before the renderer is made, so that rendering only writes.
+   */
+  @CheckForNull
   @Override
-  protected String generateReport(String instance) {
+  protected ReportRenderer getReportRenderer(CodingStandardCoverage coverage) {
 
-    if (currentCertLanguage == null) {
+    CertType certType = getCertType(coverage.getLanguage());
+    if (certType == null) {
       return null;
     }
 
-    CertRule[] certRules = (CertRule[]) currentCertLanguage.getCodingStandardRules();
+    CertRule[] certRules = (CertRule[]) certType.getCodingStandardRules();
+    return out -> writeReportBody(coverage, certRules, out);
+  }
+
+  @Override
+  protected void writeReport(CodingStandardCoverage coverage, Appendable out) throws IOException {
+
+    CertRule[] certRules = (CertRule[]) getCertType(coverage.getLanguage()).getCodingStandardRules();
 
-    return getReportBody(instance, certRules);
+    writeReportBody(coverage, certRules, out);
   }
 
-  protected String getReportBody(String instance, CertRule[] certRules) {
+  /**
+   * @return the report of the coverage against these CERT rules, <code>null</code> if it isn't for a language of CERT
+   */
+  @CheckForNull
+  protected String getReportBody(CodingStandardCoverage coverage, CertRule[] certRules) {
 
-    if (currentCertLanguage == null || getRulesCoverage() == null) {
+    if (getCertType(coverage.getLanguage()) == null) {
       return null;
     }
 
-    StringBuilder sb = new StringBuilder();
+    ReportRenderer renderer = out -> writeReportBody(coverage, certRules, out);
+    return renderer.render();
+  }
+
+  protected void writeReportBody(CodingStandardCoverage coverage, CertRule[] certRules, Appendable out) throws IOException {
+
+    Language language = coverage.getLanguage();
 
-    sb.append(String.format(ReportService.HEADER_TEMPLATE, currentCertLanguage.getLanguage().getReportName(), REFERENCE_NAME))
-            .append(String.format(TITLE_AND_INTRO, currentCertLanguage.getLanguage().getReportName(), currentCertLanguage.getLanguage().getRspec()))
+    out.append(String.format(ReportService.HEADER_TEMPLATE, language.getReportName(), REFERENCE_NAME))
+            .append(String.format(TITLE_AND_INTRO, language.getReportName(), language.getRspec()))
             .append(ReportService.TABLE_OPEN)
             .append("<thead><tr><th>CERT ID</th><th>CERT Title</th><th>Implementing Rules</th></tr></thead>")
             .append("<tbody>");
 
 
-    Map<String, CodingStandardRuleCoverage> map = this.getRulesCoverage();
+    Map<String, CodingStandardRuleCoverage> map = coverage.getRulesCoverage();
 
     for (CertRule certRule : certRules) {
       String certId = certRule.getId();
@@ -252,49 +277,65 @@ public class Cert extends AbstractMultiLanguageStandard implements TaggableStand
       String title = certRule.getTitle().replaceFirst(certId, "");
 
       if (!implRules.isEmpty()) {
-        sb.append("<tr><td><a href='").append(certRule.getUrl())
+        out.append("<tr><td><a href='").append(certRule.getUrl())
                 .append("' target='_blank'>").append(certRule.getId()).append("</a></td><td>")
                 .append(title).append("</td>\n<td>");
         for (Rule rule : implRules) {
-          sb.append(Utilities.getNemoLinkedRuleReference(instance, rule));
+          out.append(Utilities.getNemoLinkedRuleReference(coverage.getInstance(), rule));
         }
-        sb.append("</td></tr>\n");
+        out.append("</td></tr>\n");
       }
     }
 
-    sb.append("</tbody></table>");
+    out.append("</tbody></table>");
 
-    sb.append(String.format(ReportService.FOOTER_TEMPLATE,Utilities.getFormattedDateString()));
-
-
-    return sb.toString();
+    out.append(String.format(ReportService.FOOTER_TEMPLATE,Utilities.getFormattedDateString()));
   }
 
 
-  @Override
-  public void setLanguage(Language language) {
+  /**
+   * @return the CERT standard of the language, <code>null</code> if there is none
+   */
+  @CheckForNull
+  protected static CertType getCertType(@Nullable Language language) {
 
+    if (language == null) {
+      return null;
+    }
     switch (language) {
       case C:
-        currentCertLanguage = C;
-        break;
+        return C;
       case CPP:
-        currentCertLanguage = CPP;
-        break;
+        return CPP;
       case JAVA:
-        currentCertLanguage = JAVA;
-        break;
+        return JAVA;
       default:
-        currentCertLanguage = null;
+        return null;
     }
   }
 
+  /**
+   * CERT is only reported on per language, see {@link #getHtmlLanguageReport(String, Language)}
+   */
   @Override
   public String getReport(String instance) {
 
-    initCoverageResults(instance);
+    return null;
+  }
+
+  /**
+   * The reports are per language only.
+   */
+  @Override
+  public boolean hasInternalReports() {
+
+    return false;
+  }
+
+  @Override
+  public String getReport(CodingStandardCoverage coverage) {
 
-    return generateReport(instance);
+    return generateReport(coverage);
   }
 
   @Override
@@ -304,22 +345,26 @@ public class Cert extends AbstractMultiLanguageStandard implements TaggableStand
   }
 
   @Override
-  public Language getLanguage() {
+  public String getSummaryReport(CodingStandardCoverage coverage) {
 
-    if (currentCertLanguage == null) {
-      return null;
-    }
-    return currentCertLanguage.getLanguage();
+    return getReport(coverage);
   }
 
   @Override
   public CodingStandardRule[] getCodingStandardRules() {
 
-    if (currentCertLanguage == null) {
-      return new CodingStandardRule[0];
+    return new CodingStandardRule[0];
+  }
+
+  @Override
+  protected CodingStandardRule[] getCodingStandardRules(Language language) {
+
+    CertType certType = getCertType(language);
+    if (certType == null) {
+      return getCodingStandardRules();
     }
 
-    return currentCertLanguage.getCodingStandardRules();
+    return certType.getCodingStandardRules();
   }
 
 
@@ -338,7 +383,7 @@ public class Cert extends AbstractMultiLanguageStandard implements TaggableStand
       return this.language;
     }
 
-    public CodingStandardRule[] getCodingStandardRules(){
+    public synchronized CodingStandardRule[] getCodingStandardRules(){
       if (rules.isEmpty()) {
 
         String baseUrl = "https://wiki.sei.cmu.edu/confluence";
@@ -356,7 +401,7 @@ public class Cert extends AbstractMultiLanguageStandard implements TaggableStand
       return rules.toArray(new CertRule[rules.size()]);
     }
 
-    protected void extractRulesFromChildPages(String baseUrl, List<String> ids, List<JSONObject> results) {
+    protected synchronized void extractRulesFromChildPages(String baseUrl, List<String> ids, List<JSONObject> results) {
 
       for (JSONObject obj : results) {
         String title = (String) obj.get("title");
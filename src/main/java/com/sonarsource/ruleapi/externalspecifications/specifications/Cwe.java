@@ -5,6 +5,7 @@
  */
 package com.sonarsource.ruleapi.externalspecifications.specifications;
 
+import com.sonarsource.ruleapi.domain.CodingStandardCoverage;
 import com.sonarsource.ruleapi.domain.CodingStandardRuleCoverage;
 import com.sonarsource.ruleapi.domain.Rule;
 import com.sonarsource.ruleapi.externalspecifications.CodingStandardRule;
@@ -14,7 +15,9 @@ import com.sonarsource.ruleapi.services.ReportService;
 import com.sonarsource.ruleapi.utilities.Language;
 import com.sonarsource.ruleapi.utilities.Utilities;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -30,8 +33,6 @@ public class Cwe extends AbstractMultiLanguageStandard implements TaggableStanda
           "<p>The following table lists the CWE items %1$s is able to detect, " +
           "and for each of them, the rules providing this coverage.</p>";
 
-  private Language language = null;
-
   @Override
   public boolean isTagShared() {
 
@@ -98,79 +99,82 @@ public class Cwe extends AbstractMultiLanguageStandard implements TaggableStanda
     return false;
   }
 
+  /**
+   * CWE is only reported on per language, see {@link #getHtmlLanguageReport(String, Language)}
+   */
   @Override
   public String getReport(String instance) {
 
-    if (language == null) {
-      return null;
-    }
+    return null;
+  }
 
-    initCoverageResults(instance);
-    return generateReport(instance);
+  /**
+   * The reports are per language only.
+   */
+  @Override
+  public boolean hasInternalReports() {
+
+    return false;
   }
 
   @Override
-  protected String generateReport(String instance) {
+  public String getReport(CodingStandardCoverage coverage) {
 
-    if (language == null || this.getRulesCoverage() == null) {
-      return null;
-    }
+    return generateReport(coverage);
+  }
 
-    StringBuilder sb = new StringBuilder();
+  @Override
+  protected void writeReport(CodingStandardCoverage coverage, Appendable out) throws IOException {
+
+    Language language = coverage.getLanguage();
 
-    sb.append(String.format(ReportService.HEADER_TEMPLATE,getLanguage().getReportName(), NAME))
-            .append(String.format(TITLE_AND_INTRO,getLanguage().getReportName()))
+    out.append(String.format(ReportService.HEADER_TEMPLATE,language.getReportName(), NAME))
+            .append(String.format(TITLE_AND_INTRO,language.getReportName()))
             .append(ReportService.TABLE_OPEN)
             .append("<thead><tr><th>CWE ID</th><th>CWE Name</th><th>Implementing Rules</th></tr></thead>")
             .append("<tbody>");
 
     for (CweRule cwe : CweRule.values()) {
       String key = cwe.getCodingStandardRuleId();
-      CodingStandardRuleCoverage csrc = getRulesCoverage().get(key);
+      CodingStandardRuleCoverage csrc = coverage.getRulesCoverage().get(key);
       if (!csrc.getImplementedBy().isEmpty()) {
 
         Integer ikey = Integer.valueOf(key.split("-")[1]);
-        sb.append("<tr><td><a href='http://cwe.mitre.org/data/definitions/").append(ikey)
+        out.append("<tr><td><a href='http://cwe.mitre.org/data/definitions/").append(String.valueOf(ikey))
                 .append("' target='_blank'>").append(key).append("</a></td><td>")
                 .append(cwe.getTitle()).append("</td><td>");
 
         for (Rule rule : csrc.getImplementedBy()) {
-          sb.append(Utilities.getNemoLinkedRuleReference(instance, rule));
+          out.append(Utilities.getNemoLinkedRuleReference(coverage.getInstance(), rule));
         }
-        sb.append("</td></tr>\n");
+        out.append("</td></tr>\n");
       }
     }
-    sb.append("</table>")
+    out.append("</table>")
             .append(String.format(ReportService.FOOTER_TEMPLATE,Utilities.getFormattedDateString()));
-
-    return sb.toString();
   }
 
 
   /**
-   /**
    * This override required by the fact that we don't hold the list of CWE id's
    * in this class. As a result the {{rulesCoverage}} map starts out non-null, but empty.
    *
    * We must simply assume that each passed id is valid and store the related data.
    *
+   * @param rulesCoverage the map to record the rule in
    * @param ids list of CWE ids implemented by rspecRule
    * @param rule
    */
   @Override
-  public void setCodingStandardRuleCoverageImplemented(List<String> ids, Rule rule) {
-
-    if (getRulesCoverage() == null) {
-      populateRulesCoverageMap();
-    }
+  public void setCodingStandardRuleCoverageImplemented(Map<String, CodingStandardRuleCoverage> rulesCoverage, List<String> ids, Rule rule) {
 
     if (ids != null && ! ids.isEmpty()) {
       for (String id : ids) {
-        CodingStandardRuleCoverage cov = getRulesCoverage().get(id);
+        CodingStandardRuleCoverage cov = rulesCoverage.get(id);
         if (cov == null) {
           cov = new CodingStandardRuleCoverage();
           cov.setCodingStandardRuleId(id);
-          getRulesCoverage().put(id, cov);
+          rulesCoverage.put(id, cov);
         }
         cov.addImplementedBy(rule);
       }
@@ -184,14 +188,9 @@ public class Cwe extends AbstractMultiLanguageStandard implements TaggableStanda
   }
 
   @Override
-  public Language getLanguage() {
+  public String getSummaryReport(CodingStandardCoverage coverage) {
 
-    return language;
-  }
-
-  @Override
-  public void setLanguage(Language language) {
-    this.language = language;
+    return getReport(coverage);
   }
 
   @Override
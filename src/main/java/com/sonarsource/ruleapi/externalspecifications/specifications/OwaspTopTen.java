@@ -5,6 +5,7 @@
  */
 package com.sonarsource.ruleapi.externalspecifications.specifications;
 
+import com.sonarsource.ruleapi.domain.CodingStandardCoverage;
 import com.sonarsource.ruleapi.domain.CodingStandardRuleCoverage;
 import com.sonarsource.ruleapi.domain.Rule;
 import com.sonarsource.ruleapi.externalspecifications.CodingStandardRule;
@@ -14,6 +15,7 @@ import com.sonarsource.ruleapi.services.ReportService;
 import com.sonarsource.ruleapi.utilities.Language;
 import com.sonarsource.ruleapi.utilities.Utilities;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -34,9 +36,6 @@ public class OwaspTopTen extends AbstractMultiLanguageStandard {
           "and for each of them, the rules providing this coverage.</p>";
 
 
-  private Language language = Language.JAVA;
-
-
   @Override
   public String getStandardName() {
 
@@ -62,52 +61,40 @@ public class OwaspTopTen extends AbstractMultiLanguageStandard {
   }
 
   @Override
-  protected String generateReport(String instance) {
+  protected void writeReport(CodingStandardCoverage coverage, Appendable out) throws IOException {
 
-    if (language == null || this.getRulesCoverage() == null) {
-      return null;
-    }
-
-    StringBuilder sb = new StringBuilder();
+    Language language = coverage.getLanguage();
 
-    sb.append(String.format(ReportService.HEADER_TEMPLATE, getLanguage().getReportName(), SEE_SECTION_SEARCH))
-            .append(String.format(TITLE_AND_INTRO, getLanguage().getReportName()))
+    out.append(String.format(ReportService.HEADER_TEMPLATE, language.getReportName(), SEE_SECTION_SEARCH))
+            .append(String.format(TITLE_AND_INTRO, language.getReportName()))
             .append(ReportService.TABLE_OPEN)
             .append("<thead><tr><th>OWASP ID</th><th>OWASP Title</th><th>Implementing Rules</th></tr></thead>")
             .append("<tbody>");
 
-    for (Map.Entry<String, CodingStandardRuleCoverage> entry : this.getRulesCoverage().entrySet()) {
+    for (Map.Entry<String, CodingStandardRuleCoverage> entry : coverage.getRulesCoverage().entrySet()) {
       if (!entry.getValue().getImplementedBy().isEmpty()) {
         StandardRule owasp = StandardRule.valueOf(entry.getKey());
-        sb.append("<tr><td><a href='").append(owasp.getUrl()).append("' target='_blank'>")
+        out.append("<tr><td><a href='").append(owasp.getUrl()).append("' target='_blank'>")
                 .append(owasp.name()).append("</a></td><td>").append(owasp.getTitle())
                 .append("</td>\n<td>");
 
         for (Rule rule : entry.getValue().getImplementedBy()) {
-          sb.append(Utilities.getNemoLinkedRuleReference(instance, rule));
+          out.append(Utilities.getNemoLinkedRuleReference(coverage.getInstance(), rule));
         }
 
-        sb.append("</td></tr>\n");
+        out.append("</td></tr>\n");
       }
     }
-    sb.append("</table>")
+    out.append("</table>")
             .append(String.format(ReportService.FOOTER_TEMPLATE,Utilities.getFormattedDateString()));
-
-    return sb.toString();
-  }
-
-  @Override
-  public void setLanguage(Language language) {
-    this.language = language;
-    resetRulesCoverageMap();
   }
 
-  protected String getReportHeader() {
+  protected String getReportHeader(CodingStandardCoverage coverage) {
 
     StringBuilder sb = new StringBuilder();
     sb.append(getStandardName());
-    if (language != null) {
-      sb.append(" for ").append(getLanguage().getRspec());
+    if (coverage.getLanguage() != null) {
+      sb.append(" for ").append(coverage.getLanguage().getRspec());
     }
     sb.append(System.lineSeparator());
 
@@ -115,20 +102,16 @@ public class OwaspTopTen extends AbstractMultiLanguageStandard {
   }
 
   @Override
-  public String getReport(String instance) {
-
-    language = null;
+  public String getReport(CodingStandardCoverage coverage) {
 
     String newline = System.lineSeparator();
 
-    initCoverageResults(instance);
-
     StringBuilder sb = new StringBuilder();
-    sb.append(getReportHeader());
+    sb.append(getReportHeader(coverage));
 
     for (CodingStandardRule csr : getCodingStandardRules()) {
       StandardRule sr = (StandardRule)csr;
-      CodingStandardRuleCoverage csrc = getRulesCoverage().get(sr.getCodingStandardRuleId());
+      CodingStandardRuleCoverage csrc = coverage.getRulesCoverage().get(sr.getCodingStandardRuleId());
 
       sb.append(sr.getCodingStandardRuleId()).append(" - ").append(sr.getTitle()).append(newline);
       sb.append("\t").append("Specifying:   ").append(csrc.getSpecifiedByKeysAsCommaList()).append(newline)
@@ -138,32 +121,27 @@ public class OwaspTopTen extends AbstractMultiLanguageStandard {
     return sb.toString();
   }
 
+  /**
+   * The language-neutral reports only list the specifications, so they don't ask SonarQube for the implementations
+   */
   @Override
-  protected void initCoverageResults(String instance) {
-    if (getRulesCoverage() == null && language == null) {
-      populateRulesCoverageMap();
-      findSpecifiedInRspec(getRSpecRulesReferencingStandard());
-    } else {
-      super.initCoverageResults(instance);
-    }
+  protected CodingStandardCoverage computeCoverage(String instance, Language language) {
+
+    return super.computeCoverage(language == null ? null : instance, language);
   }
 
   @Override
-  public String getSummaryReport(String instance) {
-
-    language = null;
+  public String getSummaryReport(CodingStandardCoverage coverage) {
 
     String newline = System.lineSeparator();
 
-    initCoverageResults(instance);
-
     StringBuilder sb = new StringBuilder();
-    sb.append(getReportHeader());
+    sb.append(getReportHeader(coverage));
 
     for (CodingStandardRule csr : getCodingStandardRules()) {
 
       StandardRule sr = (StandardRule)csr;
-      CodingStandardRuleCoverage cov = getRulesCoverage().get(sr.getCodingStandardRuleId());
+      CodingStandardRuleCoverage cov = coverage.getRulesCoverage().get(sr.getCodingStandardRuleId());
 
       sb.append(cov.getCodingStandardRuleId())
               .append("\tSpecified: ").append(cov.getSpecifiedBy().size())
@@ -173,12 +151,6 @@ public class OwaspTopTen extends AbstractMultiLanguageStandard {
     return sb.toString();
   }
 
-  @Override
-  public Language getLanguage() {
-
-    return language;
-  }
-
   @Override
   public CodingStandardRule[] getCodingStandardRules() {
 
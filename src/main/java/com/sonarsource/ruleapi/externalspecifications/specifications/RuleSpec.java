@@ -5,7 +5,7 @@
  */
 package com.sonarsource.ruleapi.externalspecifications.specifications;
 
-import com.sonarsource.ruleapi.domain.Rule;
+import com.sonarsource.ruleapi.domain.RuleSummary;
 import com.sonarsource.ruleapi.externalspecifications.CustomerReport;
 import com.sonarsource.ruleapi.get.RuleMaker;
 import com.sonarsource.ruleapi.utilities.Language;
@@ -33,12 +33,12 @@ public class RuleSpec implements CustomerReport {
   @Override
   public String getHtmlReport(String instance) {
 
-    List<Rule> rules = RuleMaker.getRulesByJql("'Covered languages' is not empty", "");
+    List<RuleSummary> rules = RuleMaker.getRuleSummariesByJql("'Covered languages' is not empty");
 
     return getRuleTable(rules);
   }
 
-  protected String getRuleTable(List<Rule> rules) {
+  protected String getRuleTable(List<RuleSummary> rules) {
 
     StringBuilder sb = new StringBuilder();
 
@@ -60,7 +60,7 @@ public class RuleSpec implements CustomerReport {
 
     Collections.sort(rules, sort);
 
-    for (Rule rule : rules) {
+    for (RuleSummary rule : rules) {
       sb.append(buildRuleRow(rule));
     }
 
@@ -69,7 +69,7 @@ public class RuleSpec implements CustomerReport {
     return sb.toString();
   }
 
-  protected static String buildRuleRow(Rule rule) {
+  protected static String buildRuleRow(RuleSummary rule) {
 
     if (rule.getCoveredLanguages().size() == 1 || rule.getCoveredLanguages().size() >= TOTAL_LANGUAGES){
       return "";
@@ -102,7 +102,7 @@ public class RuleSpec implements CustomerReport {
     return sb.toString();
   }
 
-  protected static List<Language> getIrrelevantLanguageList(Rule rule) {
+  protected static List<Language> getIrrelevantLanguageList(RuleSummary rule) {
 
     List<Language> irrelevant = new ArrayList<>();
     for (String lang : rule.getIrrelevantLanguages()) {
@@ -111,7 +111,7 @@ public class RuleSpec implements CustomerReport {
     return irrelevant;
   }
 
-  protected static void populateCoveredLanguageLists(Rule rule, List<Language> strong, List<Language> weak, List<Language> legacy) {
+  protected static void populateCoveredLanguageLists(RuleSummary rule, List<Language> strong, List<Language> weak, List<Language> legacy) {
 
     for (String lang : rule.getCoveredLanguages()) {
       Language language = Language.fromString(lang);
@@ -150,9 +150,9 @@ public class RuleSpec implements CustomerReport {
   }
 
 
-  private static class InvertedCoveredLangaugesCountRuleSort implements  Comparator<Rule> {
+  private static class InvertedCoveredLangaugesCountRuleSort implements  Comparator<RuleSummary> {
     @Override
-    public int compare(Rule o1, Rule o2) {
+    public int compare(RuleSummary o1, RuleSummary o2) {
       // biggest-to-smallest sort desired
       return Integer.compare(o2.getCoveredLanguages().size(), o1.getCoveredLanguages().size());
     }
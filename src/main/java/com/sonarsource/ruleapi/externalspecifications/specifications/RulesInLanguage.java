@@ -10,20 +10,24 @@ import com.sonarsource.ruleapi.domain.Profile;
 import com.sonarsource.ruleapi.domain.ReportAndBadge;
 import com.sonarsource.ruleapi.domain.Rule;
 import com.sonarsource.ruleapi.externalspecifications.BadgableMultiLanguage;
-import com.sonarsource.ruleapi.get.Fetcher;
+import com.sonarsource.ruleapi.externalspecifications.ReportRenderer;
 import com.sonarsource.ruleapi.get.RuleMaker;
 import com.sonarsource.ruleapi.services.ReportService;
 import com.sonarsource.ruleapi.services.badge.BadgeGenerator;
 import com.sonarsource.ruleapi.utilities.Language;
 import com.sonarsource.ruleapi.utilities.MarkdownConverter;
 import com.sonarsource.ruleapi.utilities.Utilities;
-import org.json.simple.JSONObject;
 
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import java.io.IOException;
 import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -45,19 +49,10 @@ public class RulesInLanguage implements BadgableMultiLanguage {
   private static final String SPEC = "Sonar";
   private static final NumberFormat NUMBER_FORMAT = NumberFormat.getNumberInstance(Locale.US);
 
-  private Language language = null;
-  private List<Rule> rules = null;
-
   private static final Comparator<Rule> RULE_SEVERITY_COMPARATOR = (Rule r1, Rule r2)->
           r1.getSeverity().compareTo(r2.getSeverity());
 
 
-  @Override
-  public void setLanguage(Language language) {
-    this.language = language;
-    rules = null;
-  }
-
   @Override
   public String getStandardName() {
 
@@ -65,31 +60,33 @@ public class RulesInLanguage implements BadgableMultiLanguage {
   }
 
   @Override
-  public String getBadgeValue(String instance) {
-    fetchRules(instance);
+  public String getBadgeValue(String instance, Language language) {
 
-    if (rules == null) {
-      return "";
-    }
-    return Integer.toString(rules.size());
+    List<Rule> rules = fetchRules(language, instance);
+    return rules == null ? "" : Integer.toString(rules.size());
   }
 
-  private void fetchRules(String instance) {
-    if (language != null && ! Strings.isNullOrEmpty(instance) && rules == null) {
-      rules = RuleMaker.getRulesFromSonarQubeForLanguage(language, instance);
-
-      rules.removeIf(rule -> rule.getKeyOfTemplate() != null );
+  @CheckForNull
+  private static List<Rule> fetchRules(@Nullable Language language, String instance) {
+    if (language == null || Strings.isNullOrEmpty(instance)) {
+      return null;
     }
+
+    List<Rule> rules = RuleMaker.getRulesFromSonarQubeForLanguage(language, instance);
+    rules.removeIf(rule -> rule.getKeyOfTemplate() != null );
+    return rules;
   }
 
   @Override
   public ReportAndBadge getHtmlLanguageReport(String instance, Language language) {
 
-    setLanguage(language);
-    fetchRules(instance);
+    List<Rule> rules = fetchRules(language, instance);
 
     ReportAndBadge reportAndBadge = new ReportAndBadge();
-    reportAndBadge.setReport(generateReport(instance, rules));
+    if (rules != null && !rules.isEmpty()) {
+      Map<String, Long> issueCounts = fetchIssueCounts(instance, language, rules);
+      reportAndBadge.setReportRenderer(out -> writeReport(instance, language, rules, issueCounts, out));
+    }
 
     if (rules != null) {
       BadgeGenerator badger = new BadgeGenerator();
@@ -99,47 +96,58 @@ public class RulesInLanguage implements BadgableMultiLanguage {
     return reportAndBadge;
   }
 
-  protected String generateReport(String instance, List<Rule> ruleList) {
+  protected String generateReport(String instance, Language language, List<Rule> ruleList) {
 
     if (ruleList == null || ruleList.isEmpty()) {
       return "";
     }
 
-    LOGGER.info("Getting Rules in Language report for " + language.getRspec());
+    Map<String, Long> issueCounts = fetchIssueCounts(instance, language, ruleList);
+    ReportRenderer renderer = out -> writeReport(instance, language, ruleList, issueCounts, out);
+    return renderer.render();
+  }
 
-    Map<Rule.Type, List<Rule>> typeMap = groupRulesByType(ruleList);
+  private static Map<String, Long> fetchIssueCounts(String instance, Language language, List<Rule> ruleList) {
 
-    StringBuilder sb = new StringBuilder();
-    StringBuilder rulesBuilder = new StringBuilder();
+    LOGGER.info("Getting Rules in Language report for " + language.getRspec());
 
-    sb.append(String.format(Locale.ENGLISH, ReportService.HEADER_TEMPLATE, language.getReportName(), SPEC));
-    sb.append(String.format(Locale.ENGLISH, TITLE_AND_INTRO, language.getReportName(), language.getRspec(), ruleList.size()));
+    List<String> ruleKeys = new ArrayList<>();
+    for (Rule rule : ruleList) {
+      ruleKeys.add(getIssueSearchKey(rule));
+    }
+    return RuleMaker.getIssueCountsFromSonarQube(instance, ruleKeys);
+  }
 
-    sb.append("<div class=\"row\">");
-    for (Rule.Type type : Rule.Type.values()) {
-      List<Rule> typeRules = typeMap.get(type);
+  /**
+   * Renders the report of a non-empty list of rules, with the issue counts already fetched for them.
+   * The rows are written type after type, as they are made.
+   */
+  protected void writeReport(String instance, Language language, List<Rule> ruleList, Map<String, Long> issueCounts,
+    Appendable out) throws IOException {
 
-      if (typeRules != null) {
+    Map<Rule.Type, List<Rule>> typeMap = groupRulesByType(ruleList);
 
-        sb.append("<div class=\"col-md-4\"><p class=\"text-center header-counter\">")
-                .append(type.toString()).append("</br>")
-                .append("<a href='#").append(type.toString()).append("'>")
-                .append(typeRules.size()).append("</a></p></div>\n");
+    out.append(String.format(Locale.ENGLISH, ReportService.HEADER_TEMPLATE, language.getReportName(), SPEC));
+    out.append(String.format(Locale.ENGLISH, TITLE_AND_INTRO, language.getReportName(), language.getRspec(), ruleList.size()));
 
-        rulesBuilder.append(iterateRulesInType(instance, type, typeRules));
-      }
-    }
-    sb.append("</div>");
+    out.append("<div class=\"row\">");
+    for (Map.Entry<Rule.Type, List<Rule>> entry : typeMap.entrySet()) {
 
-    sb.append(rulesBuilder.toString());
-    sb.append(String.format(ReportService.FOOTER_TEMPLATE,Utilities.getFormattedDateString()));
+      out.append("<div class=\"col-md-4\"><p class=\"text-center header-counter\">")
+              .append(entry.getKey().toString()).append("</br>")
+              .append("<a href='#").append(entry.getKey().toString()).append("'>")
+              .append(String.valueOf(entry.getValue().size())).append("</a></p></div>\n");
+    }
+    out.append("</div>");
 
-    return sb.toString();
+    for (Map.Entry<Rule.Type, List<Rule>> entry : typeMap.entrySet()) {
+      iterateRulesInType(instance, entry.getKey(), entry.getValue(), issueCounts, out);
+    }
+    out.append(String.format(ReportService.FOOTER_TEMPLATE,Utilities.getFormattedDateString()));
   }
 
-  protected static String iterateRulesInType(String instance, Rule.Type type, List<Rule> typeRules) {
-
-    StringBuilder rulesBuilder = new StringBuilder();
+  protected static void iterateRulesInType(String instance, Rule.Type type, List<Rule> typeRules, Map<String, Long> issueCounts,
+    Appendable rulesBuilder) throws IOException {
 
     rulesBuilder.append("<a name='").append(type.toString()).append("'></a>");
 
@@ -151,11 +159,10 @@ public class RulesInLanguage implements BadgableMultiLanguage {
     Collections.sort(typeRules, RULE_SEVERITY_COMPARATOR);
     for (Rule rule : typeRules) {
 
-      rulesBuilder.append(getRuleRow(rule, instance, getInActionLink(rule, instance)));
+      Long total = issueCounts.get(getIssueSearchKey(rule));
+      rulesBuilder.append(getRuleRow(rule, instance, getInActionLink(rule, instance, total == null ? 0 : total)));
     }
     rulesBuilder.append(" </tbody>\n</table>\n");
-
-    return rulesBuilder.toString();
   }
 
   protected static String getRuleRow(Rule rule, String instance, String inActionLink) {
@@ -163,7 +170,7 @@ public class RulesInLanguage implements BadgableMultiLanguage {
 
     StringBuilder sb = new StringBuilder();
 
-    Set<String> tags = rule.getTags();
+    Set<String> tags = new HashSet<>(rule.getTags());
     tags.remove("bug");
     tags.remove("security");
 
@@ -183,13 +190,14 @@ public class RulesInLanguage implements BadgableMultiLanguage {
     return sb.toString();
   }
 
-  private static String getInActionLink(Rule rule, String instance) {
+  private static String getIssueSearchKey(Rule rule) {
 
-    String ruleKey = Utilities.getDeployedKey(rule);
+    return rule.getRepo() + ":" + Utilities.getDeployedKey(rule);
+  }
+
+  private static String getInActionLink(Rule rule, String instance, long total) {
 
-    // get count: https://sonarqube.com/api/issues/search?rule=squid%3S1154&ps=1
-    JSONObject response = Fetcher.getJsonFromUrl(String.format("%s/api/issues/search?ps=1&rules=%s:%s",instance,rule.getRepo(),ruleKey));
-    long total = (long) response.get("total");
+    String ruleKey = Utilities.getDeployedKey(rule);
 
     if (total > 0) {
       String tot = NUMBER_FORMAT.format(total);
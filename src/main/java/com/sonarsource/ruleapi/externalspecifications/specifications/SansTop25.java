@@ -6,6 +6,7 @@
 package com.sonarsource.ruleapi.externalspecifications.specifications;
 
 import com.google.common.base.Enums;
+import com.sonarsource.ruleapi.domain.CodingStandardCoverage;
 import com.sonarsource.ruleapi.domain.CodingStandardRuleCoverage;
 import com.sonarsource.ruleapi.domain.Rule;
 import com.sonarsource.ruleapi.externalspecifications.CodingStandardRule;
@@ -15,6 +16,7 @@ import com.sonarsource.ruleapi.services.ReportService;
 import com.sonarsource.ruleapi.utilities.Language;
 import com.sonarsource.ruleapi.utilities.Utilities;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumMap;
@@ -38,24 +40,6 @@ public class SansTop25  extends AbstractMultiLanguageStandard {
           "CWE standard items in the SANS Top 25 that %1$s is able to detect, " +
           "and for each of them, the rules providing this coverage.</p>";
 
-  private Language language = null;
-
-  private int insecureInteractionCount = 0;
-  private int insecureInteractionSpecified = 0;
-  private int insecureInteractionImplemented = 0;
-  private int insecureInteractionNa = 0;
-
-  private int riskyResourceCount = 0;
-  private int riskyResourceSpecified = 0;
-  private int riskyResourceImplemented = 0;
-  private int riskyResourceNa = 0;
-
-  private int porousDefensesCount = 0;
-  private int porousDefensesSpecified = 0;
-  private int porousDefensesImplemented = 0;
-  private int porousDefensesNa = 0;
-
-
   @Override
   public String getStandardName() {
 
@@ -80,36 +64,20 @@ public class SansTop25  extends AbstractMultiLanguageStandard {
   }
 
   @Override
-  protected void initCoverageResults(String instance) {
-    if (getRulesCoverage() == null && language == null) {
-
-      populateRulesCoverageMap();
-      findSpecifiedInRspec(getRSpecRulesReferencingStandard());
-      findImplementedByPlugin(instance);
-
-    } else {
-      super.initCoverageResults(instance);
-    }
-  }
-
-  @Override
-  public String getReport(String instance) {
-
-    initCoverageResults(instance);
-    computeCoverage();
+  public String getReport(CodingStandardCoverage coverage) {
 
     StringBuilder sb = new StringBuilder();
     for (StandardRule sr : StandardRule.values()) {
-      sb.append(formatLine(sr));
+      sb.append(formatLine(coverage, sr));
     }
-    sb.append(getSummaryReport(instance));
+    sb.append(getSummaryReport(coverage));
 
     return sb.toString();
   }
 
-  protected String formatLine(StandardRule sr) {
+  protected String formatLine(CodingStandardCoverage coverage, StandardRule sr) {
 
-    CodingStandardRuleCoverage cov = getRulesCoverage().get(sr.getCodingStandardRuleId());
+    CodingStandardRuleCoverage cov = coverage.getRulesCoverage().get(sr.getCodingStandardRuleId());
     if (Implementability.NOT_IMPLEMENTABLE.equals(sr.getImplementability())){
       return String.format("%2d) %-7s - %s%n      Not Implementable: %s%n%n",
               sr.rank,
@@ -160,25 +128,27 @@ public class SansTop25  extends AbstractMultiLanguageStandard {
 
 
   @Override
-  public String getSummaryReport(String instance) {
+  public String getSummaryReport(CodingStandardCoverage coverage) {
 
-    initCoverageResults(instance);
-    computeCoverage();
+    Map<Category, CategoryCounts> counts = computeCoverage(coverage);
+    CategoryCounts insecureInteraction = counts.get(Category.INSECURE_INTERACTION);
+    CategoryCounts porousDefenses = counts.get(Category.POROUS_DEFENSES);
+    CategoryCounts riskyResource = counts.get(Category.RISKY_RESOURCE);
 
     String newline = System.lineSeparator();
     StringBuilder sb = new StringBuilder();
     sb.append(newline).append(getStandardName()).append(newline);
 
     sb.append(formatSummaryLine(Category.INSECURE_INTERACTION.getName(),
-            insecureInteractionCount, insecureInteractionNa, insecureInteractionSpecified, insecureInteractionImplemented));
+            insecureInteraction.count, insecureInteraction.na, insecureInteraction.specified, insecureInteraction.implemented));
     sb.append(formatSummaryLine(Category.POROUS_DEFENSES.getName(),
-            porousDefensesCount, porousDefensesNa, porousDefensesSpecified, porousDefensesImplemented));
+            porousDefenses.count, porousDefenses.na, porousDefenses.specified, porousDefenses.implemented));
     sb.append(formatSummaryLine(Category.RISKY_RESOURCE.getName(),
-            riskyResourceCount, riskyResourceNa, riskyResourceSpecified, riskyResourceImplemented));
+            riskyResource.count, riskyResource.na, riskyResource.specified, riskyResource.implemented));
     sb.append(formatSummaryLine("Total", 25,
-            insecureInteractionNa + riskyResourceNa + porousDefensesNa,
-            insecureInteractionSpecified + riskyResourceSpecified + porousDefensesSpecified,
-            insecureInteractionImplemented + riskyResourceImplemented + porousDefensesImplemented));
+            insecureInteraction.na + riskyResource.na + porousDefenses.na,
+            insecureInteraction.specified + riskyResource.specified + porousDefenses.specified,
+            insecureInteraction.implemented + riskyResource.implemented + porousDefenses.implemented));
 
     return sb.toString();
   }
@@ -189,96 +159,58 @@ public class SansTop25  extends AbstractMultiLanguageStandard {
             label, total, na, specified, implemented);
   }
 
-  @Override
-  public Language getLanguage() {
-
-    return language;
-  }
-
   @Override
   public CodingStandardRule[] getCodingStandardRules() {
 
     return StandardRule.values();
   }
 
-  protected void computeCoverage() {
+  protected Map<Category, CategoryCounts> computeCoverage(CodingStandardCoverage coverage) {
 
-    if (insecureInteractionCount > 0) {
-      return;
+    Map<Category, CategoryCounts> counts = new EnumMap<>(Category.class);
+    for (Category category : Category.values()) {
+      counts.put(category, new CategoryCounts());
     }
 
     for (StandardRule sr : StandardRule.values()) {
-      CodingStandardRuleCoverage cov = getRulesCoverage().get(sr.getCodingStandardRuleId());
-
-      switch (sr.category) {
-        case INSECURE_INTERACTION:
-          countInsecureCoverage(sr, cov);
-          break;
-
-        case POROUS_DEFENSES:
-          countPorousDefenses(sr, cov);
-          break;
-
-        case RISKY_RESOURCE:
-          countRiskyResource(sr, cov);
-          break;
-
-        default:
-      }
+      CodingStandardRuleCoverage cov = coverage.getRulesCoverage().get(sr.getCodingStandardRuleId());
+      counts.get(sr.category).add(sr, cov);
     }
+    return counts;
   }
 
-  private void countRiskyResource(StandardRule sr, CodingStandardRuleCoverage cov) {
+  /**
+   * Coverage counts of the ids of a {@link Category}
+   */
+  protected static class CategoryCounts {
 
-    riskyResourceCount++;
-    if (Implementability.NOT_IMPLEMENTABLE.equals(sr.getImplementability())) {
-      riskyResourceNa ++;
-    }
-    if (!cov.getSpecifiedBy().isEmpty()) {
-      riskyResourceSpecified++;
-    }
-    if (!cov.getImplementedBy().isEmpty()) {
-      riskyResourceImplemented++;
-    }
-  }
+    private int count = 0;
+    private int specified = 0;
+    private int implemented = 0;
+    private int na = 0;
 
-  private void countPorousDefenses(StandardRule sr, CodingStandardRuleCoverage cov) {
+    private void add(StandardRule sr, CodingStandardRuleCoverage cov) {
 
-    porousDefensesCount++;
-    if (Implementability.NOT_IMPLEMENTABLE.equals(sr.getImplementability())) {
-      porousDefensesNa++;
-    }
-    if (!cov.getSpecifiedBy().isEmpty()) {
-      porousDefensesSpecified++;
-    }
-    if (!cov.getImplementedBy().isEmpty()) {
-      porousDefensesImplemented++;
-    }
-  }
-
-  private void countInsecureCoverage(StandardRule sr, CodingStandardRuleCoverage cov) {
-
-    insecureInteractionCount++;
-    if (Implementability.NOT_IMPLEMENTABLE.equals(sr.getImplementability())) {
-      insecureInteractionNa++;
-    }
-    if (!cov.getSpecifiedBy().isEmpty()) {
-      insecureInteractionSpecified++;
-    }
-    if (!cov.getImplementedBy().isEmpty()) {
-      insecureInteractionImplemented++;
+      count++;
+      if (Implementability.NOT_IMPLEMENTABLE.equals(sr.getImplementability())) {
+        na++;
+      }
+      if (!cov.getSpecifiedBy().isEmpty()) {
+        specified++;
+      }
+      if (!cov.getImplementedBy().isEmpty()) {
+        implemented++;
+      }
     }
   }
 
   @Override
-  protected String generateReport(String instance) {
+  protected void writeReport(CodingStandardCoverage coverage, Appendable out) throws IOException {
 
-    if (getLanguage() == null || this.getRulesCoverage() == null) {
-      return null;
-    }
+    Language language = coverage.getLanguage();
 
     Map<Category,Map<StandardRule, List<Rule>>> metaMap = new EnumMap<>(Category.class);
-    for (Map.Entry<String, CodingStandardRuleCoverage> entry : this.getRulesCoverage().entrySet()) {
+    for (Map.Entry<String, CodingStandardRuleCoverage> entry : coverage.getRulesCoverage().entrySet()) {
       if (!entry.getValue().getImplementedBy().isEmpty()) {
 
         StandardRule csr = StandardRule.fromString(entry.getValue().getCodingStandardRuleId());
@@ -292,14 +224,13 @@ public class SansTop25  extends AbstractMultiLanguageStandard {
     }
 
 
-    StringBuilder sb = new StringBuilder();
-    sb.append(String.format(ReportService.HEADER_TEMPLATE, getLanguage().getReportName(), NAME + " Most Dangerous Software Errors"))
-            .append(String.format(TITLE_AND_INTRO, getLanguage().getReportName()));
+    out.append(String.format(ReportService.HEADER_TEMPLATE, language.getReportName(), NAME + " Most Dangerous Software Errors"))
+            .append(String.format(TITLE_AND_INTRO, language.getReportName()));
 
 
     for (Map.Entry<Category, Map<StandardRule, List<Rule>>> metaEntry : metaMap.entrySet()) {
 
-      sb.append("<h3><a href='")
+      out.append("<h3><a href='")
               .append(metaEntry.getKey().getUrl()).append("' target='_blank'>").append(metaEntry.getKey().getName())
               .append("</a></h3>")
               .append(ReportService.TABLE_OPEN)
@@ -313,22 +244,20 @@ public class SansTop25  extends AbstractMultiLanguageStandard {
         Integer id = Integer.valueOf(cweId.split("-")[1]);
         Cwe.CweRule cwe = Cwe.CweRule.fromString(cweId);
 
-        sb.append("<tr><td><a href='http://cwe.mitre.org/data/definitions/").append(id)
-                .append("' target='_blank'>").append(id).append("</a></td><td>")
+        out.append("<tr><td><a href='http://cwe.mitre.org/data/definitions/").append(String.valueOf(id))
+                .append("' target='_blank'>").append(String.valueOf(id)).append("</a></td><td>")
                 .append(cwe.getTitle()).append("</td><td>");
 
         for (Rule rule : miniEntry.getValue()) {
-          sb.append(Utilities.getNemoLinkedRuleReference(instance, rule));
+          out.append(Utilities.getNemoLinkedRuleReference(coverage.getInstance(), rule));
         }
 
-        sb.append("</td></tr>\n");
+        out.append("</td></tr>\n");
       }
-      sb.append("</table>");
+      out.append("</table>");
     }
 
-    sb.append(String.format(ReportService.FOOTER_TEMPLATE,Utilities.getFormattedDateString()));
-
-    return sb.toString();
+    out.append(String.format(ReportService.FOOTER_TEMPLATE,Utilities.getFormattedDateString()));
   }
 
   @Override
@@ -342,11 +271,6 @@ public class SansTop25  extends AbstractMultiLanguageStandard {
     return null;
   }
 
-  @Override
-  public void setLanguage(Language language) {
-    this.language = language;
-  }
-
   public enum Category implements DerivativeTaggableStandard {
     INSECURE_INTERACTION("Insecure Interaction Between Components", "http://www.sans.org/top25-software-errors/#cat1"),
     RISKY_RESOURCE("Risky Resource Management", "http://www.sans.org/top25-software-errors/#cat2"),
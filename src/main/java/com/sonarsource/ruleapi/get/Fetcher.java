@@ -6,7 +6,19 @@
 package com.sonarsource.ruleapi.get;
 
 import com.sonarsource.ruleapi.domain.RuleException;
-import org.glassfish.jersey.client.authentication.HttpAuthenticationFeature;
+import com.sonarsource.ruleapi.utilities.Utilities;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.RequestEntityProcessing;
+import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
@@ -16,21 +28,39 @@ import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
-import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
+import java.nio.charset.StandardCharsets;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.util.Base64;
 
 
 /**
  * Retrieve data from a URL.
+ *
+ * Calls go through lazily created clients backed by pools of keep-alive
+ * connections, so TLS handshakes are paid once per connection instead of once
+ * per request. Anonymous reads share one client; calls carrying credentials use
+ * a separate one which validates server certificates against the JVM's default
+ * trust store. The size of each pool can be tuned with the
+ * <code>ruleApi.maxConnectionsPerHost</code> and <code>ruleApi.maxConnections</code>
+ * system properties.
  */
 public class Fetcher {
 
+  static final String MAX_CONNECTIONS_PER_HOST_PROPERTY = "ruleApi.maxConnectionsPerHost";
+  static final String MAX_CONNECTIONS_PROPERTY = "ruleApi.maxConnections";
+
+  private static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 8;
+  private static final int DEFAULT_MAX_CONNECTIONS = 32;
+
   private Fetcher() {
     // Utility class to get json from a url
   }
@@ -43,38 +73,128 @@ public class Fetcher {
 
   public static JSONObject getJsonFromUrl(String url, String login, String password) {
 
-    Client client = getClient(login, password);
+    return (JSONObject) getParsedJsonFromUrl(url, login, password);
+  }
+
+  public static JSONArray getJsonArrayFromUrl(String url) {
 
-    WebTarget webResource = client.target(url);
+    return (JSONArray) getParsedJsonFromUrl(url, null, null);
+  }
 
-    Response response = webResource.request().accept(MediaType.APPLICATION_JSON).get(Response.class);
+  private static Object getParsedJsonFromUrl(String url, String login, String password) {
 
-    checkStatus(url, client, response);
+    Response response = request(url, login, password).get();
 
-    String responseStr = response.readEntity(String.class);
-    response.close();
-    client.close();
+    checkStatus(url, response);
+
+    String responseStr;
+    try {
+      responseStr = response.readEntity(String.class);
+    } finally {
+      response.close();
+    }
 
     JSONParser parser = new JSONParser();
     try {
-      return (JSONObject)parser.parse(responseStr);
+      return parser.parse(responseStr);
     } catch (ParseException e) {
       throw new RuleException(e);
     }
   }
 
-  protected static void checkStatus(String url, Client client, Response response) {
+  /**
+   * PUTs the JSON body to the URL and returns the HTTP status of the response.
+   */
+  public static int putJson(String url, String login, String password, JSONObject body) {
+
+    Response response = request(url, login, password).put(Entity.entity(body.toJSONString(), MediaType.APPLICATION_JSON_TYPE));
+    response.close();
+    return response.getStatus();
+  }
+
+  /**
+   * POSTs the JSON body to the URL and returns the HTTP status of the response.
+   */
+  public static int postJson(String url, String login, String password, JSONObject body) {
+
+    Response response = request(url, login, password).post(Entity.entity(body.toJSONString(), MediaType.APPLICATION_JSON_TYPE));
+    response.close();
+    return response.getStatus();
+  }
+
+  private static Invocation.Builder request(String url, String login, String password) {
+
+    if (login != null && password != null) {
+      return getCredentialedClient().target(url).request(MediaType.APPLICATION_JSON_TYPE)
+              .header(HttpHeaders.AUTHORIZATION, basicAuthorization(login, password));
+    }
+    return getClient().target(url).request(MediaType.APPLICATION_JSON_TYPE);
+  }
+
+  static String basicAuthorization(String login, String password) {
+    byte[] credentials = (login + ":" + password).getBytes(StandardCharsets.ISO_8859_1);
+    return "Basic " + Base64.getEncoder().encodeToString(credentials);
+  }
+
+  protected static void checkStatus(String url, Response response) {
 
     int status = response.getStatus();
     if (status < 200 || status > 299) {
       response.close();
-      client.close();
       throw new RuleException("Failed : HTTP error code: "
               + response.getStatus() + " for " + url);
     }
   }
 
-  protected static Client getClient(String login, String password) {
+  protected static Client getClient() {
+    return ClientHolder.CLIENT;
+  }
+
+  /**
+   * @return the client for calls sending credentials, which only trusts certificates the JVM trusts
+   */
+  protected static Client getCredentialedClient() {
+    return CredentialedClientHolder.CLIENT;
+  }
+
+  private static Client createClient() {
+    SSLContext sslcontext = createSslContext();
+    return createClient(new SSLConnectionSocketFactory(sslcontext, SSLConnectionSocketFactory.BROWSER_COMPATIBLE_HOSTNAME_VERIFIER), sslcontext);
+  }
+
+  private static Client createCredentialedClient() {
+    try {
+      return createClient(SSLConnectionSocketFactory.getSocketFactory(), SSLContext.getDefault());
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuleException(e);
+    }
+  }
+
+  private static Client createClient(SSLConnectionSocketFactory sslSocketFactory, SSLContext sslcontext) {
+
+    Registry<ConnectionSocketFactory> socketFactories = RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .register("https", sslSocketFactory)
+            .build();
+
+    PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(socketFactories);
+    int maxPerHost = Utilities.getPositiveIntProperty(MAX_CONNECTIONS_PER_HOST_PROPERTY, DEFAULT_MAX_CONNECTIONS_PER_HOST);
+    connectionManager.setDefaultMaxPerRoute(maxPerHost);
+    connectionManager.setMaxTotal(Math.max(maxPerHost, Utilities.getPositiveIntProperty(MAX_CONNECTIONS_PROPERTY, DEFAULT_MAX_CONNECTIONS)));
+
+    ClientConfig config = new ClientConfig()
+            .connectorProvider(new ApacheConnectorProvider())
+            .property(ApacheClientProperties.CONNECTION_MANAGER, connectionManager)
+            .property(ClientProperties.REQUEST_ENTITY_PROCESSING, RequestEntityProcessing.BUFFERED);
+
+    return ClientBuilder.newBuilder()
+            .withConfig(config)
+            .sslContext(sslcontext)
+            .hostnameVerifier(SSLConnectionSocketFactory.BROWSER_COMPATIBLE_HOSTNAME_VERIFIER)
+            .build();
+  }
+
+  private static SSLContext createSslContext() {
     try {
       System.setProperty("jsse.enableSNIExtension", "false");
       SSLContext sslcontext = SSLContext.getInstance( "TLS" );
@@ -93,19 +213,19 @@ public class Fetcher {
         }
 
       }}, new java.security.SecureRandom());
-
-      Client client = ClientBuilder.newBuilder().sslContext(sslcontext)
-              .hostnameVerifier((s1, s2) -> s1.equalsIgnoreCase(s2.getPeerHost()))
-              .build();
-
-      if (login != null && password != null) {
-        client.register(HttpAuthenticationFeature.basic(login, password));
-      }
-
-      return client;
+      return sslcontext;
 
     } catch (KeyManagementException| NoSuchAlgorithmException e) {
       throw new RuntimeException(e);
     }
   }
+
+  private static final class ClientHolder {
+    // initialized on first use, shared by every thread of the process
+    private static final Client CLIENT = createClient();
+  }
+
+  private static final class CredentialedClientHolder {
+    private static final Client CLIENT = createCredentialedClient();
+  }
 }
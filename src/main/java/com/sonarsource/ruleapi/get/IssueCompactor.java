@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2014-2018 SonarSource SA
+ * All rights reserved
+ * mailto:info AT sonarsource DOT com
+ */
+package com.sonarsource.ruleapi.get;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.sonarsource.ruleapi.externalspecifications.CodingStandard;
+import com.sonarsource.ruleapi.externalspecifications.SupportedStandard;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import javax.annotation.CheckForNull;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Trims the RSPEC issues kept in memory down to what is read from them.
+ *
+ * Jira returns every field of the instance for every issue, most of them empty, and each nested
+ * status, type or option comes with ids, urls and icons. Only the fields read by {@link JiraHelper},
+ * {@link RuleMaker} and {@link JqlFilter} are kept, empty ones are dropped, nested objects are reduced
+ * to their name, value or key, and short strings are interned. The <code>names</code> map is reduced to
+ * the kept custom fields, so that a {@link JqlFilter} on any other field falls back to Jira.
+ */
+final class IssueCompactor {
+
+  /**
+   * Custom fields read by {@link JiraHelper} besides the reference fields of the standards.
+   */
+  private static final Set<String> RULE_FIELDS = ImmutableSet.of(
+    "Legacy Key", "Default Severity", "Default Quality Profiles", "Targeted languages", "Covered Languages",
+    "Irrelevant for Languages", "Analysis Scope", "Message", "Template Rule", "List of parameters",
+    "Remediation Function", "Constant Cost", "Linear Argument Description", "Linear Factor", "Linear Offset",
+    "fb-contrib", "PHP-FIG", "MSFT Roslyn");
+
+  /**
+   * Custom fields read by {@link JiraHelper} and searched by the reports: the rule fields, and the reference
+   * field of every supported standard, so that a new standard is never compacted away.
+   */
+  static final Set<String> CUSTOM_FIELDS = customFields();
+
+  private static final Set<String> SYSTEM_FIELDS = ImmutableSet.of(
+    "summary", "description", "status", "resolution", "issuetype", "labels", "priority", "environment");
+
+  private static final Set<String> VALUE_KEYS = ImmutableSet.of("name", "value", "key");
+
+  private static final String KEY = "key";
+  private static final String NAMES = "names";
+  private static final String FIELDS = "fields";
+  private static final String ISSUE_LINKS = "issuelinks";
+  private static final String SUBTASKS = "subtasks";
+
+  private static final int INTERNED_MAX_LENGTH = 64;
+  private static final Interner<String> STRINGS = Interners.newWeakInterner();
+
+  private final Map<Object, JSONObject> compactNames = new IdentityHashMap<>();
+
+  private IssueCompactor() {
+  }
+
+  private static Set<String> customFields() {
+    ImmutableSet.Builder<String> fields = ImmutableSet.<String>builder().addAll(RULE_FIELDS);
+    for (SupportedStandard supportedStandard : SupportedStandard.values()) {
+      if (supportedStandard.getStandard() instanceof CodingStandard) {
+        fields.add(((CodingStandard) supportedStandard.getStandard()).getRSpecReferenceFieldName());
+      }
+    }
+    return fields.build();
+  }
+
+  static List<JSONObject> compact(List<JSONObject> issues) {
+    IssueCompactor compactor = new IssueCompactor();
+    List<JSONObject> compacted = new ArrayList<>(issues.size());
+    for (JSONObject issue : issues) {
+      compacted.add(compactor.compactIssue(issue));
+    }
+    return compacted;
+  }
+
+  @CheckForNull
+  static JSONObject compact(@CheckForNull JSONObject issue) {
+    return issue == null ? null : new IssueCompactor().compactIssue(issue);
+  }
+
+  private JSONObject compactIssue(JSONObject issue) {
+    JSONObject names = compactNames.computeIfAbsent(issue.get(NAMES), IssueCompactor::compactNames);
+    JSONObject fields = (JSONObject) issue.get(FIELDS);
+
+    JSONObject compacted = new JSONObject();
+    compacted.put(KEY, intern(issue.get(KEY)));
+    compacted.put(NAMES, names);
+    if (fields == null) {
+      return compacted;
+    }
+
+    JSONObject compactFields = new JSONObject();
+    for (String field : SYSTEM_FIELDS) {
+      putIfNotEmpty(compactFields, field, compactValue(fields.get(field)));
+    }
+    for (Object field : names.keySet()) {
+      putIfNotEmpty(compactFields, (String) field, compactValue(fields.get(field)));
+    }
+    putIfNotEmpty(compactFields, ISSUE_LINKS, compactLinks((List) fields.get(ISSUE_LINKS)));
+    putIfNotEmpty(compactFields, SUBTASKS, compactSubtasks((List) fields.get(SUBTASKS)));
+    compacted.put(FIELDS, compactFields);
+    return compacted;
+  }
+
+  private static JSONObject compactNames(@CheckForNull Object names) {
+    JSONObject compacted = new JSONObject();
+    if (names instanceof Map) {
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) names).entrySet()) {
+        if (CUSTOM_FIELDS.contains(entry.getValue())) {
+          compacted.put(intern(entry.getKey()), intern(entry.getValue()));
+        }
+      }
+    }
+    return compacted;
+  }
+
+  @CheckForNull
+  private static JSONArray compactLinks(@CheckForNull List<?> links) {
+    if (links == null) {
+      return null;
+    }
+    JSONArray compacted = new JSONArray();
+    for (Object linkObject : links) {
+      JSONObject link = (JSONObject) linkObject;
+      JSONObject type = (JSONObject) link.get("type");
+      JSONObject compactType = new JSONObject();
+      for (String key : new String[] {"name", "inward", "outward"}) {
+        compactType.put(key, intern(type.get(key)));
+      }
+      JSONObject compactLink = new JSONObject();
+      compactLink.put("type", compactType);
+      for (String direction : new String[] {"inwardIssue", "outwardIssue"}) {
+        JSONObject other = (JSONObject) link.get(direction);
+        if (other != null) {
+          JSONObject compactOther = new JSONObject();
+          compactOther.put(KEY, intern(other.get(KEY)));
+          compactLink.put(direction, compactOther);
+        }
+      }
+      compacted.add(compactLink);
+    }
+    return compacted;
+  }
+
+  @CheckForNull
+  private static JSONArray compactSubtasks(@CheckForNull List<?> subtasks) {
+    if (subtasks == null) {
+      return null;
+    }
+    JSONArray compacted = new JSONArray();
+    for (Object subtaskObject : subtasks) {
+      JSONObject subtask = (JSONObject) subtaskObject;
+      JSONObject fields = new JSONObject();
+      fields.put("summary", intern(JiraHelper.getJsonFieldValue(subtask, "summary")));
+      JSONObject compactSubtask = new JSONObject();
+      compactSubtask.put(KEY, intern(subtask.get(KEY)));
+      compactSubtask.put(FIELDS, fields);
+      compacted.add(compactSubtask);
+    }
+    return compacted;
+  }
+
+  @CheckForNull
+  private static Object compactValue(@CheckForNull Object value) {
+    if (value instanceof JSONObject) {
+      JSONObject compacted = new JSONObject();
+      for (String key : VALUE_KEYS) {
+        Object nested = ((JSONObject) value).get(key);
+        if (nested != null) {
+          compacted.put(key, intern(nested));
+        }
+      }
+      return compacted;
+    }
+    if (value instanceof List) {
+      JSONArray compacted = new JSONArray();
+      for (Object element : (List<?>) value) {
+        compacted.add(compactValue(element));
+      }
+      return compacted;
+    }
+    return intern(value);
+  }
+
+  private static void putIfNotEmpty(JSONObject fields, String field, @CheckForNull Object value) {
+    if (value != null && !(value instanceof List && ((List) value).isEmpty())) {
+      fields.put(intern(field), value);
+    }
+  }
+
+  @CheckForNull
+  private static <T> T intern(@CheckForNull T value) {
+    if (value instanceof String && ((String) value).length() <= INTERNED_MAX_LENGTH) {
+      return (T) STRINGS.intern((String) value);
+    }
+    return value;
+  }
+}
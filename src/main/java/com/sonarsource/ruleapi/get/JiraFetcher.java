@@ -7,7 +7,9 @@ package com.sonarsource.ruleapi.get;
 
 import org.json.simple.JSONObject;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface JiraFetcher {
 
@@ -23,5 +25,24 @@ public interface JiraFetcher {
    */
   JSONObject fetchIssueByKey(String key);
 
+  /**
+   * Retrieves several Jira Issues at once, using as few calls as possible.
+   * Accepts the same keys as {@link #fetchIssueByKey(String)}.
+   *
+   * @param keys the keys to search by.
+   * @return Populated Issues by requested key; keys without a match are absent
+   */
+  Map<String, JSONObject> fetchIssuesByKey(Collection<String> keys);
+
   List<JSONObject> fetchIssuesBySearch(String search);
+
+  /**
+   * Retrieves the Jira Issues matching the search with only some of their fields. Issues already in memory
+   * are returned whole, the others only hold the requested fields.
+   *
+   * @param search the JQL search
+   * @param fieldNames the fields needed, by id or by name
+   * @return Issues holding at least the requested fields
+   */
+  List<JSONObject> fetchIssuesBySearch(String search, Collection<String> fieldNames);
 }
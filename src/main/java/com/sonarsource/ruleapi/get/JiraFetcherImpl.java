@@ -7,17 +7,28 @@ package com.sonarsource.ruleapi.get;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
-import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.sonarsource.ruleapi.domain.RuleException;
+import com.sonarsource.ruleapi.utilities.Parallel;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
 import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class JiraFetcherImpl implements JiraFetcher {
 
@@ -30,12 +41,18 @@ public class JiraFetcherImpl implements JiraFetcher {
   private static final String SEARCH = "search?expand=names&maxResults=1000&jql=";
   private static final String BASE_QUERY = "project=RSPEC AND resolution = Unresolved AND issuetype != Language-Specification AND ";
 
+  // keeps the search URL short
+  private static final int KEYS_PER_SEARCH = 100;
+
   private static final String ENCODING = "UTF-8";
   private static final String ISSUES = "issues";
 
+  private static final ConcurrentMap<String, RspecSnapshot> SNAPSHOTS = new ConcurrentHashMap<>();
+  private static final ConcurrentMap<String, Map<String, String>> FIELD_IDS_BY_NAME = new ConcurrentHashMap<>();
+
   private String baseUrl;
 
-  private Map<String, JSONObject> rspecJsonCacheByKey = null;
+  private final RspecSnapshot snapshot;
 
   private JiraFetcherImpl() {
     this(getBaseUrl());
@@ -51,33 +68,143 @@ public class JiraFetcherImpl implements JiraFetcher {
 
   private JiraFetcherImpl(String baseUrl) {
     this.baseUrl = baseUrl;
+    this.snapshot = snapshot(baseUrl);
+  }
+
+  /**
+   * The RSPEC snapshot shared by every fetcher of the process for the current base URL.
+   */
+  public static RspecSnapshot snapshot() {
+    return snapshot(getBaseUrl());
+  }
+
+  private static RspecSnapshot snapshot(String baseUrl) {
+    return SNAPSHOTS.computeIfAbsent(baseUrl, url -> new RspecSnapshot(() -> loadRspecs(url),
+      key -> IssueCompactor.compact(fetchIssueFromJira(url, key))));
+  }
+
+  /**
+   * Issues are compacted as they are fetched, so that neither the snapshot nor the mirror hold what isn't read.
+   */
+  private static Map<String, JSONObject> loadRspecs(String baseUrl) {
+    RspecMirror mirror = RspecMirror.forBaseUrl(baseUrl);
+    if (mirror == null) {
+      return RspecSnapshot.byKey(IssueCompactor.compact(fetchPaginatedRspecs(baseUrl, RspecMirror.ALL_RSPECS, FIELDS)));
+    }
+    return mirror.sync(search -> IssueCompactor.compact(fetchPaginatedRspecs(baseUrl, search, FIELDS)));
+  }
+
+  /**
+   * With a local mirror the whole corpus is cheap to load, so it is used even for single lookups.
+   */
+  @CheckForNull
+  private RspecSnapshot.State getCachedRspecs() {
+    return RspecMirror.isEnabled() ? snapshot.getState() : snapshot.getStateIfLoaded();
+  }
+
+  /**
+   * The covered languages of an issue read from the snapshot, <code>null</code> if it isn't cached there.
+   */
+  @CheckForNull
+  Set<String> getCachedCoveredLanguages(String key) {
+    RspecSnapshot.State cached = getCachedRspecs();
+    return cached == null ? null : cached.getCoveredLanguages(key);
   }
 
   @Override
   public JSONObject fetchIssueByKey(String key) {
-    JSONObject issue;
+    String issueKey = toIssueKey(key);
+    return issueKey != null ? getIssueByKey(issueKey) : getIssueByLegacyKey(getCachedRspecs(), key);
+  }
 
+  /**
+   * Issues cached in the snapshot are read from it. The other ones are searched for by batches of
+   * <code>key in (...)</code>, except for legacy keys which are resolved one by one.
+   */
+  @Override
+  public Map<String, JSONObject> fetchIssuesByKey(Collection<String> keys) {
+    Map<String, JSONObject> issues = new LinkedHashMap<>();
+    ListMultimap<String, String> missingKeys = ArrayListMultimap.create();
+
+    RspecSnapshot.State cached = getCachedRspecs();
+    Map<String, JSONObject> rspecJsonCacheByKey = cached == null ? null : cached.getIssuesByKey();
+    for (String key : keys) {
+      String issueKey = toIssueKey(key);
+      if (issueKey == null) {
+        putIfNotNull(issues, key, getIssueByLegacyKey(cached, key));
+      } else if (rspecJsonCacheByKey != null && (rspecJsonCacheByKey.containsKey(issueKey) || RspecMirror.isOffline())) {
+        putIfNotNull(issues, key, rspecJsonCacheByKey.get(issueKey));
+      } else {
+        missingKeys.put(issueKey, key);
+      }
+    }
+
+    List<List<String>> batches = Lists.partition(new ArrayList<>(missingKeys.keySet()), KEYS_PER_SEARCH);
+    for (List<JSONObject> batch : Parallel.mapInOrder(batches, this::fetchIssuesFromJira)) {
+      for (JSONObject issue : batch) {
+        for (String key : missingKeys.get((String) issue.get("key"))) {
+          issues.put(key, issue);
+        }
+      }
+    }
+    return issues;
+  }
+
+  /**
+   * The Jira key for a Jira id or an implementation id, <code>null</code> for a legacy key.
+   */
+  @CheckForNull
+  private static String toIssueKey(String key) {
     if (key.matches("S?[0-9]+")) {
-      issue = getIssueByKey(RSPEC + key.replaceFirst("S", ""));
+      return RSPEC + key.replaceFirst("S", "");
     } else if (key.matches(RSPEC + "[0-9]+")) {
-      issue = getIssueByKey(key);
-    } else {
-      issue = getIssueByLegacyKey(key);
+      return key;
+    }
+    return null;
+  }
+
+  private static void putIfNotNull(Map<String, JSONObject> issues, String key, @CheckForNull JSONObject issue) {
+    if (issue != null) {
+      issues.put(key, issue);
+    }
+  }
+
+  /**
+   * Jira rejects the whole search when one of the keys doesn't exist, the keys are then fetched one by one.
+   * Either way the issues are compacted like the snapshot ones.
+   */
+  private List<JSONObject> fetchIssuesFromJira(List<String> issueKeys) {
+    List<JSONObject> issues;
+    try {
+      issues = fetchPaginatedRspecs(baseUrl, "key in (" + Joiner.on(", ").join(issueKeys) + ")", FIELDS);
+    } catch (RuleException e) {
+      issues = new ArrayList<>();
+      for (String issueKey : issueKeys) {
+        issues.add(fetchIssueFromJira(baseUrl, issueKey));
+      }
     }
-    return issue;
+    return IssueCompactor.compact(issues);
   }
 
   private JSONObject getIssueByKey(String issueKey) {
-    if (rspecJsonCacheByKey != null) {
-      return rspecJsonCacheByKey.get(issueKey);
-    } else {
-      return Fetcher.getJsonFromUrl(baseUrl + ISSUE + issueKey + "?expand=names" + FIELDS);
+    RspecSnapshot.State cached = getCachedRspecs();
+    if (cached != null && (cached.getIssuesByKey().containsKey(issueKey) || RspecMirror.isOffline())) {
+      return cached.getIssuesByKey().get(issueKey);
     }
+    // not loaded yet, or created after the snapshot was taken
+    return IssueCompactor.compact(fetchIssueFromJira(baseUrl, issueKey));
+  }
+
+  private static JSONObject fetchIssueFromJira(String baseUrl, String issueKey) {
+    return Fetcher.getJsonFromUrl(baseUrl + ISSUE + issueKey + "?expand=names" + FIELDS);
   }
 
-  private JSONObject getIssueByLegacyKey(String key) {
-    if (rspecJsonCacheByKey != null) {
-      return getRuleByLegacyKeyFromCache(key);
+  /**
+   * The issue is read from the cached state if any, both its key and itself, so that they match.
+   */
+  private JSONObject getIssueByLegacyKey(@Nullable RspecSnapshot.State cached, String key) {
+    if (cached != null) {
+      return getRuleByLegacyKeyFromCache(cached, key);
     }
 
     String query = "\"Legacy Key\"~\"" + key + "\"";
@@ -96,56 +223,106 @@ public class JiraFetcherImpl implements JiraFetcher {
     }
   }
 
-  private JSONObject getRuleByLegacyKeyFromCache(String key) {
-    List<String> rspecKeys = Lists.newArrayList();
-    for (JSONObject rspec : rspecJsonCacheByKey.values()) {
-      if (isSpecification(rspec) && legacyKeyFieldMatches(rspec, key)) {
-        rspecKeys.add(rspec.get("key").toString());
-      }
-    }
+  private static JSONObject getRuleByLegacyKeyFromCache(RspecSnapshot.State cached, String key) {
+    Set<String> rspecKeys = cached.getKeysByLegacyKey(key);
 
     if (rspecKeys.size() > 1) {
       throw new IllegalArgumentException("Legacy Key \"\" can matches several RSPECs: " + Joiner.on(", ").join(rspecKeys));
     }
 
-    return rspecKeys.isEmpty() ? null : getIssueByKey(rspecKeys.get(0));
+    return rspecKeys.isEmpty() ? null : cached.getIssuesByKey().get(rspecKeys.iterator().next());
   }
 
-  private static boolean isSpecification(JSONObject issue) {
-    return !("Language-Specification".equals(JiraHelper.getJsonFieldValue(issue, "issuetype")));
-  }
+  @Override
+  public List<JSONObject> fetchIssuesBySearch(String search) {
+    String jql = BASE_QUERY + "(" + search + ")";
+
+    List<JSONObject> issues = filterSnapshot(jql, true);
+    if (issues != null) {
+      return issues;
+    }
 
-  private static boolean legacyKeyFieldMatches(JSONObject issue, String key) {
-    List<String> legacyKeys = JiraHelper.getCustomFieldValueAsList(issue, "Legacy Key");
-    return legacyKeys.contains(key);
+    checkOnline(search);
+    return IssueCompactor.compact(fetchPaginatedRspecs(baseUrl, jql, FIELDS));
   }
 
+  /**
+   * Loading the snapshot costs far more than fetching a few fields of the matching issues, so it is
+   * only searched when already loaded or mirrored.
+   */
   @Override
-  public List<JSONObject> fetchIssuesBySearch(String search) {
-    ensureRspecsByKeyCachePopulated();
+  public List<JSONObject> fetchIssuesBySearch(String search, Collection<String> fieldNames) {
+    String jql = BASE_QUERY + "(" + search + ")";
+
+    List<JSONObject> issues = filterSnapshot(jql, RspecMirror.isEnabled() || snapshot.isLoaded());
+    if (issues != null) {
+      return issues;
+    }
 
-    return fetchPaginatedRspecs(BASE_QUERY + "(" + search + ")");
+    checkOnline(search);
+    return IssueCompactor.compact(
+      fetchPaginatedRspecs(baseUrl, jql, "&fields=" + Joiner.on("%2c").join(getFieldIds(baseUrl, fieldNames))));
+  }
+
+  @CheckForNull
+  private List<JSONObject> filterSnapshot(String jql, boolean loadSnapshot) {
+    JqlFilter filter = loadSnapshot ? JqlFilter.compile(jql) : null;
+    return filter == null ? null : filter.filter(snapshot.get().values());
   }
 
+  private static void checkOnline(String search) {
+    if (RspecMirror.isOffline()) {
+      throw new RuleException("This search can't be answered offline: " + search);
+    }
+  }
 
   /**
-   * Fetches every single RSPEC from Jira in only a few REST calls
+   * Custom fields can only be requested by id, which is looked up once per Jira instance.
+   * An unknown field, such as a renamed one, is an error: leaving it out would silently return empty values.
    */
-  @VisibleForTesting
-  protected void ensureRspecsByKeyCachePopulated() {
-    if (rspecJsonCacheByKey != null) {
-      return;
+  private static Set<String> getFieldIds(String baseUrl, Collection<String> fieldNames) {
+    Map<String, String> fieldIdsByName = FIELD_IDS_BY_NAME.computeIfAbsent(baseUrl, JiraFetcherImpl::fetchFieldIds);
+
+    Set<String> ids = new LinkedHashSet<>();
+    List<String> unknownFields = new ArrayList<>();
+    for (String fieldName : fieldNames) {
+      String id = fieldIdsByName.get(fieldName);
+      if (id != null) {
+        ids.add(id);
+      } else {
+        unknownFields.add(fieldName);
+      }
     }
+    if (!unknownFields.isEmpty()) {
+      throw new RuleException("Unknown Jira fields on " + baseUrl + ": " + Joiner.on(", ").join(unknownFields));
+    }
+    return ids;
+  }
 
-    ImmutableMap.Builder<String, JSONObject> builder = ImmutableMap.builder();
-
-    JSONArray issues = fetchPaginatedRspecs("project=RSPEC");
-    for (Object issueObject : issues) {
-      JSONObject issue = (JSONObject) issueObject;
-      builder.put((String) issue.get("key"), issue);
+  /**
+   * Field ids by id and by name. When several fields share a name, the first one wins.
+   */
+  private static Map<String, String> fetchFieldIds(String baseUrl) {
+    Map<String, String> fieldIdsByName = new HashMap<>();
+    JSONArray fields = Fetcher.getJsonArrayFromUrl(baseUrl + "field");
+    for (Object fieldObject : fields) {
+      String id = (String) ((JSONObject) fieldObject).get("id");
+      fieldIdsByName.put(id, id);
+    }
+    for (Object fieldObject : fields) {
+      JSONObject field = (JSONObject) fieldObject;
+      fieldIdsByName.putIfAbsent((String) field.get("name"), (String) field.get("id"));
     }
+    return fieldIdsByName;
+  }
 
-    rspecJsonCacheByKey = builder.build();
+
+  /**
+   * Fetches every single RSPEC from Jira in only a few REST calls, unless the shared snapshot is already loaded
+   */
+  @VisibleForTesting
+  protected void ensureRspecsByKeyCachePopulated() {
+    snapshot.get();
   }
 
   private static void propagateNames(JSONObject page) {
@@ -165,23 +342,50 @@ public class JiraFetcherImpl implements JiraFetcher {
   }
 
 
-  private JSONArray fetchPaginatedRspecs(String search) {
+  /**
+   * Fetches every issue matching the search. The first page tells how many issues there are and how many the
+   * server actually returns per page (it may cap <code>maxResults</code>), the remaining pages are then fetched
+   * concurrently and reassembled in order.
+   */
+  private static List<JSONObject> fetchPaginatedRspecs(String baseUrl, String search, String fields) {
 
     try {
       String searchStr = URLEncoder.encode(search, ENCODING).replaceAll("\\+", "%20");
 
       JSONArray results = new JSONArray();
-      long retrieved = 0;
-      long expected = 1;
-      JSONObject sr;
+      JSONObject firstPage = fetchRspecPage(baseUrl, 0, searchStr, fields);
+      if (firstPage == null) {
+        return results;
+      }
+      propagateNames(firstPage);
+      results.addAll((JSONArray) firstPage.get(ISSUES));
 
-      while (retrieved < expected && (sr = fetchRspecPage((int)retrieved, searchStr)) != null) {
-        propagateNames(sr);
+      long expected = (long) firstPage.get("total");
+      int pageSize = results.size();
+
+      List<Integer> offsets = new ArrayList<>();
+      for (long startAt = pageSize; startAt < expected; startAt += pageSize) {
+        offsets.add((int) startAt);
+      }
 
-        results.addAll((JSONArray) sr.get(ISSUES));
+      List<JSONObject> pages = Parallel.mapInOrder(offsets, startAt -> fetchRspecPage(baseUrl, startAt, searchStr, fields));
+      int nextStartAt = pageSize;
+      for (int i = 0; i < pages.size() && pages.get(i) != null; i++) {
+        JSONObject page = pages.get(i);
+        propagateNames(page);
+        JSONArray issues = (JSONArray) page.get(ISSUES);
+        results.addAll(issues);
+        nextStartAt = offsets.get(i) + issues.size();
+      }
 
+      // the corpus may have grown while the pages were being fetched
+      JSONObject sr;
+      while (results.size() < expected && (sr = fetchRspecPage(baseUrl, nextStartAt, searchStr, fields)) != null) {
+        propagateNames(sr);
+        JSONArray issues = (JSONArray) sr.get(ISSUES);
+        results.addAll(issues);
+        nextStartAt += issues.size();
         expected = (long) sr.get("total");
-        retrieved = results.size();
       }
       return results;
 
@@ -193,16 +397,18 @@ public class JiraFetcherImpl implements JiraFetcher {
   /**
    * Fetches a RSPEC issues page. Returns <code>null</code> if no issue is found.
    *
+   * @param baseUrl the Jira REST base URL
    * @param startAt the issue number in the result set at which to restart retrieval
    * @param urlEncodedSearch the url-encoded search string to use
+   * @param fields the <code>fields</code> parameter of the search
    */
   @CheckForNull
-  private JSONObject fetchRspecPage(int startAt, String urlEncodedSearch) {
+  private static JSONObject fetchRspecPage(String baseUrl, int startAt, String urlEncodedSearch, String fields) {
     
     JSONObject page = Fetcher.getJsonFromUrl(baseUrl
       + SEARCH
       + urlEncodedSearch
-      + FIELDS
+      + fields
       + "&startAt="
       + startAt);
     Object issuesObject = page.get(ISSUES);
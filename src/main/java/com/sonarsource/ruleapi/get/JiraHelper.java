@@ -5,9 +5,14 @@
  */
 package com.sonarsource.ruleapi.get;
 
+import com.google.common.base.Supplier;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.sonarsource.ruleapi.domain.Parameter;
 import com.sonarsource.ruleapi.domain.Profile;
 import com.sonarsource.ruleapi.domain.Rule;
+import com.sonarsource.ruleapi.domain.RuleSummary;
 import com.sonarsource.ruleapi.utilities.Language;
 import com.sonarsource.ruleapi.utilities.MarkdownConverter;
 import com.sonarsource.ruleapi.utilities.Utilities;
@@ -15,6 +20,10 @@ import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +34,10 @@ import java.util.logging.Logger;
 /**
  * Helper class to translate Jira-specific JSON
  * into the fields of a Rule
+ *
+ * Safe to use concurrently: issues are only read, the field names cache is thread-safe,
+ * and each markdown conversion has its own {@link MarkdownConverter}. Description sections
+ * are converted to HTML when first read.
  */
 public class JiraHelper {
 
@@ -34,6 +47,14 @@ public class JiraHelper {
   private static final String FIELDS = "fields";
   private static final String VALUE = "value";
 
+  /**
+   * The same <code>names</code> map is shared by every issue of a search page or of the RSPEC snapshot,
+   * so it is reversed only once. Keys are compared by identity and weakly held.
+   */
+  private static final LoadingCache<JSONObject, Map<String, String>> FIELD_KEYS_BY_NAME = CacheBuilder.newBuilder()
+    .weakKeys()
+    .build(CacheLoader.from(JiraHelper::indexFieldKeysByName));
+
 
   private JiraHelper(){
     // this space intentionally left blank
@@ -41,6 +62,14 @@ public class JiraHelper {
 
 
   public static void populateFields(Rule rule, JSONObject issue) {
+    populateLanguageNeutralFields(rule, issue);
+    populateLanguageSpecificFields(rule, issue);
+  }
+
+  /**
+   * Populates the fields read the same way whatever the language of the rule.
+   */
+  static void populateLanguageNeutralFields(Rule rule, JSONObject issue) {
     rule.setKey(issue.get("key").toString());
     setStatus(rule, issue);
     setReplacementLinks(rule, issue);
@@ -62,14 +91,10 @@ public class JiraHelper {
     rule.setTitle(getJsonFieldValue(issue, "summary"));
     rule.setMessage(getCustomFieldValue(issue, "Message"));
 
-    RuleMaker.setDescription(rule, getJsonFieldValue(issue, "description"), true);
-
     setRemediation(rule, issue);
 
     rule.setTemplate("Yes".equals(getCustomFieldValue(issue, "Template Rule")));
 
-    rule.setParameterList(handleParameterList(getCustomFieldValue(issue, "List of parameters"), rule.getLanguage()));
-
     rule.setTags(getListFromJsonFieldValue(issue, "labels"));
 
     rule.setType(Rule.Type.fromString(getJsonFieldValue(issue, "issuetype")));
@@ -77,11 +102,46 @@ public class JiraHelper {
 
     setReferences(rule, issue);
 
-    validateRuleDeprecation(rule, RuleMaker.getReplacingRules(rule));
-
     initializeLegacyKey(rule);
   }
 
+  /**
+   * The fields read by {@link #populateSummaryFields(RuleSummary, JSONObject, Collection)}, besides the reference fields.
+   */
+  static final List<String> SUMMARY_FIELDS = Collections.unmodifiableList(Arrays.asList("summary", "status", "issuetype",
+    "labels", "Targeted languages", "Covered Languages", "Irrelevant for Languages"));
+
+  static void populateSummaryFields(RuleSummary summary, JSONObject issue, Collection<String> referenceFieldNames) {
+    summary.setKey(issue.get("key").toString());
+    summary.setTitle(getJsonFieldValue(issue, "summary"));
+    summary.setStatus(Rule.Status.fromString(getJsonFieldValue(issue, "status")));
+    summary.setType(Rule.Type.fromString(getJsonFieldValue(issue, "issuetype")));
+    summary.setTags(new HashSet<>(getListFromJsonFieldValue(issue, "labels")));
+
+    summary.setTargetedLanguages(new HashSet<>(getCustomFieldStoredAsList(issue, "Targeted languages")));
+    summary.setCoveredLanguages(new HashSet<>(getCustomFieldStoredAsList(issue, "Covered Languages")));
+    summary.setIrrelevantLanguages(new HashSet<>(getCustomFieldStoredAsList(issue, "Irrelevant for Languages")));
+
+    for (String fieldName : referenceFieldNames) {
+      summary.setReferenceFieldValues(fieldName, getCustomFieldValueAsList(issue, fieldName));
+    }
+  }
+
+  /**
+   * Populates the fields depending on the language of the rule: the description and parameters, whose
+   * code samples are chosen by language, and the deprecation. The language-neutral fields must have been
+   * populated first.
+   */
+  static void populateLanguageSpecificFields(Rule rule, JSONObject issue) {
+    RuleMaker.setDescription(rule, getJsonFieldValue(issue, "description"), true);
+
+    rule.setParameterList(handleParameterList(getCustomFieldValue(issue, "List of parameters"), rule.getLanguage()));
+
+    if (Language.fromString(rule.getLanguage()) != null) {
+      validateRuleDeprecation(rule, RuleMaker.getCoveredLanguagesOfReplacements(rule));
+    }
+  }
+
   /**
    * Update status and deprecation notice based on whether or not
    * deprecating/superseding rules have actually been implemented yet.
@@ -90,10 +150,10 @@ public class JiraHelper {
    * Based on rule status and deprecationLinks, so those need to have
    * been set before this is invoked.
    *
-   * @param replacingRules list of replacement rule links
+   * @param coveredLanguagesByReplacement languages covered by each replacement rule, by key
    * @param rule
    */
-  static void validateRuleDeprecation(Rule rule, List<Rule> replacingRules) {
+  static void validateRuleDeprecation(Rule rule, Map<String, ? extends Collection<String>> coveredLanguagesByReplacement) {
 
     Language lang = Language.fromString(rule.getLanguage());
     if (lang == null) {
@@ -104,12 +164,12 @@ public class JiraHelper {
 
     if (Rule.Status.SUPERSEDED == rule.getStatus() || Rule.Status.DEPRECATED == rule.getStatus()) {
 
-      if (! replacingRules.isEmpty()) {
+      if (! coveredLanguagesByReplacement.isEmpty()) {
         rule.setStatus(Rule.Status.READY);
       }
 
-      for (Rule replacement : replacingRules) {
-        if (replacement.getCoveredLanguages().contains(lang.getRspec())) {
+      for (Map.Entry<String, ? extends Collection<String>> replacement : coveredLanguagesByReplacement.entrySet()) {
+        if (replacement.getValue().contains(lang.getRspec())) {
           rule.setStatus(Rule.Status.DEPRECATED);
           implementedReplacements.add(replacement.getKey());
         }
@@ -144,20 +204,24 @@ public class JiraHelper {
         sb.append("h2. Deprecated\r\nThis rule is deprecated, and will eventually be removed.");
       }
 
-      MarkdownConverter markdownConverter = new MarkdownConverter();
-      rule.setDeprecation(markdownConverter.transform(sb.toString(), rule.getLanguage()));
+      String deprecation = sb.toString();
+      String language = rule.getLanguage();
+      rule.setDeprecation(() -> new MarkdownConverter().transform(deprecation, language));
     }
   }
 
+  /**
+   * Each section is converted to HTML the first time it is read.
+   */
   static void handleMarkdown(Rule rule, String[] pieces) {
-    MarkdownConverter markdownConverter = new MarkdownConverter();
-
-    rule.setDescription(markdownConverter.transform(pieces[0], rule.getLanguage()));
+    String language = rule.getLanguage();
+    String description = pieces[0];
+    rule.setDescription(() -> new MarkdownConverter().transform(description, language));
 
     for (int i = 1; i < pieces.length; i++) {
 
       String piece = pieces[i];
-      String pieceContent = markdownConverter.transform(MARKDOWN_H2 + piece, rule.getLanguage());
+      Supplier<String> pieceContent = () -> new MarkdownConverter().transform(MARKDOWN_H2 + piece, language);
       if (piece.contains("Noncompliant Code Example")) {
         rule.setNonCompliant(pieceContent);
 
@@ -181,7 +245,7 @@ public class JiraHelper {
 
       } else {
         if (LOGGER.isLoggable(Level.WARNING)) {
-          LOGGER.warning(String.format("Unknown section in rule %s: %s ", rule.getKey(), pieceContent));
+          LOGGER.warning(String.format("Unknown section in rule %s: %s ", rule.getKey(), pieceContent.get()));
         }
       }
     }
@@ -191,15 +255,22 @@ public class JiraHelper {
     JSONObject names = (JSONObject)issue.get("names");
 
     if (name != null && names != null) {
+      return FIELD_KEYS_BY_NAME.getUnchecked(names).get(name);
+    }
+    return null;
+  }
 
-      for (Map.Entry entry : (Iterable<Map.Entry>) names.entrySet()) {
-
-        if (entry.getValue().equals(name)) {
-          return (String) entry.getKey();
-        }
+  /**
+   * Reverses a <code>names</code> map. When several fields share a name, the first one wins.
+   */
+  private static Map<String, String> indexFieldKeysByName(JSONObject names) {
+    Map<String, String> fieldKeysByName = new HashMap<>();
+    for (Map.Entry entry : (Iterable<Map.Entry>) names.entrySet()) {
+      if (entry.getValue() instanceof String) {
+        fieldKeysByName.putIfAbsent((String) entry.getValue(), (String) entry.getKey());
       }
     }
-    return null;
+    return fieldKeysByName;
   }
 
   /**
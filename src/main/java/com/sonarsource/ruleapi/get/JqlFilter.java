@@ -0,0 +1,519 @@
+/*
+ * Copyright (C) 2014-2018 SonarSource SA
+ * All rights reserved
+ * mailto:info AT sonarsource DOT com
+ */
+package com.sonarsource.ruleapi.get;
+
+import com.google.common.collect.ImmutableMap;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import javax.annotation.CheckForNull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Evaluates, against issues already in memory, the JQL subset this project uses:
+ * <code>field = value</code>, <code>!=</code>, <code>[not] in (...)</code>,
+ * <code>is [not] EMPTY</code> and <code>issueFunction in hasLinks("link description")</code>, combined with
+ * <code>AND</code>, <code>OR</code>, <code>NOT</code> and parentheses.
+ *
+ * Anything else is refused by {@link #compile(String)}, so that the search can be sent to Jira instead.
+ * This includes the <code>~</code> and <code>!~</code> text searches, whose matching depends on the way Jira
+ * indexes text. As in Jira, values and field names are compared case-insensitively.
+ */
+public final class JqlFilter {
+
+  private static final Logger LOGGER = Logger.getLogger(JqlFilter.class.getName());
+
+  private static final String FIELDS = "fields";
+
+  private static final Map<String, String> SYSTEM_FIELDS = ImmutableMap.<String, String>builder()
+    .put("summary", "summary")
+    .put("description", "description")
+    .put("status", "status")
+    .put("resolution", "resolution")
+    .put("issuetype", "issuetype")
+    .put("type", "issuetype")
+    .put("labels", "labels")
+    .put("priority", "priority")
+    .put("environment", "environment")
+    .build();
+
+  private static final Pattern CUSTOM_FIELD_ID = Pattern.compile("cf\\[(\\d+)]");
+
+  private final Predicate<JSONObject> predicate;
+
+  private JqlFilter(Predicate<JSONObject> predicate) {
+    this.predicate = predicate;
+  }
+
+  /**
+   * Compiles the query, or returns <code>null</code> if it uses syntax which can't be evaluated locally.
+   */
+  @CheckForNull
+  public static JqlFilter compile(String jql) {
+    try {
+      return new JqlFilter(new Parser(tokenize(jql)).parse());
+    } catch (IllegalArgumentException e) {
+      LOGGER.log(Level.FINE, "JQL can''t be evaluated locally: {0} ({1})", new Object[] {jql, e.getMessage()});
+      return null;
+    }
+  }
+
+  /**
+   * Returns the matching issues, in order, or <code>null</code> if the query refers to a field the issues don't know.
+   */
+  @CheckForNull
+  public List<JSONObject> filter(Collection<JSONObject> issues) {
+    List<JSONObject> matches = new ArrayList<>();
+    try {
+      for (JSONObject issue : issues) {
+        if (predicate.test(issue)) {
+          matches.add(issue);
+        }
+      }
+    } catch (UnknownFieldException e) {
+      LOGGER.log(Level.FINE, "Unknown field in JQL: {0}", e.getMessage());
+      return null;
+    }
+    return matches;
+  }
+
+  public boolean matches(JSONObject issue) {
+    return predicate.test(issue);
+  }
+
+
+  private enum TokenType {
+    WORD, STRING, OPERATOR, PUNCTUATION
+  }
+
+  private static class Token {
+    private final TokenType type;
+    private final String text;
+
+    Token(TokenType type, String text) {
+      this.type = type;
+      this.text = text;
+    }
+
+    boolean isKeyword(String keyword) {
+      return type == TokenType.WORD && text.equalsIgnoreCase(keyword);
+    }
+
+    boolean is(TokenType expectedType, String expectedText) {
+      return type == expectedType && text.equals(expectedText);
+    }
+  }
+
+  private static List<Token> tokenize(String jql) {
+    List<Token> tokens = new ArrayList<>();
+    int i = 0;
+    while (i < jql.length()) {
+      char c = jql.charAt(i);
+      if (Character.isWhitespace(c)) {
+        i++;
+      } else if (c == '(' || c == ')' || c == ',') {
+        tokens.add(new Token(TokenType.PUNCTUATION, String.valueOf(c)));
+        i++;
+      } else if (c == '"' || c == '\'') {
+        i = readString(jql, i, tokens);
+      } else if (c == '!' || c == '=' || c == '~' || c == '<' || c == '>') {
+        int end = i + 1;
+        if (end < jql.length() && (jql.charAt(end) == '=' || jql.charAt(end) == '~')) {
+          end++;
+        }
+        tokens.add(new Token(TokenType.OPERATOR, jql.substring(i, end)));
+        i = end;
+      } else {
+        int end = i;
+        while (end < jql.length() && !Character.isWhitespace(jql.charAt(end)) && "()=,!~<>\"'".indexOf(jql.charAt(end)) < 0) {
+          end++;
+        }
+        tokens.add(new Token(TokenType.WORD, jql.substring(i, end)));
+        i = end;
+      }
+    }
+    return tokens;
+  }
+
+  private static int readString(String jql, int start, List<Token> tokens) {
+    char quote = jql.charAt(start);
+    StringBuilder sb = new StringBuilder();
+    int i = start + 1;
+    while (i < jql.length() && jql.charAt(i) != quote) {
+      char c = jql.charAt(i);
+      if (c == '\\' && i + 1 < jql.length()) {
+        i++;
+        c = jql.charAt(i);
+      }
+      sb.append(c);
+      i++;
+    }
+    if (i >= jql.length()) {
+      throw new IllegalArgumentException("unterminated string");
+    }
+    tokens.add(new Token(TokenType.STRING, sb.toString()));
+    return i + 1;
+  }
+
+
+  private static class Parser {
+    private final List<Token> tokens;
+    private int position = 0;
+
+    Parser(List<Token> tokens) {
+      this.tokens = tokens;
+    }
+
+    Predicate<JSONObject> parse() {
+      Predicate<JSONObject> predicate = parseOr();
+      if (position < tokens.size()) {
+        throw new IllegalArgumentException("unexpected " + tokens.get(position).text);
+      }
+      return predicate;
+    }
+
+    private Predicate<JSONObject> parseOr() {
+      Predicate<JSONObject> predicate = parseAnd();
+      while (nextIsKeyword("OR")) {
+        position++;
+        predicate = predicate.or(parseAnd());
+      }
+      return predicate;
+    }
+
+    private Predicate<JSONObject> parseAnd() {
+      Predicate<JSONObject> predicate = parseNot();
+      while (nextIsKeyword("AND")) {
+        position++;
+        predicate = predicate.and(parseNot());
+      }
+      return predicate;
+    }
+
+    private Predicate<JSONObject> parseNot() {
+      if (nextIsKeyword("NOT")) {
+        position++;
+        return parseNot().negate();
+      }
+      if (peek().is(TokenType.PUNCTUATION, "(")) {
+        position++;
+        Predicate<JSONObject> predicate = parseOr();
+        expect(TokenType.PUNCTUATION, ")");
+        return predicate;
+      }
+      return parseClause();
+    }
+
+    private Predicate<JSONObject> parseClause() {
+      Token fieldToken = next();
+      if (!(fieldToken.type == TokenType.STRING || (fieldToken.type == TokenType.WORD && !isReservedWord(fieldToken)))) {
+        throw new IllegalArgumentException("field name expected instead of " + fieldToken.text);
+      }
+      String fieldName = fieldToken.text;
+
+      if ("issueFunction".equalsIgnoreCase(fieldName)) {
+        return parseIssueFunction();
+      }
+      Field field = new Field(fieldName);
+
+      Token operator = next();
+      if (operator.isKeyword("IS")) {
+        boolean negated = nextIsKeyword("NOT");
+        if (negated) {
+          position++;
+        }
+        expectEmpty();
+        return negated ? field::isNotEmpty : field::isEmpty;
+      }
+      if (operator.isKeyword("NOT")) {
+        expectKeyword("IN");
+        List<String> values = parseList();
+        return issue -> field.isNotEmpty(issue) && !field.isAnyOf(issue, values);
+      }
+      if (operator.isKeyword("IN")) {
+        List<String> values = parseList();
+        return issue -> field.isAnyOf(issue, values);
+      }
+      if (operator.type != TokenType.OPERATOR) {
+        throw new IllegalArgumentException("operator expected instead of " + operator.text);
+      }
+      switch (operator.text) {
+        case "=":
+          return parseEquality(field, false);
+        case "!=":
+          return parseEquality(field, true);
+        case "~":
+        case "!~":
+          throw new IllegalArgumentException("text searches are left to Jira");
+        default:
+          throw new IllegalArgumentException("unsupported operator " + operator.text);
+      }
+    }
+
+    private Predicate<JSONObject> parseEquality(Field field, boolean negated) {
+      if (nextIsKeyword("EMPTY") || nextIsKeyword("NULL")) {
+        position++;
+        return negated ? field::isNotEmpty : field::isEmpty;
+      }
+      List<String> value = Collections.singletonList(parseValue());
+      if (negated) {
+        return issue -> field.isNotEmpty(issue) && !field.isAnyOf(issue, value);
+      }
+      return issue -> field.isAnyOf(issue, value);
+    }
+
+    private Predicate<JSONObject> parseIssueFunction() {
+      expectKeyword("IN");
+      Token function = next();
+      if (!function.isKeyword("hasLinks")) {
+        throw new IllegalArgumentException("unsupported issue function " + function.text);
+      }
+      List<String> arguments = parseList();
+      if (arguments.size() > 1) {
+        throw new IllegalArgumentException("unsupported hasLinks arguments " + arguments);
+      }
+      String linkDescription = arguments.isEmpty() ? null : arguments.get(0);
+      return issue -> hasLink(issue, linkDescription);
+    }
+
+    private List<String> parseList() {
+      expect(TokenType.PUNCTUATION, "(");
+      List<String> values = new ArrayList<>();
+      if (peek().is(TokenType.PUNCTUATION, ")")) {
+        position++;
+        return values;
+      }
+      values.add(parseValue());
+      while (peek().is(TokenType.PUNCTUATION, ",")) {
+        position++;
+        values.add(parseValue());
+      }
+      expect(TokenType.PUNCTUATION, ")");
+      return values;
+    }
+
+    private String parseValue() {
+      Token token = next();
+      if (token.type == TokenType.STRING || (token.type == TokenType.WORD && !isReservedWord(token))) {
+        return token.text;
+      }
+      throw new IllegalArgumentException("value expected instead of " + token.text);
+    }
+
+    private void expectEmpty() {
+      Token token = next();
+      if (!token.isKeyword("EMPTY") && !token.isKeyword("NULL")) {
+        throw new IllegalArgumentException("EMPTY expected instead of " + token.text);
+      }
+    }
+
+    private void expectKeyword(String keyword) {
+      Token token = next();
+      if (!token.isKeyword(keyword)) {
+        throw new IllegalArgumentException(keyword + " expected instead of " + token.text);
+      }
+    }
+
+    private void expect(TokenType type, String text) {
+      Token token = next();
+      if (!token.is(type, text)) {
+        throw new IllegalArgumentException(text + " expected instead of " + token.text);
+      }
+    }
+
+    private boolean nextIsKeyword(String keyword) {
+      return position < tokens.size() && tokens.get(position).isKeyword(keyword);
+    }
+
+    private Token peek() {
+      if (position >= tokens.size()) {
+        throw new IllegalArgumentException("unexpected end of query");
+      }
+      return tokens.get(position);
+    }
+
+    private Token next() {
+      Token token = peek();
+      position++;
+      return token;
+    }
+
+    private static boolean isReservedWord(Token token) {
+      for (String keyword : new String[] {"AND", "OR", "NOT", "IS", "IN", "EMPTY", "NULL", "ORDER"}) {
+        if (token.isKeyword(keyword)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+
+  /**
+   * A field referenced by the query, resolved against each issue's <code>names</code> when it isn't a system field.
+   */
+  private static class Field {
+    private final String name;
+    private final boolean isResolution;
+    private final Function<JSONObject, List<String>> accessor;
+
+    // issues of a snapshot share their names map, so the last resolution is nearly always the right one
+    private volatile CustomFieldResolution lastResolution = null;
+
+    Field(String name) {
+      this.name = name;
+      String lowerCaseName = name.toLowerCase(Locale.ENGLISH);
+      String systemFieldId = SYSTEM_FIELDS.get(lowerCaseName);
+      Matcher customFieldId = CUSTOM_FIELD_ID.matcher(lowerCaseName);
+
+      this.isResolution = "resolution".equals(systemFieldId);
+      if ("project".equals(lowerCaseName)) {
+        accessor = issue -> Collections.singletonList(((String) issue.get("key")).replaceFirst("-.*", ""));
+      } else if ("key".equals(lowerCaseName) || "issuekey".equals(lowerCaseName)) {
+        accessor = issue -> Collections.singletonList((String) issue.get("key"));
+      } else if (systemFieldId != null) {
+        accessor = issue -> flatten(getFields(issue).get(systemFieldId));
+      } else if (customFieldId.matches()) {
+        String id = "customfield_" + customFieldId.group(1);
+        accessor = issue -> flatten(getFields(issue).get(id));
+      } else {
+        accessor = issue -> flatten(getFields(issue).get(customFieldId(issue)));
+      }
+    }
+
+    List<String> values(JSONObject issue) {
+      return accessor.apply(issue);
+    }
+
+    boolean isEmpty(JSONObject issue) {
+      return values(issue).isEmpty();
+    }
+
+    boolean isNotEmpty(JSONObject issue) {
+      return !isEmpty(issue);
+    }
+
+    boolean isAnyOf(JSONObject issue, List<String> candidates) {
+      List<String> values = values(issue);
+      for (String candidate : candidates) {
+        if (isResolution && "Unresolved".equalsIgnoreCase(candidate) && values.isEmpty()) {
+          return true;
+        }
+        for (String value : values) {
+          if (value.equalsIgnoreCase(candidate)) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    private String customFieldId(JSONObject issue) {
+      Object names = issue.get("names");
+      CustomFieldResolution resolution = lastResolution;
+      if (resolution != null && resolution.names == names) {
+        return resolution.id;
+      }
+
+      String id = JiraHelper.getCustomFieldKey(issue, name);
+      if (id == null && names instanceof JSONObject) {
+        for (Map.Entry entry : (Iterable<Map.Entry>) ((JSONObject) names).entrySet()) {
+          if (name.equalsIgnoreCase(String.valueOf(entry.getValue()))) {
+            id = (String) entry.getKey();
+            break;
+          }
+        }
+      }
+      if (id == null) {
+        throw new UnknownFieldException(name);
+      }
+      lastResolution = new CustomFieldResolution(names, id);
+      return id;
+    }
+  }
+
+  private static class CustomFieldResolution {
+    private final Object names;
+    private final String id;
+
+    CustomFieldResolution(Object names, String id) {
+      this.names = names;
+      this.id = id;
+    }
+  }
+
+  private static class UnknownFieldException extends RuntimeException {
+    UnknownFieldException(String fieldName) {
+      super(fieldName);
+    }
+  }
+
+  private static JSONObject getFields(JSONObject issue) {
+    Object fields = issue.get(FIELDS);
+    return fields instanceof JSONObject ? (JSONObject) fields : new JSONObject();
+  }
+
+  /**
+   * Flattens a field value into strings: option and status objects give their name or value.
+   */
+  private static List<String> flatten(@CheckForNull Object raw) {
+    List<String> values = new ArrayList<>();
+    addValues(raw, values);
+    return values;
+  }
+
+  private static void addValues(@CheckForNull Object raw, List<String> values) {
+    if (raw instanceof JSONArray) {
+      for (Object item : (JSONArray) raw) {
+        addValues(item, values);
+      }
+    } else if (raw instanceof JSONObject) {
+      JSONObject object = (JSONObject) raw;
+      Object value = object.containsKey("name") ? object.get("name") : object.get("value");
+      addValues(value, values);
+    } else if (raw != null && !raw.toString().trim().isEmpty()) {
+      values.add(raw.toString());
+    }
+  }
+
+  /**
+   * Whether the issue has a link described, from its side, as <code>linkDescription</code>
+   * (e.g. "is deprecated by" for the inward side of a "Deprecate" link). Any link matches when no description is given.
+   */
+  private static boolean hasLink(JSONObject issue, @CheckForNull String linkDescription) {
+    Object links = getFields(issue).get("issuelinks");
+    if (!(links instanceof JSONArray)) {
+      return false;
+    }
+    for (Object linkObject : (JSONArray) links) {
+      JSONObject link = (JSONObject) linkObject;
+      JSONObject type = (JSONObject) link.get("type");
+      if (linkDescription == null) {
+        return true;
+      }
+      if (type != null) {
+        if (link.get("inwardIssue") != null && linkDescription.equalsIgnoreCase((String) type.get("inward"))) {
+          return true;
+        }
+        if (link.get("outwardIssue") != null && linkDescription.equalsIgnoreCase((String) type.get("outward"))) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2014-2018 SonarSource SA
+ * All rights reserved
+ * mailto:info AT sonarsource DOT com
+ */
+package com.sonarsource.ruleapi.get;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.Hashing;
+import com.sonarsource.ruleapi.domain.RuleException;
+import com.sonarsource.ruleapi.utilities.Utilities;
+import org.json.simple.JSONObject;
+
+import javax.annotation.CheckForNull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local copy of every RSPEC issue, with the <code>names</code> map, kept on disk between runs.
+ *
+ * Each sync only asks Jira for the issues updated since the previous one. A full download is
+ * done when there is no mirror yet, or when the last full download is older than
+ * <code>ruleApi.mirrorFullSyncDays</code> (7 by default), which is how deleted issues get dropped.
+ * In offline mode the mirror is used as is and Jira isn't contacted.
+ *
+ * The issues are kept in a {@link RspecStore}. Each sync writes a new generation of it,
+ * <code>rspec-[base URL hash].[generation].bin</code>, as the previous one may still be mapped by this
+ * process or another one. Older generations are deleted once they can be, that is at a later sync
+ * on the platforms where a mapped file can't be deleted.
+ */
+public class RspecMirror {
+
+  public static final String DIR_PROPERTY = "ruleApi.mirrorDir";
+  public static final String OFFLINE_PROPERTY = "ruleApi.offline";
+  static final String FULL_SYNC_DAYS_PROPERTY = "ruleApi.mirrorFullSyncDays";
+
+  static final String ALL_RSPECS = "project=RSPEC";
+
+  private static final Logger LOGGER = Logger.getLogger(RspecMirror.class.getName());
+
+  private static final int DEFAULT_FULL_SYNC_DAYS = 7;
+  // covers clock skew between this machine and Jira, and issues updated while the previous sync was running
+  private static final long SAFETY_MARGIN_MINUTES = 5;
+
+  private static final String NAMES = "names";
+
+  private final String baseUrl;
+  private final File directory;
+  private final Pattern fileNames;
+  private final String prefix;
+  private final LongSupplier clock;
+
+  @VisibleForTesting
+  RspecMirror(String baseUrl, File directory, LongSupplier clock) {
+    this.baseUrl = baseUrl;
+    this.directory = directory;
+    this.prefix = "rspec-" + Hashing.sha1().hashString(baseUrl, StandardCharsets.UTF_8).toString().substring(0, 12);
+    // the generation is missing from the files written before generations were introduced
+    this.fileNames = Pattern.compile(Pattern.quote(prefix) + "(?:\\.(\\d{1,18}))?\\.bin");
+    this.clock = clock;
+  }
+
+  /**
+   * The mirror configured for this base URL, or <code>null</code> if no mirror is in use.
+   */
+  @CheckForNull
+  public static RspecMirror forBaseUrl(String baseUrl) {
+    if (!isEnabled()) {
+      return null;
+    }
+    return new RspecMirror(baseUrl, getDirectory(), System::currentTimeMillis);
+  }
+
+  public static boolean isEnabled() {
+    return System.getProperty(DIR_PROPERTY) != null || isOffline();
+  }
+
+  public static boolean isOffline() {
+    return Boolean.getBoolean(OFFLINE_PROPERTY);
+  }
+
+  public static File getDirectory() {
+    String dir = System.getProperty(DIR_PROPERTY);
+    return dir != null ? new File(dir) : getDefaultDirectory();
+  }
+
+  public static File getDefaultDirectory() {
+    return new File(System.getProperty("user.home"), ".rule-api" + File.separator + "mirror");
+  }
+
+  /**
+   * The file of the latest generation, which may not exist yet.
+   */
+  File getFile() {
+    File latest = getFile(0);
+    for (File generationFile : listGenerations()) {
+      if (generation(generationFile) >= generation(latest)) {
+        latest = generationFile;
+      }
+    }
+    return latest;
+  }
+
+  private File getFile(long generation) {
+    return new File(directory, prefix + "." + generation + ".bin");
+  }
+
+  private List<File> listGenerations() {
+    File[] files = directory.listFiles((dir, name) -> fileNames.matcher(name).matches());
+    return files == null ? Collections.emptyList() : Arrays.asList(files);
+  }
+
+  private long generation(File generationFile) {
+    Matcher matcher = fileNames.matcher(generationFile.getName());
+    return matcher.matches() && matcher.group(1) != null ? Long.parseLong(matcher.group(1)) : 0;
+  }
+
+  /**
+   * Deletes the generations before this one. One still mapped somewhere may not be deletable yet, it is then
+   * deleted by a later sync.
+   */
+  private void deleteGenerationsBefore(long generation) {
+    for (File generationFile : listGenerations()) {
+      if (generation(generationFile) < generation && !generationFile.delete()) {
+        LOGGER.log(Level.FINE, "Could not delete {0} yet", generationFile);
+      }
+    }
+  }
+
+  /**
+   * Brings the mirror up to date and returns every issue it holds, by key.
+   *
+   * When nothing changed since the previous run the issues are read lazily from the mapped store.
+   *
+   * @param search runs a JQL search against Jira, returning every matching issue
+   */
+  public Map<String, JSONObject> sync(Function<String, List<JSONObject>> search) {
+
+    File file = getFile();
+    long generation = generation(file);
+    RspecStore store = read(file);
+
+    if (isOffline()) {
+      if (store == null) {
+        throw new RuleException("No RSPEC mirror found in " + directory + ", run once without -offline to create it");
+      }
+      return store.getIssues();
+    }
+
+    long now = clock.getAsLong();
+    long fullSyncPeriod = TimeUnit.DAYS.toMillis(Utilities.getPositiveIntProperty(FULL_SYNC_DAYS_PROPERTY, DEFAULT_FULL_SYNC_DAYS));
+    File next = getFile(generation + 1);
+
+    try {
+      if (store == null || now - store.getFullSyncAt() > fullSyncPeriod) {
+        List<JSONObject> issues = search.apply(ALL_RSPECS);
+        RspecStore.write(next, baseUrl, now, now, mergeNames(new JSONObject(), issues), null, issues);
+        LOGGER.log(Level.INFO, "Downloaded {0} RSPEC issues into {1}", new Object[] {issues.size(), next});
+        deleteGenerationsBefore(generation + 1);
+        return RspecSnapshot.byKey(issues);
+      }
+
+      long minutes = TimeUnit.MILLISECONDS.toMinutes(Math.max(0, now - store.getSyncedAt())) + SAFETY_MARGIN_MINUTES;
+      List<JSONObject> changed = search.apply(ALL_RSPECS + " AND updated >= \"-" + minutes + "m\"");
+      LOGGER.log(Level.INFO, "Applied {0} updated RSPEC issues to {1}", new Object[] {changed.size(), next});
+      if (changed.isEmpty()) {
+        RspecStore.copy(store, next, now);
+      } else {
+        RspecStore.write(next, baseUrl, now, store.getFullSyncAt(), mergeNames(new JSONObject(store.getNames()), changed), store, changed);
+      }
+      RspecStore synced = RspecStore.open(next);
+      deleteGenerationsBefore(generation + 1);
+      return synced.getIssues();
+
+    } catch (IOException e) {
+      throw new RuleException(e);
+    }
+  }
+
+  @CheckForNull
+  private RspecStore read(File file) {
+    if (!file.isFile()) {
+      return null;
+    }
+    try {
+      RspecStore store = RspecStore.open(file);
+      return store != null && baseUrl.equals(store.getBaseUrl()) ? store : null;
+    } catch (IOException e) {
+      LOGGER.log(Level.WARNING, "Ignoring unreadable RSPEC mirror " + file, e);
+      return null;
+    }
+  }
+
+  private static JSONObject mergeNames(JSONObject names, List<JSONObject> issues) {
+    Set<Object> seenNames = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (JSONObject issue : issues) {
+      Object issueNames = issue.get(NAMES);
+      if (issueNames != null && seenNames.add(issueNames)) {
+        names.putAll((Map) issueNames);
+      }
+    }
+    return names;
+  }
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright (C) 2014-2018 SonarSource SA
+ * All rights reserved
+ * mailto:info AT sonarsource DOT com
+ */
+package com.sonarsource.ruleapi.get;
+
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
+import org.json.simple.JSONObject;
+
+import javax.annotation.CheckForNull;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Thread-safe, lazily loaded view of every RSPEC issue, keyed by issue key.
+ *
+ * The issues are loaded on first use and then shared by every reader until
+ * {@link #refresh()} or {@link #invalidate()} is called. The map handed out
+ * is immutable, so readers never see a partially loaded corpus.
+ *
+ * The map may be backed by a {@link RspecStore}, in which case issues are only decoded when read.
+ * An index of the specifications by legacy key, and one of the covered languages of every issue,
+ * are each built the first time they are needed.
+ *
+ * Issues updated by this process can be marked as stale: they are fetched again,
+ * one by one, the next time the snapshot is read. The reloaded issues are kept aside, over the
+ * loaded ones, so that neither the corpus nor its indexes are copied or rebuilt for them.
+ */
+public final class RspecSnapshot {
+
+  private static final Logger LOGGER = Logger.getLogger(RspecSnapshot.class.getName());
+
+  private final Supplier<Map<String, JSONObject>> loader;
+  private final Function<String, JSONObject> issueLoader;
+
+  private final Set<String> staleKeys = ConcurrentHashMap.newKeySet();
+
+  private volatile State state = null;
+
+  RspecSnapshot(Supplier<Map<String, JSONObject>> loader, Function<String, JSONObject> issueLoader) {
+    this.loader = loader;
+    this.issueLoader = issueLoader;
+  }
+
+  /**
+   * Returns the issues by key, loading them first if needed.
+   */
+  public Map<String, JSONObject> get() {
+    return getState().issuesByKey;
+  }
+
+  /**
+   * Returns the issues by key, or <code>null</code> if they haven't been loaded yet.
+   */
+  @CheckForNull
+  public Map<String, JSONObject> getIfLoaded() {
+    State current = getStateIfLoaded();
+    return current == null ? null : current.issuesByKey;
+  }
+
+  /**
+   * Returns the issues with their indexes, loading them first if needed. Read several times, the snapshot
+   * may change in between, where a state never does.
+   */
+  public State getState() {
+    return loadedState();
+  }
+
+  /**
+   * Returns the issues with their indexes, or <code>null</code> if they haven't been loaded yet.
+   */
+  @CheckForNull
+  public State getStateIfLoaded() {
+    State current = state;
+    if (current != null && !staleKeys.isEmpty()) {
+      current = reloadStaleIssues();
+    }
+    return current;
+  }
+
+  /**
+   * Returns the keys of the specifications (not the language subtasks) declaring this legacy key,
+   * loading the issues first if needed.
+   */
+  public Set<String> getKeysByLegacyKey(String legacyKey) {
+    return loadedState().getKeysByLegacyKey(legacyKey);
+  }
+
+  /**
+   * Returns the covered languages of an issue, or <code>null</code> if the issue isn't in the snapshot,
+   * loading the issues first if needed.
+   */
+  @CheckForNull
+  public Set<String> getCoveredLanguages(String key) {
+    return loadedState().getCoveredLanguages(key);
+  }
+
+  public boolean isLoaded() {
+    return state != null;
+  }
+
+  /**
+   * Reloads the issues. Readers keep seeing the previous content until the new one is complete.
+   */
+  public synchronized Map<String, JSONObject> refresh() {
+    State reloaded = load();
+    state = reloaded;
+    return reloaded.issuesByKey;
+  }
+
+  /**
+   * Drops the loaded issues; the next {@link #get()} loads them again.
+   */
+  public synchronized void invalidate() {
+    state = null;
+    staleKeys.clear();
+  }
+
+  /**
+   * Flags an issue modified since the snapshot was loaded, so that it is read again before being used.
+   */
+  public void markStale(String key) {
+    if (state != null) {
+      staleKeys.add(key);
+    }
+  }
+
+  private State loadedState() {
+    State current = state;
+    if (current == null) {
+      synchronized (this) {
+        current = state;
+        if (current == null) {
+          current = load();
+          state = current;
+        }
+      }
+    }
+    if (!staleKeys.isEmpty()) {
+      current = reloadStaleIssues();
+    }
+    return current;
+  }
+
+  private synchronized State reloadStaleIssues() {
+    State current = state;
+    if (current == null || staleKeys.isEmpty()) {
+      return current;
+    }
+    Map<String, JSONObject> reloadedIssues = new LinkedHashMap<>(current.reloadedIssues);
+    for (String key : new ArrayList<>(staleKeys)) {
+      // a null issue has been deleted since the snapshot was loaded
+      reloadedIssues.put(key, issueLoader.apply(key));
+      staleKeys.remove(key);
+    }
+    State reloaded = new State(current.loaded, reloadedIssues);
+    state = reloaded;
+    return reloaded;
+  }
+
+  private State load() {
+    staleKeys.clear();
+    State loaded = new State(new Loaded(loader.get()), Collections.emptyMap());
+    LOGGER.log(Level.FINE, "Loaded {0} RSPEC issues", loaded.issuesByKey.size());
+    return loaded;
+  }
+
+  /**
+   * Indexes the issues by key, keeping their order.
+   */
+  static Map<String, JSONObject> byKey(Collection<JSONObject> issues) {
+    Map<String, JSONObject> issuesByKey = new LinkedHashMap<>();
+    for (JSONObject issue : issues) {
+      issuesByKey.put((String) issue.get("key"), issue);
+    }
+    return issuesByKey;
+  }
+
+  private static SetMultimap<String, String> indexByLegacyKey(Map<String, JSONObject> issues) {
+    if (issues instanceof RspecStore.Issues) {
+      return ((RspecStore.Issues) issues).getSpecificationKeysByLegacyKey();
+    }
+    ImmutableSetMultimap.Builder<String, String> legacyKeys = ImmutableSetMultimap.builder();
+    for (Map.Entry<String, JSONObject> entry : issues.entrySet()) {
+      if (isSpecification(entry.getValue())) {
+        for (String legacyKey : JiraHelper.getCustomFieldValueAsList(entry.getValue(), "Legacy Key")) {
+          legacyKeys.put(legacyKey, entry.getKey());
+        }
+      }
+    }
+    return legacyKeys.build();
+  }
+
+  private static Map<String, Set<String>> indexCoveredLanguages(Map<String, JSONObject> issues) {
+    Map<List<String>, Set<String>> sharedSets = new HashMap<>();
+    ImmutableMap.Builder<String, Set<String>> coveredLanguages = ImmutableMap.builder();
+    for (Map.Entry<String, JSONObject> entry : issues.entrySet()) {
+      List<String> languages = JiraHelper.getCustomFieldStoredAsList(entry.getValue(), "Covered Languages");
+      coveredLanguages.put(entry.getKey(), sharedSets.computeIfAbsent(languages, ImmutableSet::copyOf));
+    }
+    return coveredLanguages.build();
+  }
+
+  private static boolean isSpecification(JSONObject issue) {
+    return !("Language-Specification".equals(JiraHelper.getJsonFieldValue(issue, "issuetype")));
+  }
+
+  /**
+   * The issues as loaded, with their indexes, shared by the states derived from them by stale reloads.
+   */
+  private static class Loaded {
+    private final Map<String, JSONObject> issuesByKey;
+    private final Supplier<SetMultimap<String, String>> specificationKeysByLegacyKey;
+    private final Supplier<Map<String, Set<String>>> coveredLanguagesByKey;
+
+    Loaded(Map<String, JSONObject> issues) {
+      this.issuesByKey = Collections.unmodifiableMap(issues);
+      this.specificationKeysByLegacyKey = Suppliers.memoize(() -> indexByLegacyKey(issues))::get;
+      this.coveredLanguagesByKey = Suppliers.memoize(() -> indexCoveredLanguages(issues))::get;
+    }
+  }
+
+  /**
+   * The loaded issues, overridden by those reloaded since, a <code>null</code> one being deleted.
+   * Only the reloaded issues are indexed again.
+   */
+  public static final class State {
+    private final Loaded loaded;
+    private final Map<String, JSONObject> reloadedIssues;
+    private final Map<String, JSONObject> issuesByKey;
+    private final SetMultimap<String, String> reloadedKeysByLegacyKey;
+    private final Map<String, Set<String>> reloadedCoveredLanguages;
+
+    private State(Loaded loaded, Map<String, JSONObject> reloadedIssues) {
+      this.loaded = loaded;
+      this.reloadedIssues = reloadedIssues;
+      if (reloadedIssues.isEmpty()) {
+        this.issuesByKey = loaded.issuesByKey;
+      } else {
+        this.issuesByKey = new OverriddenIssues(loaded.issuesByKey, reloadedIssues);
+      }
+      Map<String, JSONObject> existing = Maps.filterValues(reloadedIssues, Objects::nonNull);
+      this.reloadedKeysByLegacyKey = indexByLegacyKey(existing);
+      this.reloadedCoveredLanguages = indexCoveredLanguages(existing);
+    }
+
+    public Map<String, JSONObject> getIssuesByKey() {
+      return issuesByKey;
+    }
+
+    /**
+     * The keys of the specifications (not the language subtasks) declaring this legacy key.
+     */
+    public Set<String> getKeysByLegacyKey(String legacyKey) {
+      Set<String> loadedKeys = loaded.specificationKeysByLegacyKey.get().get(legacyKey);
+      if (reloadedIssues.isEmpty()) {
+        return loadedKeys;
+      }
+      Set<String> keys = new LinkedHashSet<>();
+      for (String key : loadedKeys) {
+        if (!reloadedIssues.containsKey(key)) {
+          keys.add(key);
+        }
+      }
+      keys.addAll(reloadedKeysByLegacyKey.get(legacyKey));
+      return Collections.unmodifiableSet(keys);
+    }
+
+    /**
+     * The covered languages of an issue, <code>null</code> if the issue isn't in this state.
+     */
+    @CheckForNull
+    public Set<String> getCoveredLanguages(String key) {
+      if (reloadedIssues.containsKey(key)) {
+        return reloadedCoveredLanguages.get(key);
+      }
+      return loaded.coveredLanguagesByKey.get().get(key);
+    }
+  }
+
+  /**
+   * Read-only view of the loaded issues, in their order, overridden by the reloaded ones.
+   * New issues come last.
+   */
+  private static class OverriddenIssues extends AbstractMap<String, JSONObject> {
+    private final Map<String, JSONObject> loaded;
+    private final Map<String, JSONObject> reloaded;
+    private final int size;
+
+    OverriddenIssues(Map<String, JSONObject> loaded, Map<String, JSONObject> reloaded) {
+      this.loaded = loaded;
+      this.reloaded = reloaded;
+      int count = loaded.size();
+      for (Map.Entry<String, JSONObject> entry : reloaded.entrySet()) {
+        boolean wasLoaded = loaded.containsKey(entry.getKey());
+        if (entry.getValue() == null && wasLoaded) {
+          count--;
+        } else if (entry.getValue() != null && !wasLoaded) {
+          count++;
+        }
+      }
+      this.size = count;
+    }
+
+    @Override
+    public JSONObject get(Object key) {
+      return reloaded.containsKey(key) ? reloaded.get(key) : loaded.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return reloaded.containsKey(key) ? (reloaded.get(key) != null) : loaded.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public Set<Entry<String, JSONObject>> entrySet() {
+      return new AbstractSet<Entry<String, JSONObject>>() {
+        @Override
+        public Iterator<Entry<String, JSONObject>> iterator() {
+          Iterator<Entry<String, JSONObject>> loadedEntries = Iterators.transform(loaded.entrySet().iterator(),
+            entry -> reloaded.containsKey(entry.getKey()) ? Maps.immutableEntry(entry.getKey(), reloaded.get(entry.getKey())) : entry);
+          Iterator<Entry<String, JSONObject>> newEntries = Iterators.transform(
+            Iterators.filter(reloaded.keySet().iterator(), key -> !loaded.containsKey(key)),
+            key -> Maps.immutableEntry(key, reloaded.get(key)));
+          return Iterators.filter(Iterators.concat(loadedEntries, newEntries), entry -> entry.getValue() != null);
+        }
+
+        @Override
+        public int size() {
+          return size;
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,592 @@
+/*
+ * Copyright (C) 2014-2018 SonarSource SA
+ * All rights reserved
+ * mailto:info AT sonarsource DOT com
+ */
+package com.sonarsource.ruleapi.get;
+
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.SetMultimap;
+import com.sonarsource.ruleapi.domain.RuleException;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import javax.annotation.CheckForNull;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Binary, memory-mapped file holding every RSPEC issue of a {@link RspecMirror}.
+ *
+ * Layout, big-endian:
+ * <pre>
+ *   header       magic, version, syncedAt, fullSyncAt, baseUrl (string id)
+ *   strings      count, data length, count + 1 offsets, UTF-8 data
+ *   names        count, (field id, field name) string id pairs
+ *   columns      issue count, then one int column each for key, issue type, first legacy key,
+ *                legacy key count, body offset and body length
+ *   legacy keys  count, string ids
+ *   bodies       length, the issues (without their names) as tagged values
+ * </pre>
+ *
+ * Every string is stored once and referenced by id. Opening a store only reads the header, the names and the key
+ * column: issues are decoded one by one, the first time they are asked for, so that looking up a single rule doesn't
+ * pay for the whole corpus. Only what is read across the whole corpus (key, issue type and legacy keys) has its own
+ * column; the other fields are only read from a decoded issue, so they stay in its body.
+ *
+ * A store is never modified once written: a mapped file can't be replaced on every platform, so each sync writes
+ * a new file, see {@link RspecMirror}.
+ */
+final class RspecStore {
+
+  static final int MAGIC = 0x52535042;
+  static final int FORMAT_VERSION = 3;
+
+  private static final int SYNCED_AT_POSITION = 8;
+  private static final int NONE = -1;
+
+  private static final int COLUMNS = 6;
+  private static final int KEY = 0;
+  private static final int TYPE = 1;
+  private static final int LEGACY_KEYS_START = 2;
+  private static final int LEGACY_KEYS_COUNT = 3;
+  private static final int BODY_OFFSET = 4;
+  private static final int BODY_LENGTH = 5;
+
+  private static final byte NULL = 0;
+  private static final byte TRUE = 1;
+  private static final byte FALSE = 2;
+  private static final byte LONG = 3;
+  private static final byte DOUBLE = 4;
+  private static final byte STRING = 5;
+  private static final byte ARRAY = 6;
+  private static final byte OBJECT = 7;
+
+  private static final String NAMES = "names";
+  private static final String SPECIFICATION_SUBTASK = "Language-Specification";
+
+  private final File file;
+  private final ByteBuffer buffer;
+
+  private final long syncedAt;
+  private final long fullSyncAt;
+  private final String baseUrl;
+
+  private final int stringCount;
+  private final int stringOffsetsPosition;
+  private final int stringDataPosition;
+  private final AtomicReferenceArray<String> strings;
+
+  private final JSONObject names = new JSONObject();
+
+  private final int issueCount;
+  private final int columnsPosition;
+  private final int legacyKeysPosition;
+  private final int bodiesPosition;
+  private final Map<String, Integer> slotsByKey;
+  private final AtomicReferenceArray<JSONObject> decodedIssues;
+
+  private final Issues issues = new Issues();
+
+  private RspecStore(File file, ByteBuffer buffer) {
+    this.file = file;
+    this.buffer = buffer;
+
+    syncedAt = buffer.getLong(SYNCED_AT_POSITION);
+    fullSyncAt = buffer.getLong(SYNCED_AT_POSITION + 8);
+    int baseUrlId = buffer.getInt(SYNCED_AT_POSITION + 16);
+
+    int position = SYNCED_AT_POSITION + 20;
+    stringCount = buffer.getInt(position);
+    int stringDataLength = buffer.getInt(position + 4);
+    stringOffsetsPosition = position + 8;
+    stringDataPosition = stringOffsetsPosition + 4 * (stringCount + 1);
+    strings = new AtomicReferenceArray<>(stringCount);
+    baseUrl = string(baseUrlId);
+
+    position = stringDataPosition + stringDataLength;
+    int namesCount = buffer.getInt(position);
+    for (int i = 0; i < namesCount; i++) {
+      names.put(string(buffer.getInt(position + 4 + 8 * i)), string(buffer.getInt(position + 8 + 8 * i)));
+    }
+
+    position += 4 + 8 * namesCount;
+    issueCount = buffer.getInt(position);
+    columnsPosition = position + 4;
+    legacyKeysPosition = columnsPosition + 4 * COLUMNS * issueCount;
+    int legacyKeysCount = buffer.getInt(legacyKeysPosition);
+    bodiesPosition = legacyKeysPosition + 4 + 4 * legacyKeysCount + 4;
+    if (bodiesPosition + buffer.getInt(bodiesPosition - 4) != buffer.limit()) {
+      throw new IllegalArgumentException("Unexpected length");
+    }
+
+    slotsByKey = new HashMap<>(2 * issueCount);
+    for (int slot = 0; slot < issueCount; slot++) {
+      slotsByKey.put(string(column(KEY, slot)), slot);
+    }
+    decodedIssues = new AtomicReferenceArray<>(issueCount);
+  }
+
+  /**
+   * Maps the file, or returns <code>null</code> if it was written in another format.
+   */
+  @CheckForNull
+  static RspecStore open(File file) throws IOException {
+    ByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    if (buffer.limit() < SYNCED_AT_POSITION || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+      return null;
+    }
+    try {
+      return new RspecStore(file, buffer);
+    } catch (IndexOutOfBoundsException | BufferUnderflowException | IllegalArgumentException e) {
+      throw new IOException("Corrupted RSPEC store " + file, e);
+    }
+  }
+
+  long getSyncedAt() {
+    return syncedAt;
+  }
+
+  long getFullSyncAt() {
+    return fullSyncAt;
+  }
+
+  String getBaseUrl() {
+    return baseUrl;
+  }
+
+  JSONObject getNames() {
+    return names;
+  }
+
+  /**
+   * The issues by key, in file order. Values are decoded when first read, then shared.
+   */
+  Issues getIssues() {
+    return issues;
+  }
+
+  File getFile() {
+    return file;
+  }
+
+  /**
+   * Writes a copy of a store recording a sync that brought no change. The bytes are copied as is, only the sync
+   * time is changed, in the copy.
+   */
+  static void copy(RspecStore previous, File file, long syncedAt) throws IOException {
+    Path tmp = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".tmp");
+    Files.copy(previous.file.toPath(), tmp, StandardCopyOption.REPLACE_EXISTING);
+    ByteBuffer value = ByteBuffer.allocate(8);
+    value.putLong(0, syncedAt);
+    try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+      channel.write(value, SYNCED_AT_POSITION);
+    }
+    moveIntoPlace(tmp, file);
+  }
+
+  /**
+   * Writes a new store: the issues of the previous one, if any, with the changed issues replacing or added to them.
+   * Unchanged issues are copied without being decoded, only their string ids are renumbered: the string table is
+   * rebuilt from the issues written, so the strings of replaced issues are dropped.
+   */
+  static void write(File file, String baseUrl, long syncedAt, long fullSyncAt, JSONObject names,
+    @CheckForNull RspecStore previous, Collection<JSONObject> changed) throws IOException {
+
+    StringTable table = new StringTable();
+    Map<String, Object> entries = new LinkedHashMap<>();
+    if (previous != null) {
+      for (int slot = 0; slot < previous.issueCount; slot++) {
+        entries.put(previous.string(previous.column(KEY, slot)), slot);
+      }
+    }
+    for (JSONObject issue : changed) {
+      entries.put((String) issue.get("key"), issue);
+    }
+
+    int[][] columns = new int[COLUMNS][entries.size()];
+    List<Integer> legacyKeys = new ArrayList<>();
+    ByteArrayOutputStream bodies = new ByteArrayOutputStream();
+    DataOutputStream bodiesOut = new DataOutputStream(bodies);
+
+    int slot = 0;
+    for (Map.Entry<String, Object> entry : entries.entrySet()) {
+      Object value = entry.getValue();
+      columns[KEY][slot] = table.id(entry.getKey());
+      columns[LEGACY_KEYS_START][slot] = legacyKeys.size();
+      columns[BODY_OFFSET][slot] = bodies.size();
+
+      if (value instanceof Integer) {
+        int previousSlot = (Integer) value;
+        columns[TYPE][slot] = table.idOrNone(previous.columnString(TYPE, previousSlot));
+        for (int i = 0; i < previous.column(LEGACY_KEYS_COUNT, previousSlot); i++) {
+          legacyKeys.add(table.id(previous.string(previous.buffer.getInt(
+            previous.legacyKeysPosition + 4 + 4 * (previous.column(LEGACY_KEYS_START, previousSlot) + i)))));
+        }
+        previous.copyBody(previousSlot, table, bodiesOut);
+
+      } else {
+        JSONObject issue = (JSONObject) value;
+        columns[TYPE][slot] = table.idOrNone(JiraHelper.getJsonFieldValue(issue, "issuetype"));
+        for (String legacyKey : JiraHelper.getCustomFieldValueAsList(issue, "Legacy Key")) {
+          legacyKeys.add(table.id(legacyKey));
+        }
+        JSONObject stored = new JSONObject(issue);
+        stored.remove(NAMES);
+        encode(stored, table, bodiesOut);
+      }
+      columns[LEGACY_KEYS_COUNT][slot] = legacyKeys.size() - columns[LEGACY_KEYS_START][slot];
+      columns[BODY_LENGTH][slot] = bodies.size() - columns[BODY_OFFSET][slot];
+      slot++;
+    }
+
+    int baseUrlId = table.id(baseUrl);
+    List<int[]> namePairs = new ArrayList<>();
+    for (Object nameEntry : names.entrySet()) {
+      Map.Entry<?, ?> name = (Map.Entry<?, ?>) nameEntry;
+      namePairs.add(new int[] {table.id((String) name.getKey()), table.id((String) name.getValue())});
+    }
+
+    Files.createDirectories(file.getParentFile().toPath());
+    Path tmp = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      out.writeLong(syncedAt);
+      out.writeLong(fullSyncAt);
+      out.writeInt(baseUrlId);
+      table.writeTo(out);
+
+      out.writeInt(namePairs.size());
+      for (int[] pair : namePairs) {
+        out.writeInt(pair[0]);
+        out.writeInt(pair[1]);
+      }
+
+      out.writeInt(entries.size());
+      for (int[] column : columns) {
+        for (int cell : column) {
+          out.writeInt(cell);
+        }
+      }
+      out.writeInt(legacyKeys.size());
+      for (int legacyKey : legacyKeys) {
+        out.writeInt(legacyKey);
+      }
+      out.writeInt(bodies.size());
+      bodies.writeTo(out);
+    }
+    moveIntoPlace(tmp, file);
+  }
+
+  /**
+   * Moves a complete store to its file, which must not exist yet: it is never written over.
+   */
+  private static void moveIntoPlace(Path tmp, File file) throws IOException {
+    try {
+      if (file.exists()) {
+        throw new FileAlreadyExistsException(file.getPath());
+      }
+      Files.move(tmp, file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(tmp, file.toPath());
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  private int column(int column, int slot) {
+    return buffer.getInt(columnsPosition + 4 * (column * issueCount + slot));
+  }
+
+  @CheckForNull
+  private String columnString(int column, int slot) {
+    int id = column(column, slot);
+    return id == NONE ? null : string(id);
+  }
+
+  private String string(int id) {
+    String string = strings.get(id);
+    if (string == null) {
+      int start = buffer.getInt(stringOffsetsPosition + 4 * id);
+      int end = buffer.getInt(stringOffsetsPosition + 4 * (id + 1));
+      byte[] bytes = new byte[end - start];
+      ByteBuffer data = buffer.duplicate();
+      data.position(stringDataPosition + start);
+      data.get(bytes);
+      string = new String(bytes, StandardCharsets.UTF_8);
+      if (!strings.compareAndSet(id, null, string)) {
+        string = strings.get(id);
+      }
+    }
+    return string;
+  }
+
+  /**
+   * Copies the body of an issue value by value, with its strings numbered in the table of the store being written.
+   */
+  private void copyBody(int slot, StringTable table, DataOutputStream out) throws IOException {
+    ByteBuffer body = buffer.duplicate();
+    body.position(bodiesPosition + column(BODY_OFFSET, slot));
+    copyValue(body, table, out);
+  }
+
+  private void copyValue(ByteBuffer body, StringTable table, DataOutputStream out) throws IOException {
+    byte tag = body.get();
+    out.writeByte(tag);
+    switch (tag) {
+      case NULL:
+      case TRUE:
+      case FALSE:
+        break;
+      case LONG:
+      case DOUBLE:
+        out.writeLong(body.getLong());
+        break;
+      case STRING:
+        out.writeInt(table.id(string(body.getInt())));
+        break;
+      case ARRAY:
+        int length = body.getInt();
+        out.writeInt(length);
+        for (int i = 0; i < length; i++) {
+          copyValue(body, table, out);
+        }
+        break;
+      case OBJECT:
+        int size = body.getInt();
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+          out.writeInt(table.id(string(body.getInt())));
+          copyValue(body, table, out);
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown tag " + tag);
+    }
+  }
+
+  private JSONObject issue(int slot) {
+    JSONObject issue = decodedIssues.get(slot);
+    if (issue == null) {
+      ByteBuffer body = buffer.duplicate();
+      body.position(bodiesPosition + column(BODY_OFFSET, slot));
+      try {
+        issue = (JSONObject) decode(body);
+      } catch (IndexOutOfBoundsException | BufferUnderflowException | IllegalArgumentException | ClassCastException e) {
+        throw new RuleException("Corrupted RSPEC store " + file + ": " + e);
+      }
+      issue.put(NAMES, names);
+      if (!decodedIssues.compareAndSet(slot, null, issue)) {
+        issue = decodedIssues.get(slot);
+      }
+    }
+    return issue;
+  }
+
+  private Object decode(ByteBuffer body) {
+    byte tag = body.get();
+    switch (tag) {
+      case NULL:
+        return null;
+      case TRUE:
+        return Boolean.TRUE;
+      case FALSE:
+        return Boolean.FALSE;
+      case LONG:
+        return body.getLong();
+      case DOUBLE:
+        return body.getDouble();
+      case STRING:
+        return string(body.getInt());
+      case ARRAY:
+        int length = body.getInt();
+        JSONArray array = new JSONArray();
+        for (int i = 0; i < length; i++) {
+          array.add(decode(body));
+        }
+        return array;
+      case OBJECT:
+        int size = body.getInt();
+        JSONObject object = new JSONObject();
+        for (int i = 0; i < size; i++) {
+          String name = string(body.getInt());
+          object.put(name, decode(body));
+        }
+        return object;
+      default:
+        throw new IllegalArgumentException("Unknown tag " + tag);
+    }
+  }
+
+  private static void encode(@CheckForNull Object value, StringTable table, DataOutputStream out) throws IOException {
+    if (value == null) {
+      out.writeByte(NULL);
+    } else if (value instanceof Boolean) {
+      out.writeByte((Boolean) value ? TRUE : FALSE);
+    } else if (value instanceof Double || value instanceof Float) {
+      out.writeByte(DOUBLE);
+      out.writeDouble(((Number) value).doubleValue());
+    } else if (value instanceof Number) {
+      out.writeByte(LONG);
+      out.writeLong(((Number) value).longValue());
+    } else if (value instanceof Map) {
+      Map<?, ?> map = (Map<?, ?>) value;
+      out.writeByte(OBJECT);
+      out.writeInt(map.size());
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        out.writeInt(table.id(String.valueOf(entry.getKey())));
+        encode(entry.getValue(), table, out);
+      }
+    } else if (value instanceof List) {
+      List<?> list = (List<?>) value;
+      out.writeByte(ARRAY);
+      out.writeInt(list.size());
+      for (Object element : list) {
+        encode(element, table, out);
+      }
+    } else {
+      out.writeByte(STRING);
+      out.writeInt(table.id(value.toString()));
+    }
+  }
+
+  /**
+   * Read-only view of the issues, keyed by issue key.
+   */
+  final class Issues extends AbstractMap<String, JSONObject> {
+
+    @Override
+    public int size() {
+      return issueCount;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+      return slotsByKey.containsKey(key);
+    }
+
+    @Override
+    public JSONObject get(Object key) {
+      Integer slot = slotsByKey.get(key);
+      return slot == null ? null : issue(slot);
+    }
+
+    /**
+     * Keys of the specifications (not the language subtasks) by legacy key, read from the columns.
+     */
+    SetMultimap<String, String> getSpecificationKeysByLegacyKey() {
+      ImmutableSetMultimap.Builder<String, String> builder = ImmutableSetMultimap.builder();
+      for (int slot = 0; slot < issueCount; slot++) {
+        if (SPECIFICATION_SUBTASK.equals(columnString(TYPE, slot))) {
+          continue;
+        }
+        String key = string(column(KEY, slot));
+        int start = column(LEGACY_KEYS_START, slot);
+        for (int i = 0; i < column(LEGACY_KEYS_COUNT, slot); i++) {
+          builder.put(string(buffer.getInt(legacyKeysPosition + 4 + 4 * (start + i))), key);
+        }
+      }
+      return builder.build();
+    }
+
+    @Override
+    public Set<Entry<String, JSONObject>> entrySet() {
+      return new AbstractSet<Entry<String, JSONObject>>() {
+        @Override
+        public int size() {
+          return issueCount;
+        }
+
+        @Override
+        public Iterator<Entry<String, JSONObject>> iterator() {
+          return new Iterator<Entry<String, JSONObject>>() {
+            private int slot = 0;
+
+            @Override
+            public boolean hasNext() {
+              return slot < issueCount;
+            }
+
+            @Override
+            public Entry<String, JSONObject> next() {
+              if (!hasNext()) {
+                throw new NoSuchElementException();
+              }
+              int current = slot++;
+              return new SimpleImmutableEntry<>(string(column(KEY, current)), issue(current));
+            }
+          };
+        }
+      };
+    }
+  }
+
+  private static class StringTable {
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    int id(String string) {
+      Integer id = ids.get(string);
+      if (id == null) {
+        id = strings.size();
+        strings.add(string);
+        ids.put(string, id);
+      }
+      return id;
+    }
+
+    int idOrNone(@CheckForNull String string) {
+      return string == null ? NONE : id(string);
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+      List<byte[]> encoded = new ArrayList<>(strings.size());
+      int length = 0;
+      for (String string : strings) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        encoded.add(bytes);
+        length += bytes.length;
+      }
+      out.writeInt(strings.size());
+      out.writeInt(length);
+      int offset = 0;
+      out.writeInt(offset);
+      for (byte[] bytes : encoded) {
+        offset += bytes.length;
+        out.writeInt(offset);
+      }
+      for (byte[] bytes : encoded) {
+        out.write(bytes);
+      }
+    }
+  }
+}
@@ -6,17 +6,30 @@
 package com.sonarsource.ruleapi.get;
 
 import com.google.common.base.Strings;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.sonarsource.ruleapi.domain.Profile;
 import com.sonarsource.ruleapi.domain.Rule;
+import com.sonarsource.ruleapi.domain.RuleSummary;
 import com.sonarsource.ruleapi.utilities.Language;
+import com.sonarsource.ruleapi.utilities.Parallel;
 import com.sonarsource.ruleapi.utilities.Utilities;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Given a key and a language, retrieves the relevant Issue
@@ -35,35 +48,60 @@ public class RuleMaker {
 
   private static final SQFetcher SQ_FETCHER = new SQFetcherImpl();
 
+  private static final ConcurrentMap<String, Supplier<List<Rule>>> SONARQUBE_RULES = new ConcurrentHashMap<>();
+  private static final ConcurrentMap<String, Map<String, Long>> ISSUE_COUNTS = new ConcurrentHashMap<>();
+
   private RuleMaker() {
   }
 
+  /**
+   * The rules of a language on a SonarQube instance, with their default profiles. They are fetched once per
+   * instance and language, even by concurrent callers, and each caller gets its own copies.
+   */
   public static List<Rule> getRulesFromSonarQubeForLanguage(Language language, String instance) {
 
+    Supplier<List<Rule>> rules = SONARQUBE_RULES.computeIfAbsent(instance + "|" + language.name(),
+      key -> Suppliers.memoize(() -> fetchRulesFromSonarQubeForLanguage(language, instance)));
+
+    List<Rule> copies = new ArrayList<>();
+    for (Rule rule : rules.get()) {
+      copies.add(new Rule(rule.getLanguage(), rule));
+    }
+    return copies;
+  }
+
+  private static List<Rule> fetchRulesFromSonarQubeForLanguage(Language language, String instance) {
+
     List<Rule> allRules = RuleMaker.getRulesFromSonarQubeByQuery(instance, "repositories=" + language.getSq()+","+language.getSqCommon());
 
     populateSonarQubeProfiles(language, instance, allRules);
 
-    return allRules;
+    return Collections.unmodifiableList(allRules);
   }
 
+  /**
+   * The activations of every profile are fetched concurrently, then applied in the order of the profiles
+   * through a single index of the rules by key.
+   */
   protected static void populateSonarQubeProfiles(Language language, String instance, List<Rule> allRules) {
 
     List<Profile> profiles = getProfiles(language, SQ_FETCHER.fetchProfilesFromSonarQube(instance));
 
-    for (Profile profile : profiles) {
-      List<JSONObject> profileRules = SQ_FETCHER.fetchRulesFromSonarQube(instance,
-              "activation=true&f=internalKey&qprofile=" + profile.getKey());
-      addProfilesToSonarQubeRules(allRules, profile, profileRules);
+    List<List<JSONObject>> activations = Parallel.mapInOrder(profiles, profile -> SQ_FETCHER.fetchRulesFromSonarQube(instance,
+              "activation=true&f=internalKey&qprofile=" + profile.getKey()));
+
+    Map<String, Rule> rulesByKey = indexByKey(allRules);
+    for (int i = 0; i < profiles.size(); i++) {
+      addProfilesToSonarQubeRules(rulesByKey, profiles.get(i), activations.get(i));
     }
   }
 
   protected static void addProfilesToSonarQubeRules(List<Rule> allRules, Profile profile, List<JSONObject> profileRules) {
 
-    Map<String, Rule> rulesByKey = new HashMap<>();
-    for (Rule rule : allRules) {
-      rulesByKey.put(rule.getKey(), rule);
-    }
+    addProfilesToSonarQubeRules(indexByKey(allRules), profile, profileRules);
+  }
+
+  private static void addProfilesToSonarQubeRules(Map<String, Rule> rulesByKey, Profile profile, List<JSONObject> profileRules) {
 
     for (JSONObject jsonObject : profileRules) {
       String internalKey = (String) jsonObject.get("key");
@@ -77,6 +115,15 @@ public class RuleMaker {
     }
   }
 
+  private static Map<String, Rule> indexByKey(List<Rule> rules) {
+
+    Map<String, Rule> rulesByKey = new HashMap<>();
+    for (Rule rule : rules) {
+      rulesByKey.put(rule.getKey(), rule);
+    }
+    return rulesByKey;
+  }
+
   /**
    * Given a rule key and a language (e.g. Java, ABAP, etc), fetches
    * Issue from Jira and creates from it a Rule. Rule population includes
@@ -91,17 +138,106 @@ public class RuleMaker {
 
     Rule rule = new Rule(language);
     rule.setLookupKey(key);
-    JSONObject jsonRule = JiraFetcherImpl.instance().fetchIssueByKey(key);
-    fleshOutRule(JiraFetcherImpl.instance(), rule, jsonRule);
+    JiraFetcher fetcher = JiraFetcherImpl.instance();
+    JSONObject jsonRule = fetcher.fetchIssueByKey(key);
+    fleshOutRule(fetcher, rule, jsonRule);
 
     return rule;
   }
 
+  /**
+   * Batch version of {@link #getRuleByKey(String, String)}: the issues, then their
+   * language-specific subtasks, are each fetched in as few calls as possible.
+   *
+   * @param keys rule keys - legacy keys, S### or RSPEC-###
+   * @param language language of the rules
+   * @return rules fetched from Jira by key, in the order of the keys
+   */
+  public static Map<String, Rule> getRulesByKey(Collection<String> keys, String language) {
+
+    JiraFetcher fetcher = JiraFetcherImpl.instance();
+    Map<String, JSONObject> issues = fetcher.fetchIssuesByKey(keys);
+    Map<String, JSONObject> subtasks = prefetchSubtasks(fetcher, issues.values(), language);
+
+    List<String> keyList = new ArrayList<>(keys);
+    List<Rule> madeRules = Parallel.mapInOrder(keyList, Parallel.cpuParallelism(), key -> {
+      Rule rule = new Rule(language);
+      rule.setLookupKey(key);
+      fleshOutRule(fetcher, subtasks, rule, issues.get(key));
+      return rule;
+    });
+
+    Map<String, Rule> rules = new LinkedHashMap<>();
+    for (int i = 0; i < keyList.size(); i++) {
+      rules.put(keyList.get(i), madeRules.get(i));
+    }
+    return rules;
+  }
+
+  /**
+   * The language-neutral fields of the rules (status, languages, tags, references...), joined by key against
+   * the RSPEC snapshot, which is loaded if needed. Neither descriptions, subtasks nor replacing rules are read,
+   * so only keys missing from the snapshot cost a call.
+   *
+   * @param keys rule keys - legacy keys, S### or RSPEC-###
+   * @return rules by key, in the order of the keys. Rules not found only hold their lookup key
+   */
+  public static Map<String, Rule> getLanguageNeutralRulesByKey(Collection<String> keys) {
+
+    JiraFetcherImpl.snapshot().get();
+    Map<String, JSONObject> issues = JiraFetcherImpl.instance().fetchIssuesByKey(keys);
+
+    Map<String, Rule> rules = new LinkedHashMap<>();
+    for (String key : keys) {
+      Rule rule = new Rule("");
+      rule.setLookupKey(key);
+      JSONObject issue = issues.get(key);
+      if (issue != null) {
+        JiraHelper.populateLanguageNeutralFields(rule, issue);
+      }
+      rules.put(key, rule);
+    }
+    return rules;
+  }
+
+  /**
+   * Multi-language version of {@link #getRuleByKey(String, String)}: the issue and the language-specific
+   * subtasks are fetched once for all the languages, and the fields that don't depend on the language
+   * are read once and copied into each rule.
+   *
+   * @param key rule key - legacy key, S### or RSPEC-###
+   * @param languages languages of the rules
+   * @return a rule per language, in the order of the languages
+   */
+  public static Map<String, Rule> getRulesByLanguage(String key, Collection<String> languages) {
+
+    JiraFetcher fetcher = JiraFetcherImpl.instance();
+    JSONObject jsonRule = fetcher.fetchIssueByKey(key);
+    Rule languageNeutralRule = new Rule("");
+    Map<String, JSONObject> subtasks = Collections.emptyMap();
+    if (jsonRule != null) {
+      JiraHelper.populateLanguageNeutralFields(languageNeutralRule, jsonRule);
+      subtasks = prefetchSubtasks(fetcher, Collections.singletonList(jsonRule), languages);
+    }
+
+    Map<String, Rule> rules = new LinkedHashMap<>();
+    for (String language : languages) {
+      Rule rule = new Rule(language, languageNeutralRule);
+      rule.setLookupKey(key);
+      if (jsonRule != null) {
+        JiraHelper.populateLanguageSpecificFields(rule, jsonRule);
+        mergeSubtask(fetcher, subtasks, rule, jsonRule);
+      }
+      rules.put(language, rule);
+    }
+    return rules;
+  }
+
   public static List<Rule> getRulesFromSonarQubeByQuery(String instance, String query) {
 
     List<Rule> rules = new ArrayList<>();
 
-    List<JSONObject> jsonRules = SQ_FETCHER.fetchRulesFromSonarQube(instance, query);
+    List<JSONObject> jsonRules = SQ_FETCHER.fetchRulesFromSonarQube(instance, query + "&" + SonarQubeHelper.FIELDS);
 
     for (JSONObject jsonRule : jsonRules) {
       rules.add(SonarQubeHelper.populateFields(jsonRule));
@@ -110,6 +246,31 @@ public class RuleMaker {
     return rules;
   }
 
+  /**
+   * Counts the issues of each rule on a SonarQube instance. Counts are cached by instance, so that
+   * only the rules not counted yet are searched.
+   *
+   * @param ruleKeys the rule keys, with their repository. E. G. squid:S1154
+   * @return issue count by requested rule key
+   */
+  public static Map<String, Long> getIssueCountsFromSonarQube(String instance, Collection<String> ruleKeys) {
+
+    Map<String, Long> cachedCounts = ISSUE_COUNTS.computeIfAbsent(instance, key -> new ConcurrentHashMap<>());
+
+    Set<String> missing = new LinkedHashSet<>(ruleKeys);
+    missing.removeAll(cachedCounts.keySet());
+    if (!missing.isEmpty()) {
+      cachedCounts.putAll(SQ_FETCHER.fetchIssueCountsByRule(instance, missing));
+    }
+
+    Map<String, Long> counts = new HashMap<>();
+    for (String ruleKey : ruleKeys) {
+      Long count = cachedCounts.get(ruleKey);
+      counts.put(ruleKey, count == null ? 0L : count);
+    }
+    return counts;
+  }
+
   protected static List<Profile> getProfiles(Language language, List<JSONObject> jsonProfiles){
     List<Profile> profiles = new ArrayList<>();
 
@@ -125,86 +286,163 @@ public class RuleMaker {
 
   /**
    * Retrieve a list of open rules based on a JQL snippet.
+   * The rules are made in parallel, see {@link Parallel#cpuParallelism()}, and listed in the order of the search.
    * @param query the jql to use
    * @param language the language sought. Not used in the query but used to populate rule members
    * @return a list of retrieved rules
    */
   public static List<Rule> getRulesByJql(String query, String language) {
-    List<Rule> rules = new ArrayList<>();
-
-    List<JSONObject> issues = JiraFetcherImpl.instance().fetchIssuesBySearch(query);
+    JiraFetcher fetcher = JiraFetcherImpl.instance();
+    List<JSONObject> issues = fetcher.fetchIssuesBySearch(query);
+    Map<String, JSONObject> subtasks = prefetchSubtasks(fetcher, issues, language);
 
-    for (JSONObject jsonRule : issues) {
+    return Parallel.mapInOrder(issues, Parallel.cpuParallelism(), jsonRule -> {
       Rule rule = new Rule(language);
-      fleshOutRule(JiraFetcherImpl.instance(), rule, jsonRule);
-      rules.add(rule);
+      fleshOutRule(fetcher, subtasks, rule, jsonRule);
+      return rule;
+    });
+  }
+
+  /**
+   * Multi-language version of {@link #getRulesByJql(String, String)}: the search is run once, and each issue is made
+   * into a rule for every requested language listed in its "Covered Languages". The language-neutral fields are read
+   * once per issue, and the language-specific subtasks of all the languages are fetched at once.
+   * @param query the jql to use
+   * @param languages the languages sought
+   * @return the rules covering each language, by language in the order of the languages, each list in the order of the search
+   */
+  public static Map<String, List<Rule>> getRulesByJqlAndCoveredLanguage(String query, Collection<String> languages) {
+    JiraFetcher fetcher = JiraFetcherImpl.instance();
+    List<JSONObject> issues = fetcher.fetchIssuesBySearch(query);
+
+    List<Rule> languageNeutralRules = Parallel.mapInOrder(issues, Parallel.cpuParallelism(), jsonRule -> {
+      Rule rule = new Rule("");
+      JiraHelper.populateLanguageNeutralFields(rule, jsonRule);
+      return rule;
+    });
+
+    Map<String, List<Integer>> issueIndexesByLanguage = new LinkedHashMap<>();
+    Set<String> subtaskKeys = new LinkedHashSet<>();
+    for (String language : languages) {
+      List<Integer> indexes = new ArrayList<>();
+      for (int i = 0; i < issues.size(); i++) {
+        if (languageNeutralRules.get(i).getCoveredLanguages().contains(language)) {
+          indexes.add(i);
+          JSONObject subtask = findSubtask(language, getSubtasks(issues.get(i)));
+          if (subtask != null) {
+            subtaskKeys.add(subtask.get("key").toString());
+          }
+        }
+      }
+      issueIndexesByLanguage.put(language, indexes);
+    }
+    Map<String, JSONObject> subtasks = subtaskKeys.isEmpty() ? Collections.<String, JSONObject>emptyMap() : fetcher.fetchIssuesByKey(subtaskKeys);
+
+    Map<String, List<Rule>> rulesByLanguage = new LinkedHashMap<>();
+    for (Map.Entry<String, List<Integer>> entry : issueIndexesByLanguage.entrySet()) {
+      String language = entry.getKey();
+      rulesByLanguage.put(language, Parallel.mapInOrder(entry.getValue(), Parallel.cpuParallelism(), i -> {
+        Rule rule = new Rule(language, languageNeutralRules.get(i));
+        JiraHelper.populateLanguageSpecificFields(rule, issues.get(i));
+        mergeSubtask(fetcher, subtasks, rule, issues.get(i));
+        return rule;
+      }));
     }
+    return rulesByLanguage;
+  }
 
-    return rules;
+  /**
+   * Retrieve the summaries of the open rules matching a JQL snippet, for the reports and passes which only
+   * reference rules. Only the summarized fields are asked to Jira, and neither descriptions nor subtasks are read.
+   * @param query the jql to use
+   * @param referenceFieldNames the reference fields to read as well ("CWE", "MISRA C 2012"...)
+   * @return the summaries, in the order of the search
+   */
+  public static List<RuleSummary> getRuleSummariesByJql(String query, String... referenceFieldNames) {
+    List<String> referenceFields = Arrays.asList(referenceFieldNames);
+    List<String> fields = new ArrayList<>(JiraHelper.SUMMARY_FIELDS);
+    fields.addAll(referenceFields);
+
+    List<RuleSummary> summaries = new ArrayList<>();
+    for (JSONObject issue : JiraFetcherImpl.instance().fetchIssuesBySearch(query, fields)) {
+      RuleSummary summary = new RuleSummary();
+      JiraHelper.populateSummaryFields(summary, issue, referenceFields);
+      summaries.add(summary);
+    }
+    return summaries;
+  }
+
+  /**
+   * Fetches at once the language-specific subtasks of these issues that will be merged into their rules.
+   *
+   * @return the subtasks by key
+   */
+  protected static Map<String, JSONObject> prefetchSubtasks(JiraFetcher fetcher, Collection<JSONObject> issues, String language) {
+    return prefetchSubtasks(fetcher, issues, Collections.singletonList(language));
+  }
+
+  private static Map<String, JSONObject> prefetchSubtasks(JiraFetcher fetcher, Collection<JSONObject> issues, Collection<String> languages) {
+    Set<String> keys = new LinkedHashSet<>();
+    for (JSONObject issue : issues) {
+      for (String language : languages) {
+        JSONObject subtask = issue == null ? null : findSubtask(language, getSubtasks(issue));
+        if (subtask != null) {
+          keys.add(subtask.get("key").toString());
+        }
+      }
+    }
+    return keys.isEmpty() ? Collections.<String, JSONObject>emptyMap() : fetcher.fetchIssuesByKey(keys);
   }
 
   protected static void fleshOutRule(JiraFetcher fetcher, Rule rule, JSONObject jsonRule) {
+    fleshOutRule(fetcher, Collections.<String, JSONObject>emptyMap(), rule, jsonRule);
+  }
+
+  private static void fleshOutRule(JiraFetcher fetcher, Map<String, JSONObject> prefetchedSubtasks, Rule rule, JSONObject jsonRule) {
     if (jsonRule != null) {
       JiraHelper.populateFields(rule, jsonRule);
+      mergeSubtask(fetcher, prefetchedSubtasks, rule, jsonRule);
+    }
+  }
+
+  private static void mergeSubtask(JiraFetcher fetcher, Map<String, JSONObject> prefetchedSubtasks, Rule rule, JSONObject jsonRule) {
+    JSONObject subIssue = getSubtask(fetcher, prefetchedSubtasks, rule.getLanguage(), getSubtasks(jsonRule));
+    if (subIssue != null) {
 
-      JSONObject fields = (JSONObject)jsonRule.get("fields");
-      JSONArray subtasks = (JSONArray) fields.get("subtasks");
+      Rule subRule = new Rule(rule.getLanguage());
+      JiraHelper.populateFields(subRule, subIssue);
+      rule.merge(subRule);
+    }
+  }
 
-      JSONObject subIssue = getSubtask(fetcher, rule.getLanguage(), subtasks);
-      if (subIssue != null) {
+  private static JSONArray getSubtasks(JSONObject jsonRule) {
+    JSONObject fields = (JSONObject)jsonRule.get("fields");
+    return (JSONArray) fields.get("subtasks");
+  }
 
-        Rule subRule = new Rule(rule.getLanguage());
-        JiraHelper.populateFields(subRule, subIssue);
-        rule.merge(subRule);
-      }
+  private static JSONObject getSubtask(JiraFetcher fetcher, Map<String, JSONObject> prefetchedSubtasks, String language, JSONArray tasks) {
+    JSONObject subt = findSubtask(language, tasks);
+    if (subt == null) {
+      return null;
     }
+    String key = subt.get("key").toString();
+    JSONObject subtask = prefetchedSubtasks.get(key);
+    return subtask != null ? subtask : fetcher.fetchIssueByKey(key);
   }
 
-  private static JSONObject getSubtask(JiraFetcher fetcher, String language, JSONArray tasks) {
+  private static JSONObject findSubtask(String language, JSONArray tasks) {
     if (tasks != null && ! Strings.isNullOrEmpty(language)) {
-      for (JSONObject subt : (Iterable<JSONObject>) tasks) {
-        if (isLanguageMatch(language, JiraHelper.getJsonFieldValue(subt, "summary").trim())) {
-          return fetcher.fetchIssueByKey(subt.get("key").toString());
-        }
-      }
+      return SubtaskIndex.of(tasks).get(language);
     }
     return null;
   }
 
   protected static boolean isLanguageMatch(String language, String candidate) {
-
-    String ucLanguage = language.toUpperCase();
-    String ucCandidate = candidate.toUpperCase();
-
-    if (isCFamilyMatch(ucLanguage)) {
-      return isCFamilyMatch(ucCandidate);
-    }
-
-    if (ucLanguage.equals(ucCandidate)) {
-      return true;
-    }
-    if (!ucCandidate.startsWith(ucLanguage)) {
-      return false;
-    }
-    return ucCandidate.matches(ucLanguage + "\\W.*");
+    return SubtaskIndex.isLanguageMatch(language, candidate);
   }
 
   protected static boolean isCFamilyMatch(String candidate) {
-    String[] cFamily = {"C-Family", "C", "CPP", "C++", "Objective-C"};
-
-    if ("C#".equalsIgnoreCase(candidate) || candidate.matches("(?i:C#\\W.*)")) {
-      return false;
-    }
-
-    for (String option : cFamily) {
-      if (option.equalsIgnoreCase(candidate)) {
-        return true;
-      }
-      if (candidate.matches("(?i:" + option + "\\W.*)")) {
-        return true;
-      }
-    }
-    return false;
+    return SubtaskIndex.isCFamilyMatch(candidate);
   }
 
   /**
@@ -247,12 +485,46 @@ public class RuleMaker {
   }
 
   public static List<Rule> getReplacingRules(Rule oldRule) {
+    return getReplacingRules(oldRule, new HashMap<>());
+  }
+
+  /**
+   * Same as {@link #getReplacingRules(Rule)}, reusing the rules already made and recording the new ones,
+   * so that a rule replacing several others is only made once.
+   *
+   * @param replacingRulesByKey the replacing rules made so far, by key
+   */
+  public static List<Rule> getReplacingRules(Rule oldRule, Map<String, Rule> replacingRulesByKey) {
     List<Rule> newRules = new ArrayList<>();
     for (String link : oldRule.getReplacementLinks()) {
-      newRules.add(RuleMaker.getRuleByKey(link, ""));
+      newRules.add(replacingRulesByKey.computeIfAbsent(link, key -> RuleMaker.getRuleByKey(key, "")));
     }
 
     return newRules;
   }
 
+  /**
+   * The languages covered by the rules replacing this one, by replacement key. They are read from the
+   * snapshot when it is loaded, and only the replacements missing from it are fetched. No replacing rule
+   * is made, so links between deprecated rules are never followed further, even when they form a cycle.
+   */
+  static Map<String, Set<String>> getCoveredLanguagesOfReplacements(Rule rule) {
+    Map<String, Set<String>> coveredLanguages = new LinkedHashMap<>();
+    if (rule.getReplacementLinks().isEmpty()) {
+      return coveredLanguages;
+    }
+
+    JiraFetcherImpl fetcher = JiraFetcherImpl.instance();
+    for (String link : rule.getReplacementLinks()) {
+      Set<String> languages = fetcher.getCachedCoveredLanguages(link);
+      if (languages == null) {
+        JSONObject issue = fetcher.fetchIssueByKey(link);
+        languages = issue == null ? Collections.<String>emptySet()
+          : new HashSet<>(JiraHelper.getCustomFieldStoredAsList(issue, "Covered Languages"));
+      }
+      coveredLanguages.put(link, languages);
+    }
+    return coveredLanguages;
+  }
+
 }
@@ -7,7 +7,9 @@ package com.sonarsource.ruleapi.get;
 
 import org.json.simple.JSONObject;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface SQFetcher {
   /**
@@ -21,4 +23,13 @@ public interface SQFetcher {
   List<JSONObject> fetchRulesFromSonarQube(String instance, String search);
 
   List<JSONObject> fetchProfilesFromSonarQube(String instance);
+
+  /**
+   * Counts the issues of each rule on a running SonarQube instance, using as few calls as possible.
+   *
+   * @param instance base SonarQube instance address. E.G. https://sonarqube.com
+   * @param ruleKeys the rule keys, with their repository. E. G. squid:S1154
+   * @return issue count by requested rule key
+   */
+  Map<String, Long> fetchIssueCountsByRule(String instance, Collection<String> ruleKeys);
 }
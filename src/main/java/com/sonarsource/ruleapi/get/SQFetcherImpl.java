@@ -5,33 +5,92 @@
  */
 package com.sonarsource.ruleapi.get;
 
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import com.sonarsource.ruleapi.utilities.Parallel;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class SQFetcherImpl implements SQFetcher {
 
+  private static final String RULES = "rules";
+
+  // keeps the search URL short
+  private static final int RULES_PER_ISSUE_SEARCH = 50;
+
+  /**
+   * The first page tells how many rules there are and how many the server returns per page,
+   * the remaining pages are then fetched concurrently and reassembled in order.
+   */
   @Override
   public List<JSONObject> fetchRulesFromSonarQube(String instance, String search) {
 
     String baseUrl = instance + "/api/rules/search?ps=500&" + search;
 
-    JSONObject rawResult = Fetcher.getJsonFromUrl(baseUrl);
-    JSONArray rules = (JSONArray) rawResult.get("rules");
+    JSONObject firstPage = Fetcher.getJsonFromUrl(baseUrl);
+    JSONArray rules = (JSONArray) firstPage.get(RULES);
 
-    while ((Long) rawResult.get("total") > rules.size()) {
-      long page = (Long) rawResult.get("p");
-      page++;
+    long total = (Long) firstPage.get("total");
+    long pageSize = (Long) firstPage.get("ps");
 
-      rawResult = Fetcher.getJsonFromUrl(baseUrl + "&p=" + page);
-      rules.addAll((JSONArray) rawResult.get("rules"));
+    List<Long> pageIndexes = new ArrayList<>();
+    if (pageSize > 0) {
+      long lastPage = (total + pageSize - 1) / pageSize;
+      for (long page = (Long) firstPage.get("p") + 1; page <= lastPage; page++) {
+        pageIndexes.add(page);
+      }
+    }
 
+    for (JSONObject page : Parallel.mapInOrder(pageIndexes, page -> Fetcher.getJsonFromUrl(baseUrl + "&p=" + page))) {
+      rules.addAll((JSONArray) page.get(RULES));
     }
 
     return rules;
   }
 
+  /**
+   * Rules are counted by batches, through the <code>rules</code> facet of an issue search filtered on them.
+   */
+  @Override
+  public Map<String, Long> fetchIssueCountsByRule(String instance, Collection<String> ruleKeys) {
+
+    List<List<String>> batches = Lists.partition(new ArrayList<>(ruleKeys), RULES_PER_ISSUE_SEARCH);
+
+    Map<String, Long> counts = new HashMap<>();
+    for (Map<String, Long> batchCounts : Parallel.mapInOrder(batches, batch -> fetchIssueCounts(instance, batch))) {
+      counts.putAll(batchCounts);
+    }
+    return counts;
+  }
+
+  private static Map<String, Long> fetchIssueCounts(String instance, List<String> ruleKeys) {
+
+    JSONObject response = Fetcher.getJsonFromUrl(String.format("%s/api/issues/search?ps=1&facets=rules&rules=%s",
+      instance, Joiner.on(',').join(ruleKeys)));
+
+    Map<String, Long> counts = new HashMap<>();
+    for (String ruleKey : ruleKeys) {
+      counts.put(ruleKey, 0L);
+    }
+    for (JSONObject facet : (List<JSONObject>) response.get("facets")) {
+      if ("rules".equals(facet.get("property"))) {
+        for (JSONObject value : (List<JSONObject>) facet.get("values")) {
+          String ruleKey = (String) value.get("val");
+          if (counts.containsKey(ruleKey)) {
+            counts.put(ruleKey, (Long) value.get("count"));
+          }
+        }
+      }
+    }
+    return counts;
+  }
+
   @Override
   public List<JSONObject> fetchProfilesFromSonarQube(String instance) {
     String url = instance + "/api/qualityprofiles/search";
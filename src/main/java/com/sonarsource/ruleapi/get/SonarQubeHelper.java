@@ -22,6 +22,13 @@ public class SonarQubeHelper {
 
   private static final String HTML_H2 = "<h2>";
 
+  /**
+   * The <code>f</code> parameter of <code>api/rules/search</code> asking only for what {@link #populateFields(JSONObject)}
+   * reads. The key and type always come along.
+   */
+  static final String FIELDS = "f=langName,repo,status,severity,name,htmlDesc,defaultDebtRemFn,defaultRemFn,gapDescription,"
+    + "isTemplate,templateKey,sysTags,params";
+
 
   private SonarQubeHelper(){
     // this space intentionally left blank
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2014-2018 SonarSource SA
+ * All rights reserved
+ * mailto:info AT sonarsource DOT com
+ */
+package com.sonarsource.ruleapi.get;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import javax.annotation.CheckForNull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The language-specific subtasks of an issue, by language.
+ *
+ * A subtask is for a language when its summary is the language name, or starts with it followed by
+ * a non-word character ("Java: ..."). All the C-family languages share the first C-family subtask,
+ * which is never a C# one. Every language prefix of every summary is indexed up front, so that finding
+ * the subtask of a language is a lookup.
+ *
+ * The same subtasks are shared by every reader of the RSPEC snapshot, so each list is indexed only once.
+ * Lists are compared by identity and weakly held.
+ */
+final class SubtaskIndex {
+
+  private static final Pattern C_SHARP = Pattern.compile("(?i:C#\\W.*)");
+  private static final String[] C_FAMILY = {"C-Family", "C", "CPP", "C++", "Objective-C"};
+  private static final List<Pattern> C_FAMILY_PATTERNS = compileCFamilyPatterns();
+
+  private static final Pattern LINE_TERMINATOR = Pattern.compile("[\\n\\r\\u0085\\u2028\\u2029]");
+
+  private static final Map<String, Boolean> C_FAMILY_LANGUAGES = new ConcurrentHashMap<>();
+
+  private static final LoadingCache<JSONArray, SubtaskIndex> INDEXES = CacheBuilder.newBuilder()
+    .weakKeys()
+    .build(CacheLoader.from(SubtaskIndex::new));
+
+  private final Map<String, JSONObject> subtasksByLanguage;
+  private final JSONObject cFamilySubtask;
+
+  private SubtaskIndex(JSONArray subtasks) {
+    Map<String, JSONObject> byLanguage = new HashMap<>();
+    JSONObject cFamily = null;
+    for (JSONObject subtask : (Iterable<JSONObject>) subtasks) {
+      String summary = JiraHelper.getJsonFieldValue(subtask, "summary");
+      if (summary == null) {
+        continue;
+      }
+      String ucSummary = summary.trim().toUpperCase();
+      if (cFamily == null && isCFamilyMatch(ucSummary)) {
+        cFamily = subtask;
+      }
+      for (String language : languagePrefixes(ucSummary)) {
+        byLanguage.putIfAbsent(language, subtask);
+      }
+    }
+    this.subtasksByLanguage = byLanguage.isEmpty() ? Collections.<String, JSONObject>emptyMap() : byLanguage;
+    this.cFamilySubtask = cFamily;
+  }
+
+  static SubtaskIndex of(JSONArray subtasks) {
+    return INDEXES.getUnchecked(subtasks);
+  }
+
+  /**
+   * The first subtask for this language, if any.
+   */
+  @CheckForNull
+  JSONObject get(String language) {
+    String ucLanguage = language.toUpperCase();
+    if (isCFamilyLanguage(ucLanguage)) {
+      return cFamilySubtask;
+    }
+    return subtasksByLanguage.get(ucLanguage);
+  }
+
+  static boolean isLanguageMatch(String language, String candidate) {
+
+    String ucLanguage = language.toUpperCase();
+    String ucCandidate = candidate.toUpperCase();
+
+    if (isCFamilyLanguage(ucLanguage)) {
+      return isCFamilyMatch(ucCandidate);
+    }
+    return ucLanguage.equals(ucCandidate) || languagePrefixes(ucCandidate).contains(ucLanguage);
+  }
+
+  static boolean isCFamilyMatch(String candidate) {
+
+    if ("C#".equalsIgnoreCase(candidate) || C_SHARP.matcher(candidate).matches()) {
+      return false;
+    }
+
+    for (int i = 0; i < C_FAMILY.length; i++) {
+      if (C_FAMILY[i].equalsIgnoreCase(candidate) || C_FAMILY_PATTERNS.get(i).matcher(candidate).matches()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isCFamilyLanguage(String ucLanguage) {
+    return C_FAMILY_LANGUAGES.computeIfAbsent(ucLanguage, SubtaskIndex::isCFamilyMatch);
+  }
+
+  /**
+   * The summary itself, and each of its prefixes followed by a non-word character and then by a single line,
+   * as matched by <code>prefix\W.*</code>.
+   */
+  private static List<String> languagePrefixes(String summary) {
+    List<String> prefixes = new ArrayList<>();
+    prefixes.add(summary);
+
+    int lastLineTerminator = -1;
+    Matcher lineTerminator = LINE_TERMINATOR.matcher(summary);
+    while (lineTerminator.find()) {
+      lastLineTerminator = lineTerminator.start();
+    }
+    for (int i = Math.max(1, lastLineTerminator); i < summary.length(); i++) {
+      if (!isWordCharacter(summary.charAt(i))) {
+        prefixes.add(summary.substring(0, i));
+      }
+    }
+    return prefixes;
+  }
+
+  private static boolean isWordCharacter(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+  }
+
+  private static List<Pattern> compileCFamilyPatterns() {
+    List<Pattern> patterns = new ArrayList<>();
+    for (String option : C_FAMILY) {
+      patterns.add(Pattern.compile("(?i:" + option + "\\W.*)"));
+    }
+    return patterns;
+  }
+}
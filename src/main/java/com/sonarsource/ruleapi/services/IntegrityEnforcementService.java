@@ -9,6 +9,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
 import com.sonarsource.ruleapi.domain.Rule;
 import com.sonarsource.ruleapi.domain.RuleException;
+import com.sonarsource.ruleapi.domain.RuleSummary;
 import com.sonarsource.ruleapi.externalspecifications.CodingStandard;
 import com.sonarsource.ruleapi.externalspecifications.DerivativeTaggableStandard;
 import com.sonarsource.ruleapi.externalspecifications.Standard;
@@ -100,13 +101,14 @@ public class IntegrityEnforcementService extends RuleManager {
 
   protected void cleanUpSupersededRules() {
     List<Rule> rules = RuleMaker.getRulesByJql(" issueFunction in hasLinks(\"is superceded by\") OR status = SUPERSEDED", "");
+    Map<String, Rule> replacingRulesByKey = new HashMap<>();
     for (Rule rule : rules) {
 
-      Map<Rule,Map<String,Object>> replacingRules = getReplacingRules(rule);
+      Map<Rule,Map<String,Object>> replacingRules = getReplacingRules(rule, replacingRulesByKey);
 
       getSupersederUpdates(rule, replacingRules);
 
-      processReplacementRuleUpdates(replacingRules);
+      processReplacementRuleUpdates(replacingRules, replacingRulesByKey);
 
       if (!Rule.Status.SUPERSEDED.equals(rule.getStatus())) {
         LOGGER.info("Setting status to SUPERSEDED for " + rule.getKey());
@@ -139,14 +141,15 @@ public class IntegrityEnforcementService extends RuleManager {
   public void cleanUpDeprecatedRules() {
 
     List<Rule> rules = RuleMaker.getRulesByJql(" issueFunction in hasLinks(\"is deprecated by\") OR status = DEPRECATED", "");
+    Map<String, Rule> replacingRulesByKey = new HashMap<>();
     for (Rule rule : rules) {
 
       Map<String, Object> updates = new HashMap<>();
 
-      Map<Rule,Map<String,Object>> deprecatingRulesNeedingUpdate = getReplacingRules(rule);
+      Map<Rule,Map<String,Object>> deprecatingRulesNeedingUpdate = getReplacingRules(rule, replacingRulesByKey);
 
       getDeprecationUpdates(rule, updates, deprecatingRulesNeedingUpdate);
-      processReplacementRuleUpdates(deprecatingRulesNeedingUpdate);
+      processReplacementRuleUpdates(deprecatingRulesNeedingUpdate, replacingRulesByKey);
 
       if (!Rule.Status.DEPRECATED.equals(rule.getStatus())) {
         LOGGER.info("Setting status to DEPRECATED for " + rule.getKey());
@@ -192,10 +195,13 @@ public class IntegrityEnforcementService extends RuleManager {
     }
   }
 
-  private static Map<Rule, Map<String, Object>> getReplacingRules(Rule oldRule) {
+  /**
+   * A rule replacing several others is made once per clean-up, see {@link #processReplacementRuleUpdates}.
+   */
+  private static Map<Rule, Map<String, Object>> getReplacingRules(Rule oldRule, Map<String, Rule> replacingRulesByKey) {
     Map<Rule, Map<String, Object>> newRules = new HashMap<>();
 
-    for (Rule rule : RuleMaker.getReplacingRules(oldRule)){
+    for (Rule rule : RuleMaker.getReplacingRules(oldRule, replacingRulesByKey)){
       newRules.put(rule, new HashMap<>());
     }
     return newRules;
@@ -336,12 +342,19 @@ public class IntegrityEnforcementService extends RuleManager {
     }
   }
 
-  private void processReplacementRuleUpdates(Map<Rule, Map<String, Object>> updateMap) {
+  /**
+   * The updates are made on the replacing rules themselves, so the ones made so far stay current and are
+   * reused for the next rule they replace. Only a rule whose update was not applied is dropped, so that it
+   * is read again from Jira.
+   */
+  private void processReplacementRuleUpdates(Map<Rule, Map<String, Object>> updateMap, Map<String, Rule> replacingRulesByKey) {
 
     for (Map.Entry<Rule, Map<String,Object>> entry : updateMap.entrySet()) {
       String newRuleKey = entry.getKey().getKey();
       LOGGER.log(Level.INFO, "Submitting updates to replacement rule: {0}", newRuleKey);
-      ruleUpdater.updateRule(newRuleKey, entry.getValue());
+      if (!ruleUpdater.updateRule(newRuleKey, entry.getValue())) {
+        replacingRulesByKey.remove(newRuleKey);
+      }
     }
   }
 
@@ -393,13 +406,13 @@ public class IntegrityEnforcementService extends RuleManager {
    */
   protected void dropTargetedForIrrelevant() {
 
-    List<Rule> rules = RuleMaker.getRulesByJql("\"Irrelevant for Languages\" is not empty", "");
-    for (Rule rule : rules) {
+    List<RuleSummary> rules = RuleMaker.getRuleSummariesByJql("\"Irrelevant for Languages\" is not empty");
+    for (RuleSummary rule : rules) {
       ruleUpdater.updateRule(rule.getKey(), doDropTargetedForIrrelevant(rule));
     }
   }
 
-  protected Map<String,Object> doDropTargetedForIrrelevant(Rule rule) {
+  protected Map<String,Object> doDropTargetedForIrrelevant(RuleSummary rule) {
 
     Map<String, Object> updates = new HashMap<>();
     Set<String> targeted = rule.getTargetedLanguages();
@@ -6,6 +6,7 @@
 package com.sonarsource.ruleapi.services;
 
 import com.google.common.base.Strings;
+import com.sonarsource.ruleapi.domain.CodingStandardCoverage;
 import com.sonarsource.ruleapi.domain.ReportAndBadge;
 import com.sonarsource.ruleapi.domain.Rule;
 import com.sonarsource.ruleapi.domain.RuleComparison;
@@ -16,6 +17,7 @@ import com.sonarsource.ruleapi.externalspecifications.Badgable;
 import com.sonarsource.ruleapi.externalspecifications.BadgableMultiLanguage;
 import com.sonarsource.ruleapi.externalspecifications.CleanupReport;
 import com.sonarsource.ruleapi.externalspecifications.CustomerReport;
+import com.sonarsource.ruleapi.externalspecifications.ReportRenderer;
 import com.sonarsource.ruleapi.externalspecifications.ReportType;
 import com.sonarsource.ruleapi.externalspecifications.Standard;
 import com.sonarsource.ruleapi.externalspecifications.SupportedStandard;
@@ -23,16 +25,26 @@ import com.sonarsource.ruleapi.externalspecifications.specifications.AbstractMul
 import com.sonarsource.ruleapi.get.RuleMaker;
 import com.sonarsource.ruleapi.services.badge.BadgeGenerator;
 import com.sonarsource.ruleapi.utilities.Language;
+import com.sonarsource.ruleapi.utilities.Parallel;
 import org.json.simple.JSONArray;
 
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.PrintWriter;
-import java.io.UnsupportedEncodingException;
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -49,18 +61,55 @@ public class ReportService extends RuleManager {
 
 
   /**
-   * Writes internal reports based on passed-in SonarQube url
+   * Writes internal reports based on passed-in SonarQube url.
+   *
+   * The reports of a standard are written one after the other, in the usual order, since they share the
+   * coverage data of the standard. The standards and the wallboard are independent and are run concurrently,
+   * see {@link Parallel#parallelism()}. The work nested in each of them runs on its thread, so the run uses
+   * no more threads than that. The upstream Jira and SonarQube fetches are shared through the
+   * caches of {@link RuleMaker}. The summary coverage report is assembled in the order of the standards, so
+   * every file is the same whatever the scheduling.
    *
    * @param instance SonarQube instance URL
    */
   public void writeInternalReports(String instance) {
 
-    writeToolInternalReports(instance);
-    writeDetailedCoverageReports(instance);
-    writeSummaryCoverageReports(instance);
-    writeOutdatedRuleCountReportForWallboard(instance);
-    writeCleanupReports();
+    List<Supplier<String>> tasks = new ArrayList<>();
+    tasks.add(() -> {
+      writeOutdatedRuleCountReportForWallboard(instance);
+      return null;
+    });
+    for (SupportedStandard supportedStandard : SupportedStandard.values()) {
+      tasks.add(() -> writeInternalReports(supportedStandard.getStandard(), instance));
+    }
+
+    writeSummaryCoverageReport(Parallel.mapInOrder(tasks, Supplier::get));
+  }
+
+  /**
+   * Writes the internal reports of a standard.
+   *
+   * @return its summary coverage report, if any
+   */
+  @CheckForNull
+  private static String writeInternalReports(Standard standard, String instance) {
+
+    if (standard instanceof AbstractReportableExternalTool) {
+      writeToolInternalReport((AbstractReportableExternalTool) standard, instance);
+    }
+
+    String summaryReport = null;
+    if (standard instanceof AbstractReportableStandard) {
+      AbstractReportableStandard reportableStandard = (AbstractReportableStandard) standard;
+      CodingStandardCoverage coverage = getInternalCoverage(reportableStandard, instance);
+      writeDetailedCoverageReport(reportableStandard, instance, coverage);
+      summaryReport = getSummaryCoverageReport(reportableStandard, instance, coverage);
+    }
 
+    if (standard instanceof CleanupReport) {
+      writeCleanupReport(standard);
+    }
+    return summaryReport;
   }
 
   public void writeUserFacingReports() {
@@ -111,12 +160,12 @@ public class ReportService extends RuleManager {
 
   protected void writeReportAndBadge(String standardName, Map.Entry<Language, ReportAndBadge> entry) {
 
-    String report = entry.getValue().getReport();
+    ReportRenderer report = entry.getValue().getReportRenderer();
     String badge = entry.getValue().getBadge();
 
     String baseFileName = entry.getKey().getSq().concat("_").concat(standardName);
 
-    if (!Strings.isNullOrEmpty(report)) {
+    if (report != null) {
       String fileName = COVERAGE_DIR.concat(standardName).concat("/").concat(baseFileName).concat("_coverage.html").toLowerCase();
       writeFile(fileName, report);
     }
@@ -130,20 +179,49 @@ public class ReportService extends RuleManager {
 
     LOGGER.log(Level.INFO, "Getting summary coverage report  on {0}", instance);
 
-
-    StringBuilder sb = new StringBuilder();
+    List<String> reports = new ArrayList<>();
     for (SupportedStandard supportedStandard : SupportedStandard.values()) {
 
       Standard standard = supportedStandard.getStandard();
       if (standard instanceof AbstractReportableStandard) {
-        String report = ((AbstractReportableStandard)standard).getSummaryReport(instance);
-        if (report != null) {
-          sb.append(report).append("\n\n");
-        }
+        AbstractReportableStandard reportableStandard = (AbstractReportableStandard) standard;
+        reports.add(getSummaryCoverageReport(reportableStandard, instance, getInternalCoverage(reportableStandard, instance)));
       }
     }
-    writeFile(COVERAGE_DIR.concat("summary_coverage_reports.txt"), sb.toString());
+    writeSummaryCoverageReport(reports);
+  }
+
+  /**
+   * @return the coverage the internal reports of the standard are about, <code>null</code> if they report nothing
+   */
+  @CheckForNull
+  private static CodingStandardCoverage getInternalCoverage(AbstractReportableStandard standard, String instance) {
+
+    return standard.hasInternalReports() ? standard.getCoverage(instance) : null;
+  }
+
+  @CheckForNull
+  private static String getSummaryCoverageReport(AbstractReportableStandard standard, String instance,
+    @Nullable CodingStandardCoverage coverage) {
+
+    LOGGER.log(Level.INFO, "Getting summary coverage report for {0} on {1}",
+            new Object[]{standard.getStandardName(), instance});
+
+    return coverage == null ? null : standard.getSummaryReport(coverage);
+  }
+
+  /**
+   * @param reports the summary coverage reports, in the order of the standards. <code>null</code> ones are skipped
+   */
+  private static void writeSummaryCoverageReport(List<String> reports) {
 
+    StringBuilder sb = new StringBuilder();
+    for (String report : reports) {
+      if (report != null) {
+        sb.append(report).append("\n\n");
+      }
+    }
+    writeFile(COVERAGE_DIR.concat("summary_coverage_reports.txt"), sb.toString());
   }
 
   public void writeDetailedCoverageReports(String instance) {
@@ -151,34 +229,66 @@ public class ReportService extends RuleManager {
     for (SupportedStandard supportedStandard : SupportedStandard.values()) {
 
       if (supportedStandard.getStandard() instanceof AbstractReportableStandard) {
-
         AbstractReportableStandard standard = (AbstractReportableStandard) supportedStandard.getStandard();
-
-        LOGGER.log(Level.INFO, "Getting detailed coverage report for {0} on {1}",
-                new Object[]{standard.getStandardName(), instance});
-
-        writeFile(COVERAGE_DIR.concat(standard.getStandardName()).concat("_coverage.txt").toLowerCase(Locale.ENGLISH), standard.getReport(instance));
+        writeDetailedCoverageReport(standard, instance, getInternalCoverage(standard, instance));
       }
     }
   }
 
+  private static void writeDetailedCoverageReport(AbstractReportableStandard standard, String instance,
+    @Nullable CodingStandardCoverage coverage) {
+
+    LOGGER.log(Level.INFO, "Getting detailed coverage report for {0} on {1}",
+            new Object[]{standard.getStandardName(), instance});
+
+    writeFile(COVERAGE_DIR.concat(standard.getStandardName()).concat("_coverage.txt").toLowerCase(Locale.ENGLISH),
+      coverage == null ? null : standard.getReport(coverage));
+  }
+
   protected static void writeFile(String fileName, String content) {
 
+    writeFile(fileName, out -> out.append(String.valueOf(content)));
+  }
+
+  /**
+   * Streams the report through a buffered writer, so that it is never held whole in memory. It is written
+   * next to its file first, and only moved into place once complete, so a failure leaves the previous
+   * report untouched. The temporary file is created like the report would be, with the default permissions.
+   */
+  protected static void writeFile(String fileName, ReportRenderer report) {
+
     String path = fileName.replaceAll(" ", "_");
-    File file = new File(BASE_DIR + path);
+    File file = new File(BASE_DIR + path).getAbsoluteFile();
     File parent = file.getParentFile();
-    if (parent != null) {
-      parent.mkdirs();
-    }
+    parent.mkdirs();
 
-    try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+    Path tempFile = parent.toPath().resolve(file.getName() + ".tmp");
+    try {
+      try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
 
-      writer.println(content);
+        report.renderTo(writer);
+        writer.write(System.lineSeparator());
+      }
+      Files.move(tempFile, file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+      tempFile = null;
 
       LOGGER.log(Level.INFO, "Output: {0}", path);
 
-    } catch (FileNotFoundException|UnsupportedEncodingException e) {
+    } catch (IOException e) {
       throw new RuleException(e);
+    } finally {
+      deleteQuietly(tempFile);
+    }
+  }
+
+  private static void deleteQuietly(@Nullable Path file) {
+
+    if (file != null) {
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException e) {
+        LOGGER.log(Level.WARNING, "Could not delete " + file, e);
+      }
     }
   }
 
@@ -186,39 +296,65 @@ public class ReportService extends RuleManager {
     for (SupportedStandard supportedStandard : SupportedStandard.values()) {
 
       if (supportedStandard.getStandard() instanceof CleanupReport) {
-
-        String report = ((CleanupReport)supportedStandard.getStandard()).generateCleanupReport();
-        writeFile(supportedStandard.getStandard().getStandardName().toLowerCase() + "_cleanup.txt", report);
+        writeCleanupReport(supportedStandard.getStandard());
       }
     }
   }
 
+  private static void writeCleanupReport(Standard standard) {
+
+    String report = ((CleanupReport) standard).generateCleanupReport();
+    writeFile(standard.getStandardName().toLowerCase() + "_cleanup.txt", report);
+  }
+
   public void writeToolInternalReports(String instance) {
 
     for (SupportedStandard supportedStandard : SupportedStandard.values()) {
 
       if (supportedStandard.getStandard() instanceof AbstractReportableExternalTool) {
-        AbstractReportableExternalTool externalTool = (AbstractReportableExternalTool) supportedStandard.getStandard();
-
-        LOGGER.log(Level.INFO, "Getting unspecified ids for {0} on {1}",
-                new Object[] {externalTool.getStandardName(), instance});
-
-        String report = externalTool.getUnspecifiedReport();
-        writeFile("unspecified_" + externalTool.getStandardName().toLowerCase(Locale.ENGLISH) + "_ids.txt", report);
+        writeToolInternalReport((AbstractReportableExternalTool) supportedStandard.getStandard(), instance);
       }
     }
   }
 
+  private static void writeToolInternalReport(AbstractReportableExternalTool externalTool, String instance) {
+
+    LOGGER.log(Level.INFO, "Getting unspecified ids for {0} on {1}",
+            new Object[] {externalTool.getStandardName(), instance});
+
+    String report = externalTool.getUnspecifiedReport();
+    writeFile("unspecified_" + externalTool.getStandardName().toLowerCase(Locale.ENGLISH) + "_ids.txt", report);
+  }
+
+  /**
+   * Writes the outdated rules report of every language, then their counts to <code>outdated/summary.json</code>
+   * for the wallboard.
+   *
+   * The RSPEC rules are searched once for all the languages and split by "Covered Languages". The languages
+   * are then compared concurrently, see {@link Parallel#parallelism()}, and counted in the order of
+   * {@link Language}, so that the summary is the same whatever the scheduling.
+   *
+   * @param instance the SonarQube instance against which to run the check
+   */
   public void writeOutdatedRuleCountReportForWallboard(String instance) {
 
-    JSONArray results = new JSONArray();
+    if (Strings.isNullOrEmpty(instance)) {
+      throw new RuleException("Instance required to write outdated reports.");
+    }
+
+    List<Language> languages = Arrays.asList(Language.values());
+    Map<Language, Map<String, Rule>> rspecRulesByLanguage = getCoveredRulesByLanguage(languages);
+
+    List<Integer> counts = Parallel.mapInOrder(languages,
+      language -> writeOutdatedRulesReport(language, instance, rspecRulesByLanguage.get(language)));
 
-    for (Language language : Language.values()) {
-      int count = writeOutdatedRulesReport(language, instance);
+    JSONArray results = new JSONArray();
+    for (int i = 0; i < languages.size(); i++) {
+      int count = counts.get(i);
       if (count > 0) {
-        Map<String, Object> map = new HashMap<>();
+        Map<String, Object> map = new LinkedHashMap<>();
         map.put("outdated", count);
-        map.put("name",language.getRspec());
+        map.put("name", languages.get(i).getRspec());
         results.add(map);
       }
     }
@@ -238,28 +374,42 @@ public class ReportService extends RuleManager {
               language + " " + instance);
     }
 
+    return writeOutdatedRulesReport(language, instance, getCoveredRulesForLanguage(language));
+  }
+
+  /**
+   * @param rspecRules the RSPEC rules covering the language, by key. Compared rules are removed from it
+   */
+  private int writeOutdatedRulesReport(Language language, String instance, Map<String, Rule> rspecRules) {
+
     LOGGER.log(Level.INFO, "Getting outdated rules report for {0} on {1}",
             new Object[]{language.getRspec(), instance});
 
     String fileName = "outdated/".concat(language.getSq()).concat("_outdated_rules.txt").toLowerCase();
 
-    Map<String, Rule> rspecRules = getCoveredRulesForLanguage(language);
-
     List<Rule> sqCovered = RuleMaker.getRulesFromSonarQubeForLanguage(language, instance);
     List<Rule> specNotFoundForLegacyKey = standardizeKeysAndIdentifyMissingSpecs(language, sqCovered);
 
+    List<String> uncoveredKeys = new ArrayList<>();
+    for (Rule sqRule : sqCovered) {
+      if (isComparable(language, specNotFoundForLegacyKey, sqRule) && !rspecRules.containsKey(sqRule.getKey())) {
+        uncoveredKeys.add(sqRule.getKey());
+      }
+    }
+    Map<String, Rule> uncoveredRules = RuleMaker.getRulesByKey(uncoveredKeys, language.getRspec());
+
     int notAlike = 0;
     StringBuilder sb = new StringBuilder();
     for (Rule sqRule : sqCovered) {
 
-      if (specNotFoundForLegacyKey.contains(sqRule) || language.getSqCommon().equals(sqRule.getRepo())) {
+      if (!isComparable(language, specNotFoundForLegacyKey, sqRule)) {
         continue;
       }
 
       String key = sqRule.getKey();
       Rule rspecRule = rspecRules.remove(key);
       if (rspecRule == null) {
-        rspecRule = RuleMaker.getRuleByKey(key, language.getRspec());
+        rspecRule = uncoveredRules.get(key);
       }
       if (rspecRule != null) {
         RuleComparison rc = new RuleComparison(rspecRule, sqRule);
@@ -283,6 +433,10 @@ public class ReportService extends RuleManager {
     return notAlike;
   }
 
+  private static boolean isComparable(Language language, List<Rule> specNotFoundForLegacyKey, Rule sqRule) {
+    return !specNotFoundForLegacyKey.contains(sqRule) && !language.getSqCommon().equals(sqRule.getRepo());
+  }
+
   public void writeSingleReport(Language language, String instance, AbstractReportableStandard standard, ReportType reportType) {
 
     String reportName = standard.getStandardName() + "_"
@@ -302,7 +456,13 @@ public class ReportService extends RuleManager {
         if (standard instanceof CustomerReport) {
           writeFile(reportName,((CustomerReport)standard).getHtmlReport(instance));
         } else {
-          writeFile(reportName,((AbstractMultiLanguageStandard)standard).getHtmlLanguageReport(instance, language).getReport());
+          ReportAndBadge reportAndBadge = ((AbstractMultiLanguageStandard)standard).getHtmlLanguageReport(instance, language);
+          ReportRenderer report = reportAndBadge == null ? null : reportAndBadge.getReportRenderer();
+          if (report == null) {
+            writeFile(reportName, (String) null);
+          } else {
+            writeFile(reportName, report);
+          }
         }
         break;
       case UNSPECIFIED:
@@ -46,6 +46,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.BiFunction;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -85,12 +86,19 @@ public class RuleFilesService {
   }
 
   public void generateRuleFiles(Iterable<String> ruleKeys) {
+    generateRuleFiles(ruleKeys, RuleMaker::getRuleByKey);
+  }
+
+  /**
+   * @param ruleMaker makes the rule of a key for a language
+   */
+  void generateRuleFiles(Iterable<String> ruleKeys, BiFunction<String, String, Rule> ruleMaker) {
     countGeneratedFiles = 0;
     int countRulesProcessed = 0;
     if (ruleKeys != null) {
       List<Rule> updatedRules = new ArrayList<>();
       for (String ruleKey : ruleKeys) {
-        Rule rule = RuleMaker.getRuleByKey(ruleKey, language);
+        Rule rule = ruleMaker.apply(ruleKey, language);
         if( rule == null || rule.getKey() == null ) {
           throw new IllegalArgumentException("invalid rule");
         }
@@ -203,8 +211,12 @@ public class RuleFilesService {
   }
 
   public void updateDescriptions() {
+    updateDescriptions(RuleMaker::getRuleByKey);
+  }
+
+  void updateDescriptions(BiFunction<String, String, Rule> ruleMaker) {
     try {
-      generateRuleFiles(findRulesToUpdate());
+      generateRuleFiles(findRulesToUpdate(), ruleMaker);
     } catch (IOException e) {
       throw new RuleException(e);
     }
@@ -225,6 +237,10 @@ public class RuleFilesService {
     }
   }
 
+  String getLanguage() {
+    return language;
+  }
+
   private static boolean matchRuleFileExtension(String fileName) {
     String fileNameLowerCase = fileName.toLowerCase(Locale.ENGLISH);
     return !fileNameLowerCase.endsWith(PROFILE_TERMINATION) &&
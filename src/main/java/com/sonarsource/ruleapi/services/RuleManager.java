@@ -11,6 +11,8 @@ import com.sonarsource.ruleapi.get.RuleMaker;
 import com.sonarsource.ruleapi.utilities.Language;
 import com.sonarsource.ruleapi.utilities.Utilities;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,6 +28,27 @@ public class RuleManager {
     return mapRulesByKey(RuleMaker.getRulesByJql("\"Covered Languages\" = \"" + language.getRspec() + "\"", language.getRspec()));
   }
 
+  /**
+   * Multi-language version of {@link #getCoveredRulesForLanguage(Language)}: the rules covering any language
+   * are searched once, then split by "Covered Languages".
+   *
+   * @return the covered rules by key, for each of the languages
+   */
+  public Map<Language, Map<String, Rule>> getCoveredRulesByLanguage(Collection<Language> languages) {
+
+    List<String> rspecLanguages = new ArrayList<>();
+    for (Language language : languages) {
+      rspecLanguages.add(language.getRspec());
+    }
+    Map<String, List<Rule>> rulesByLanguage = RuleMaker.getRulesByJqlAndCoveredLanguage("\"Covered Languages\" is not EMPTY", rspecLanguages);
+
+    Map<Language, Map<String, Rule>> map = new EnumMap<>(Language.class);
+    for (Language language : languages) {
+      map.put(language, mapRulesByKey(rulesByLanguage.get(language.getRspec())));
+    }
+    return map;
+  }
+
   private static Map<String,Rule> mapRulesByKey(List<Rule> rules) {
     Map<String, Rule> map = new HashMap<>();
     for (Rule rule : rules) {
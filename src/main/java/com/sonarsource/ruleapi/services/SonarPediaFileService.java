@@ -5,12 +5,19 @@
  */
 package com.sonarsource.ruleapi.services;
 
+import com.sonarsource.ruleapi.domain.Rule;
 import com.sonarsource.ruleapi.domain.SonarPediaJsonFile;
+import com.sonarsource.ruleapi.get.RuleMaker;
 import com.sonarsource.ruleapi.utilities.Language;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 public class SonarPediaFileService {
@@ -63,17 +70,84 @@ public class SonarPediaFileService {
   }
 
   public void generateRuleFiles(Iterable<String> ruleKeys) {
+    RuleVariants ruleMaker = newRuleMaker();
     ruleFilesServices
       .stream()
-      .forEach(ruleFilesService -> ruleFilesService.generateRuleFiles(ruleKeys));
+      .forEach(ruleFilesService -> {
+        ruleFilesService.generateRuleFiles(ruleKeys, ruleMaker);
+        ruleMaker.release(ruleFilesService.getLanguage());
+      });
   }
 
   public void updateDescriptions() {
+    RuleVariants ruleMaker = newRuleMaker();
     ruleFilesServices
       .stream()
-      .forEach(RuleFilesService::updateDescriptions);
+      .forEach(ruleFilesService -> {
+        ruleFilesService.updateDescriptions(ruleMaker);
+        ruleMaker.release(ruleFilesService.getLanguage());
+      });
     sonarPediaJsonFile.updateTimeStamp().writeToItsFile();
     System.out.println("SonarPedia file updated");
   }
 
+  private RuleVariants newRuleMaker() {
+    List<String> languages = ruleFilesServices.stream().map(RuleFilesService::getLanguage).distinct().collect(Collectors.toList());
+    return new RuleVariants(languages, RuleMaker::getRulesByLanguage, RuleMaker::getRuleByKey);
+  }
+
+  /**
+   * With several languages, each rule is made for all of them the first time it is needed, and each variant
+   * is kept until its language asks for it, or is done. A rule asked for again, e.g. a key given twice, is
+   * then made on its own.
+   */
+  static class RuleVariants implements BiFunction<String, String, Rule> {
+
+    private final List<String> languages;
+    private final BiFunction<String, List<String>, Map<String, Rule>> variantsMaker;
+    private final BiFunction<String, String, Rule> ruleMaker;
+
+    private final Set<String> madeKeys = new HashSet<>();
+    private final Set<String> releasedLanguages = new HashSet<>();
+    private final Map<String, Map<String, Rule>> variantsByLanguage = new HashMap<>();
+
+    RuleVariants(List<String> languages, BiFunction<String, List<String>, Map<String, Rule>> variantsMaker,
+      BiFunction<String, String, Rule> ruleMaker) {
+      this.languages = languages;
+      this.variantsMaker = variantsMaker;
+      this.ruleMaker = ruleMaker;
+    }
+
+    @Override
+    public Rule apply(String key, String language) {
+      if (languages.size() < 2) {
+        return ruleMaker.apply(key, language);
+      }
+      Map<String, Rule> variants = variantsByLanguage.get(language);
+      Rule rule = variants == null ? null : variants.remove(key);
+      if (rule != null) {
+        return rule;
+      }
+      if (!madeKeys.add(key)) {
+        return ruleMaker.apply(key, language);
+      }
+      for (Map.Entry<String, Rule> variant : variantsMaker.apply(key, languages).entrySet()) {
+        if (variant.getKey().equals(language)) {
+          rule = variant.getValue();
+        } else if (!releasedLanguages.contains(variant.getKey())) {
+          variantsByLanguage.computeIfAbsent(variant.getKey(), l -> new HashMap<>()).put(key, variant.getValue());
+        }
+      }
+      return rule;
+    }
+
+    /**
+     * Drops the variants of a language that won't ask for more rules.
+     */
+    void release(String language) {
+      releasedLanguages.add(language);
+      variantsByLanguage.remove(language);
+    }
+  }
+
 }
@@ -11,17 +11,9 @@ import com.sonarsource.ruleapi.domain.Rule;
 import com.sonarsource.ruleapi.domain.RuleException;
 import com.sonarsource.ruleapi.get.Fetcher;
 import com.sonarsource.ruleapi.get.JiraFetcherImpl;
-import org.glassfish.jersey.client.authentication.HttpAuthenticationFeature;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
-import javax.ws.rs.client.Client;
-import javax.ws.rs.client.ClientBuilder;
-import javax.ws.rs.client.Entity;
-import javax.ws.rs.client.WebTarget;
-import javax.ws.rs.core.MediaType;
-import javax.ws.rs.core.Response;
-
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -58,7 +50,7 @@ public class RuleUpdater {
     JSONObject request = prepareTransitionRequest(status, jobj);
     LOGGER.log(Level.FINE, "Update {0} : {1}",
             new Object[]{ruleKey, request.toJSONString()});
-    return postIssueUpdate(ruleKey + "/transitions", request);
+    return postIssueUpdate(ruleKey, ruleKey + "/transitions", request);
   }
 
   @VisibleForTesting
@@ -201,22 +193,20 @@ public class RuleUpdater {
   }
 
   private boolean putIssueUpdate(String ruleKey, JSONObject request) {
-    Client client = ClientBuilder.newClient().register(HttpAuthenticationFeature.basic(login, password));
-    WebTarget target = client.target(issueBaseUrl + ruleKey);
-    Response response = target.request(MediaType.APPLICATION_JSON_TYPE).put(Entity.entity(request.toJSONString(), MediaType.APPLICATION_JSON_TYPE));
-    return readAndCloseResponse(client, response);
+    return markStaleIfUpdated(ruleKey, Fetcher.putJson(issueBaseUrl + ruleKey, login, password, request) == 204);
   }
 
-  private boolean postIssueUpdate(String apiTarget, JSONObject request) {
-    Client client = ClientBuilder.newClient().register(HttpAuthenticationFeature.basic(login, password));
-    WebTarget target = client.target(issueBaseUrl + apiTarget);
-    Response response = target.request(MediaType.APPLICATION_JSON_TYPE).post(Entity.entity(request.toJSONString(), MediaType.APPLICATION_JSON_TYPE));
-    return readAndCloseResponse(client, response);
+  private boolean postIssueUpdate(String ruleKey, String apiTarget, JSONObject request) {
+    return markStaleIfUpdated(ruleKey, Fetcher.postJson(issueBaseUrl + apiTarget, login, password, request) == 204);
   }
 
-  private static boolean readAndCloseResponse(Client client, Response response) {
-    response.close();
-    client.close();
-    return response.getStatus() == 204;
+  /**
+   * Makes sure later reads of the shared RSPEC snapshot see the update.
+   */
+  private static boolean markStaleIfUpdated(String ruleKey, boolean updated) {
+    if (updated) {
+      JiraFetcherImpl.snapshot().markStale(ruleKey);
+    }
+    return updated;
   }
 }
@@ -11,6 +11,10 @@ import java.util.LinkedList;
 
 /**
  * Converts Jira markdown to HTML
+ *
+ * An instance holds the state of the conversion in progress, so it must not be shared between
+ * threads: use one instance per conversion, as {@link com.sonarsource.ruleapi.get.JiraHelper} does.
+ * The static helpers are stateless.
  */
 public class MarkdownConverter {
   private boolean codeOpen = false;
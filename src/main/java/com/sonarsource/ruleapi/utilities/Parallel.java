@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2014-2018 SonarSource SA
+ * All rights reserved
+ * mailto:info AT sonarsource DOT com
+ */
+package com.sonarsource.ruleapi.utilities;
+
+import com.sonarsource.ruleapi.domain.RuleException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs independent tasks with bounded parallelism while keeping results in input order.
+ * The default parallelism of I/O bound tasks can be set with the <code>ruleApi.parallelism</code>
+ * system property, the one of CPU bound tasks with <code>ruleApi.cpuParallelism</code>.
+ *
+ * Calls made from a task of another call run on the thread of that task, one input after the other,
+ * so nested calls never multiply the threads: the outermost call sets the bound.
+ */
+public class Parallel {
+
+  public static final String PARALLELISM_PROPERTY = "ruleApi.parallelism";
+  public static final String CPU_PARALLELISM_PROPERTY = "ruleApi.cpuParallelism";
+  private static final int DEFAULT_PARALLELISM = 4;
+
+  private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+  private Parallel() {
+    // utility class private constructor
+  }
+
+  public static int parallelism() {
+    return Utilities.getPositiveIntProperty(PARALLELISM_PROPERTY, DEFAULT_PARALLELISM);
+  }
+
+  /**
+   * Parallelism of CPU bound tasks, one thread per available processor by default.
+   */
+  public static int cpuParallelism() {
+    return Utilities.getPositiveIntProperty(CPU_PARALLELISM_PROPERTY, Runtime.getRuntime().availableProcessors());
+  }
+
+  public static <T, R> List<R> mapInOrder(List<T> inputs, Function<? super T, ? extends R> function) {
+    return mapInOrder(inputs, parallelism(), function);
+  }
+
+  /**
+   * Applies the function to every input, using at most <code>parallelism</code> threads,
+   * and returns the results in the order of the inputs. The first failure is rethrown
+   * and the remaining tasks are cancelled. When called from a worker thread, the inputs
+   * are processed on that thread.
+   */
+  public static <T, R> List<R> mapInOrder(List<T> inputs, int parallelism, Function<? super T, ? extends R> function) {
+
+    List<R> results = new ArrayList<>(inputs.size());
+    if (parallelism <= 1 || inputs.size() <= 1 || isWorkerThread()) {
+      for (T input : inputs) {
+        results.add(function.apply(input));
+      }
+      return results;
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, inputs.size()), Parallel::newThread);
+    try {
+      List<Future<? extends R>> futures = new ArrayList<>(inputs.size());
+      for (T input : inputs) {
+        futures.add(executor.submit(() -> function.apply(input)));
+      }
+      for (Future<? extends R> future : futures) {
+        results.add(future.get());
+      }
+      return results;
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuleException(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new RuleException((Exception) cause);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  static boolean isWorkerThread() {
+    return Thread.currentThread() instanceof WorkerThread;
+  }
+
+  private static Thread newThread(Runnable runnable) {
+    Thread thread = new WorkerThread(runnable, "rule-api-worker-" + THREAD_COUNT.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  private static final class WorkerThread extends Thread {
+
+    WorkerThread(Runnable runnable, String name) {
+      super(runnable, name);
+    }
+  }
+}
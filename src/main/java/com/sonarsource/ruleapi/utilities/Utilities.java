@@ -6,6 +6,7 @@
 package com.sonarsource.ruleapi.utilities;
 
 import com.sonarsource.ruleapi.domain.Rule;
+import com.sonarsource.ruleapi.domain.RuleSummary;
 
 import java.io.File;
 import java.time.LocalDateTime;
@@ -90,13 +91,23 @@ public class Utilities {
 
   public static String getJiraLinkedRuleReference(Rule rule) {
 
-    String ruleKey = normalizeKey(rule.getKey());
+    return getJiraLinkedRuleReference(rule.getKey(), rule.getTitle());
+  }
+
+  public static String getJiraLinkedRuleReference(RuleSummary rule) {
+
+    return getJiraLinkedRuleReference(rule.getKey(), rule.getTitle());
+  }
+
+  private static String getJiraLinkedRuleReference(String key, String title) {
+
+    String ruleKey = normalizeKey(key);
 
     StringBuilder sb = new StringBuilder();
 
     sb.append("<a href='https://jira.sonarsource.com/browse/").append(ruleKey).append("'>")
             .append(ruleKey).append("</a> ")
-            .append(MarkdownConverter.handleEntities(rule.getTitle())).append("<br/>\n");
+            .append(MarkdownConverter.handleEntities(title)).append("<br/>\n");
     return sb.toString();
 
   }
@@ -143,6 +154,24 @@ public class Utilities {
     return currentTime.format(DateTimeFormatter.ISO_LOCAL_DATE);
   }
 
+  /**
+   * Reads a strictly positive integer system property, falling back to the default when it is absent or invalid.
+   */
+  public static int getPositiveIntProperty(String name, int defaultValue) {
+    String value = System.getProperty(name);
+    if (value != null) {
+      try {
+        int parsed = Integer.parseInt(value.trim());
+        if (parsed > 0) {
+          return parsed;
+        }
+      } catch (NumberFormatException e) {
+        // fall through to the default
+      }
+    }
+    return defaultValue;
+  }
+
   public static File assertBaseDir(String baseDir) {
     if (baseDir == null) {
       throw new IllegalArgumentException("directory is required");
@@ -14,6 +14,7 @@ import java.util.Arrays;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import com.sonarsource.ruleapi.externalspecifications.SupportedStandard;
+import com.sonarsource.ruleapi.get.RspecMirror;
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
@@ -21,6 +22,7 @@ import org.junit.contrib.java.lang.system.SystemOutRule;
 import org.junit.rules.TemporaryFolder;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 
 public class MainTest {
 
@@ -244,6 +246,27 @@ public class MainTest {
   }
 
 
+  @Test
+  public void testMirrorIsOnlyUsedWhenAskedFor() throws Exception {
+
+    String[] args = {"update"};
+    Main.Settings settings = new Main.Settings();
+    new JCommander(settings, null, args);
+    assertThat(Main.getMirrorProperties(settings)).isEmpty();
+
+    String mirrorDir = testFolder.newFolder().getAbsolutePath();
+    String[] mirrorArgs = {"update", "-mirror", mirrorDir};
+    settings = new Main.Settings();
+    new JCommander(settings, null, mirrorArgs);
+    assertThat(Main.getMirrorProperties(settings)).containsOnly(entry(RspecMirror.DIR_PROPERTY, mirrorDir));
+
+    String[] offlineArgs = {"update", "-mirror", mirrorDir, "-offline"};
+    settings = new Main.Settings();
+    new JCommander(settings, null, offlineArgs);
+    assertThat(Main.getMirrorProperties(settings))
+      .containsOnly(entry(RspecMirror.DIR_PROPERTY, mirrorDir), entry(RspecMirror.OFFLINE_PROPERTY, "true"));
+  }
+
   @Test
   public void testPrintHelpMessage() {
     String[] args = {"--help"};
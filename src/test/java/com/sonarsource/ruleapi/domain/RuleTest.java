@@ -9,6 +9,7 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -17,6 +18,29 @@ public class RuleTest {
 
   private static final String LANG = "Java";
 
+  @Test
+  public void testSectionsConvertedOnFirstRead() {
+    AtomicInteger conversions = new AtomicInteger();
+    Rule subRule = new Rule(LANG);
+    subRule.setTitle("Java: title");
+    subRule.setCompliant(() -> "<p>compliant " + conversions.incrementAndGet() + "</p>");
+    subRule.setReferences(() -> "");
+    Rule rule = new Rule(LANG);
+    rule.setCompliant("<p>parent</p>");
+    rule.setNonCompliant(() -> "<p>noncompliant " + conversions.incrementAndGet() + "</p>");
+    rule.setReferences("<p>references</p>");
+    assertThat(conversions.get()).isZero();
+
+    rule.merge(subRule);
+    assertThat(conversions.get()).isEqualTo(1);
+    assertThat(rule.getCompliant()).isEqualTo("<p>compliant 1</p>");
+    assertThat(rule.getReferences()).isEqualTo("<p>references</p>");
+
+    assertThat(rule.getHtmlDescription()).isEqualTo("<p>noncompliant 2</p><p>compliant 1</p><p>references</p>");
+    assertThat(rule.getNonCompliant()).isEqualTo("<p>noncompliant 2</p>");
+    assertThat(conversions.get()).isEqualTo(2);
+  }
+
   @Test
   public void testMergeRemediation() {
 
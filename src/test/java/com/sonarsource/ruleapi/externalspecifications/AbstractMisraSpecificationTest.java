@@ -5,15 +5,19 @@
  */
 package com.sonarsource.ruleapi.externalspecifications;
 
+import com.sonarsource.ruleapi.domain.CodingStandardCoverage;
+import com.sonarsource.ruleapi.domain.CodingStandardRuleCoverage;
 import com.sonarsource.ruleapi.domain.Rule;
 import com.sonarsource.ruleapi.externalspecifications.misra.MisraC2004;
 import com.sonarsource.ruleapi.externalspecifications.misra.MisraC2012;
 import com.sonarsource.ruleapi.externalspecifications.misra.MisraCPP2008;
+import com.sonarsource.ruleapi.utilities.Language;
 import com.sonarsource.ruleapi.utilities.Utilities;
 import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -24,12 +28,12 @@ public class AbstractMisraSpecificationTest {
   public void reportsEmpty() {
 
     MisraC2004 c4 = new MisraC2004();
-    c4.populateRulesCoverageMap();
+    CodingStandardCoverage coverage = new CodingStandardCoverage(null, Language.C, c4.newRulesCoverageMap());
 
     String summaryReport = "";
     String report = "";
-    summaryReport = c4.getSummaryReport(null);
-    report = c4.getReport(null);
+    summaryReport = c4.getSummaryReport(coverage);
+    report = c4.getReport(coverage);
 
     String linebreak = String.format("%n");
     String expectedSummary = "MISRA C 2004" + linebreak +
@@ -47,31 +51,29 @@ public class AbstractMisraSpecificationTest {
   public void getBadgeValue() {
 
     MisraC2004 c4 = new MisraC2004();
-    c4.populateRulesCoverageMap();
 
-    assertThat(c4.getBadgeValue(null)).isEqualTo("0");
+    assertThat(c4.getBadgeValue(new CodingStandardCoverage(null, Language.C, c4.newRulesCoverageMap()))).isEqualTo("0");
   }
 
     @Test
   public void testReportsNonEmpty() {
 
     MisraC2004 c4 = new MisraC2004();
-    c4.populateRulesCoverageMap();
+    Map<String, CodingStandardRuleCoverage> rulesCoverage = c4.newRulesCoverageMap();
 
     Rule rule = new Rule("C");
     List<String> ids = new ArrayList<>();
     ids.add("2.1");  // implementable, required
     ids.add("2.4");  // implementable, optional
 
-    c4.setCodingStandardRuleCoverageSpecifiedBy(rule, ids);
-    c4.setCodingStandardRuleCoverageImplemented(ids,rule);
-
-    c4.computeCoverage();
+    c4.setCodingStandardRuleCoverageSpecifiedBy(rulesCoverage, rule, ids);
+    c4.setCodingStandardRuleCoverageImplemented(rulesCoverage, ids, rule);
+    CodingStandardCoverage coverage = new CodingStandardCoverage(null, Language.C, rulesCoverage);
 
     String summaryReport = "";
     String report = "";
-    summaryReport = c4.getSummaryReport(null);
-    report = c4.getReport(null);
+    summaryReport = c4.getSummaryReport(coverage);
+    report = c4.getReport(coverage);
 
     String linebreak = String.format("%n");
 
@@ -84,22 +86,24 @@ public class AbstractMisraSpecificationTest {
     assertThat(report).contains(expectedSummary);
     assertThat(report).contains("2.1\tS: NA\t\tC: NA\t\tI: N");
 
+    // counts are not carried over to the next coverage reported by the same standard
+    assertThat(c4.getSummaryReport(new CodingStandardCoverage(null, Language.C, c4.newRulesCoverageMap())))
+      .contains("Total:\tSpecified: 128\tImplemented: 0\t=> 0.00%");
+    assertThat(c4.getSummaryReport(coverage)).isEqualTo(expectedSummary);
   }
 
   @Test
   public void testHtmlReport() {
     MisraC2004 misraC2004 = new MisraC2004();
-    misraC2004.populateRulesCoverageMap();
+    Map<String, CodingStandardRuleCoverage> rulesCoverage = misraC2004.newRulesCoverageMap();
 
     Rule rule = new Rule("C");
     rule.setRepo("c");
     rule.setKey("RSPEC-1234");
     rule.setTitle("Rule title...");
-    misraC2004.getRulesCoverage().get("2.1").addImplementedBy(rule);
-
-    misraC2004.computeCoverage();
+    rulesCoverage.get("2.1").addImplementedBy(rule);
 
-    String report = misraC2004.getHtmlReport("");
+    String report = misraC2004.getHtmlReport(new CodingStandardCoverage("", Language.C, rulesCoverage));
 
     assertThat(report).contains(rule.getTitle());
     assertThat(report).contains(Utilities.getFormattedDateString());
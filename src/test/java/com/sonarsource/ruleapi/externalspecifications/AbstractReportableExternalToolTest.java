@@ -5,11 +5,14 @@
  */
 package com.sonarsource.ruleapi.externalspecifications;
 
+import com.sonarsource.ruleapi.domain.CodingStandardCoverage;
+import com.sonarsource.ruleapi.domain.CodingStandardRuleCoverage;
 import com.sonarsource.ruleapi.domain.Rule;
 import com.sonarsource.ruleapi.externalspecifications.tools.Checkstyle;
 import com.sonarsource.ruleapi.externalspecifications.tools.FindBugs;
 import com.sonarsource.ruleapi.externalspecifications.tools.ReSharper;
 import com.sonarsource.ruleapi.services.RuleManager;
+import com.sonarsource.ruleapi.utilities.Language;
 import com.sonarsource.ruleapi.utilities.Utilities;
 import org.junit.Test;
 
@@ -23,6 +26,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 public class AbstractReportableExternalToolTest {
 
   private FindBugs findBugsTestInstance = new FindBugs();
+  private CodingStandardCoverage findBugsTestCoverage;
   private Rule rule = new Rule("Java");
   private List<String> list = new ArrayList<>();
 
@@ -30,9 +34,6 @@ public class AbstractReportableExternalToolTest {
   private static final String FB_KEY2 = FindBugs.StandardRule.BC_EQUALS_METHOD_SHOULD_WORK_FOR_ALL_OBJECTS.name();
 
   public AbstractReportableExternalToolTest() {
-    findBugsTestInstance.populateRulesCoverageMap();
-    findBugsTestInstance.computeCoverage();
-
     rule.setRepo("squid");
     rule.getLegacyKeys().add("S1234");
     rule.setKey("RSPEC-1234");
@@ -41,8 +42,10 @@ public class AbstractReportableExternalToolTest {
     list.add(FB_KEY1);
     list.add(FB_KEY2);
 
-    findBugsTestInstance.setCodingStandardRuleCoverageImplemented(list, rule);
-    findBugsTestInstance.setCodingStandardRuleCoverageSpecifiedBy(rule, list);
+    Map<String, CodingStandardRuleCoverage> rulesCoverage = findBugsTestInstance.newRulesCoverageMap();
+    findBugsTestInstance.setCodingStandardRuleCoverageImplemented(rulesCoverage, list, rule);
+    findBugsTestInstance.setCodingStandardRuleCoverageSpecifiedBy(rulesCoverage, rule, list);
+    findBugsTestCoverage = new CodingStandardCoverage(null, Language.JAVA, rulesCoverage);
   }
 
   @Test
@@ -68,7 +71,7 @@ public class AbstractReportableExternalToolTest {
   @Test
   public void testGetCoveringRules() {
 
-    Map<Rule, List<String>> map = findBugsTestInstance.getCoveringRules();
+    Map<Rule, List<String>> map = findBugsTestInstance.getCoveringRules(findBugsTestCoverage);
     assertThat(map.size()).isEqualTo(1);
     assertThat(map.get(rule)).contains(FB_KEY1);
     assertThat(map.get(rule)).contains(FB_KEY2);
@@ -96,10 +99,8 @@ public class AbstractReportableExternalToolTest {
   public void testGenerateSummaryReport(){
 
     FindBugs fb = new FindBugs();
-    fb.populateRulesCoverageMap();
-    fb.computeCoverage();
 
-    String report = fb.generateSummaryReport();
+    String report = fb.generateSummaryReport(new CodingStandardCoverage(null, Language.JAVA, fb.newRulesCoverageMap()));
 
     assertThat(report).contains("Rule count:");
     assertThat(report).contains("Of Implementable rules:");
@@ -110,23 +111,21 @@ public class AbstractReportableExternalToolTest {
   public void testGetHtmlDeprecationByToolKey(){
 
     Checkstyle cs = new Checkstyle();
-    cs.populateRulesCoverageMap();
+    Map<String, CodingStandardRuleCoverage> rulesCoverage = cs.newRulesCoverageMap();
 
     List<String> ids = new ArrayList<>();
 
     ids.add(Checkstyle.CheckstyleRule.BOOLEANEXPRESSIONCOMPLEXITY.getCodingStandardRuleId());
     Rule r = new Rule("Java");
-    cs.setCodingStandardRuleCoverageImplemented(ids, rule);
-    cs.setCodingStandardRuleCoverageSpecifiedBy(rule, ids);
+    cs.setCodingStandardRuleCoverageImplemented(rulesCoverage, ids, rule);
+    cs.setCodingStandardRuleCoverageSpecifiedBy(rulesCoverage, rule, ids);
 
     ids.clear();
     ids.add(Checkstyle.CheckstyleRule.AVOIDSTARIMPORT.getCodingStandardRuleId());
     Rule r2 = new Rule("Java");
-    cs.setCodingStandardRuleCoverageSpecifiedBy(rule, ids);
-
-    cs.computeCoverage();
+    cs.setCodingStandardRuleCoverageSpecifiedBy(rulesCoverage, rule, ids);
 
-    String report = cs.getHtmlDeprecationByToolKey(RuleManager.SONARQUBE_COM);
+    String report = cs.getHtmlDeprecationByToolKey(new CodingStandardCoverage(RuleManager.SONARQUBE_COM, Language.JAVA, rulesCoverage));
 
     assertThat(report).isNotEmpty();
     assertThat(report).contains("<h3>Rejected " + cs.getStandardName() + " rules</h3>");
@@ -136,32 +135,32 @@ public class AbstractReportableExternalToolTest {
   }
 
   @Test
-  public void testComputeCoverage(){
+  public void testSummaryCounts(){
     FindBugs fb = new FindBugs();
+    Map<String, CodingStandardRuleCoverage> rulesCoverage = fb.newRulesCoverageMap();
+    CodingStandardCoverage empty = new CodingStandardCoverage(null, Language.JAVA, rulesCoverage);
 
-    ((AbstractReportableExternalTool)fb).populateRulesCoverageMap();
-    fb.computeCoverage();
-
-    assertThat(fb.implementable).isGreaterThan(0);
-    assertThat(fb.skipped).isGreaterThan(0);
-    assertThat(fb.specified).isEqualTo(0);
-    assertThat(fb.implemented).isEqualTo(0);
+    assertThat(fb.getRuleCount(Implementability.IMPLEMENTABLE)).isGreaterThan(0);
+    assertThat(fb.getRuleCount(Implementability.REJECTED)).isGreaterThan(0);
+    assertThat(empty.getSpecifiedCount()).isEqualTo(0);
+    assertThat(empty.getImplementedCount()).isEqualTo(0);
 
     Rule rule = new Rule("Java");
     List<String> ids = new ArrayList<>();
     ids.add(FB_ID);
 
-    fb = new FindBugs();
-    fb.populateRulesCoverageMap();
+    fb.setCodingStandardRuleCoverageImplemented(rulesCoverage, ids, rule);
+    fb.setCodingStandardRuleCoverageSpecifiedBy(rulesCoverage, rule, ids);
+    CodingStandardCoverage covered = new CodingStandardCoverage(null, Language.JAVA, rulesCoverage);
 
-    fb.setCodingStandardRuleCoverageImplemented(ids,rule);
-    fb.setCodingStandardRuleCoverageSpecifiedBy(rule, ids);
+    assertThat(covered.getSpecifiedCount()).isEqualTo(1);
+    assertThat(covered.getImplementedCount()).isEqualTo(1);
+    assertThat(empty.getImplementedCount()).isEqualTo(0);
 
-    fb.computeCoverage();
-    assertThat(fb.implementable).isGreaterThan(0);
-    assertThat(fb.skipped).isGreaterThan(0);
-    assertThat(fb.specified).isEqualTo(1);
-    assertThat(fb.implemented).isEqualTo(1);
+    // the same tool reports each coverage on its own
+    assertThat(fb.generateSummaryReport(covered)).isNotEqualTo(fb.generateSummaryReport(empty));
+    assertThat(fb.generateSummaryReport(empty)).isEqualTo(
+      fb.generateSummaryReport(new CodingStandardCoverage(null, Language.JAVA, fb.newRulesCoverageMap())));
   }
 
   @Test
@@ -172,14 +171,12 @@ public class AbstractReportableExternalToolTest {
     ids.add(FB_ID);
 
     FindBugs fb = new FindBugs();
-    fb.populateRulesCoverageMap();
+    Map<String, CodingStandardRuleCoverage> rulesCoverage = fb.newRulesCoverageMap();
 
-    fb.setCodingStandardRuleCoverageImplemented(ids,rule);
-    fb.setCodingStandardRuleCoverageSpecifiedBy(rule, ids);
+    fb.setCodingStandardRuleCoverageImplemented(rulesCoverage, ids, rule);
+    fb.setCodingStandardRuleCoverageSpecifiedBy(rulesCoverage, rule, ids);
 
-    fb.computeCoverage();
-
-    String report = fb.getUnspecifiedReport();
+    String report = fb.getUnspecifiedReport(new CodingStandardCoverage(null, Language.JAVA, rulesCoverage));
 
     assertThat(report).isNotNull();
     assertThat(report).isNotEmpty();
@@ -196,14 +193,13 @@ public class AbstractReportableExternalToolTest {
     ids.add(ReSharper.ReSharperRule.ACCESSTODISPOSEDCLOSURE.getCodingStandardRuleId());
 
     ReSharper rs = new ReSharper();
-    rs.populateRulesCoverageMap();
-
-    rs.setCodingStandardRuleCoverageImplemented(ids,rule);
-    rs.setCodingStandardRuleCoverageSpecifiedBy(rule, ids);
+    Map<String, CodingStandardRuleCoverage> rulesCoverage = rs.newRulesCoverageMap();
 
-    rs.computeCoverage();
+    rs.setCodingStandardRuleCoverageImplemented(rulesCoverage, ids, rule);
+    rs.setCodingStandardRuleCoverageSpecifiedBy(rulesCoverage, rule, ids);
+    CodingStandardCoverage coverage = new CodingStandardCoverage(null, Language.CSH, rulesCoverage);
 
-    String report = rs.getUnspecifiedReport();
+    String report = rs.getUnspecifiedReport(coverage);
 
     assertThat(report).contains("warning");
     assertThat(report).contains("hint");
@@ -217,14 +213,13 @@ public class AbstractReportableExternalToolTest {
     ids.add(ReSharper.ReSharperRule.ACCESSTODISPOSEDCLOSURE.getCodingStandardRuleId());
 
     ReSharper rs = new ReSharper();
-    rs.populateRulesCoverageMap();
-
-    rs.setCodingStandardRuleCoverageImplemented(ids,rule);
-    rs.setCodingStandardRuleCoverageSpecifiedBy(rule, ids);
+    Map<String, CodingStandardRuleCoverage> rulesCoverage = rs.newRulesCoverageMap();
 
-    rs.computeCoverage();
+    rs.setCodingStandardRuleCoverageImplemented(rulesCoverage, ids, rule);
+    rs.setCodingStandardRuleCoverageSpecifiedBy(rulesCoverage, rule, ids);
+    CodingStandardCoverage coverage = new CodingStandardCoverage(null, Language.CSH, rulesCoverage);
 
-    String report = rs.getHtmlReport(null);
+    String report = rs.getHtmlReport(coverage);
 
     assertThat(report).isNotNull();
     assertThat(report).isNotEmpty();
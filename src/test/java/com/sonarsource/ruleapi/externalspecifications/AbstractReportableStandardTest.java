@@ -5,17 +5,21 @@
  */
 package com.sonarsource.ruleapi.externalspecifications;
 
+import com.sonarsource.ruleapi.domain.CodingStandardCoverage;
 import com.sonarsource.ruleapi.domain.CodingStandardRuleCoverage;
 import com.sonarsource.ruleapi.domain.Rule;
 import com.sonarsource.ruleapi.externalspecifications.misra.MisraC2004;
 import com.sonarsource.ruleapi.externalspecifications.tools.FindBugs;
+import com.sonarsource.ruleapi.utilities.Language;
 import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 
 public class AbstractReportableStandardTest {
@@ -25,12 +29,12 @@ public class AbstractReportableStandardTest {
 
 
   @Test
-  public void testPopulateRulesCoverageMap() {
+  public void testNewRulesCoverageMap() {
 
     MisraC2004 m4 = new MisraC2004();
-    assertThat(m4.getRulesCoverage()).isNull();
-    m4.populateRulesCoverageMap();
-    assertThat(m4.getRulesCoverage()).isNotNull();
+    Map<String, CodingStandardRuleCoverage> rulesCoverage = m4.newRulesCoverageMap();
+    assertThat(rulesCoverage).hasSize(m4.getCodingStandardRules().length);
+    assertThat(m4.newRulesCoverageMap()).isNotSameAs(rulesCoverage);
   }
 
 
@@ -56,24 +60,23 @@ public class AbstractReportableStandardTest {
     Rule rule = new Rule("Java");
 
     FindBugs fb = new FindBugs();
-    fb.populateRulesCoverageMap();
+    Map<String, CodingStandardRuleCoverage> rulesCoverage = fb.newRulesCoverageMap();
 
-    fb.setCodingStandardRuleCoverageSpecifiedBy(rule, null);
-    assertThat(fb.getRulesCoverage().get(FB_ID).getSpecifiedBy()).hasSize(0);
+    fb.setCodingStandardRuleCoverageSpecifiedBy(rulesCoverage, rule, null);
+    assertThat(rulesCoverage.get(FB_ID).getSpecifiedBy()).hasSize(0);
 
     List<String> findBugsIds = new ArrayList<>();
-    fb.setCodingStandardRuleCoverageSpecifiedBy(rule, findBugsIds);
-    assertThat(fb.getRulesCoverage().get(FB_ID).getSpecifiedBy()).hasSize(0);
+    fb.setCodingStandardRuleCoverageSpecifiedBy(rulesCoverage, rule, findBugsIds);
+    assertThat(rulesCoverage.get(FB_ID).getSpecifiedBy()).hasSize(0);
 
     findBugsIds.add(BOGUS);
-    fb.setCodingStandardRuleCoverageSpecifiedBy(rule, findBugsIds);
-    assertThat(fb.getRulesCoverage().get(BOGUS)).isNull();
+    fb.setCodingStandardRuleCoverageSpecifiedBy(rulesCoverage, rule, findBugsIds);
+    assertThat(rulesCoverage.get(BOGUS)).isNull();
 
 
     findBugsIds.add(FB_ID);
-    fb.setCodingStandardRuleCoverageSpecifiedBy(rule, findBugsIds);
-    CodingStandardRuleCoverage cov =  fb.getRulesCoverage().get(FB_ID);
-    assertThat(fb.getRulesCoverage().get(FB_ID).getSpecifiedBy().get(0)).isEqualTo(rule);
+    fb.setCodingStandardRuleCoverageSpecifiedBy(rulesCoverage, rule, findBugsIds);
+    assertThat(rulesCoverage.get(FB_ID).getSpecifiedBy().get(0)).isEqualTo(rule);
 
   }
 
@@ -91,22 +94,22 @@ public class AbstractReportableStandardTest {
     Rule rule = new Rule("Java");
 
     FindBugs fb = new FindBugs();
-    fb.populateRulesCoverageMap();
+    Map<String, CodingStandardRuleCoverage> rulesCoverage = fb.newRulesCoverageMap();
 
-    fb.setCodingStandardRuleCoverageImplemented(null, rule);
-    assertThat(fb.getRulesCoverage().get(FB_ID).getImplementedBy()).hasSize(0);
+    fb.setCodingStandardRuleCoverageImplemented(rulesCoverage, null, rule);
+    assertThat(rulesCoverage.get(FB_ID).getImplementedBy()).hasSize(0);
 
     List<String> findBugsIds = new ArrayList<>();
-    fb.setCodingStandardRuleCoverageImplemented(findBugsIds, rule);
-    assertThat(fb.getRulesCoverage().get(FB_ID).getImplementedBy()).hasSize(0);
+    fb.setCodingStandardRuleCoverageImplemented(rulesCoverage, findBugsIds, rule);
+    assertThat(rulesCoverage.get(FB_ID).getImplementedBy()).hasSize(0);
 
     findBugsIds.add(BOGUS);
-    fb.setCodingStandardRuleCoverageImplemented(findBugsIds, rule);
-    assertThat(fb.getRulesCoverage().get(BOGUS)).isNull();
+    fb.setCodingStandardRuleCoverageImplemented(rulesCoverage, findBugsIds, rule);
+    assertThat(rulesCoverage.get(BOGUS)).isNull();
 
     findBugsIds.add(FB_ID);
-    fb.setCodingStandardRuleCoverageImplemented(findBugsIds, rule);
-    assertThat(fb.getRulesCoverage().get(FB_ID).getImplementedBy().get(0)).isEqualTo(rule);
+    fb.setCodingStandardRuleCoverageImplemented(rulesCoverage, findBugsIds, rule);
+    assertThat(rulesCoverage.get(FB_ID).getImplementedBy().get(0)).isEqualTo(rule);
 
   }
 
@@ -122,53 +125,60 @@ public class AbstractReportableStandardTest {
     rules.add(rule);
 
     MisraC2004 misraC2004 = new MisraC2004();
-    misraC2004.populateRulesCoverageMap();
-    misraC2004.findSpecifiedInRspec(rules);
+    Map<String,CodingStandardRuleCoverage> coverageMap = misraC2004.newRulesCoverageMap();
+    misraC2004.findSpecifiedInRspec(coverageMap, rules);
 
-    Map<String,CodingStandardRuleCoverage> coverageMap = misraC2004.getRulesCoverage();
     assertThat(coverageMap.get("1.1").getSpecifiedBy().get(0)).isEqualTo(rule);
     assertThat(coverageMap.get("1.2").getSpecifiedBy().get(0)).isEqualTo(rule);
     assertThat(coverageMap.get("1.3").getSpecifiedBy()).hasSize(0);
   }
 
   @Test
-  public void testCleanRulesCoverageMap(){
+  public void testCoverageIsImmutable(){
     MisraC2004 misraC2004 = new MisraC2004();
-    misraC2004.populateRulesCoverageMap();
+    Map<String, CodingStandardRuleCoverage> rulesCoverage = misraC2004.newRulesCoverageMap();
 
     Rule rule = new Rule("C");
     rule.setKey("key");
-
-    for (CodingStandardRuleCoverage csrc : misraC2004.getRulesCoverage().values()) {
-      csrc.addImplementedBy(rule);
-    }
-
-    misraC2004.cleanRulesCoverageMap();
-    for (CodingStandardRuleCoverage csrc : misraC2004.getRulesCoverage().values()) {
-      assertThat(csrc.getImplementedBy()).isEmpty();
-    }
+    rulesCoverage.get("1.1").addImplementedBy(rule);
+
+    CodingStandardCoverage coverage = new CodingStandardCoverage("instance", Language.C, rulesCoverage);
+    rulesCoverage.get("1.1").addImplementedBy(new Rule("C"));
+    rulesCoverage.remove("1.2");
+
+    assertThat(coverage.getInstance()).isEqualTo("instance");
+    assertThat(coverage.getLanguage()).isEqualTo(Language.C);
+    assertThat(coverage.getRulesCoverage()).hasSize(misraC2004.getCodingStandardRules().length);
+    assertThat(coverage.getRulesCoverage().get("1.1").getImplementedBy()).containsExactly(rule);
+    assertThat(coverage.getImplementedCount()).isEqualTo(1);
+    assertThat(coverage.getSpecifiedCount()).isEqualTo(0);
+
+    assertThatThrownBy(() -> coverage.getRulesCoverage().get("1.1").addImplementedBy(rule))
+      .isInstanceOf(UnsupportedOperationException.class);
+    assertThatThrownBy(() -> coverage.getRulesCoverage().clear())
+      .isInstanceOf(UnsupportedOperationException.class);
   }
 
   @Test
-  public void testNullRulesCoverageMap(){
-    FindBugs fb = new FindBugs();
-
-    assertThat(fb.getRulesCoverage()).isNull();
-
-    Rule rule = new Rule("Java");
-    List<String> ids = new ArrayList<>();
-    ids.add("ASDF");
-
-    fb.setCodingStandardRuleCoverageImplemented(ids, rule);
-    assertThat(fb.getRulesCoverage()).isNotNull();
-
-
-    fb.resetRulesCoverageMap();
-    assertThat(fb.getRulesCoverage()).isNull();
-
-    fb.setCodingStandardRuleCoverageSpecifiedBy(rule, ids);
-    assertThat(fb.getRulesCoverage()).isNotNull();
-
+  public void testCoverageIsComputedForEachCall(){
+    AtomicInteger computations = new AtomicInteger();
+    FindBugs fb = new FindBugs() {
+      @Override
+      protected CodingStandardCoverage computeCoverage(String instance, Language language) {
+        computations.incrementAndGet();
+        return new CodingStandardCoverage(instance, language, newRulesCoverageMap());
+      }
+    };
+
+    CodingStandardCoverage coverage = fb.getCoverage("instance");
+    assertThat(coverage.getInstance()).isEqualTo("instance");
+    assertThat(coverage.getLanguage()).isEqualTo(Language.JAVA);
+    assertThat(fb.getCoverage("instance", Language.JAVA)).isNotSameAs(coverage);
+
+    assertThat(fb.getCoverage("other").getInstance()).isEqualTo("other");
+    assertThat(fb.getCoverage(null).getInstance()).isNull();
+    assertThat(fb.getCoverage("instance", null).getLanguage()).isNull();
+    assertThat(computations.get()).isEqualTo(5);
   }
 
 }
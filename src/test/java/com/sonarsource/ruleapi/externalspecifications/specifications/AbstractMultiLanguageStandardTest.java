@@ -38,6 +38,8 @@ public class AbstractMultiLanguageStandardTest extends TestCase {
   public void getBadgeValue(){
 
     assertThat(cwe.getBadgeValue(null)).isEqualTo("");
+    assertThat(cwe.getBadgeValue(null, Language.JAVA)).isEqualTo("");
+    assertThat(cwe.getBadgeValue(RuleManager.SONARQUBE_COM, null)).isEqualTo("");
   }
 
 
@@ -51,20 +53,17 @@ public class AbstractMultiLanguageStandardTest extends TestCase {
   }
 
   @Test
-  public void testInitCoverage() throws Exception {
+  public void testLanguageNeutral() {
 
-    cwe.initCoverageResults(null);
-
-    assertThat(cwe.getRulesCoverage()).isNull();
+    assertThat(cwe.getLanguage()).isNull();
+    assertThat(new Cert().getLanguage()).isNull();
+    assertThat(new OwaspTopTen().getLanguage()).isNull();
   }
 
   @Test
-  public void testSetLanguage() {
-    cwe.setLanguage(null);
-    assertThat(cwe.getLanguage()).isNull();
+  public void testGetHtmlLanguageReportUnsupportedLanguage() {
 
-    cwe.setLanguage(Language.JAVA);
-    assertThat(cwe.getLanguage()).isEqualTo(Language.JAVA);
+    assertThat(new Cert().getHtmlLanguageReport(RuleManager.SONARQUBE_COM, Language.PY)).isNull();
   }
 
   @Test
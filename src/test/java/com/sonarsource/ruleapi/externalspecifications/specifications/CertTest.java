@@ -5,6 +5,7 @@
  */
 package com.sonarsource.ruleapi.externalspecifications.specifications;
 
+import com.sonarsource.ruleapi.domain.CodingStandardCoverage;
 import com.sonarsource.ruleapi.domain.CodingStandardRuleCoverage;
 import com.sonarsource.ruleapi.domain.Rule;
 import com.sonarsource.ruleapi.services.RuleManager;
@@ -17,6 +18,7 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -72,36 +74,35 @@ public class CertTest {
     Cert.CertRule certRule2 = new Cert.CertRule("MSC01-C.", "Miscellaney", "http://misc.com", new ArrayList<String>());
     Cert.CertRule[] certRules = {certRule, certRule2};
 
-    freshCert.populateRulesCoverageMap();
+    Map<String, CodingStandardRuleCoverage> rulesCoverage = freshCert.newRulesCoverageMap();
 
     CodingStandardRuleCoverage csrc = new CodingStandardRuleCoverage();
     csrc.setCodingStandardRuleId("PRE30-C.");
-    freshCert.getRulesCoverage().put("PRE30-C.", csrc);
+    rulesCoverage.put("PRE30-C.", csrc);
 
     csrc = new CodingStandardRuleCoverage();
     csrc.setCodingStandardRuleId("MSC01-C.");
-    freshCert.getRulesCoverage().put("MSC01-C.", csrc);
+    rulesCoverage.put("MSC01-C.", csrc);
 
     Rule rule = new Rule("");
     rule.setKey("ruleKey");
     rule.getCert().add("PRE30-C.");
     rule.setTitle("Rule for PRE30-C.");
-    freshCert.setCodingStandardRuleCoverageImplemented(rule.getCert(), rule);
+    freshCert.setCodingStandardRuleCoverageImplemented(rulesCoverage, rule.getCert(), rule);
 
     Rule rule2 = new Rule("");
     rule2.setKey("rule2");
     rule2.getCert().add("MSC01-C.");
     rule2.setTitle("Rule for MSC01-C.");
-    freshCert.setCodingStandardRuleCoverageSpecifiedBy(rule2, rule2.getCert());
+    freshCert.setCodingStandardRuleCoverageSpecifiedBy(rulesCoverage, rule2, rule2.getCert());
 
 
-    assertThat(freshCert.generateReport(RuleManager.SONARQUBE_COM)).isNull();
-    assertThat(freshCert.getReportBody(RuleManager.SONARQUBE_COM, certRules)).isNull();
+    CodingStandardCoverage languageNeutral = new CodingStandardCoverage(RuleManager.SONARQUBE_COM, null, rulesCoverage);
+    assertThat(freshCert.generateReport(languageNeutral)).isNull();
+    assertThat(freshCert.getReportBody(languageNeutral, certRules)).isNull();
 
-
-    freshCert.setLanguage(Language.C);
-
-    String result = freshCert.getReportBody(RuleManager.SONARQUBE_COM, certRules);
+    CodingStandardCoverage coverage = new CodingStandardCoverage(RuleManager.SONARQUBE_COM, Language.C, rulesCoverage);
+    String result = freshCert.getReportBody(coverage, certRules);
     assertThat(result).contains(rule.getTitle()).doesNotContain(rule2.getTitle());
     assertThat(result).contains(Utilities.getFormattedDateString());
   }
@@ -115,12 +116,18 @@ public class CertTest {
     ids.add("ASD01-J.");
     ids.add("ASD02-J.");
 
-    freshCert.setCodingStandardRuleCoverageImplemented(ids, rule);
+    Map<String, CodingStandardRuleCoverage> rulesCoverage = freshCert.newRulesCoverageMap();
+    freshCert.setCodingStandardRuleCoverageImplemented(rulesCoverage, ids, rule);
 
-    String result = freshCert.generateReport(RuleManager.SONARQUBE_COM);
+    String result = freshCert.generateReport(new CodingStandardCoverage(RuleManager.SONARQUBE_COM, null, rulesCoverage));
     assertThat(result).isNull();
   }
 
+  @Test
+  public void testHasNoInternalReports() {
+    assertThat(new Cert().hasInternalReports()).isFalse();
+  }
+
   @Test
   public void testGetCodingStandardRules(){
     Cert freshCert = new Cert();
@@ -130,19 +137,12 @@ public class CertTest {
 
   @Test
   public void testLanguageSetting(){
-    Cert freshCert = new Cert();
-    freshCert.setLanguage(Language.ABAP);
-
-    assertThat(freshCert.getLanguage()).isNull();
-
-    freshCert.setLanguage(Language.CPP);
-    assertThat(freshCert.getLanguage()).isEqualTo(Language.CPP);
-
-    freshCert.setLanguage(Language.JAVA);
-    assertThat(freshCert.getLanguage()).isEqualTo(Language.JAVA);
+    assertThat(Cert.getCertType(null)).isNull();
+    assertThat(Cert.getCertType(Language.ABAP)).isNull();
 
-    freshCert.setLanguage(Language.C);
-    assertThat(freshCert.getLanguage()).isEqualTo(Language.C);
+    assertThat(Cert.getCertType(Language.CPP).getLanguage()).isEqualTo(Language.CPP);
+    assertThat(Cert.getCertType(Language.JAVA).getLanguage()).isEqualTo(Language.JAVA);
+    assertThat(Cert.getCertType(Language.C).getLanguage()).isEqualTo(Language.C);
 
   }
 
@@ -5,6 +5,7 @@
  */
 package com.sonarsource.ruleapi.externalspecifications.specifications;
 
+import com.sonarsource.ruleapi.domain.CodingStandardCoverage;
 import com.sonarsource.ruleapi.domain.CodingStandardRuleCoverage;
 import com.sonarsource.ruleapi.domain.Rule;
 import com.sonarsource.ruleapi.services.IntegrityEnforcementService;
@@ -14,7 +15,9 @@ import com.sonarsource.ruleapi.utilities.Utilities;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static com.sonarsource.ruleapi.externalspecifications.Implementability.IMPLEMENTABLE;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -62,17 +65,15 @@ public class CweTest {
   public void testSetCodingStandardRuleCoverageImplementedBy(){
 
     Cwe cwe1 = new Cwe();
-    cwe1.setLanguage(Language.JAVA);
-
-    assertThat(cwe.getRulesCoverage()).isNull();
+    Map<String, CodingStandardRuleCoverage> rulesCoverage = new HashMap<>();
 
     Rule sq2 = new Rule("Java");
     sq2.getCwe().add("CWE-123");
     sq2.getCwe().add("CWE-234");
 
-    cwe1.setCodingStandardRuleCoverageImplemented(sq2.getCwe(), sq2);
+    cwe1.setCodingStandardRuleCoverageImplemented(rulesCoverage, sq2.getCwe(), sq2);
 
-    assertThat(cwe1.getRulesCoverage().get("CWE-123").getImplementedBy().get(0)).isEqualTo(sq2);
+    assertThat(rulesCoverage.get("CWE-123").getImplementedBy().get(0)).isEqualTo(sq2);
 
   }
 
@@ -80,17 +81,15 @@ public class CweTest {
   public void testSetCodingStandardRuleCoverageSpecifiedBy(){
 
     Cwe cwe1 = new Cwe();
-    cwe1.setLanguage(Language.JAVA);
-
-    assertThat(cwe.getRulesCoverage()).isNull();
+    Map<String, CodingStandardRuleCoverage> rulesCoverage = cwe1.newRulesCoverageMap();
 
     Rule sq2 = new Rule("Java");
     sq2.getCwe().add("CWE-123");
     sq2.getCwe().add("CWE-234");
 
-    cwe1.setCodingStandardRuleCoverageSpecifiedBy(sq2, sq2.getCwe());
+    cwe1.setCodingStandardRuleCoverageSpecifiedBy(rulesCoverage, sq2, sq2.getCwe());
 
-    assertThat(cwe1.getRulesCoverage().get("CWE-123").getSpecifiedBy().get(0)).isEqualTo(sq2);
+    assertThat(rulesCoverage.get("CWE-123").getSpecifiedBy().get(0)).isEqualTo(sq2);
 
   }
 
@@ -100,6 +99,12 @@ public class CweTest {
     assertThat(cwe1.getReport(RuleManager.SONARQUBE_COM)).isNull();
   }
 
+  @Test
+  public void testHasNoInternalReports(){
+    assertThat(new Cwe().hasInternalReports()).isFalse();
+    assertThat(new OwaspTopTen().hasInternalReports()).isTrue();
+  }
+
 
   @Test
   public void testGetReport(){
@@ -113,30 +118,21 @@ public class CweTest {
     sq2.getCwe().add("CWE-234");
     sq2.setKey("NonNormalKey");
 
-    assertThat(cwe1.generateReport(instance)).isNull();
-
-    cwe1.setLanguage(Language.ABAP);
-
-    assertThat(cwe1.generateReport(instance)).isNull();
-
-    cwe1.setLanguage(null);
-    cwe1.populateRulesCoverageMap();
+    Map<String, CodingStandardRuleCoverage> rulesCoverage = cwe1.newRulesCoverageMap();
 
     CodingStandardRuleCoverage csrc = new CodingStandardRuleCoverage();
     csrc.setCodingStandardRuleId("CWE-123");
-    cwe1.getRulesCoverage().put("CWE-123", csrc);
+    rulesCoverage.put("CWE-123", csrc);
 
     csrc = new CodingStandardRuleCoverage();
     csrc.setCodingStandardRuleId("CWE-234");
-    cwe1.getRulesCoverage().put("CWE-234", csrc);
-
-    cwe1.setCodingStandardRuleCoverageImplemented(sq2.getCwe(), sq2);
+    rulesCoverage.put("CWE-234", csrc);
 
-    assertThat(cwe1.generateReport(instance)).isNull();
+    cwe1.setCodingStandardRuleCoverageImplemented(rulesCoverage, sq2.getCwe(), sq2);
 
-    cwe1.setLanguage(Language.ABAP);
+    assertThat(cwe1.generateReport(new CodingStandardCoverage(instance, null, rulesCoverage))).isNull();
 
-    String report = cwe1.generateReport(instance);
+    String report = cwe1.generateReport(new CodingStandardCoverage(instance, Language.ABAP, rulesCoverage));
     assertThat(report).contains(sq2.getTitle());
     assertThat(report).contains(Utilities.getFormattedDateString());
 
@@ -5,6 +5,8 @@
  */
 package com.sonarsource.ruleapi.externalspecifications.specifications;
 
+import com.sonarsource.ruleapi.domain.CodingStandardCoverage;
+import com.sonarsource.ruleapi.domain.CodingStandardRuleCoverage;
 import com.sonarsource.ruleapi.domain.Rule;
 import com.sonarsource.ruleapi.externalspecifications.TaggableStandard;
 import com.sonarsource.ruleapi.services.IntegrityEnforcementService;
@@ -68,7 +70,7 @@ public class OwaspTest {
   @Test
   public void testReports() {
     OwaspTopTen owasp = new OwaspTopTen();
-    owasp.populateRulesCoverageMap();
+    CodingStandardCoverage coverage = new CodingStandardCoverage(null, null, owasp.newRulesCoverageMap());
     String linebreak = String.format("%n");
 
     String expectedSummaryReport = "OWASP Top Ten" + linebreak +
@@ -83,7 +85,7 @@ public class OwaspTest {
             "A9\tSpecified: 0" + linebreak +
             "A10\tSpecified: 0" + linebreak;
 
-    assertThat(owasp.getSummaryReport("")).isEqualTo(expectedSummaryReport);
+    assertThat(owasp.getSummaryReport(coverage)).isEqualTo(expectedSummaryReport);
 
     String expectedReport = "OWASP Top Ten" + linebreak +
             "A1 - Injection" + linebreak +
@@ -117,7 +119,7 @@ public class OwaspTest {
             "\tSpecifying:   " + linebreak +
             linebreak;
 
-    assertThat(owasp.getReport("")).isEqualTo(expectedReport);
+    assertThat(owasp.getReport(coverage)).isEqualTo(expectedReport);
 
   }
 
@@ -170,27 +172,17 @@ public class OwaspTest {
     String instance = "http://localhost:9000";
 
     OwaspTopTen owasp = new OwaspTopTen();
-    Map<String, List<Rule>> standardRules = new TreeMap<>();
-
     Rule rule = new Rule("");
     List<String> list = owasp.getRspecReferenceFieldValues(rule);
     list.add("A1");
     list.add("A2");
 
-    assertThat(owasp.generateReport(instance)).isNull();
-
-    owasp.setLanguage(Language.C);
-    assertThat(owasp.generateReport(instance)).isNull();
-
-    owasp.setLanguage(null);
-    owasp.setCodingStandardRuleCoverageImplemented(list, rule);
-
-    assertThat(owasp.generateReport(instance)).isNull();
+    Map<String, CodingStandardRuleCoverage> rulesCoverage = owasp.newRulesCoverageMap();
+    owasp.setCodingStandardRuleCoverageImplemented(rulesCoverage, list, rule);
 
-    owasp.setLanguage(Language.C);
-    owasp.setCodingStandardRuleCoverageImplemented(list, rule);
+    assertThat(owasp.generateReport(new CodingStandardCoverage(instance, null, rulesCoverage))).isNull();
 
-    String report = owasp.generateReport(instance);
+    String report = owasp.generateReport(new CodingStandardCoverage(instance, Language.C, rulesCoverage));
 
     assertThat(report).isNotNull();
     assertThat(report).contains("https://www.owasp.org/index.php/Top_10-2017-A1-Injection");
@@ -199,19 +191,14 @@ public class OwaspTest {
   }
 
   @Test
-  public void testSetLanguageResetsRulesCoverageMap() {
+  public void testReportHeaderNamesTheLanguage() {
     OwaspTopTen owasp = new OwaspTopTen();
-    assertThat(owasp.getRulesCoverage()).isNull();
-
-    owasp.setLanguage(Language.ABAP);
-    assertThat(owasp.getRulesCoverage()).isNull();
-
-    owasp.populateRulesCoverageMap();
-    assertThat(owasp.getRulesCoverage()).isNotNull();
-
-    owasp.setLanguage(Language.JAVA);
-    assertThat(owasp.getRulesCoverage()).isNull();
+    Map<String, CodingStandardRuleCoverage> rulesCoverage = owasp.newRulesCoverageMap();
 
+    assertThat(owasp.getSummaryReport(new CodingStandardCoverage(null, Language.ABAP, rulesCoverage)))
+      .startsWith("OWASP Top Ten for ABAP");
+    assertThat(owasp.getSummaryReport(new CodingStandardCoverage(null, Language.JAVA, rulesCoverage)))
+      .startsWith("OWASP Top Ten for Java");
   }
 
 }
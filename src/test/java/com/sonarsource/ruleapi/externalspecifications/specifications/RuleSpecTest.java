@@ -5,7 +5,7 @@
  */
 package com.sonarsource.ruleapi.externalspecifications.specifications;
 
-import com.sonarsource.ruleapi.domain.Rule;
+import com.sonarsource.ruleapi.domain.RuleSummary;
 import com.sonarsource.ruleapi.utilities.Language;
 import com.sonarsource.ruleapi.utilities.Utilities;
 import org.junit.Test;
@@ -18,8 +18,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 public class RuleSpecTest {
 
-  private Rule getRuleWithEachLanguageType(){
-    Rule rule = new Rule("");
+  private RuleSummary getRuleWithEachLanguageType(){
+    RuleSummary rule = new RuleSummary();
     rule.setKey("S1234");
     rule.setTitle("Don't do bad things");
     Set<String> covered = rule.getCoveredLanguages();
@@ -44,15 +44,15 @@ public class RuleSpecTest {
     return rule;
   }
 
-  private Rule getEmptyRule() {
+  private RuleSummary getEmptyRule() {
 
-    return new Rule("");
+    return new RuleSummary();
   }
 
   @Test
   public void getMissing(){
 
-    Rule rule = getRuleWithEachLanguageType();
+    RuleSummary rule = getRuleWithEachLanguageType();
     List<Language> strong = new ArrayList<>();
     List<Language> weak = new ArrayList<>();
     List<Language> legacy = new ArrayList<>();
@@ -73,7 +73,7 @@ public class RuleSpecTest {
 
   @Test
   public void getIrrelevantLanguageList() {
-    Rule rule = getRuleWithEachLanguageType();
+    RuleSummary rule = getRuleWithEachLanguageType();
     assertThat(RuleSpec.getIrrelevantLanguageList(rule)).hasSize(1).contains(Language.FLEX);
 
     rule = getEmptyRule();
@@ -83,7 +83,7 @@ public class RuleSpecTest {
   @Test
   public void populateLanguageLists(){
 
-    Rule rule = getRuleWithEachLanguageType();
+    RuleSummary rule = getRuleWithEachLanguageType();
 
     List<Language> strong = new ArrayList<>();
     List<Language> weak = new ArrayList<>();
@@ -111,12 +111,12 @@ public class RuleSpecTest {
   @Test
   public void getRuleTable(){
 
-    List<Rule> rules = new ArrayList<>();
+    List<RuleSummary> rules = new ArrayList<>();
 
     RuleSpec ruleSpec = new RuleSpec();
     assertThat(ruleSpec.getRuleTable(rules)).contains("<h2>").contains("</h2>").contains("<table>").contains("</table>");
 
-    Rule rule = getRuleWithEachLanguageType();
+    RuleSummary rule = getRuleWithEachLanguageType();
     rules.add(rule);
     ruleSpec = new RuleSpec();
     String table = ruleSpec.getRuleTable(rules);
@@ -127,7 +127,7 @@ public class RuleSpecTest {
   @Test
   public void buildRuleRow(){
 
-    Rule rule = new Rule("");
+    RuleSummary rule = new RuleSummary();
     rule.setKey("S1212");
     rule.setTitle("This is my rule");
     Set<String> covered = rule.getCoveredLanguages();
@@ -27,6 +27,8 @@ public class RulesInLanguageTest {
     RulesInLanguage report = new RulesInLanguage();
 
     assertThat(report.getBadgeValue(null)).isEqualTo("");
+    assertThat(report.getBadgeValue(null, Language.JAVA)).isEqualTo("");
+    assertThat(report.getBadgeValue(RuleManager.SONARQUBE_COM, null)).isEqualTo("");
   }
 
   @Test
@@ -55,8 +57,6 @@ public class RulesInLanguageTest {
 
   @Test
   public void generateReport(){
-    ril.setLanguage(Language.JAVA);
-
     List<Rule> rules = new ArrayList<>();
     Rule rule = new Rule("Java");
     rule.setTitle("Rule1");
@@ -65,7 +65,7 @@ public class RulesInLanguageTest {
     rule.setSeverity(Rule.Severity.MAJOR);
     rules.add(rule);
 
-    String report = ril.generateReport(RuleManager.SONARQUBE_COM, rules);
+    String report = ril.generateReport(RuleManager.SONARQUBE_COM, Language.JAVA, rules);
     assertThat(report).contains(rule.getTitle());
     assertThat(report).contains(Utilities.getFormattedDateString());
   }
@@ -117,6 +117,11 @@ public class RulesInLanguageTest {
 
     assertThat(ril.getRuleRow(rule, RuleManager.SONARQUBE_COM, "")).isEqualTo(expectedHtml);
 
+    rule.getTags().add("bug");
+    rule.getTags().add("cwe");
+    assertThat(ril.getRuleRow(rule, RuleManager.SONARQUBE_COM, "")).contains("<td>cwe</td>").doesNotContain("bug");
+    assertThat(rule.getTags()).containsOnly("bug", "cwe");
+
   }
 
 }
@@ -5,6 +5,7 @@
  */
 package com.sonarsource.ruleapi.externalspecifications.specifications;
 
+import com.sonarsource.ruleapi.domain.CodingStandardCoverage;
 import com.sonarsource.ruleapi.domain.CodingStandardRuleCoverage;
 import com.sonarsource.ruleapi.domain.Rule;
 import com.sonarsource.ruleapi.utilities.Language;
@@ -12,6 +13,7 @@ import com.sonarsource.ruleapi.utilities.Utilities;
 import org.junit.Test;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -24,9 +26,7 @@ public class SansTop25Test {
   @Test
   public void testSummaryReport(){
     SansTop25 sans = new SansTop25();
-
-    sans.populateRulesCoverageMap();
-    sans.computeCoverage();
+    CodingStandardCoverage coverage = new CodingStandardCoverage("", null, sans.newRulesCoverageMap());
 
     String newline = String.format("%n");
     String expectedSummaryReport = newline +
@@ -35,11 +35,11 @@ public class SansTop25Test {
             "Porous Defenses                         11, unimplementable:  2  specified:  0,  implemented:  0" + newline +
             "Risky Resource Management                8, unimplementable:  1  specified:  0,  implemented:  0" + newline +
             "Total                                   25, unimplementable:  3  specified:  0,  implemented:  0" + newline;
-    String summaryReport = sans.getSummaryReport("");
+    String summaryReport = sans.getSummaryReport(coverage);
 
     assertThat(summaryReport).isEqualTo(expectedSummaryReport);
 
-    String report = sans.getReport("");
+    String report = sans.getReport(coverage);
     assertThat(report).contains(expectedSummaryReport);
     assertThat(report).contains("CWE-352");
   }
@@ -47,15 +47,13 @@ public class SansTop25Test {
   @Test
   public void testComputeCoverageRulesFound() {
     SansTop25 sans = new SansTop25();
-
-    sans.populateRulesCoverageMap();
+    Map<String, CodingStandardRuleCoverage> rulesCoverage = sans.newRulesCoverageMap();
 
     Rule rule = new Rule("");
 
-    CodingStandardRuleCoverage cov = sans.getRulesCoverage().get("CWE-829");
+    CodingStandardRuleCoverage cov = rulesCoverage.get("CWE-829");
     cov.addSpecifiedBy(rule);
     cov.addImplementedBy(rule);
-    sans.computeCoverage();
 
 
     String newline = String.format("%n");
@@ -66,9 +64,11 @@ public class SansTop25Test {
             "Risky Resource Management                8, unimplementable:  1  specified:  1,  implemented:  1" + newline +
             "Total                                   25, unimplementable:  3  specified:  1,  implemented:  1" + newline;
     String summaryReport = "";
-    summaryReport = sans.getSummaryReport("");
+    summaryReport = sans.getSummaryReport(new CodingStandardCoverage("", null, rulesCoverage));
 
     assertThat(summaryReport).isEqualTo(expectedSummaryReport);
+    assertThat(sans.getSummaryReport(new CodingStandardCoverage("", null, sans.newRulesCoverageMap())))
+      .contains("Total                                   25, unimplementable:  3  specified:  0,  implemented:  0");
 
   }
 
@@ -90,8 +90,7 @@ public class SansTop25Test {
   @Test
   public void testGetSpecifiedByString() {
     SansTop25 sans = new SansTop25();
-
-    sans.populateRulesCoverageMap();
+    Map<String, CodingStandardRuleCoverage> rulesCoverage = sans.newRulesCoverageMap();
 
     Rule rule = new Rule("Java");
     rule.setKey("RSPEC-1234");
@@ -108,7 +107,7 @@ public class SansTop25Test {
     rule2.setKey("RSPEC-2345");
     rule2.getTargetedLanguages().add("ABAP");
 
-    CodingStandardRuleCoverage cov = sans.getRulesCoverage().get("CWE-829");
+    CodingStandardRuleCoverage cov = rulesCoverage.get("CWE-829");
     cov.addSpecifiedBy(rule);
     cov.addSpecifiedBy(rule2);
 
@@ -120,8 +119,7 @@ public class SansTop25Test {
   @Test
   public void testGetCoveredByString() {
     SansTop25 sans = new SansTop25();
-
-    sans.populateRulesCoverageMap();
+    Map<String, CodingStandardRuleCoverage> rulesCoverage = sans.newRulesCoverageMap();
 
     Rule rule = new Rule("Java");
     rule.setKey("RSPEC-1234");
@@ -138,7 +136,7 @@ public class SansTop25Test {
     rule2.setKey("RSPEC-2345");
     rule2.getTargetedLanguages().add("ABAP");
 
-    CodingStandardRuleCoverage cov = sans.getRulesCoverage().get("CWE-829");
+    CodingStandardRuleCoverage cov = rulesCoverage.get("CWE-829");
     cov.addImplementedBy(rule);
     cov.addImplementedBy(rule2);
 
@@ -162,20 +160,12 @@ public class SansTop25Test {
     list.add("89");
 
 
-    assertThat(sans.generateReport(instance)).isNull();
-
-    sans.setLanguage(Language.C);
-    assertThat(sans.generateReport(instance)).isNull();
-
-    sans.populateRulesCoverageMap();
-    sans.setLanguage(null);
-
-    assertThat(sans.generateReport(instance)).isNull();
+    Map<String, CodingStandardRuleCoverage> rulesCoverage = sans.newRulesCoverageMap();
+    sans.setCodingStandardRuleCoverageImplemented(rulesCoverage, list, rule);
 
-    sans.setCodingStandardRuleCoverageImplemented(list, rule);
+    assertThat(sans.generateReport(new CodingStandardCoverage(instance, null, rulesCoverage))).isNull();
 
-    sans.setLanguage(Language.C);
-    String report = sans.generateReport(instance);
+    String report = sans.generateReport(new CodingStandardCoverage(instance, Language.C, rulesCoverage));
 
     assertThat(report).isNotNull();
     assertThat(report).contains("http://www.sans.org/top25-software-errors/");
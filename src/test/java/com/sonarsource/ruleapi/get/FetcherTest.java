@@ -6,10 +6,10 @@
 package com.sonarsource.ruleapi.get;
 
 import com.sonarsource.ruleapi.domain.RuleException;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.junit.Assert;
 import org.junit.Test;
 
-import javax.ws.rs.client.Client;
 import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.GenericType;
 import javax.ws.rs.core.Link;
@@ -31,19 +31,31 @@ public class FetcherTest {
   @Test
   public void testGetClient() {
 
-    assertThat(Fetcher.getClient(null, null)).isNotNull();
-    assertThat(Fetcher.getClient("yellow", "red")).isNotNull();
-    assertThat(Fetcher.getClient("yellow", null)).isNotNull();
-    assertThat(Fetcher.getClient(null, "red")).isNotNull();
+    assertThat(Fetcher.getClient()).isNotNull();
+    assertThat(Fetcher.getClient()).isSameAs(Fetcher.getClient());
+  }
+
+  @Test
+  public void testCredentialedClientIsSeparate() {
+
+    assertThat(Fetcher.getCredentialedClient()).isSameAs(Fetcher.getCredentialedClient());
+    assertThat(Fetcher.getCredentialedClient()).isNotSameAs(Fetcher.getClient());
+    assertThat(Fetcher.getClient().getHostnameVerifier()).isSameAs(SSLConnectionSocketFactory.BROWSER_COMPATIBLE_HOSTNAME_VERIFIER);
+    assertThat(Fetcher.getCredentialedClient().getHostnameVerifier()).isSameAs(SSLConnectionSocketFactory.BROWSER_COMPATIBLE_HOSTNAME_VERIFIER);
+  }
+
+  @Test
+  public void testBasicAuthorization() {
+
+    assertThat(Fetcher.basicAuthorization("yellow", "red")).isEqualTo("Basic eWVsbG93OnJlZA==");
   }
 
   @Test(expected=RuleException.class)
   public void testCheckStatusValueLow(){
 
     Response response = new TestResponse();
-    Client client = Fetcher.getClient(null, null);
 
-    Fetcher.checkStatus("", client, response);
+    Fetcher.checkStatus("", response);
   }
 
   @Test(expected=RuleException.class)
@@ -51,9 +63,8 @@ public class FetcherTest {
 
     TestResponse response = new TestResponse();
     response.setStatus(500);
-    Client client = Fetcher.getClient(null, null);
 
-    Fetcher.checkStatus("", client, response);
+    Fetcher.checkStatus("", response);
   }
 
   @Test
@@ -61,10 +72,9 @@ public class FetcherTest {
 
     TestResponse response = new TestResponse();
     response.setStatus(200);
-    Client client = Fetcher.getClient(null, null);
 
     try {
-      Fetcher.checkStatus("", client, response);
+      Fetcher.checkStatus("", response);
     } catch (Exception e) {
       Assert.fail();
     }
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2014-2018 SonarSource SA
+ * All rights reserved
+ * mailto:info AT sonarsource DOT com
+ */
+package com.sonarsource.ruleapi.get;
+
+import com.sonarsource.ruleapi.domain.Rule;
+import com.sonarsource.ruleapi.externalspecifications.CodingStandard;
+import com.sonarsource.ruleapi.externalspecifications.SupportedStandard;
+import org.apache.commons.io.IOUtils;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IssueCompactorTest {
+
+  @Test
+  public void shouldKeepWhatRulesAreMadeOf() throws Exception {
+
+    for (String resource : Arrays.asList("RSPEC-2576.json", "RSPEC-2576-with-SANS.json", "RSPEC-2583.json")) {
+      JSONObject issue = read(resource);
+      Rule expected = new Rule("Java");
+      JiraHelper.populateFields(expected, issue);
+      Rule actual = new Rule("Java");
+      JiraHelper.populateFields(actual, IssueCompactor.compact(read(resource)));
+
+      assertThat(actual).as(resource).isEqualToComparingFieldByField(expected);
+    }
+  }
+
+  @Test
+  public void shouldDropWhatIsNotRead() throws Exception {
+
+    JSONObject issue = IssueCompactor.compact(read("RSPEC-2576.json"));
+    assertThat(issue).containsOnlyKeys("key", "names", "fields");
+
+    JSONObject fields = (JSONObject) issue.get("fields");
+    assertThat(fields).doesNotContainKeys("created", "updated", "workratio", "lastViewed");
+    assertThat(fields.values()).doesNotContainNull();
+    assertThat((Map<String, Object>) fields.get("status")).containsOnlyKeys("name");
+    assertThat((Map<String, Object>) fields.get(JiraHelper.getCustomFieldKey(issue, "Default Severity"))).containsOnlyKeys("value");
+
+    JSONObject link = (JSONObject) ((JSONArray) fields.get("issuelinks")).get(0);
+    assertThat(link).containsKey("type").doesNotContainKey("id");
+    assertThat((Map<String, Object>) link.get("type")).containsOnlyKeys("name", "inward", "outward");
+
+    JSONObject subtask = (JSONObject) ((JSONArray) fields.get("subtasks")).get(0);
+    assertThat(subtask).containsOnlyKeys("key", "fields");
+    assertThat((Map<String, Object>) subtask.get("fields")).containsOnlyKeys("summary");
+
+    assertThat(((JSONObject) issue.get("names")).values()).containsOnlyElementsOf(IssueCompactor.CUSTOM_FIELDS);
+    assertThat(JiraHelper.getCustomFieldKey(issue, "Rank")).isNull();
+  }
+
+  @Test
+  public void shouldKeepTheReferenceFieldOfEveryStandard() {
+
+    for (SupportedStandard supportedStandard : SupportedStandard.values()) {
+      if (supportedStandard.getStandard() instanceof CodingStandard) {
+        String fieldName = ((CodingStandard) supportedStandard.getStandard()).getRSpecReferenceFieldName();
+        JSONObject issue = IssueCompactor.compact(JsonFixtures.issue("RSPEC-1", JsonFixtures.names("customfield_1", fieldName),
+          "customfield_1", "REF-1"));
+
+        assertThat(JiraHelper.getCustomFieldValue(issue, fieldName)).as(fieldName).isEqualTo("REF-1");
+      }
+    }
+    // the reference fields read by JiraHelper
+    assertThat(IssueCompactor.CUSTOM_FIELDS).contains("CWE", "CERT", "OWASP", "SANS Top 25", "MISRA C 2004", "MISRA C 2012",
+      "MISRA C++ 2008", "FindBugs", "FindSecBugs", "PMD", "Checkstyle", "ESLint", "ReSharper", "CPPCheck", "Pylint", "FxCop",
+      "PC-Lint", "SwiftLint");
+  }
+
+  @Test
+  public void shouldShareNamesAndStrings() throws Exception {
+
+    JSONObject page = read("search.json");
+    JSONObject names = (JSONObject) page.get("names");
+    JSONObject first = (JSONObject) ((JSONArray) page.get("issues")).get(0);
+    first.put("names", names);
+    JSONObject second = (JSONObject) new JSONParser().parse(first.toJSONString());
+    second.put("names", names);
+
+    List<JSONObject> issues = IssueCompactor.compact(Arrays.asList(first, second));
+
+    assertThat(issues.get(0).get("names")).isSameAs(issues.get(1).get("names"));
+    assertThat(JiraHelper.getJsonFieldValue(issues.get(0), "status")).isSameAs(JiraHelper.getJsonFieldValue(issues.get(1), "status"));
+    assertThat(issues.get(0).get("key")).isSameAs(issues.get(1).get("key"));
+  }
+
+  @Test
+  public void shouldAcceptNull() {
+    assertThat(IssueCompactor.compact((JSONObject) null)).isNull();
+  }
+
+  private JSONObject read(String resource) throws Exception {
+    String json = IOUtils.toString(getClass().getResourceAsStream("/rspec-json/" + resource), StandardCharsets.UTF_8);
+    return (JSONObject) new JSONParser().parse(json);
+  }
+}
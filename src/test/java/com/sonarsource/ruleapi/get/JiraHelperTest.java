@@ -15,7 +15,11 @@ import org.junit.Test;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -324,22 +328,21 @@ public class JiraHelperTest {
     Rule rule = new Rule("Java");
     rule.setStatus(Rule.Status.DEPRECATED);
 
-    List<Rule> implementedReplacements = new ArrayList<>();
+    Map<String, Set<String>> implementedReplacements = new HashMap<>();
 
     JiraHelper.validateRuleDeprecation(rule, implementedReplacements);
     assertThat(rule.getStatus()).isEqualTo(Rule.Status.DEPRECATED);
 
 
-    Rule r2 = new Rule("Java");
-    r2.getCoveredLanguages().add("C");
-    r2.setKey("RSPEC-9999");
-    implementedReplacements.add(r2);
+    Set<String> r2CoveredLanguages = new HashSet<>();
+    r2CoveredLanguages.add("C");
+    implementedReplacements.put("RSPEC-9999", r2CoveredLanguages);
     rule.setStatus(Rule.Status.DEPRECATED);
 
     JiraHelper.validateRuleDeprecation(rule, implementedReplacements);
     assertThat(rule.getStatus()).isEqualTo(Rule.Status.READY);
 
-    r2.getCoveredLanguages().add("Java");
+    r2CoveredLanguages.add("Java");
     rule.setStatus(Rule.Status.DEPRECATED);
 
     JiraHelper.validateRuleDeprecation(rule, implementedReplacements);
@@ -407,4 +410,24 @@ public class JiraHelperTest {
     assertThat(rule.getAskYourself()).isNotEmpty();
     assertThat(rule.getRecommended()).isNotEmpty();
   }
+
+  @Test
+  public void testGetCustomFieldKeyWithSharedNames() {
+    JSONObject names = new JSONObject();
+    names.put("customfield_10001", "Legacy Key");
+    names.put("customfield_10002", "CWE");
+    names.put("summary", "Summary");
+
+    JSONObject first = new JSONObject();
+    first.put("names", names);
+    JSONObject second = new JSONObject();
+    second.put("names", names);
+
+    assertThat(JiraHelper.getCustomFieldKey(first, "Legacy Key")).isEqualTo("customfield_10001");
+    assertThat(JiraHelper.getCustomFieldKey(second, "CWE")).isEqualTo("customfield_10002");
+    assertThat(JiraHelper.getCustomFieldKey(second, "Summary")).isEqualTo("summary");
+    assertThat(JiraHelper.getCustomFieldKey(first, "Unknown")).isNull();
+    assertThat(JiraHelper.getCustomFieldKey(first, null)).isNull();
+    assertThat(JiraHelper.getCustomFieldKey(new JSONObject(), "CWE")).isNull();
+  }
 }
@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2014-2018 SonarSource SA
+ * All rights reserved
+ * mailto:info AT sonarsource DOT com
+ */
+package com.sonarsource.ruleapi.get;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.sonarsource.ruleapi.get.JsonFixtures.array;
+import static com.sonarsource.ruleapi.get.JsonFixtures.fields;
+import static com.sonarsource.ruleapi.get.JsonFixtures.named;
+import static com.sonarsource.ruleapi.get.JsonFixtures.names;
+import static com.sonarsource.ruleapi.get.JsonFixtures.options;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JqlFilterTest {
+
+  private static final String BASE_QUERY = "project=RSPEC AND resolution = Unresolved AND issuetype != Language-Specification AND ";
+
+  private final JSONObject names = names("customfield_10001", "Covered Languages", "customfield_10002", "CWE",
+    "customfield_10003", "SANS Top 25");
+
+  private final JSONObject deprecated = issue("RSPEC-1", "Deprecated", "Code Smell Detection", null,
+    "Avoid this.\nh2. See\n* http://cwe.mitre.org", "Java, C#", null, "clumsy");
+  private final JSONObject superseded = link(issue("RSPEC-2", "Active", "Bug Detection", null,
+    "Insecure interactions between components", "C, C++", "CWE-79", "sans-top25-insecure"), "Supercedes", "is superceded by", "supercedes", true);
+  private final JSONObject replacement = link(issue("RSPEC-3", "Active", "Vulnerability Detection", null,
+    "See https://owasp.org", "Java", null), "Supercedes", "is superceded by", "supercedes", false);
+  private final JSONObject subtask = issue("RSPEC-4", "Active", "Language-Specification", null, "Java specific", null, null);
+  private final JSONObject resolved = issue("RSPEC-5", "Closed", "Bug Detection", "Fixed", "Gone", "Java", null);
+
+  private final List<JSONObject> corpus = Arrays.asList(deprecated, superseded, replacement, subtask, resolved);
+
+  @Test
+  public void shouldEvaluateQueriesUsedByTheProject() {
+
+    assertThat(search("\"Covered Languages\" = \"Java\"")).containsExactly("RSPEC-1", "RSPEC-3");
+    assertThat(search("'Covered languages' is not empty")).containsExactly("RSPEC-1", "RSPEC-2", "RSPEC-3");
+    assertThat(search("CWE is not empty")).containsExactly("RSPEC-2");
+    assertThat(search("'CWE' is not EMPTY")).containsExactly("RSPEC-2");
+    assertThat(search(" issueFunction in hasLinks(\"is superceded by\") OR status = SUPERSEDED")).containsExactly("RSPEC-2");
+    assertThat(search(" issueFunction in hasLinks(\"is deprecated by\") OR status = DEPRECATED")).containsExactly("RSPEC-1");
+    assertThat(search("('SANS Top 25' is not EMPTY OR labels = sans-top25-insecure)")).containsExactly("RSPEC-2");
+  }
+
+  @Test
+  public void shouldSupportOperators() {
+
+    assertThat(filter("issuetype = Language-Specification")).containsExactly("RSPEC-4");
+    assertThat(filter("resolution != Unresolved")).containsExactly("RSPEC-5");
+    assertThat(filter("resolution is EMPTY AND labels in (clumsy, sans-top25-insecure)")).containsExactly("RSPEC-1", "RSPEC-2");
+    assertThat(filter("labels not in (clumsy)")).containsExactly("RSPEC-2");
+    assertThat(filter("NOT status = Active")).containsExactly("RSPEC-1", "RSPEC-5");
+    assertThat(filter("key = RSPEC-3 OR issuekey = rspec-4")).containsExactly("RSPEC-3", "RSPEC-4");
+    assertThat(filter("cf[10001] = C#")).containsExactly("RSPEC-1");
+    assertThat(filter("issueFunction in hasLinks(\"supercedes\")")).containsExactly("RSPEC-3");
+    assertThat(filter("issueFunction in hasLinks()")).containsExactly("RSPEC-2", "RSPEC-3");
+    assertThat(filter("CWE = EMPTY AND project = rspec")).containsExactly("RSPEC-1", "RSPEC-3", "RSPEC-4", "RSPEC-5");
+  }
+
+  @Test
+  public void shouldRefuseUnsupportedSyntax() {
+
+    assertThat(JqlFilter.compile("updated >= -1d")).isNull();
+    assertThat(JqlFilter.compile("status = Active ORDER BY key")).isNull();
+    assertThat(JqlFilter.compile("status was Active")).isNull();
+    assertThat(JqlFilter.compile("issueFunction in linkedIssuesOf(\"status = Active\")")).isNull();
+    assertThat(JqlFilter.compile("(status = Active")).isNull();
+    assertThat(JqlFilter.compile("status = 'Active")).isNull();
+    assertThat(JqlFilter.compile("status =")).isNull();
+  }
+
+  @Test
+  public void shouldLeaveTextSearchesToJira() {
+
+    assertThat(JqlFilter.compile(BASE_QUERY + "(description ~ \"See http://\" or description ~ \"https://\")")).isNull();
+    assertThat(JqlFilter.compile("'SANS Top 25' is not EMPTY OR description ~ 'Insecure Interaction Between Components'")).isNull();
+    assertThat(JqlFilter.compile("summary !~ \"component\"")).isNull();
+    assertThat(JqlFilter.compile("\"Legacy Key\"~\"S00001\"")).isNull();
+  }
+
+  @Test
+  public void shouldGiveUpOnUnknownField() {
+
+    assertThat(JqlFilter.compile("'Unknown Field' is not EMPTY").filter(corpus)).isNull();
+  }
+
+  private List<String> search(String search) {
+    return filter(BASE_QUERY + "(" + search + ")");
+  }
+
+  private List<String> filter(String jql) {
+    List<String> keys = new ArrayList<>();
+    for (JSONObject issue : JqlFilter.compile(jql).filter(corpus)) {
+      keys.add((String) issue.get("key"));
+    }
+    return keys;
+  }
+
+  private JSONObject issue(String key, String status, String issueType, String resolution, String description,
+    String coveredLanguages, String cwe, String... labels) {
+
+    return JsonFixtures.issue(key, names,
+      "summary", description.split("\n")[0],
+      "description", description,
+      "status", named(status),
+      "issuetype", named(issueType),
+      "resolution", resolution == null ? null : named(resolution),
+      "labels", array((Object[]) labels),
+      "customfield_10001", coveredLanguages == null ? null : options(coveredLanguages.split(", ")),
+      "customfield_10002", cwe,
+      "customfield_10003", null,
+      "issuelinks", new JSONArray());
+  }
+
+  private static JSONObject link(JSONObject issue, String typeName, String inward, String outward, boolean isInward) {
+    JSONObject type = new JSONObject();
+    type.put("name", typeName);
+    type.put("inward", inward);
+    type.put("outward", outward);
+    JSONObject link = new JSONObject();
+    link.put("type", type);
+    link.put(isInward ? "inwardIssue" : "outwardIssue", JsonFixtures.issue("RSPEC-99"));
+    ((JSONArray) fields(issue).get("issuelinks")).add(link);
+    return issue;
+  }
+}
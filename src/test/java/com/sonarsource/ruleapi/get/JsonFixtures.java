@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2014-2018 SonarSource SA
+ * All rights reserved
+ * mailto:info AT sonarsource DOT com
+ */
+package com.sonarsource.ruleapi.get;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds the Jira and SonarQube JSON the tests feed to the fetchers, for the cases the
+ * <code>src/test/resources</code> fixtures can't cover without one file per variation.
+ */
+public final class JsonFixtures {
+
+  private JsonFixtures() {
+  }
+
+  /**
+   * The <code>names</code> of a Jira issue, from alternating field ids and names.
+   */
+  public static JSONObject names(String... idsAndNames) {
+    JSONObject names = new JSONObject();
+    for (int i = 0; i < idsAndNames.length; i += 2) {
+      names.put(idsAndNames[i], idsAndNames[i + 1]);
+    }
+    return names;
+  }
+
+  /**
+   * A Jira issue with only a key.
+   */
+  public static JSONObject issue(String key) {
+    JSONObject issue = new JSONObject();
+    issue.put("key", key);
+    return issue;
+  }
+
+  /**
+   * A Jira issue with its field names and alternating field ids and values.
+   */
+  public static JSONObject issue(String key, JSONObject names, Object... idsAndValues) {
+    JSONObject fields = new JSONObject();
+    for (int i = 0; i < idsAndValues.length; i += 2) {
+      fields.put(idsAndValues[i], idsAndValues[i + 1]);
+    }
+    JSONObject issue = issue(key);
+    issue.put("names", names);
+    issue.put("fields", fields);
+    return issue;
+  }
+
+  /**
+   * A copy of a Jira issue under another key, whose fields can be changed without touching the original.
+   */
+  public static JSONObject copy(JSONObject issue, String key) {
+    JSONObject fields = new JSONObject();
+    fields.putAll(fields(issue));
+    JSONObject copy = new JSONObject();
+    copy.putAll(issue);
+    copy.put("key", key);
+    copy.put("fields", fields);
+    return copy;
+  }
+
+  public static JSONObject fields(JSONObject issue) {
+    return (JSONObject) issue.get("fields");
+  }
+
+  /**
+   * A status, issue type, resolution... as Jira nests them.
+   */
+  public static JSONObject named(String name) {
+    JSONObject object = new JSONObject();
+    object.put("name", name);
+    return object;
+  }
+
+  /**
+   * The value of a multi-select custom field such as "Covered Languages".
+   */
+  public static JSONArray options(String... values) {
+    JSONArray options = new JSONArray();
+    for (String value : values) {
+      JSONObject option = new JSONObject();
+      option.put("value", value);
+      options.add(option);
+    }
+    return options;
+  }
+
+  public static JSONArray array(Object... values) {
+    JSONArray array = new JSONArray();
+    array.addAll(Arrays.asList(values));
+    return array;
+  }
+
+  /**
+   * A page of a Jira search.
+   */
+  public static JSONObject searchPage(long startAt, long maxResults, long total, List<JSONObject> issues) {
+    JSONObject page = new JSONObject();
+    page.put("startAt", startAt);
+    page.put("maxResults", maxResults);
+    page.put("total", total);
+    page.put("names", new JSONObject());
+    page.put("issues", array(issues.toArray()));
+    return page;
+  }
+
+  /**
+   * A page of the SonarQube <code>api/rules/search</code> web service, one "Rule [key]" per key.
+   */
+  public static JSONObject rulesPage(String repository, long total, long page, long pageSize, String... keys) {
+    JSONArray rules = new JSONArray();
+    for (String key : keys) {
+      JSONObject rule = new JSONObject();
+      rule.put("key", key);
+      rule.put("repo", repository);
+      rule.put("langName", "Java");
+      rule.put("type", "CODE_SMELL");
+      rule.put("status", "READY");
+      rule.put("severity", "MAJOR");
+      rule.put("name", "Rule " + key);
+      rule.put("htmlDesc", "<p>Description</p>");
+      rule.put("isTemplate", false);
+      rule.put("sysTags", new JSONArray());
+      rule.put("params", new JSONArray());
+      rules.add(rule);
+    }
+    JSONObject body = new JSONObject();
+    body.put("total", total);
+    body.put("p", page);
+    body.put("ps", pageSize);
+    body.put("rules", rules);
+    return body;
+  }
+
+  /**
+   * The SonarQube <code>api/qualityprofiles/search</code> response, from key, name and language triples.
+   */
+  public static JSONObject qualityProfiles(String... keysNamesAndLanguages) {
+    JSONArray profiles = new JSONArray();
+    for (int i = 0; i < keysNamesAndLanguages.length; i += 3) {
+      JSONObject profile = new JSONObject();
+      profile.put("key", keysNamesAndLanguages[i]);
+      profile.put("name", keysNamesAndLanguages[i + 1]);
+      profile.put("language", keysNamesAndLanguages[i + 2]);
+      profiles.add(profile);
+    }
+    JSONObject body = new JSONObject();
+    body.put("profiles", profiles);
+    return body;
+  }
+}
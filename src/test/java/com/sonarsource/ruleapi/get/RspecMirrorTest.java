@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2014-2018 SonarSource SA
+ * All rights reserved
+ * mailto:info AT sonarsource DOT com
+ */
+package com.sonarsource.ruleapi.get;
+
+import com.sonarsource.ruleapi.domain.RuleException;
+import org.json.simple.JSONObject;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static com.sonarsource.ruleapi.get.JsonFixtures.names;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RspecMirrorTest {
+
+  private static final String BASE_URL = "http://localhost/";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private long now = TimeUnit.DAYS.toMillis(1000);
+  private final List<String> searches = new ArrayList<>();
+  private final Map<String, List<JSONObject>> results = new HashMap<>();
+
+  private final Function<String, List<JSONObject>> search = jql -> {
+    searches.add(jql);
+    return results.getOrDefault(jql, new ArrayList<>());
+  };
+
+  @After
+  public void clearProperties() {
+    System.clearProperty(RspecMirror.OFFLINE_PROPERTY);
+    System.clearProperty(RspecMirror.DIR_PROPERTY);
+  }
+
+  @Test
+  public void shouldDownloadEverythingFirstThenOnlyChanges() throws Exception {
+
+    JSONObject names = names("customfield_1", "Legacy Key");
+    results.put("project=RSPEC", Arrays.asList(issue("RSPEC-1", "first", names), issue("RSPEC-2", "second", names)));
+
+    List<JSONObject> issues = new ArrayList<>(mirror().sync(search).values());
+    assertThat(keysAndSummaries(issues)).containsExactly("RSPEC-1:first", "RSPEC-2:second");
+    assertThat(issues.get(0).get("names")).isEqualTo(names);
+    assertThat(searches).containsExactly("project=RSPEC");
+
+    now += TimeUnit.MINUTES.toMillis(60);
+    JSONObject newNames = names("customfield_2", "CWE");
+    results.put("project=RSPEC AND updated >= \"-65m\"", Arrays.asList(issue("RSPEC-2", "changed", newNames), issue("RSPEC-3", "new", newNames)));
+
+    issues = new ArrayList<>(mirror().sync(search).values());
+    assertThat(keysAndSummaries(issues)).containsExactly("RSPEC-1:first", "RSPEC-2:changed", "RSPEC-3:new");
+    assertThat((Map<String, String>) issues.get(0).get("names")).containsOnlyKeys("customfield_1", "customfield_2");
+    assertThat(searches).containsExactly("project=RSPEC", "project=RSPEC AND updated >= \"-65m\"");
+  }
+
+  @Test
+  public void shouldOnlyRecordSyncWhenNothingChanged() throws Exception {
+
+    results.put("project=RSPEC", Arrays.asList(issue("RSPEC-1", "first", names("customfield_1", "Legacy Key"))));
+    mirror().sync(search);
+    long length = mirror().getFile().length();
+
+    now += TimeUnit.MINUTES.toMillis(10);
+    assertThat(keysAndSummaries(mirror().sync(search).values())).containsExactly("RSPEC-1:first");
+
+    now += TimeUnit.MINUTES.toMillis(10);
+    mirror().sync(search);
+    assertThat(searches).containsExactly("project=RSPEC", "project=RSPEC AND updated >= \"-15m\"", "project=RSPEC AND updated >= \"-15m\"");
+    assertThat(mirror().getFile().length()).isEqualTo(length);
+  }
+
+  @Test
+  public void shouldWriteEachSyncToNewFile() throws Exception {
+
+    JSONObject names = names("customfield_1", "Legacy Key");
+    results.put("project=RSPEC", Arrays.asList(issue("RSPEC-1", "first", names)));
+    Map<String, JSONObject> synced = mirror().sync(search);
+    File first = mirror().getFile();
+
+    now += TimeUnit.MINUTES.toMillis(10);
+    Map<String, JSONObject> mapped = mirror().sync(search);
+    File second = mirror().getFile();
+    assertThat(second).isNotEqualTo(first);
+    assertThat(first).doesNotExist();
+
+    now += TimeUnit.MINUTES.toMillis(10);
+    results.put("project=RSPEC AND updated >= \"-15m\"", Arrays.asList(issue("RSPEC-1", "changed", names)));
+    assertThat(keysAndSummaries(mirror().sync(search).values())).containsExactly("RSPEC-1:changed");
+    assertThat(mirror().getFile()).isNotEqualTo(second);
+    assertThat(second).doesNotExist();
+
+    // the issues read from a previous file are left as they were
+    assertThat(keysAndSummaries(synced.values())).containsExactly("RSPEC-1:first");
+    assertThat(keysAndSummaries(mapped.values())).containsExactly("RSPEC-1:first");
+    assertThat(new File(temporaryFolder.getRoot(), "mirror").list()).hasSize(1);
+  }
+
+  @Test
+  public void shouldReadFileWithoutGeneration() throws Exception {
+
+    File dir = new File(temporaryFolder.getRoot(), "mirror");
+    results.put("project=RSPEC", Arrays.asList(issue("RSPEC-1", "first", names("customfield_1", "Legacy Key"))));
+    mirror().sync(search);
+    File file = mirror().getFile();
+    File withoutGeneration = new File(dir, file.getName().replaceFirst("\\.\\d+\\.bin$", ".bin"));
+    Files.move(file.toPath(), withoutGeneration.toPath());
+    assertThat(mirror().getFile()).isEqualTo(withoutGeneration);
+
+    System.setProperty(RspecMirror.OFFLINE_PROPERTY, "true");
+    assertThat(keysAndSummaries(mirror().sync(search).values())).containsExactly("RSPEC-1:first");
+    assertThat(searches).hasSize(1);
+  }
+
+  @Test
+  public void shouldDownloadEverythingAgainPeriodically() {
+
+    results.put("project=RSPEC", Arrays.asList(issue("RSPEC-1", "first", names("customfield_1", "Legacy Key"))));
+    mirror().sync(search);
+
+    now += TimeUnit.DAYS.toMillis(8);
+    results.put("project=RSPEC", Arrays.asList(issue("RSPEC-2", "second", names("customfield_1", "Legacy Key"))));
+
+    assertThat(keysAndSummaries(mirror().sync(search).values())).containsExactly("RSPEC-2:second");
+    assertThat(searches).containsExactly("project=RSPEC", "project=RSPEC");
+  }
+
+  @Test
+  public void shouldUseMirrorAsIsWhenOffline() {
+
+    results.put("project=RSPEC", Arrays.asList(issue("RSPEC-1", "first", names("customfield_1", "Legacy Key"))));
+    mirror().sync(search);
+
+    System.setProperty(RspecMirror.OFFLINE_PROPERTY, "true");
+    now += TimeUnit.DAYS.toMillis(30);
+
+    assertThat(keysAndSummaries(mirror().sync(search).values())).containsExactly("RSPEC-1:first");
+    assertThat(searches).hasSize(1);
+  }
+
+  @Test(expected = RuleException.class)
+  public void shouldFailOfflineWithoutMirror() {
+
+    System.setProperty(RspecMirror.OFFLINE_PROPERTY, "true");
+    mirror().sync(search);
+  }
+
+  @Test
+  public void shouldIgnoreCorruptedMirror() throws Exception {
+
+    RspecMirror mirror = mirror();
+    File file = mirror.getFile();
+    file.getParentFile().mkdirs();
+    Files.write(file.toPath(), "{\"version\":".getBytes("UTF-8"));
+
+    results.put("project=RSPEC", Arrays.asList(issue("RSPEC-1", "first", names("customfield_1", "Legacy Key"))));
+    assertThat(keysAndSummaries(mirror.sync(search).values())).containsExactly("RSPEC-1:first");
+  }
+
+  @Test
+  public void shouldBeConfiguredBySystemProperties() throws Exception {
+
+    assertThat(RspecMirror.isEnabled()).isFalse();
+    assertThat(RspecMirror.forBaseUrl(BASE_URL)).isNull();
+
+    File dir = temporaryFolder.newFolder();
+    System.setProperty(RspecMirror.DIR_PROPERTY, dir.getPath());
+    assertThat(RspecMirror.isEnabled()).isTrue();
+    assertThat(RspecMirror.forBaseUrl(BASE_URL).getFile().getParentFile()).isEqualTo(dir);
+    assertThat(RspecMirror.forBaseUrl("http://elsewhere/").getFile()).isNotEqualTo(RspecMirror.forBaseUrl(BASE_URL).getFile());
+
+    System.clearProperty(RspecMirror.DIR_PROPERTY);
+    System.setProperty(RspecMirror.OFFLINE_PROPERTY, "true");
+    assertThat(RspecMirror.isEnabled()).isTrue();
+    assertThat(RspecMirror.getDirectory()).isEqualTo(RspecMirror.getDefaultDirectory());
+  }
+
+  private RspecMirror mirror() {
+    return new RspecMirror(BASE_URL, new File(temporaryFolder.getRoot(), "mirror"), () -> now);
+  }
+
+  private static List<String> keysAndSummaries(Collection<JSONObject> issues) {
+    List<String> list = new ArrayList<>();
+    for (JSONObject issue : issues) {
+      list.add(issue.get("key") + ":" + ((Map) issue.get("fields")).get("summary"));
+    }
+    return list;
+  }
+
+  private static JSONObject issue(String key, String summary, JSONObject names) {
+    return JsonFixtures.issue(key, names, "summary", summary);
+  }
+}
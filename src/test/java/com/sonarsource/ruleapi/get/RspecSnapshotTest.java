@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2014-2018 SonarSource SA
+ * All rights reserved
+ * mailto:info AT sonarsource DOT com
+ */
+package com.sonarsource.ruleapi.get;
+
+import org.json.simple.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.sonarsource.ruleapi.get.JsonFixtures.issue;
+import static com.sonarsource.ruleapi.get.JsonFixtures.named;
+import static com.sonarsource.ruleapi.get.JsonFixtures.names;
+import static com.sonarsource.ruleapi.get.JsonFixtures.options;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RspecSnapshotTest {
+
+  private final AtomicInteger loads = new AtomicInteger();
+
+  private final AtomicInteger issueLoads = new AtomicInteger();
+
+  private final RspecSnapshot snapshot = new RspecSnapshot(() -> {
+    loads.incrementAndGet();
+    return RspecSnapshot.byKey(Collections.singletonList(issue("RSPEC-" + loads.get())));
+  }, key -> {
+    issueLoads.incrementAndGet();
+    JSONObject issue = issue(key);
+    issue.put("updated", true);
+    return issue;
+  });
+
+  @Test
+  public void shouldLoadLazilyAndOnlyOnce() {
+
+    assertThat(snapshot.isLoaded()).isFalse();
+    assertThat(snapshot.getIfLoaded()).isNull();
+    assertThat(loads.get()).isEqualTo(0);
+
+    Map<String, JSONObject> issues = snapshot.get();
+    assertThat(issues).containsOnlyKeys("RSPEC-1");
+    assertThat(snapshot.get()).isSameAs(issues);
+    assertThat(snapshot.getIfLoaded()).isSameAs(issues);
+    assertThat(loads.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldLoadOnceForConcurrentReaders() throws Exception {
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Callable<Map<String, JSONObject>>> readers = new ArrayList<>();
+      for (int i = 0; i < 32; i++) {
+        readers.add(snapshot::get);
+      }
+      for (Future<Map<String, JSONObject>> result : executor.invokeAll(readers)) {
+        assertThat(result.get()).containsOnlyKeys("RSPEC-1");
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertThat(loads.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldRefreshAndInvalidate() {
+
+    snapshot.get();
+
+    assertThat(snapshot.refresh()).containsOnlyKeys("RSPEC-2");
+    assertThat(snapshot.get()).containsOnlyKeys("RSPEC-2");
+
+    snapshot.invalidate();
+    assertThat(snapshot.isLoaded()).isFalse();
+    assertThat(snapshot.get()).containsOnlyKeys("RSPEC-3");
+    assertThat(loads.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void shouldReloadStaleIssuesOnNextRead() {
+
+    snapshot.markStale("RSPEC-1");
+    assertThat(snapshot.get().get("RSPEC-1")).doesNotContainKey("updated");
+
+    snapshot.markStale("RSPEC-1");
+    snapshot.markStale("RSPEC-9");
+    assertThat(issueLoads.get()).isEqualTo(0);
+
+    Map<String, JSONObject> issues = snapshot.getIfLoaded();
+    assertThat(issues).containsOnlyKeys("RSPEC-1", "RSPEC-9");
+    assertThat(issues.get("RSPEC-1")).containsKey("updated");
+    assertThat(issueLoads.get()).isEqualTo(2);
+
+    assertThat(snapshot.get()).isSameAs(issues);
+    assertThat(issueLoads.get()).isEqualTo(2);
+    assertThat(loads.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldIndexSpecificationsByLegacyKey() {
+
+    RspecSnapshot legacySnapshot = new RspecSnapshot(() -> RspecSnapshot.byKey(Arrays.asList(
+      issueWithLegacyKeys("RSPEC-1", "Bug", "Union, S00001"),
+      issueWithLegacyKeys("RSPEC-2", "Code Smell", "Switch & Union"),
+      issueWithLegacyKeys("RSPEC-3", "Language-Specification", "Goto"),
+      issueWithLegacyKeys("RSPEC-4", "Vulnerability", "Goto, Goto"),
+      issueWithLegacyKeys("RSPEC-5", "Bug", null))), key -> null);
+
+    assertThat(legacySnapshot.getKeysByLegacyKey("S00001")).containsExactly("RSPEC-1");
+    assertThat(legacySnapshot.getKeysByLegacyKey("Union")).containsExactly("RSPEC-1", "RSPEC-2");
+    assertThat(legacySnapshot.getKeysByLegacyKey("Switch")).containsExactly("RSPEC-2");
+    assertThat(legacySnapshot.getKeysByLegacyKey("Goto")).containsExactly("RSPEC-4");
+    assertThat(legacySnapshot.getKeysByLegacyKey("Unknown")).isEmpty();
+    assertThat(legacySnapshot.isLoaded()).isTrue();
+  }
+
+  @Test
+  public void shouldReloadStaleIssuesWithoutScanningTheLoadedOnesAgain() {
+
+    AtomicInteger scans = new AtomicInteger();
+    Map<String, JSONObject> loaded = new LinkedHashMap<String, JSONObject>(RspecSnapshot.byKey(Arrays.asList(
+      issueWithLegacyKeys("RSPEC-1", "Bug", "Union"),
+      issueWithLegacyKeys("RSPEC-2", "Bug", "Union"),
+      issueWithLegacyKeys("RSPEC-3", "Bug", "Goto")))) {
+      @Override
+      public Set<Map.Entry<String, JSONObject>> entrySet() {
+        scans.incrementAndGet();
+        return super.entrySet();
+      }
+    };
+    Map<String, String> legacyKeysAfterUpdate = new HashMap<>();
+    legacyKeysAfterUpdate.put("RSPEC-1", "Goto");
+    legacyKeysAfterUpdate.put("RSPEC-4", "Union");
+    RspecSnapshot updatedSnapshot = new RspecSnapshot(() -> loaded,
+      key -> legacyKeysAfterUpdate.containsKey(key) ? issueWithLegacyKeys(key, "Bug", legacyKeysAfterUpdate.get(key)) : null);
+
+    assertThat(updatedSnapshot.getKeysByLegacyKey("Union")).containsExactly("RSPEC-1", "RSPEC-2");
+    int scansOfIndex = scans.get();
+
+    updatedSnapshot.markStale("RSPEC-1");
+    updatedSnapshot.markStale("RSPEC-4");
+    assertThat(updatedSnapshot.getKeysByLegacyKey("Union")).containsExactly("RSPEC-2", "RSPEC-4");
+    updatedSnapshot.markStale("RSPEC-3");
+    assertThat(updatedSnapshot.getKeysByLegacyKey("Goto")).containsExactly("RSPEC-1");
+    assertThat(updatedSnapshot.get().get("RSPEC-1")).isNotSameAs(loaded.get("RSPEC-1"));
+    assertThat(updatedSnapshot.get()).doesNotContainKey("RSPEC-3").hasSize(3);
+    assertThat(scans.get()).isEqualTo(scansOfIndex);
+
+    assertThat(updatedSnapshot.get().keySet()).containsExactly("RSPEC-1", "RSPEC-2", "RSPEC-4");
+  }
+
+  @Test
+  public void shouldKeepStateConsistentWhileIssuesAreReloaded() {
+
+    RspecSnapshot updatedSnapshot = new RspecSnapshot(() -> RspecSnapshot.byKey(Collections.singletonList(
+      issueWithLegacyKeys("RSPEC-1", "Bug", "Union"))), key -> issueWithLegacyKeys(key, "Bug", "Union"));
+
+    RspecSnapshot.State state = updatedSnapshot.getState();
+    updatedSnapshot.markStale("RSPEC-1");
+    updatedSnapshot.markStale("RSPEC-2");
+    assertThat(updatedSnapshot.getKeysByLegacyKey("Union")).containsExactly("RSPEC-1", "RSPEC-2");
+
+    // the legacy key index of a state only ever names issues of that state
+    assertThat(state.getKeysByLegacyKey("Union")).containsExactly("RSPEC-1");
+    assertThat(state.getIssuesByKey()).containsOnlyKeys("RSPEC-1");
+    assertThat(updatedSnapshot.getState().getIssuesByKey().get("RSPEC-1")).isNotSameAs(state.getIssuesByKey().get("RSPEC-1"));
+    assertThat(updatedSnapshot.getStateIfLoaded().getIssuesByKey()).containsOnlyKeys("RSPEC-1", "RSPEC-2");
+  }
+
+  @Test
+  public void shouldIndexCoveredLanguages() {
+
+    RspecSnapshot languageSnapshot = new RspecSnapshot(() -> RspecSnapshot.byKey(Arrays.asList(
+      issueCovering("RSPEC-1", "Java", "C#"),
+      issueCovering("RSPEC-2", "C#", "Java"),
+      issueCovering("RSPEC-3"))), key -> null);
+
+    assertThat(languageSnapshot.getCoveredLanguages("RSPEC-1")).containsOnly("Java", "C#");
+    assertThat(languageSnapshot.getCoveredLanguages("RSPEC-2")).isEqualTo(languageSnapshot.getCoveredLanguages("RSPEC-1"));
+    assertThat(languageSnapshot.getCoveredLanguages("RSPEC-3")).isEmpty();
+    assertThat(languageSnapshot.getCoveredLanguages("RSPEC-4")).isNull();
+  }
+
+  private static JSONObject issueCovering(String key, String... coveredLanguages) {
+    return issue(key, names("customfield_2", "Covered Languages"), "customfield_2", options(coveredLanguages));
+  }
+
+  private static JSONObject issueWithLegacyKeys(String key, String issueType, String legacyKeys) {
+    return issue(key, names("customfield_1", "Legacy Key"), "issuetype", named(issueType), "customfield_1", legacyKeys);
+  }
+}
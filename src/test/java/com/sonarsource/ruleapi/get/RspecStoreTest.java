@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2014-2018 SonarSource SA
+ * All rights reserved
+ * mailto:info AT sonarsource DOT com
+ */
+package com.sonarsource.ruleapi.get;
+
+import org.json.simple.JSONObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static com.sonarsource.ruleapi.get.JsonFixtures.array;
+import static com.sonarsource.ruleapi.get.JsonFixtures.named;
+import static com.sonarsource.ruleapi.get.JsonFixtures.names;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RspecStoreTest {
+
+  private static final String BASE_URL = "http://localhost/";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final JSONObject names = names("customfield_1", "Legacy Key");
+
+  @Test
+  public void shouldRoundTripIssues() throws Exception {
+
+    File file = new File(temporaryFolder.getRoot(), "rspec.bin");
+    JSONObject first = issue("RSPEC-1", "Bug", "Union, S00001");
+    first.put("id", 42L);
+    first.put("ratio", 0.5);
+    first.put("flag", true);
+    first.put("nothing", null);
+    ((JSONObject) first.get("fields")).put("summary", "Ça doit être \"quoted\"");
+    JSONObject second = issue("RSPEC-2", "Language-Specification", "Goto");
+
+    RspecStore.write(file, BASE_URL, 10, 5, names, null, Arrays.asList(first, second));
+
+    RspecStore store = RspecStore.open(file);
+    assertThat(store.getBaseUrl()).isEqualTo(BASE_URL);
+    assertThat(store.getSyncedAt()).isEqualTo(10);
+    assertThat(store.getFullSyncAt()).isEqualTo(5);
+    assertThat(store.getNames()).isEqualTo(names);
+
+    Map<String, JSONObject> issues = store.getIssues();
+    assertThat(issues).containsOnlyKeys("RSPEC-1", "RSPEC-2");
+    assertThat(issues.keySet()).containsExactly("RSPEC-1", "RSPEC-2");
+    assertThat(issues.get("RSPEC-1")).isEqualTo(first);
+    assertThat(issues.get("RSPEC-1")).isSameAs(issues.get("RSPEC-1"));
+    assertThat(issues.get("RSPEC-1").get("names")).isSameAs(issues.get("RSPEC-2").get("names"));
+    assertThat(issues.get("RSPEC-3")).isNull();
+    assertThat(issues.containsKey("RSPEC-3")).isFalse();
+  }
+
+  @Test
+  public void shouldIndexSpecificationsByLegacyKey() throws Exception {
+
+    File file = new File(temporaryFolder.getRoot(), "rspec.bin");
+    RspecStore.write(file, BASE_URL, 0, 0, names, null, Arrays.asList(
+      issue("RSPEC-1", "Bug", "Union, S00001"),
+      issue("RSPEC-2", "Language-Specification", "Union"),
+      issue("RSPEC-3", "Code Smell", null)));
+
+    assertThat(RspecStore.open(file).getIssues().getSpecificationKeysByLegacyKey().asMap())
+      .containsOnlyKeys("Union", "S00001")
+      .containsEntry("Union", Collections.singleton("RSPEC-1"));
+  }
+
+  @Test
+  public void shouldReplaceAndAppendChangedIssues() throws Exception {
+
+    File file = new File(temporaryFolder.getRoot(), "rspec.0.bin");
+    RspecStore.write(file, BASE_URL, 0, 0, names, null, Arrays.asList(issue("RSPEC-1", "Bug", "Old"), issue("RSPEC-2", "Bug", "Kept")));
+    RspecStore previous = RspecStore.open(file);
+
+    JSONObject changed = issue("RSPEC-1", "Vulnerability", "New");
+    JSONObject added = issue("RSPEC-3", "Bug", null);
+    File next = new File(temporaryFolder.getRoot(), "rspec.1.bin");
+    RspecStore.write(next, BASE_URL, 20, 0, names, previous, Arrays.asList(changed, added));
+
+    RspecStore store = RspecStore.open(next);
+    assertThat(store.getSyncedAt()).isEqualTo(20);
+    assertThat(store.getIssues().keySet()).containsExactly("RSPEC-1", "RSPEC-2", "RSPEC-3");
+    assertThat(store.getIssues().get("RSPEC-1")).isEqualTo(changed);
+    assertThat(store.getIssues().get("RSPEC-2")).isEqualTo(issue("RSPEC-2", "Bug", "Kept"));
+    assertThat(store.getIssues().get("RSPEC-3")).isEqualTo(added);
+    assertThat(store.getIssues().getSpecificationKeysByLegacyKey().keySet()).containsOnly("New", "Kept");
+    // the previous store, possibly still mapped, is left as it was
+    assertThat(previous.getIssues().get("RSPEC-1")).isEqualTo(issue("RSPEC-1", "Bug", "Old"));
+    assertThat(RspecStore.open(file).getSyncedAt()).isEqualTo(0);
+  }
+
+  @Test
+  public void shouldCopyStoreToRecordSync() throws Exception {
+
+    File file = new File(temporaryFolder.getRoot(), "rspec.0.bin");
+    RspecStore.write(file, BASE_URL, 10, 5, names, null, Collections.singletonList(issue("RSPEC-1", "Bug", "Kept")));
+    RspecStore previous = RspecStore.open(file);
+
+    File next = new File(temporaryFolder.getRoot(), "rspec.1.bin");
+    RspecStore.copy(previous, next, 30);
+
+    RspecStore store = RspecStore.open(next);
+    assertThat(store.getSyncedAt()).isEqualTo(30);
+    assertThat(store.getFullSyncAt()).isEqualTo(5);
+    assertThat(store.getIssues().get("RSPEC-1")).isEqualTo(issue("RSPEC-1", "Bug", "Kept"));
+    assertThat(previous.getSyncedAt()).isEqualTo(10);
+    assertThat(RspecStore.open(file).getSyncedAt()).isEqualTo(10);
+  }
+
+  @Test(expected = FileAlreadyExistsException.class)
+  public void shouldNeverWriteOverStore() throws Exception {
+
+    File file = new File(temporaryFolder.getRoot(), "rspec.0.bin");
+    RspecStore.write(file, BASE_URL, 0, 0, names, null, Collections.singletonList(issue("RSPEC-1", "Bug", null)));
+    RspecStore.write(file, BASE_URL, 10, 0, names, RspecStore.open(file), Collections.singletonList(issue("RSPEC-2", "Bug", null)));
+  }
+
+  @Test
+  public void shouldDropTheStringsOfReplacedIssues() throws Exception {
+
+    File file = new File(temporaryFolder.getRoot(), "rspec.0.bin");
+    JSONObject first = issue("RSPEC-1", "Bug", "Union");
+    ((JSONObject) first.get("fields")).put("summary", "Obsolete summary");
+    RspecStore.write(file, BASE_URL, 0, 0, names, null, Arrays.asList(first, issue("RSPEC-2", "Bug", "Kept")));
+    assertThat(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8)).contains("Obsolete summary");
+
+    JSONObject changed = issue("RSPEC-1", "Bug", "Union");
+    ((JSONObject) changed.get("fields")).put("summary", "Current summary");
+    File next = new File(temporaryFolder.getRoot(), "rspec.1.bin");
+    RspecStore.write(next, BASE_URL, 10, 0, names, RspecStore.open(file), Collections.singletonList(changed));
+
+    assertThat(new String(Files.readAllBytes(next.toPath()), StandardCharsets.UTF_8)).doesNotContain("Obsolete summary");
+    RspecStore store = RspecStore.open(next);
+    assertThat(store.getIssues().get("RSPEC-1")).isEqualTo(changed);
+    assertThat(store.getIssues().get("RSPEC-2")).isEqualTo(issue("RSPEC-2", "Bug", "Kept"));
+  }
+
+  @Test
+  public void shouldRejectOtherFormats() throws Exception {
+
+    File file = temporaryFolder.newFile();
+    Files.write(file.toPath(), "{\"version\":1}".getBytes("UTF-8"));
+    assertThat(RspecStore.open(file)).isNull();
+  }
+
+  @Test(expected = IOException.class)
+  public void shouldDetectTruncatedFile() throws Exception {
+
+    File file = new File(temporaryFolder.getRoot(), "rspec.bin");
+    RspecStore.write(file, BASE_URL, 0, 0, names, null, Collections.singletonList(issue("RSPEC-1", "Bug", null)));
+    byte[] bytes = Files.readAllBytes(file.toPath());
+    Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 3));
+
+    RspecStore.open(file);
+  }
+
+  private JSONObject issue(String key, String issueType, String legacyKeys) {
+    return JsonFixtures.issue(key, names, "issuetype", named(issueType), "labels", array("cwe", "security"),
+      "customfield_1", legacyKeys);
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2014-2018 SonarSource SA
+ * All rights reserved
+ * mailto:info AT sonarsource DOT com
+ */
+package com.sonarsource.ruleapi.get;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SubtaskIndexTest {
+
+  private static final List<String> LANGUAGES = Arrays.asList("Java", "java", "JavaScript", "C", "c", "CPP", "C++", "cpp",
+    "Objective-C", "C-Family", "C#", "c#", "PL/SQL", "PL/I", "VB.NET", "VB6", "Flex", "Python", "JSP", "T-SQL", "TSQL");
+
+  private static final List<String> SUMMARIES = Arrays.asList("Java", "JAVA", "Java: with details", "Java - details",
+    "JavaScript", "Java8", "Java_8", "C", "C-Family", "c-family", "C++", "CPP", "C++: templates", "Objective-C", "ObjC",
+    "C#", "c#", "C# (.NET)", "C#7", "Charlie", "Cobol", "PL/SQL", "PL/SQL: cursors", "PL/I", "VB.NET", "VB.NETX",
+    "VB6 & VB.NET", "T-SQL", "TSQL", "Python 2", "Python\n3", "JSP\nextra", "Flex.", "Java.", "");
+
+  @Test
+  public void shouldMatchLanguagesAsBefore() {
+    for (String language : LANGUAGES) {
+      for (String summary : SUMMARIES) {
+        assertThat(SubtaskIndex.isLanguageMatch(language, summary))
+          .as(language + " / " + summary)
+          .isEqualTo(legacyIsLanguageMatch(language, summary));
+      }
+    }
+  }
+
+  @Test
+  public void shouldFindTheFirstMatchingSubtaskAsBefore() {
+    JSONArray subtasks = new JSONArray();
+    for (String summary : SUMMARIES) {
+      subtasks.add(subtask(summary));
+    }
+    JSONArray reversed = new JSONArray();
+    for (int i = subtasks.size() - 1; i >= 0; i--) {
+      reversed.add(subtasks.get(i));
+    }
+
+    for (JSONArray tasks : Arrays.asList(subtasks, reversed)) {
+      for (String language : LANGUAGES) {
+        assertThat(SubtaskIndex.of(tasks).get(language)).as(language).isSameAs(legacyFindSubtask(language, tasks));
+      }
+    }
+  }
+
+  @Test
+  public void shouldIndexEachListOnce() {
+    JSONArray subtasks = new JSONArray();
+    subtasks.add(subtask("Java"));
+
+    assertThat(SubtaskIndex.of(subtasks)).isSameAs(SubtaskIndex.of(subtasks));
+    assertThat(SubtaskIndex.of(new JSONArray()).get("Java")).isNull();
+  }
+
+  private static JSONObject subtask(String summary) {
+    JSONObject fields = new JSONObject();
+    fields.put("summary", summary);
+    JSONObject subtask = new JSONObject();
+    subtask.put("fields", fields);
+    return subtask;
+  }
+
+  private static JSONObject legacyFindSubtask(String language, JSONArray tasks) {
+    for (JSONObject subt : (Iterable<JSONObject>) tasks) {
+      if (legacyIsLanguageMatch(language, JiraHelper.getJsonFieldValue(subt, "summary").trim())) {
+        return subt;
+      }
+    }
+    return null;
+  }
+
+  private static boolean legacyIsLanguageMatch(String language, String candidate) {
+    String ucLanguage = language.toUpperCase();
+    String ucCandidate = candidate.toUpperCase();
+
+    if (legacyIsCFamilyMatch(ucLanguage)) {
+      return legacyIsCFamilyMatch(ucCandidate);
+    }
+    if (ucLanguage.equals(ucCandidate)) {
+      return true;
+    }
+    if (!ucCandidate.startsWith(ucLanguage)) {
+      return false;
+    }
+    return ucCandidate.matches(ucLanguage + "\\W.*");
+  }
+
+  private static boolean legacyIsCFamilyMatch(String candidate) {
+    String[] cFamily = {"C-Family", "C", "CPP", "C++", "Objective-C"};
+
+    if ("C#".equalsIgnoreCase(candidate) || candidate.matches("(?i:C#\\W.*)")) {
+      return false;
+    }
+    for (String option : cFamily) {
+      if (option.equalsIgnoreCase(candidate) || candidate.matches("(?i:" + option + "\\W.*)")) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
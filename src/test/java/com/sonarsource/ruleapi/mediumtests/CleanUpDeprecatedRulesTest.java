@@ -5,6 +5,7 @@
  */
 package com.sonarsource.ruleapi.mediumtests;
 
+import com.sonarsource.ruleapi.get.JiraFetcherImpl;
 import com.sonarsource.ruleapi.services.IntegrityEnforcementService;
 import org.apache.commons.io.IOUtils;
 import org.junit.After;
@@ -14,6 +15,7 @@ import org.mockserver.client.server.MockServerClient;
 import org.mockserver.junit.MockServerRule;
 import org.mockserver.model.HttpRequest;
 import org.mockserver.model.HttpResponse;
+import org.mockserver.verify.VerificationTimes;
 
 import java.nio.charset.StandardCharsets;
 
@@ -37,6 +39,7 @@ public class CleanUpDeprecatedRulesTest {
 
   @After
   public void restoreBaseUrl() {
+    JiraFetcherImpl.snapshot().invalidate();
     if (originalBaseUrl == null) {
       System.clearProperty("ruleApi.baseUrl");
     } else {
@@ -53,7 +56,7 @@ public class CleanUpDeprecatedRulesTest {
     ).respond(
       HttpResponse
         .response()
-        .withBody(IOUtils.toString(getClass().getResourceAsStream("/rspec-json/search-superseded.json"), StandardCharsets.UTF_8), StandardCharsets.UTF_8)
+        .withBody(IOUtils.toString(getClass().getResourceAsStream("/rspec-json/search-deprecated.json"), StandardCharsets.UTF_8), StandardCharsets.UTF_8)
     );
     mockServerClient.when(
       HttpRequest
@@ -95,21 +98,12 @@ public class CleanUpDeprecatedRulesTest {
       param("fields", "*all,-comment,-assignee,-project,-reporter,-creator,-votes,-watches,-parent"),
       param("startAt", "0")
     ));
-    // Search for "DEPRECATED" rules
-    mockServerClient.verify(HttpRequest.request().withPath("/search").withQueryStringParameters(
-      param("expand", "names"),
-      param("jql", "project=RSPEC " +
-        "AND resolution = Unresolved " +
-        "AND issuetype != Language-Specification " +
-        "AND ( issueFunction in hasLinks(\"is deprecated by\") OR status = DEPRECATED)"),
-      param("maxResults", "1000"),
-      param("fields", "*all,-comment,-assignee,-project,-reporter,-creator,-votes,-watches,-parent"),
-      param("startAt", "0")
-    ));
+    // Search for "DEPRECATED" rules is answered from the initial search
+    mockServerClient.verify(HttpRequest.request().withPath("/search"), VerificationTimes.exactly(1));
     // RSPEC-1768 is deprecated by RSPEC-2583, fetched in the process
     mockServerClient.verify(HttpRequest.request().withPath("/issue/RSPEC-2583"));
 
-    // RSPEC-1768 has a "is deprecated by" (sic) outbound link but has status != DEPRECATED, should be updated
+    // RSPEC-1768 "is deprecated by" RSPEC-2583 but has status != DEPRECATED, should be updated
     mockServerClient.verify(HttpRequest.request().withPath("/issue/RSPEC-1768/transitions"));
     mockServerClient.verify(HttpRequest.request()
       .withMethod("POST")
@@ -119,4 +113,88 @@ public class CleanUpDeprecatedRulesTest {
     mockServerClient.verify(HttpRequest.request().withPath("/issue/RSPEC-1768/editmeta"));
     mockServerClient.verify(HttpRequest.request().withMethod("PUT").withPath("/issue/RSPEC-1768"));
   }
+
+  @Test
+  public void shouldFetchASharedReplacementOnce() throws Exception {
+    mockServerClient.when(
+      HttpRequest
+        .request()
+        .withPath("/search")
+    ).respond(
+      HttpResponse
+        .response()
+        .withBody(IOUtils.toString(getClass().getResourceAsStream("/rspec-json/search-deprecated-shared-replacement.json"), StandardCharsets.UTF_8), StandardCharsets.UTF_8)
+    );
+    mockServerClient.when(
+      HttpRequest
+        .request()
+        .withMethod("GET")
+        .withPath("/issue/RSPEC-2583")
+    ).respond(
+      HttpResponse
+        .response()
+        .withBody(IOUtils.toString(getClass().getResourceAsStream("/rspec-json/RSPEC-2583.json"), StandardCharsets.UTF_8), StandardCharsets.UTF_8)
+    );
+    mockServerClient.when(
+      HttpRequest
+        .request()
+        .withPath("/issue/RSPEC-.*/transitions")
+    ).respond(
+      HttpResponse
+        .response()
+        .withBody(IOUtils.toString(getClass().getResourceAsStream("/rspec-json/RSPEC-1768-transitions.json"), StandardCharsets.UTF_8), StandardCharsets.UTF_8)
+    );
+    mockServerClient.when(
+      HttpRequest
+        .request()
+        .withPath("/issue/RSPEC-.*/editmeta")
+    ).respond(
+      HttpResponse
+        .response()
+        .withBody(IOUtils.toString(getClass().getResourceAsStream("/rspec-json/RSPEC-1768-editmeta.json"), StandardCharsets.UTF_8), StandardCharsets.UTF_8)
+    );
+    mockServerClient.when(
+      HttpRequest
+        .request()
+        .withMethod("PUT")
+        .withPath("/issue/RSPEC-.*")
+    ).respond(
+      HttpResponse
+        .response()
+        .withStatusCode(204)
+    );
+
+    IntegrityEnforcementService integrityService = new IntegrityEnforcementService("", "");
+
+    integrityService.cleanUpDeprecatedRules();
+
+    // RSPEC-1768 and RSPEC-1769 are both deprecated by RSPEC-2583, which each of them updates
+    mockServerClient.verify(HttpRequest.request().withMethod("PUT").withPath("/issue/RSPEC-2583"), VerificationTimes.exactly(2));
+    // but which is only fetched once
+    mockServerClient.verify(HttpRequest.request().withMethod("GET").withPath("/issue/RSPEC-2583"), VerificationTimes.exactly(1));
+    mockServerClient.verify(HttpRequest.request().withMethod("PUT").withPath("/issue/RSPEC-1768"));
+    mockServerClient.verify(HttpRequest.request().withMethod("PUT").withPath("/issue/RSPEC-1769"));
+  }
+
+  @Test
+  public void shouldIgnoreSupersededRules() throws Exception {
+    mockServerClient.when(
+      HttpRequest
+        .request()
+        .withPath("/search")
+    ).respond(
+      HttpResponse
+        .response()
+        .withBody(IOUtils.toString(getClass().getResourceAsStream("/rspec-json/search-superseded.json"), StandardCharsets.UTF_8), StandardCharsets.UTF_8)
+    );
+
+    IntegrityEnforcementService integrityService = new IntegrityEnforcementService("", "");
+
+    integrityService.cleanUpDeprecatedRules();
+
+    // RSPEC-1768 "is superceded by" RSPEC-2583, which isn't a deprecation
+    mockServerClient.verify(HttpRequest.request().withPath("/search"), VerificationTimes.exactly(1));
+    mockServerClient.verify(HttpRequest.request().withPath("/issue/RSPEC-1768/transitions"), VerificationTimes.exactly(0));
+    mockServerClient.verify(HttpRequest.request().withMethod("PUT").withPath("/issue/RSPEC-1768"), VerificationTimes.exactly(0));
+  }
 }
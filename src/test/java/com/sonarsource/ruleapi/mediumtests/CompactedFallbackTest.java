@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2014-2018 SonarSource SA
+ * All rights reserved
+ * mailto:info AT sonarsource DOT com
+ */
+package com.sonarsource.ruleapi.mediumtests;
+
+import com.sonarsource.ruleapi.get.JiraFetcherImpl;
+import org.apache.commons.io.IOUtils;
+import org.json.simple.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockserver.client.server.MockServerClient;
+import org.mockserver.junit.MockServerRule;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.verify.VerificationTimes;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CompactedFallbackTest {
+
+  @org.junit.Rule
+  public MockServerRule mockServerRule = new MockServerRule(this);
+
+  // This field is populated by mockServerRule
+  private MockServerClient mockServerClient;
+
+  private String originalBaseUrl;
+
+  @Before
+  public void setupBaseUrl() {
+    String baseUrl = String.format("http://localhost:%d/", mockServerRule.getPort());
+    originalBaseUrl = System.setProperty("ruleApi.baseUrl", baseUrl);
+  }
+
+  @After
+  public void restoreBaseUrl() {
+    JiraFetcherImpl.snapshot().invalidate();
+    if (originalBaseUrl == null) {
+      System.clearProperty("ruleApi.baseUrl");
+    } else {
+      System.setProperty("ruleApi.baseUrl", originalBaseUrl);
+    }
+  }
+
+  @Test
+  public void shouldCompactIssuesFetchedOneByOne() throws IOException {
+    // the search by key is rejected, the issue is then fetched on its own
+    mockServerClient.when(
+      HttpRequest.request().withPath("/search")
+    ).respond(
+      HttpResponse.response().withStatusCode(400)
+    );
+    mockServerClient.when(
+      HttpRequest.request().withPath("/issue/RSPEC-2576")
+    ).respond(
+      HttpResponse.response().withBody(resource("/rspec-json/RSPEC-2576.json"), StandardCharsets.UTF_8)
+    );
+
+    Map<String, JSONObject> issues = JiraFetcherImpl.instance().fetchIssuesByKey(Collections.singletonList("S2576"));
+
+    assertThat(issues).containsOnlyKeys("S2576");
+    assertCompacted(issues.get("S2576"));
+    assertCompacted(JiraFetcherImpl.instance().fetchIssueByKey("RSPEC-2576"));
+    mockServerClient.verify(HttpRequest.request().withPath("/search"), VerificationTimes.exactly(1));
+  }
+
+  @Test
+  public void shouldCompactSearchedIssues() throws IOException {
+    mockServerClient.when(
+      HttpRequest.request().withPath("/field")
+    ).respond(
+      HttpResponse.response().withBody("[{\"id\":\"summary\",\"name\":\"Summary\"},{\"id\":\"status\",\"name\":\"Status\"}]",
+        StandardCharsets.UTF_8)
+    );
+    mockServerClient.when(
+      HttpRequest.request().withPath("/search")
+    ).respond(
+      HttpResponse.response().withBody(resource("/rspec-json/search.json"), StandardCharsets.UTF_8)
+    );
+
+    List<JSONObject> issues = JiraFetcherImpl.instance().fetchIssuesBySearch("key = RSPEC-2576", Arrays.asList("summary", "status"));
+
+    assertThat(issues).hasSize(1);
+    assertCompacted(issues.get(0));
+    // answered by Jira, the snapshot isn't loaded for a few fields
+    assertThat(JiraFetcherImpl.snapshot().isLoaded()).isFalse();
+  }
+
+  private static void assertCompacted(JSONObject issue) {
+    JSONObject fields = (JSONObject) issue.get("fields");
+    assertThat(((JSONObject) fields.get("status")).keySet()).containsOnly("name");
+    assertThat(fields.keySet()).doesNotContain("created");
+  }
+
+  private String resource(String path) throws IOException {
+    return IOUtils.toString(getClass().getResourceAsStream(path), StandardCharsets.UTF_8);
+  }
+}
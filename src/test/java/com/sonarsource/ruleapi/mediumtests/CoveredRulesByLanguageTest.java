@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2014-2018 SonarSource SA
+ * All rights reserved
+ * mailto:info AT sonarsource DOT com
+ */
+package com.sonarsource.ruleapi.mediumtests;
+
+import com.sonarsource.ruleapi.domain.Rule;
+import com.sonarsource.ruleapi.get.JiraFetcherImpl;
+import com.sonarsource.ruleapi.get.RuleMaker;
+import org.apache.commons.io.IOUtils;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockserver.client.server.MockServerClient;
+import org.mockserver.junit.MockServerRule;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.verify.VerificationTimes;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static com.sonarsource.ruleapi.get.JsonFixtures.copy;
+import static com.sonarsource.ruleapi.get.JsonFixtures.fields;
+import static com.sonarsource.ruleapi.get.JsonFixtures.options;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockserver.model.Parameter.param;
+
+public class CoveredRulesByLanguageTest {
+
+  @org.junit.Rule
+  public MockServerRule mockServerRule = new MockServerRule(this);
+
+  // This field is populated by mockServerRule
+  private MockServerClient mockServerClient;
+
+  private String originalBaseUrl;
+
+  @Before
+  public void setup() throws IOException, ParseException {
+    String baseUrl = String.format("http://localhost:%d/", mockServerRule.getPort());
+    originalBaseUrl = System.setProperty("ruleApi.baseUrl", baseUrl);
+
+    JSONObject search = (JSONObject) new JSONParser().parse(
+      IOUtils.toString(getClass().getResourceAsStream("/rspec-json/search.json"), StandardCharsets.UTF_8));
+    JSONObject template = (JSONObject) ((JSONArray) search.get("issues")).get(0);
+
+    JSONArray issues = new JSONArray();
+    issues.add(issue(template, "RSPEC-1", "Java", "C#"));
+    issues.add(issue(template, "RSPEC-2", "C#"));
+    issues.add(issue(template, "RSPEC-3", "Java"));
+    issues.add(issue(template, "RSPEC-4"));
+    search.put("issues", issues);
+    search.put("total", (long) issues.size());
+    search.put("maxResults", (long) issues.size());
+
+    mockServerClient.when(
+      HttpRequest.request().withPath("/search").withQueryStringParameter(param("jql", "project=RSPEC"))
+    ).respond(
+      HttpResponse.response().withBody(search.toJSONString(), StandardCharsets.UTF_8)
+    );
+  }
+
+  @After
+  public void restoreBaseUrl() {
+    JiraFetcherImpl.snapshot().invalidate();
+    if (originalBaseUrl == null) {
+      System.clearProperty("ruleApi.baseUrl");
+    } else {
+      System.setProperty("ruleApi.baseUrl", originalBaseUrl);
+    }
+  }
+
+  @Test
+  public void shouldSplitOneSearchByCoveredLanguage() {
+
+    Map<String, List<Rule>> rules = RuleMaker.getRulesByJqlAndCoveredLanguage("\"Covered Languages\" is not EMPTY",
+      Arrays.asList("Java", "C#", "Go"));
+
+    assertThat(rules).containsOnlyKeys("Java", "C#", "Go");
+    assertThat(rules.get("Java")).extracting(Rule::getKey).containsExactly("RSPEC-1", "RSPEC-3");
+    assertThat(rules.get("C#")).extracting(Rule::getKey).containsExactly("RSPEC-1", "RSPEC-2");
+    assertThat(rules.get("Go")).isEmpty();
+    assertThat(rules.get("Java")).extracting(Rule::getLanguage).containsOnly("Java");
+    assertThat(rules.get("Java").get(0)).isNotSameAs(rules.get("C#").get(0));
+    assertThat(rules.get("Java").get(0).getTitle()).isEqualTo(rules.get("C#").get(0).getTitle()).isNotEmpty();
+
+    mockServerClient.verify(HttpRequest.request().withPath("/search"), VerificationTimes.exactly(1));
+    mockServerClient.verify(HttpRequest.request().withPath("/issue/.*"), VerificationTimes.exactly(0));
+  }
+
+  private static JSONObject issue(JSONObject template, String key, String... coveredLanguages) {
+    JSONObject issue = copy(template, key);
+    fields(issue).put("subtasks", new JSONArray());
+    fields(issue).put("customfield_10004", coveredLanguages.length == 0 ? null : options(coveredLanguages));
+    return issue;
+  }
+}
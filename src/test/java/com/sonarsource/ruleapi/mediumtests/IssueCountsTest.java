@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2014-2018 SonarSource SA
+ * All rights reserved
+ * mailto:info AT sonarsource DOT com
+ */
+package com.sonarsource.ruleapi.mediumtests;
+
+import com.sonarsource.ruleapi.get.RuleMaker;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.Test;
+import org.mockserver.client.server.MockServerClient;
+import org.mockserver.junit.MockServerRule;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.verify.VerificationTimes;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockserver.model.Parameter.param;
+
+public class IssueCountsTest {
+
+  private static final String ISSUE_SEARCH = "/counts/api/issues/search";
+
+  @org.junit.Rule
+  public MockServerRule mockServerRule = new MockServerRule(this);
+
+  // This field is populated by mockServerRule
+  private MockServerClient mockServerClient;
+
+  @Test
+  public void shouldCountIssuesByBatchesOnce() {
+    JSONArray values = new JSONArray();
+    values.add(facetValue("squid:S1", 12L));
+    values.add(facetValue("squid:S55", 3L));
+    values.add(facetValue("squid:S999", 1L));
+    JSONObject facet = new JSONObject();
+    facet.put("property", "rules");
+    facet.put("values", values);
+    JSONArray facets = new JSONArray();
+    facets.add(facet);
+    JSONObject body = new JSONObject();
+    body.put("total", 15L);
+    body.put("facets", facets);
+
+    mockServerClient.when(HttpRequest.request().withPath(ISSUE_SEARCH).withQueryStringParameter(param("facets", "rules")))
+      .respond(HttpResponse.response().withBody(body.toJSONString(), StandardCharsets.UTF_8));
+
+    List<String> ruleKeys = new ArrayList<>();
+    for (int i = 1; i <= 60; i++) {
+      ruleKeys.add("squid:S" + i);
+    }
+    String instance = String.format("http://localhost:%d/counts", mockServerRule.getPort());
+
+    Map<String, Long> counts = RuleMaker.getIssueCountsFromSonarQube(instance, ruleKeys);
+
+    assertThat(counts).hasSize(60).containsEntry("squid:S1", 12L).containsEntry("squid:S55", 3L).containsEntry("squid:S2", 0L)
+      .doesNotContainKey("squid:S999");
+    mockServerClient.verify(HttpRequest.request().withPath(ISSUE_SEARCH), VerificationTimes.exactly(2));
+
+    assertThat(RuleMaker.getIssueCountsFromSonarQube(instance, Arrays.asList("squid:S55", "squid:S1")))
+      .containsOnly(entry("squid:S55", 3L), entry("squid:S1", 12L));
+    mockServerClient.verify(HttpRequest.request().withPath(ISSUE_SEARCH), VerificationTimes.exactly(2));
+  }
+
+  private static JSONObject facetValue(String ruleKey, long count) {
+    JSONObject value = new JSONObject();
+    value.put("val", ruleKey);
+    value.put("count", count);
+    return value;
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2014-2018 SonarSource SA
+ * All rights reserved
+ * mailto:info AT sonarsource DOT com
+ */
+package com.sonarsource.ruleapi.mediumtests;
+
+import com.sonarsource.ruleapi.domain.Rule;
+import com.sonarsource.ruleapi.get.JiraFetcherImpl;
+import com.sonarsource.ruleapi.get.RuleMaker;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockserver.client.server.MockServerClient;
+import org.mockserver.junit.MockServerRule;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.verify.VerificationTimes;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockserver.model.Parameter.param;
+
+public class LanguageNeutralJoinTest {
+
+  @org.junit.Rule
+  public MockServerRule mockServerRule = new MockServerRule(this);
+
+  // This field is populated by mockServerRule
+  private MockServerClient mockServerClient;
+
+  private String originalBaseUrl;
+
+  @Before
+  public void setup() throws IOException {
+    String baseUrl = String.format("http://localhost:%d/", mockServerRule.getPort());
+    originalBaseUrl = System.setProperty("ruleApi.baseUrl", baseUrl);
+
+    mockServerClient.when(
+      HttpRequest.request().withPath("/search").withQueryStringParameter(param("jql", "project=RSPEC"))
+    ).respond(
+      HttpResponse.response()
+        .withBody(IOUtils.toString(getClass().getResourceAsStream("/rspec-json/search.json"), StandardCharsets.UTF_8), StandardCharsets.UTF_8)
+    );
+  }
+
+  @After
+  public void restoreBaseUrl() {
+    JiraFetcherImpl.snapshot().invalidate();
+    if (originalBaseUrl == null) {
+      System.clearProperty("ruleApi.baseUrl");
+    } else {
+      System.setProperty("ruleApi.baseUrl", originalBaseUrl);
+    }
+  }
+
+  @Test
+  public void shouldJoinRulesAgainstTheSnapshotOnly() {
+
+    Map<String, Rule> rules = RuleMaker.getLanguageNeutralRulesByKey(Arrays.asList("RSPEC-2576", "S2576"));
+
+    assertThat(rules).containsOnlyKeys("RSPEC-2576", "S2576");
+    assertThat(rules.get("S2576").getLookupKey()).isEqualTo("S2576");
+    mockServerClient.verify(HttpRequest.request().withPath("/search"), VerificationTimes.exactly(1));
+    mockServerClient.verify(HttpRequest.request().withPath("/issue/.*"), VerificationTimes.exactly(0));
+
+    Rule expected = RuleMaker.getRulesByKey(Collections.singletonList("RSPEC-2576"), "").get("RSPEC-2576");
+    for (Rule rule : rules.values()) {
+      assertThat(rule.getKey()).isEqualTo(expected.getKey());
+      assertThat(rule.getCwe()).isEqualTo(expected.getCwe()).isNotEmpty();
+      assertThat(rule.getOwasp()).isEqualTo(expected.getOwasp());
+      assertThat(rule.getSansTop25()).isEqualTo(expected.getSansTop25());
+      assertThat(rule.getCoveredLanguages()).isEqualTo(expected.getCoveredLanguages());
+    }
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2014-2018 SonarSource SA
+ * All rights reserved
+ * mailto:info AT sonarsource DOT com
+ */
+package com.sonarsource.ruleapi.mediumtests;
+
+import com.sonarsource.ruleapi.get.JiraFetcherImpl;
+import org.json.simple.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockserver.client.server.MockServerClient;
+import org.mockserver.junit.MockServerRule;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.verify.VerificationTimes;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.sonarsource.ruleapi.get.JsonFixtures.issue;
+import static com.sonarsource.ruleapi.get.JsonFixtures.searchPage;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockserver.model.Parameter.param;
+
+public class PaginatedSearchTest {
+
+  @org.junit.Rule
+  public MockServerRule mockServerRule = new MockServerRule(this);
+
+  // This field is populated by mockServerRule
+  private MockServerClient mockServerClient;
+
+  private String originalBaseUrl;
+
+  @Before
+  public void setupBaseUrl() {
+    String baseUrl = String.format("http://localhost:%d/", mockServerRule.getPort());
+    originalBaseUrl = System.setProperty("ruleApi.baseUrl", baseUrl);
+  }
+
+  @After
+  public void restoreBaseUrl() {
+    JiraFetcherImpl.snapshot().invalidate();
+    if (originalBaseUrl == null) {
+      System.clearProperty("ruleApi.baseUrl");
+    } else {
+      System.setProperty("ruleApi.baseUrl", originalBaseUrl);
+    }
+  }
+
+  @Test
+  public void shouldFetchAllPagesWhenServerCapsPageSize() {
+    // the server hands out 2 issues per page even though 1000 are requested
+    mockPage(0, "RSPEC-1", "RSPEC-2");
+    mockPage(2, "RSPEC-3", "RSPEC-4");
+    mockPage(4, "RSPEC-5");
+
+    assertThat(JiraFetcherImpl.snapshot().get()).containsOnlyKeys("RSPEC-1", "RSPEC-2", "RSPEC-3", "RSPEC-4", "RSPEC-5");
+
+    for (int startAt : new int[] {0, 2, 4}) {
+      mockServerClient.verify(HttpRequest.request().withPath("/search").withQueryStringParameter(param("startAt", String.valueOf(startAt))),
+        VerificationTimes.exactly(1));
+    }
+    mockServerClient.verify(HttpRequest.request().withPath("/search"), VerificationTimes.exactly(3));
+  }
+
+  private void mockPage(int startAt, String... keys) {
+    List<JSONObject> issues = new ArrayList<>();
+    for (String key : keys) {
+      issues.add(issue(key, new JSONObject()));
+    }
+
+    mockServerClient.when(
+      HttpRequest
+        .request()
+        .withPath("/search")
+        .withQueryStringParameter(param("startAt", String.valueOf(startAt)))
+    ).respond(
+      HttpResponse
+        .response()
+        .withBody(searchPage(startAt, 2, 5, issues).toJSONString(), StandardCharsets.UTF_8)
+    );
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2014-2018 SonarSource SA
+ * All rights reserved
+ * mailto:info AT sonarsource DOT com
+ */
+package com.sonarsource.ruleapi.mediumtests;
+
+import com.sonarsource.ruleapi.domain.Rule;
+import com.sonarsource.ruleapi.get.JiraFetcherImpl;
+import com.sonarsource.ruleapi.get.RuleMaker;
+import com.sonarsource.ruleapi.utilities.Parallel;
+import org.apache.commons.io.IOUtils;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockserver.client.server.MockServerClient;
+import org.mockserver.junit.MockServerRule;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockserver.model.Parameter.param;
+
+public class ParallelRuleMakingTest {
+
+  private static final int ISSUE_COUNT = 40;
+  private static final String QUERY = "issuetype != Language-Specification";
+
+  @org.junit.Rule
+  public MockServerRule mockServerRule = new MockServerRule(this);
+
+  // This field is populated by mockServerRule
+  private MockServerClient mockServerClient;
+
+  private String originalBaseUrl;
+
+  @Before
+  public void setup() throws Exception {
+    String baseUrl = String.format("http://localhost:%d/", mockServerRule.getPort());
+    originalBaseUrl = System.setProperty("ruleApi.baseUrl", baseUrl);
+
+    String json = IOUtils.toString(getClass().getResourceAsStream("/rspec-json/search.json"), StandardCharsets.UTF_8);
+    JSONObject page = (JSONObject) new JSONParser().parse(json);
+    String issue = ((JSONObject) ((JSONArray) page.get("issues")).get(0)).toJSONString();
+    JSONArray issues = new JSONArray();
+    for (int i = 1; i <= ISSUE_COUNT; i++) {
+      JSONObject copy = (JSONObject) new JSONParser().parse(issue);
+      copy.put("key", "RSPEC-" + i);
+      ((JSONObject) copy.get("fields")).put("summary", "Rule " + i);
+      issues.add(copy);
+    }
+    page.put("issues", issues);
+    page.put("total", ISSUE_COUNT);
+
+    mockServerClient.when(
+      HttpRequest.request().withPath("/search").withQueryStringParameter(param("jql", "project=RSPEC"))
+    ).respond(
+      HttpResponse.response().withBody(page.toJSONString(), StandardCharsets.UTF_8)
+    );
+  }
+
+  @After
+  public void restore() {
+    JiraFetcherImpl.snapshot().invalidate();
+    System.clearProperty(Parallel.CPU_PARALLELISM_PROPERTY);
+    if (originalBaseUrl == null) {
+      System.clearProperty("ruleApi.baseUrl");
+    } else {
+      System.setProperty("ruleApi.baseUrl", originalBaseUrl);
+    }
+  }
+
+  @Test
+  public void shouldMakeTheSameRulesInTheSameOrderInParallel() {
+
+    System.setProperty(Parallel.CPU_PARALLELISM_PROPERTY, "1");
+    List<Rule> sequential = RuleMaker.getRulesByJql(QUERY, "Java");
+    System.setProperty(Parallel.CPU_PARALLELISM_PROPERTY, "8");
+    List<Rule> parallel = RuleMaker.getRulesByJql(QUERY, "Java");
+
+    List<String> expectedTitles = new ArrayList<>();
+    for (int i = 1; i <= ISSUE_COUNT; i++) {
+      expectedTitles.add("Rule " + i);
+    }
+    assertThat(parallel).extracting(Rule::getTitle).containsExactlyElementsOf(expectedTitles);
+    for (int i = 0; i < ISSUE_COUNT; i++) {
+      assertThat(parallel.get(i)).isEqualToComparingFieldByField(sequential.get(i));
+    }
+  }
+}
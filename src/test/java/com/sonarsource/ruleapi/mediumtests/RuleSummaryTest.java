@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2014-2018 SonarSource SA
+ * All rights reserved
+ * mailto:info AT sonarsource DOT com
+ */
+package com.sonarsource.ruleapi.mediumtests;
+
+import com.sonarsource.ruleapi.domain.Rule;
+import com.sonarsource.ruleapi.domain.RuleException;
+import com.sonarsource.ruleapi.domain.RuleSummary;
+import com.sonarsource.ruleapi.get.JiraFetcherImpl;
+import com.sonarsource.ruleapi.get.RuleMaker;
+import org.apache.commons.io.IOUtils;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockserver.client.server.MockServerClient;
+import org.mockserver.junit.MockServerRule;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.verify.VerificationTimes;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockserver.model.Parameter.param;
+
+public class RuleSummaryTest {
+
+  private static final String QUERY = "\"Irrelevant for Languages\" is not empty";
+  private static final String SUMMARY_FIELDS = "summary,status,issuetype,labels,customfield_\\d+,customfield_\\d+,customfield_10436,customfield_10251";
+
+  @org.junit.Rule
+  public MockServerRule mockServerRule = new MockServerRule(this);
+
+  // This field is populated by mockServerRule
+  private MockServerClient mockServerClient;
+
+  private String originalBaseUrl;
+
+  @Before
+  public void setup() throws Exception {
+    String baseUrl = String.format("http://localhost:%d/", mockServerRule.getPort());
+    originalBaseUrl = System.setProperty("ruleApi.baseUrl", baseUrl);
+
+    String json = IOUtils.toString(getClass().getResourceAsStream("/rspec-json/search.json"), StandardCharsets.UTF_8);
+    JSONArray fields = new JSONArray();
+    for (Map.Entry<?, ?> name : ((Map<?, ?>) ((JSONObject) new JSONParser().parse(json)).get("names")).entrySet()) {
+      JSONObject field = new JSONObject();
+      field.put("id", name.getKey());
+      field.put("name", name.getValue());
+      fields.add(field);
+    }
+
+    mockServerClient.when(
+      HttpRequest.request().withPath("/field")
+    ).respond(
+      HttpResponse.response().withBody(fields.toJSONString(), StandardCharsets.UTF_8)
+    );
+    fields.removeIf(field -> "Covered Languages".equals(((JSONObject) field).get("name")));
+    mockServerClient.when(
+      HttpRequest.request().withPath("/renamed/field")
+    ).respond(
+      HttpResponse.response().withBody(fields.toJSONString(), StandardCharsets.UTF_8)
+    );
+    mockServerClient.when(
+      HttpRequest.request().withPath("/search").withQueryStringParameter(param("jql", "project=RSPEC.*"))
+    ).respond(
+      HttpResponse.response().withBody(json, StandardCharsets.UTF_8)
+    );
+  }
+
+  @After
+  public void restore() {
+    JiraFetcherImpl.snapshot().invalidate();
+    if (originalBaseUrl == null) {
+      System.clearProperty("ruleApi.baseUrl");
+    } else {
+      System.setProperty("ruleApi.baseUrl", originalBaseUrl);
+    }
+  }
+
+  @Test
+  public void shouldAskJiraOnlyForTheSummarizedFields() {
+
+    List<RuleSummary> summaries = RuleMaker.getRuleSummariesByJql(QUERY, "CWE");
+
+    mockServerClient.verify(HttpRequest.request().withPath("/search").withQueryStringParameter(param("fields", SUMMARY_FIELDS)),
+      VerificationTimes.exactly(1));
+    mockServerClient.verify(HttpRequest.request().withPath("/search").withQueryStringParameter(param("fields", "\\*all.*")),
+      VerificationTimes.exactly(0));
+
+    assertThat(summaries).hasSize(1);
+    RuleSummary summary = summaries.get(0);
+    assertThat(summary.getKey()).isEqualTo("RSPEC-2576");
+    assertThat(summary.getTitle()).isEqualTo("Web applications should not be vulnerable to cross-site-scripting (XSS) attacks");
+    assertThat(summary.getType()).isEqualTo(Rule.Type.VULNERABILITY);
+    assertThat(summary.getTags()).containsOnly("cwe", "owasp-a7", "sans-top25-insecure");
+    assertThat(summary.getTargetedLanguages()).containsOnly("C#", "Java", "PHP");
+    assertThat(summary.getIrrelevantLanguages()).contains("ABAP", "XML");
+    assertThat(summary.getCoveredLanguages()).isEmpty();
+    assertThat(summary.getReferenceFieldValues("CWE")).containsExactly("CWE-79", "CWE-352", "CWE-82", "CWE-83", "CWE-87");
+    assertThat(summary.getReferenceFieldValues("OWASP")).isEmpty();
+  }
+
+  @Test
+  public void shouldFailOnAnUnknownField() {
+
+    System.setProperty("ruleApi.baseUrl", String.format("http://localhost:%d/renamed/", mockServerRule.getPort()));
+
+    assertThatThrownBy(() -> RuleMaker.getRuleSummariesByJql(QUERY, "CWE"))
+      .isInstanceOf(RuleException.class)
+      .hasMessageContaining("Covered Languages");
+    mockServerClient.verify(HttpRequest.request().withPath("/renamed/search"), VerificationTimes.exactly(0));
+  }
+
+  @Test
+  public void shouldSummarizeTheLoadedSnapshotLikeTheRules() {
+
+    JiraFetcherImpl.snapshot().get();
+    List<RuleSummary> summaries = RuleMaker.getRuleSummariesByJql(QUERY, "CWE");
+    Rule rule = RuleMaker.getRulesByJql(QUERY, "").get(0);
+
+    mockServerClient.verify(HttpRequest.request().withPath("/search").withQueryStringParameter(param("fields", SUMMARY_FIELDS)),
+      VerificationTimes.exactly(0));
+
+    assertThat(summaries).hasSize(1);
+    RuleSummary summary = summaries.get(0);
+    assertThat(summary.getKey()).isEqualTo(rule.getKey());
+    assertThat(summary.getTitle()).isEqualTo(rule.getTitle());
+    assertThat(summary.getStatus()).isEqualTo(rule.getStatus());
+    assertThat(summary.getType()).isEqualTo(rule.getType());
+    assertThat(summary.getTags()).isEqualTo(rule.getTags());
+    assertThat(summary.getTargetedLanguages()).isEqualTo(rule.getTargetedLanguages());
+    assertThat(summary.getCoveredLanguages()).isEqualTo(rule.getCoveredLanguages());
+    assertThat(summary.getIrrelevantLanguages()).isEqualTo(rule.getIrrelevantLanguages());
+    assertThat(summary.getReferenceFieldValues("CWE")).isEqualTo(rule.getCwe());
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2014-2018 SonarSource SA
+ * All rights reserved
+ * mailto:info AT sonarsource DOT com
+ */
+package com.sonarsource.ruleapi.mediumtests;
+
+import com.sonarsource.ruleapi.domain.Rule;
+import com.sonarsource.ruleapi.get.RuleMaker;
+import com.sonarsource.ruleapi.get.SQFetcherImpl;
+import org.json.simple.JSONObject;
+import org.junit.Test;
+import org.mockserver.client.server.MockServerClient;
+import org.mockserver.junit.MockServerRule;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.verify.VerificationTimes;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static com.sonarsource.ruleapi.get.JsonFixtures.rulesPage;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockserver.model.Parameter.param;
+
+public class SonarQubePaginationTest {
+
+  @org.junit.Rule
+  public MockServerRule mockServerRule = new MockServerRule(this);
+
+  // This field is populated by mockServerRule
+  private MockServerClient mockServerClient;
+
+  @Test
+  public void shouldFetchAllPagesInOrder() {
+    // the server hands out 2 rules per page even though 500 are requested
+    mockPage(5, 2, "java:S3", "java:S4");
+    mockPage(5, 3, "java:S5");
+    mockPage(5, 1, "java:S1", "java:S2");
+
+    List<JSONObject> rules = new SQFetcherImpl().fetchRulesFromSonarQube(getInstance(), "repositories=java");
+
+    assertThat(rules).extracting(rule -> rule.get("key")).containsExactly("java:S1", "java:S2", "java:S3", "java:S4", "java:S5");
+    for (int page = 2; page <= 3; page++) {
+      mockServerClient.verify(HttpRequest.request().withPath("/api/rules/search").withQueryStringParameter(param("p", String.valueOf(page))),
+        VerificationTimes.exactly(1));
+    }
+    mockServerClient.verify(HttpRequest.request().withPath("/api/rules/search"), VerificationTimes.exactly(3));
+  }
+
+  @Test
+  public void shouldAskOnlyForTheFieldsRead() {
+    mockPage(1, 1, "java:S1");
+
+    List<Rule> rules = RuleMaker.getRulesFromSonarQubeByQuery(getInstance(), "repositories=java");
+
+    assertThat(rules).extracting(Rule::getKey).containsExactly("RSPEC-1");
+    assertThat(rules.get(0).getTitle()).isEqualTo("Rule java:S1");
+    mockServerClient.verify(HttpRequest.request().withPath("/api/rules/search")
+      .withQueryStringParameter(param("repositories", "java"))
+      .withQueryStringParameter(param("f", "langName,repo,status,severity,name,htmlDesc,.*,sysTags,params")),
+      VerificationTimes.exactly(1));
+  }
+
+  private String getInstance() {
+    return String.format("http://localhost:%d", mockServerRule.getPort());
+  }
+
+  private void mockPage(long total, int page, String... keys) {
+    HttpRequest request = HttpRequest.request().withPath("/api/rules/search");
+    if (page > 1) {
+      request.withQueryStringParameter(param("p", String.valueOf(page)));
+    }
+    mockServerClient.when(request)
+      .respond(HttpResponse.response().withBody(rulesPage("java", total, page, 2, keys).toJSONString(), StandardCharsets.UTF_8));
+  }
+}
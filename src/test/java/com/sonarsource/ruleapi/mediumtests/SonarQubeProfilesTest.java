@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2014-2018 SonarSource SA
+ * All rights reserved
+ * mailto:info AT sonarsource DOT com
+ */
+package com.sonarsource.ruleapi.mediumtests;
+
+import com.sonarsource.ruleapi.domain.Profile;
+import com.sonarsource.ruleapi.domain.Rule;
+import com.sonarsource.ruleapi.externalspecifications.specifications.RulesInLanguage;
+import com.sonarsource.ruleapi.get.RuleMaker;
+import com.sonarsource.ruleapi.utilities.Language;
+import org.json.simple.JSONObject;
+import org.junit.Test;
+import org.mockserver.client.server.MockServerClient;
+import org.mockserver.junit.MockServerRule;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.verify.VerificationTimes;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static com.sonarsource.ruleapi.get.JsonFixtures.qualityProfiles;
+import static com.sonarsource.ruleapi.get.JsonFixtures.rulesPage;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockserver.model.Parameter.param;
+
+public class SonarQubeProfilesTest {
+
+  @org.junit.Rule
+  public MockServerRule mockServerRule = new MockServerRule(this);
+
+  // This field is populated by mockServerRule
+  private MockServerClient mockServerClient;
+
+  @Test
+  public void shouldAddTheRulesOfEveryProfile() {
+    JSONObject profilesBody = qualityProfiles("AV1", "Sonar way", "java", "AV2", "FindBugs", "java", "AV3", "Drupal", "php",
+      "AV4", "Security", "java");
+    mockServerClient.when(HttpRequest.request().withPath("/api/qualityprofiles/search"))
+      .respond(HttpResponse.response().withBody(profilesBody.toJSONString(), StandardCharsets.UTF_8));
+
+    mockRules(param("qprofile", "AV1"), "squid:S1", "squid:S2");
+    mockRules(param("qprofile", "AV2"), "squid:S2");
+    mockRules(param("qprofile", "AV4"), "squid:S2", "squid:S3", "squid:S404");
+    mockRules(param("repositories", "squid,common-java"), "squid:S1", "squid:S2", "squid:S3");
+
+    List<Rule> rules = RuleMaker.getRulesFromSonarQubeForLanguage(Language.JAVA, getInstance());
+
+    assertThat(rules).extracting(Rule::getKey).containsExactly("RSPEC-1", "RSPEC-2", "RSPEC-3");
+    assertThat(rules.get(0).getDefaultProfiles()).extracting(Profile::getName).containsOnly("Sonar way");
+    assertThat(rules.get(1).getDefaultProfiles()).extracting(Profile::getName).containsOnly("Sonar way", "FindBugs", "Security");
+    assertThat(rules.get(2).getDefaultProfiles()).extracting(Profile::getName).containsOnly("Security");
+    mockServerClient.verify(HttpRequest.request().withPath("/api/rules/search").withQueryStringParameter(param("qprofile", "AV3")),
+      VerificationTimes.exactly(0));
+  }
+
+  @Test
+  public void shouldFetchTheRulesOfALanguageOnce() {
+    JSONObject profilesBody = qualityProfiles("AV1", "Sonar way", "java");
+    mockServerClient.when(HttpRequest.request().withPath("/cached/api/qualityprofiles/search"))
+      .respond(HttpResponse.response().withBody(profilesBody.toJSONString(), StandardCharsets.UTF_8));
+
+    mockRules("/cached", param("qprofile", "AV1"), "squid:S1");
+    mockRules("/cached", param("repositories", "squid,common-java"), "squid:S1", "squid:S2");
+    String instance = getInstance() + "/cached";
+
+    List<Rule> rules = RuleMaker.getRulesFromSonarQubeForLanguage(Language.JAVA, instance);
+    rules.get(0).getTags().add("changed");
+    rules.get(0).getDefaultProfiles().clear();
+    rules.remove(1);
+
+    List<Rule> again = RuleMaker.getRulesFromSonarQubeForLanguage(Language.JAVA, instance);
+
+    assertThat(again).extracting(Rule::getKey).containsExactly("RSPEC-1", "RSPEC-2");
+    assertThat(again.get(0).getTags()).doesNotContain("changed");
+    assertThat(again.get(0).getDefaultProfiles()).extracting(Profile::getName).containsOnly("Sonar way");
+    mockServerClient.verify(HttpRequest.request().withPath("/cached/api/qualityprofiles/search"), VerificationTimes.exactly(1));
+    mockServerClient.verify(HttpRequest.request().withPath("/cached/api/rules/search"), VerificationTimes.exactly(2));
+  }
+
+  @Test
+  public void shouldBadgeTheRulesOfALanguage() {
+    mockServerClient.when(HttpRequest.request().withPath("/badge/api/qualityprofiles/search"))
+      .respond(HttpResponse.response().withBody(qualityProfiles().toJSONString(), StandardCharsets.UTF_8));
+    mockRules("/badge", param("repositories", "squid,common-java"), "squid:S1", "squid:S2", "squid:S3");
+
+    assertThat(new RulesInLanguage().getBadgeValue(getInstance() + "/badge", Language.JAVA)).isEqualTo("3");
+  }
+
+  private String getInstance() {
+    return String.format("http://localhost:%d", mockServerRule.getPort());
+  }
+
+  private void mockRules(org.mockserver.model.Parameter parameter, String... keys) {
+    mockRules("", parameter, keys);
+  }
+
+  private void mockRules(String contextPath, org.mockserver.model.Parameter parameter, String... keys) {
+    JSONObject body = rulesPage("squid", keys.length, 1, 500, keys);
+    mockServerClient.when(HttpRequest.request().withPath(contextPath + "/api/rules/search").withQueryStringParameter(parameter))
+      .respond(HttpResponse.response().withBody(body.toJSONString(), StandardCharsets.UTF_8));
+  }
+}
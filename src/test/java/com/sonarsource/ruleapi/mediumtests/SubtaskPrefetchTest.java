@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2014-2018 SonarSource SA
+ * All rights reserved
+ * mailto:info AT sonarsource DOT com
+ */
+package com.sonarsource.ruleapi.mediumtests;
+
+import com.sonarsource.ruleapi.domain.Rule;
+import com.sonarsource.ruleapi.get.JiraFetcherImpl;
+import com.sonarsource.ruleapi.get.RuleMaker;
+import org.apache.commons.io.IOUtils;
+import org.json.simple.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockserver.client.server.MockServerClient;
+import org.mockserver.junit.MockServerRule;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.verify.VerificationTimes;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.sonarsource.ruleapi.get.JsonFixtures.array;
+import static com.sonarsource.ruleapi.get.JsonFixtures.issue;
+import static com.sonarsource.ruleapi.get.JsonFixtures.named;
+import static com.sonarsource.ruleapi.get.JsonFixtures.searchPage;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockserver.model.Parameter.param;
+
+public class SubtaskPrefetchTest {
+
+  private static final String SUBTASK_SEARCH = "key in \\(RSPEC-2579\\)";
+
+  @org.junit.Rule
+  public MockServerRule mockServerRule = new MockServerRule(this);
+
+  // This field is populated by mockServerRule
+  private MockServerClient mockServerClient;
+
+  private String originalBaseUrl;
+
+  @Before
+  public void setup() throws IOException {
+    String baseUrl = String.format("http://localhost:%d/", mockServerRule.getPort());
+    originalBaseUrl = System.setProperty("ruleApi.baseUrl", baseUrl);
+
+    mockServerClient.when(
+      HttpRequest.request().withPath("/search").withQueryStringParameter(param("jql", "project=RSPEC"))
+    ).respond(
+      HttpResponse.response()
+        .withBody(IOUtils.toString(getClass().getResourceAsStream("/rspec-json/search.json"), StandardCharsets.UTF_8), StandardCharsets.UTF_8)
+    );
+
+    JSONObject subtask = issue("RSPEC-2579", new JSONObject(), "summary", "JSP", "labels", array("jsp-specific"),
+      "issuetype", named("Language-Specification"));
+    mockServerClient.when(
+      HttpRequest.request().withPath("/search").withQueryStringParameter(param("jql", SUBTASK_SEARCH))
+    ).respond(
+      HttpResponse.response()
+        .withBody(searchPage(0, 1000, 1, Collections.singletonList(subtask)).toJSONString(), StandardCharsets.UTF_8)
+    );
+  }
+
+  @After
+  public void restoreBaseUrl() {
+    JiraFetcherImpl.snapshot().invalidate();
+    if (originalBaseUrl == null) {
+      System.clearProperty("ruleApi.baseUrl");
+    } else {
+      System.setProperty("ruleApi.baseUrl", originalBaseUrl);
+    }
+  }
+
+  @Test
+  public void shouldFetchSubtasksOfSearchResultsAtOnce() {
+
+    List<Rule> rules = RuleMaker.getRulesByJql("key = RSPEC-2576", "JSP");
+
+    assertThat(rules).hasSize(1);
+    assertThat(rules.get(0).getTags()).contains("jsp-specific");
+    verifySubtaskFetchedOnlyBySearch();
+  }
+
+  @Test
+  public void shouldFetchRulesAndSubtasksByKeyAtOnce() {
+
+    JiraFetcherImpl.snapshot().get();
+    Map<String, Rule> rules = RuleMaker.getRulesByKey(Arrays.asList("S2576", "RSPEC-2576"), "JSP");
+
+    assertThat(rules).containsOnlyKeys("S2576", "RSPEC-2576");
+    assertThat(rules.get("S2576").getKey()).isEqualTo("RSPEC-2576");
+    assertThat(rules.get("S2576").getLookupKey()).isEqualTo("S2576");
+    assertThat(rules.get("RSPEC-2576").getTags()).contains("jsp-specific");
+    verifySubtaskFetchedOnlyBySearch();
+  }
+
+  @Test
+  public void shouldMakeEveryLanguageOfARuleAtOnce() {
+
+    JiraFetcherImpl.snapshot().get();
+    Map<String, Rule> rules = RuleMaker.getRulesByLanguage("S2576", Arrays.asList("JSP", "Java"));
+
+    assertThat(rules).containsOnlyKeys("JSP", "Java");
+    assertThat(rules.get("JSP").getTags()).contains("jsp-specific");
+    assertThat(rules.get("Java").getTags()).doesNotContain("jsp-specific");
+    verifySubtaskFetchedOnlyBySearch();
+
+    for (Map.Entry<String, Rule> entry : rules.entrySet()) {
+      Rule expected = RuleMaker.getRulesByKey(Collections.singletonList("S2576"), entry.getKey()).get("S2576");
+      assertThat(entry.getValue()).as(entry.getKey()).isEqualToComparingFieldByField(expected);
+    }
+  }
+
+  private void verifySubtaskFetchedOnlyBySearch() {
+    mockServerClient.verify(HttpRequest.request().withPath("/search").withQueryStringParameter(param("jql", SUBTASK_SEARCH)),
+      VerificationTimes.exactly(1));
+    mockServerClient.verify(HttpRequest.request().withPath("/issue/.*"), VerificationTimes.exactly(0));
+  }
+}
@@ -45,6 +45,7 @@ public class UpdateStandardsFromSeeSectionTest {
 
   @After
   public void restoreBaseUrl() {
+    JiraFetcherImpl.snapshot().invalidate();
     if (originalBaseUrl == null) {
       System.clearProperty("ruleApi.baseUrl");
     } else {
@@ -96,15 +97,7 @@ public class UpdateStandardsFromSeeSectionTest {
     IntegrityEnforcementService integrityService = new IntegrityEnforcementService("", "");
     integrityService.enforceTagReferenceIntegrity(SansTop25.Category.INSECURE_INTERACTION);
 
-    // Initial search
-    mockServerClient.verify(HttpRequest.request().withPath("/search").withQueryStringParameters(
-      param("expand", "names"),
-      param("jql", "project=RSPEC"),
-      param("maxResults", "1000"),
-      param("fields", "*all,-comment,-assignee,-project,-reporter,-creator,-votes,-watches,-parent"),
-      param("startAt", "0")
-    ));
-    // Search for "SANS Top 25" rules
+    // Search for "SANS Top 25" rules, sent to Jira for its text search
     mockServerClient.verify(HttpRequest.request().withPath("/search").withQueryStringParameters(
       param("expand", "names"),
       param("jql", "project=RSPEC " +
@@ -115,6 +108,8 @@ public class UpdateStandardsFromSeeSectionTest {
       param("fields", "*all,-comment,-assignee,-project,-reporter,-creator,-votes,-watches,-parent"),
       param("startAt", "0")
     ));
+    // without loading every RSPEC
+    mockServerClient.verify(HttpRequest.request().withPath("/search"), VerificationTimes.exactly(1));
     // Look for editmeta
     mockServerClient.verify(HttpRequest
       .request()
@@ -163,15 +158,7 @@ public class UpdateStandardsFromSeeSectionTest {
     IntegrityEnforcementService integrityService = new IntegrityEnforcementService("", "");
     integrityService.enforceTagReferenceIntegrity(SansTop25.Category.INSECURE_INTERACTION);
 
-    // Initial search
-    mockServerClient.verify(HttpRequest.request().withPath("/search").withQueryStringParameters(
-      param("expand", "names"),
-      param("jql", "project=RSPEC"),
-      param("maxResults", "1000"),
-      param("fields", "*all,-comment,-assignee,-project,-reporter,-creator,-votes,-watches,-parent"),
-      param("startAt", "0")
-    ));
-    // Search for "SANS Top 25" rules
+    // Search for "SANS Top 25" rules, sent to Jira for its text search
     mockServerClient.verify(HttpRequest.request().withPath("/search").withQueryStringParameters(
       param("expand", "names"),
       param("jql", "project=RSPEC " +
@@ -182,6 +169,8 @@ public class UpdateStandardsFromSeeSectionTest {
       param("fields", "*all,-comment,-assignee,-project,-reporter,-creator,-votes,-watches,-parent"),
       param("startAt", "0")
     ));
+    // without loading every RSPEC
+    mockServerClient.verify(HttpRequest.request().withPath("/search"), VerificationTimes.exactly(1));
     // No lookout for editmeta
     mockServerClient.verify(HttpRequest
       .request()
@@ -7,6 +7,7 @@ package com.sonarsource.ruleapi.services;
 
 import com.sonarsource.ruleapi.domain.Profile;
 import com.sonarsource.ruleapi.domain.Rule;
+import com.sonarsource.ruleapi.domain.RuleSummary;
 import com.sonarsource.ruleapi.externalspecifications.CodingStandard;
 import com.sonarsource.ruleapi.externalspecifications.SupportedStandard;
 import com.sonarsource.ruleapi.externalspecifications.misra.MisraC2004;
@@ -36,7 +37,7 @@ public class IntegrityEnforcementServiceTest {
   @Test
   public void testDoDropTargetedForIrrelevant() {
 
-    Rule rule = new Rule("Java");
+    RuleSummary rule = new RuleSummary();
     rule.getIrrelevantLanguages().add("C#");
     rule.getIrrelevantLanguages().add("PHP");
     rule.getTargetedLanguages().add("C#");
@@ -9,13 +9,17 @@ import com.sonarsource.ruleapi.domain.ReportAndBadge;
 import com.sonarsource.ruleapi.domain.RuleException;
 import com.sonarsource.ruleapi.utilities.Language;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFileAttributeView;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.stream.Stream;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -61,6 +65,70 @@ public class ReportServiceTest {
 
   }
 
+  @Test
+  public void writeReportAndBadgeStreamsTheReport() throws IOException {
+
+    String standardName = "bar";
+    ReportAndBadge rab = new ReportAndBadge();
+    rab.setReportRenderer(out -> out.append("<html>").append("streamed").append("</html>"));
+
+    Map<Language, ReportAndBadge> map = new HashMap<>();
+    map.put(Language.JAVA, rab);
+    Map.Entry<Language, ReportAndBadge> entry = map.entrySet().iterator().next();
+
+    String baseFileName = entry.getKey().getSq().concat("_").concat(standardName);
+    Path reportPath = Paths.get(ReportService.BASE_DIR.concat(ReportService.COVERAGE_DIR).concat(standardName).concat("/").concat(baseFileName).concat("_coverage.html"));
+    Files.deleteIfExists(reportPath);
+
+    rs.writeReportAndBadge(standardName, entry);
+
+    assertThat(new String(Files.readAllBytes(reportPath), StandardCharsets.UTF_8)).startsWith("<html>streamed</html>");
+    assertThat(rab.getReport()).isEqualTo("<html>streamed</html>");
+
+    rab.setReport("");
+    assertThat(rab.getReportRenderer()).isNull();
+    assertThat(rab.getReport()).isEmpty();
+  }
+
+  @Test
+  public void failedReportKeepsThePreviousOne() throws IOException {
+
+    String fileName = "failed_report.html";
+    Path reportPath = Paths.get(ReportService.BASE_DIR.concat(fileName));
+
+    ReportService.writeFile(fileName, "previous");
+
+    try {
+      ReportService.writeFile(fileName, out -> {
+        out.append("half");
+        throw new IOException("server gone");
+      });
+      Assert.fail("An exception should have been thrown.");
+    } catch (RuleException e) {
+
+    }
+
+    assertThat(new String(Files.readAllBytes(reportPath), StandardCharsets.UTF_8)).startsWith("previous");
+    try (Stream<Path> files = Files.list(reportPath.getParent())) {
+      assertThat(files.map(Path::toString)).noneMatch(name -> name.endsWith(".tmp"));
+    }
+  }
+
+  @Test
+  public void reportHasTheDefaultPermissions() throws IOException {
+
+    Path reportPath = Paths.get(ReportService.BASE_DIR.concat("permissions_report.html"));
+    Path referencePath = Paths.get(ReportService.BASE_DIR.concat("permissions_reference.html"));
+    Files.deleteIfExists(reportPath);
+    Files.deleteIfExists(referencePath);
+    Files.write(referencePath, "reference".getBytes(StandardCharsets.UTF_8));
+    Assume.assumeTrue(Files.getFileStore(referencePath).supportsFileAttributeView(PosixFileAttributeView.class));
+
+    ReportService.writeFile("permissions_report.html", "report");
+
+    assertThat(Files.getPosixFilePermissions(reportPath)).isEqualTo(Files.getPosixFilePermissions(referencePath));
+  }
+
   @Test
   public void writeCustomerReport(){
     String standardName = "foo";
@@ -126,4 +194,21 @@ public class ReportServiceTest {
     }
   }
 
+  @Test
+  public void testNoOutdatedWallboard() {
+
+    try {
+      rs.writeOutdatedRuleCountReportForWallboard(null);
+      Assert.fail("An exception should have been thrown.");
+    } catch (RuleException e) {
+
+    }
+    try {
+      rs.writeOutdatedRuleCountReportForWallboard("");
+      Assert.fail("An exception should have been thrown.");
+    } catch (RuleException e) {
+
+    }
+  }
+
 }
@@ -6,7 +6,10 @@
 package com.sonarsource.ruleapi.services;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.junit.contrib.java.lang.system.SystemOutRule;
 import java.util.Arrays;
 import org.junit.Rule;
@@ -86,4 +89,36 @@ public class SonarPediaFileServiceTest {
     assertThat(afterUpdate.getUpdateTimeStamp().toEpochMilli()).isGreaterThan(sonarpediaDateBeforeUpdate);
   }
 
+  @Test
+  public void shouldHandOutEachVariantOnceThenMakeRulesOnTheirOwn() {
+
+    List<String> made = new ArrayList<>();
+    SonarPediaFileService.RuleVariants ruleMaker = new SonarPediaFileService.RuleVariants(Arrays.asList("Java", "C#"),
+      (key, languages) -> {
+        made.add(key + " for all");
+        Map<String, com.sonarsource.ruleapi.domain.Rule> variants = new HashMap<>();
+        for (String language : languages) {
+          variants.put(language, new com.sonarsource.ruleapi.domain.Rule(language));
+        }
+        return variants;
+      },
+      (key, language) -> {
+        made.add(key + " for " + language);
+        return new com.sonarsource.ruleapi.domain.Rule(language);
+      });
+
+    assertThat(ruleMaker.apply("S100", "Java").getLanguage()).isEqualTo("Java");
+    // the same key given twice
+    assertThat(ruleMaker.apply("S100", "Java").getLanguage()).isEqualTo("Java");
+    assertThat(ruleMaker.apply("S200", "Java").getLanguage()).isEqualTo("Java");
+    ruleMaker.release("Java");
+
+    assertThat(ruleMaker.apply("S100", "C#").getLanguage()).isEqualTo("C#");
+    assertThat(ruleMaker.apply("S100", "C#").getLanguage()).isEqualTo("C#");
+    assertThat(ruleMaker.apply("S300", "C#").getLanguage()).isEqualTo("C#");
+    ruleMaker.release("C#");
+
+    assertThat(made).containsExactly("S100 for all", "S100 for Java", "S200 for all", "S100 for C#", "S300 for all");
+  }
+
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2014-2018 SonarSource SA
+ * All rights reserved
+ * mailto:info AT sonarsource DOT com
+ */
+package com.sonarsource.ruleapi.utilities;
+
+import com.sonarsource.ruleapi.domain.RuleException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ParallelTest {
+
+  @Test
+  public void shouldKeepInputOrder() {
+
+    List<Integer> inputs = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      inputs.add(i);
+    }
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+
+    List<String> results = Parallel.mapInOrder(inputs, 4, i -> {
+      threads.add(Thread.currentThread().getName());
+      sleep((50 - i) % 7);
+      return "#" + i;
+    });
+
+    assertThat(results).hasSize(50);
+    for (int i = 0; i < 50; i++) {
+      assertThat(results.get(i)).isEqualTo("#" + i);
+    }
+    assertThat(threads.size()).isBetween(1, 4);
+    assertThat(threads).doesNotContain(Thread.currentThread().getName());
+  }
+
+  @Test
+  public void shouldRunInCallingThreadWhenNotWorthIt() {
+
+    String caller = Thread.currentThread().getName();
+
+    assertThat(Parallel.mapInOrder(Arrays.asList(1, 2), 1, i -> Thread.currentThread().getName())).containsExactly(caller, caller);
+    assertThat(Parallel.mapInOrder(Collections.singletonList(1), 8, i -> Thread.currentThread().getName())).containsExactly(caller);
+    assertThat(Parallel.mapInOrder(Collections.<Integer>emptyList(), 8, i -> i)).isEmpty();
+  }
+
+  @Test
+  public void shouldRunNestedCallsOnTheOuterWorker() {
+
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+
+    List<List<String>> results = Parallel.mapInOrder(Arrays.asList(1, 2, 3, 4, 5, 6), 3, i ->
+      Parallel.mapInOrder(Arrays.asList(1, 2, 3, 4), 4, j -> {
+        String thread = Thread.currentThread().getName();
+        threads.add(thread);
+        sleep(j);
+        return thread;
+      }));
+
+    assertThat(threads.size()).isBetween(1, 3);
+    for (List<String> inner : results) {
+      assertThat(inner).hasSize(4).containsOnly(inner.get(0));
+    }
+    assertThat(Parallel.isWorkerThread()).isFalse();
+  }
+
+  @Test(expected = RuleException.class)
+  public void shouldRethrowFailure() {
+
+    Parallel.mapInOrder(Arrays.asList(1, 2, 3), 3, i -> {
+      if (i == 2) {
+        throw new RuleException("boom");
+      }
+      return i;
+    });
+  }
+
+  @Test
+  public void shouldReadParallelismProperty() {
+
+    try {
+      assertThat(Parallel.parallelism()).isEqualTo(4);
+      System.setProperty(Parallel.PARALLELISM_PROPERTY, "12");
+      assertThat(Parallel.parallelism()).isEqualTo(12);
+    } finally {
+      System.clearProperty(Parallel.PARALLELISM_PROPERTY);
+    }
+  }
+
+  @Test
+  public void shouldReadCpuParallelismProperty() {
+
+    try {
+      assertThat(Parallel.cpuParallelism()).isEqualTo(Runtime.getRuntime().availableProcessors());
+      System.setProperty(Parallel.CPU_PARALLELISM_PROPERTY, "16");
+      assertThat(Parallel.cpuParallelism()).isEqualTo(16);
+    } finally {
+      System.clearProperty(Parallel.CPU_PARALLELISM_PROPERTY);
+    }
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
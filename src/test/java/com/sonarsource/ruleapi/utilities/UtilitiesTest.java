@@ -27,6 +27,23 @@ public class UtilitiesTest {
     assertThat(dateString).contains(String.valueOf(ldt.getYear()));
   }
 
+  @Test
+  public void testGetPositiveIntProperty() {
+
+    String property = "ruleApi.test.intProperty";
+    try {
+      assertThat(Utilities.getPositiveIntProperty(property, 8)).isEqualTo(8);
+      System.setProperty(property, "3");
+      assertThat(Utilities.getPositiveIntProperty(property, 8)).isEqualTo(3);
+      System.setProperty(property, "zero");
+      assertThat(Utilities.getPositiveIntProperty(property, 8)).isEqualTo(8);
+      System.setProperty(property, "0");
+      assertThat(Utilities.getPositiveIntProperty(property, 8)).isEqualTo(8);
+    } finally {
+      System.clearProperty(property);
+    }
+  }
+
   @Test
   public void testNormalizeKey() {
     String key1 = "StrictMode";